@@ -0,0 +1,41 @@
+package io.life.inventory.controller;
+
+import io.life.inventory.dto.StockImportResult;
+import io.life.inventory.service.StockCsvService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/stock")
+@RequiredArgsConstructor
+public class StockCsvController {
+
+	private final StockCsvService csvService;
+
+	/**
+	 * Upsert stock rows from a CSV body (header: workstationId,itemType,itemId,quantity).
+	 * The body is streamed; per-row problems are reported in the result rather than failing the import.
+	 */
+	@PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+	public ResponseEntity<StockImportResult> importCsv(InputStream body) throws IOException {
+		return ResponseEntity.ok(csvService.importCsv(body));
+	}
+
+	/**
+	 * Stream every stock row, or those of one workstation, as CSV.
+	 */
+	@GetMapping(value = "/export", produces = "text/csv")
+	public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(required = false) Long workstationId) {
+		String filename = workstationId != null ? "stock-ws" + workstationId + ".csv" : "stock.csv";
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+				.body(output -> csvService.exportCsv(workstationId, output));
+	}
+
+}
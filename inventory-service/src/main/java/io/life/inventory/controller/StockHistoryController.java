@@ -0,0 +1,43 @@
+package io.life.inventory.controller;
+
+import io.life.inventory.dto.StockAsOfResult;
+import io.life.inventory.dto.StockMovementDto;
+import io.life.inventory.service.StockSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stock")
+@RequiredArgsConstructor
+public class StockHistoryController {
+
+	private final StockSnapshotService snapshotService;
+
+	/**
+	 * Stock levels of a workstation as they stood at an ISO-8601 local date-time.
+	 * Returns 404 when the instant predates the oldest snapshot of the workstation.
+	 */
+	@GetMapping("/workstation/{workstationId}/as-of")
+	public ResponseEntity<StockAsOfResult> getStockAsOf(
+			@PathVariable Long workstationId,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+		return ResponseEntity.ok(snapshotService.getStockAsOf(workstationId, at));
+	}
+
+	/**
+	 * Journalled stock movements of a workstation, oldest first. Both bounds are optional.
+	 */
+	@GetMapping("/workstation/{workstationId}/movements")
+	public ResponseEntity<List<StockMovementDto>> getMovements(
+			@PathVariable Long workstationId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(defaultValue = "100") int limit) {
+		return ResponseEntity.ok(snapshotService.getMovements(workstationId, from, to, limit));
+	}
+
+}
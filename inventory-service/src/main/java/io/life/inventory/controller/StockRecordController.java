@@ -1,11 +1,21 @@
 package io.life.inventory.controller;
 
+import io.life.inventory.dto.StockAdjustmentResult;
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockCheckResult;
+import io.life.inventory.dto.StockCommitRequest;
+import io.life.inventory.dto.StockCommitResult;
 import io.life.inventory.dto.StockRecordDto;
 import io.life.inventory.service.StockRecordService;
+import io.life.inventory.service.StockVersionTracker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/stock")
@@ -13,10 +23,14 @@ import java.util.List;
 public class StockRecordController {
 
 	private final StockRecordService service;
+	private final StockVersionTracker versionTracker;
 
+	/**
+	 * Full stock list. Answers a matching If-None-Match with 304 without loading the list.
+	 */
 	@GetMapping
-	public ResponseEntity<List<StockRecordDto>> getAllStockRecords() {
-		return ResponseEntity.ok(service.findAll());
+	public ResponseEntity<List<StockRecordDto>> getAllStockRecords(WebRequest request) {
+		return conditionalList(request, versionTracker.allEtag(), service::findAll);
 	}
 
 	@GetMapping("/{id}")
@@ -28,9 +42,14 @@ public class StockRecordController {
 		return ResponseEntity.notFound().build();
 	}
 
+	/**
+	 * Stock list of one workstation. Answers a matching If-None-Match with 304 without loading the list.
+	 */
 	@GetMapping("/workstation/{workstationId}")
-	public ResponseEntity<List<StockRecordDto>> getStockByWorkstation(@PathVariable Long workstationId) {
-		return ResponseEntity.ok(service.getStockByWorkstationId(workstationId));
+	public ResponseEntity<List<StockRecordDto>> getStockByWorkstation(@PathVariable Long workstationId,
+																	  WebRequest request) {
+		return conditionalList(request, versionTracker.workstationEtag(workstationId),
+				() -> service.getStockByWorkstationId(workstationId));
 	}
 
 	@GetMapping("/workstation/{workstationId}/item")
@@ -45,6 +64,15 @@ public class StockRecordController {
 		return ResponseEntity.notFound().build();
 	}
 
+	/**
+	 * Check availability for many (workstationId, itemType, itemId, quantity) lines at once.
+	 * Results are returned in request order.
+	 */
+	@PostMapping("/check-batch")
+	public ResponseEntity<List<StockCheckResult>> checkStockBatch(@RequestBody List<StockCheckRequest> lines) {
+		return ResponseEntity.ok(service.checkStockBatch(lines));
+	}
+
 	@PostMapping("/update")
 	public ResponseEntity<StockRecordDto> updateStock(
 			@RequestParam Long workstationId,
@@ -55,6 +83,40 @@ public class StockRecordController {
 		return ResponseEntity.ok(updated);
 	}
 
+	/**
+	 * Apply a signed delta to a stock row (negative = deduct, positive = credit).
+	 * Returns 200 with the new quantity, or 409 with status INSUFFICIENT_STOCK when a
+	 * deduction would drive stock below zero. The optional reason and orderReference are
+	 * stored on the movement journal entry.
+	 */
+	@PostMapping("/adjust")
+	public ResponseEntity<StockAdjustmentResult> adjustStock(
+			@RequestParam Long workstationId,
+			@RequestParam String itemType,
+			@RequestParam Long itemId,
+			@RequestParam Integer delta,
+			@RequestParam(required = false) String reason,
+			@RequestParam(required = false) String orderReference) {
+		StockAdjustmentResult result = service.adjustStock(workstationId, itemType, itemId, delta, reason, orderReference);
+		if (result.isApplied()) {
+			return ResponseEntity.ok(result);
+		}
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+	}
+
+	/**
+	 * Apply every deduction of an order in one transaction, or none of them.
+	 * Returns 200 when all lines were deducted, or 409 with the first shortfall and no changes made.
+	 */
+	@PostMapping("/commit")
+	public ResponseEntity<StockCommitResult> commitStock(@RequestBody StockCommitRequest request) {
+		StockCommitResult result = service.commitStock(request);
+		if (result.isCommitted()) {
+			return ResponseEntity.ok(result);
+		}
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+	}
+
 	@PostMapping
 	public ResponseEntity<StockRecordDto> createStockRecord(@RequestBody StockRecordDto dto) {
 		StockRecordDto created = service.save(dto);
@@ -67,4 +129,17 @@ public class StockRecordController {
 		return ResponseEntity.noContent().build();
 	}
 
+	/**
+	 * The ETag must be taken before the list is read; see {@link StockVersionTracker}.
+	 * no-cache lets browsers and the gateway keep the body but revalidate on every use.
+	 */
+	private ResponseEntity<List<StockRecordDto>> conditionalList(WebRequest request, String etag,
+																  Supplier<List<StockRecordDto>> list) {
+		if (request.checkNotModified(etag)) {
+			// checkNotModified has already written the 304 status and ETag header
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+		}
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list.get());
+	}
+
 }
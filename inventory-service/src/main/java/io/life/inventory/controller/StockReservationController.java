@@ -0,0 +1,53 @@
+package io.life.inventory.controller;
+
+import io.life.inventory.dto.StockReservationRequest;
+import io.life.inventory.dto.StockReservationResult;
+import io.life.inventory.entity.StockReservation;
+import io.life.inventory.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/stock/reservations")
+@RequiredArgsConstructor
+public class StockReservationController {
+
+	private final StockReservationService service;
+
+	/**
+	 * Hold stock for an order. Returns 201 with the holds, or 409 with the first shortfall and nothing held.
+	 */
+	@PostMapping
+	public ResponseEntity<StockReservationResult> hold(@RequestBody StockReservationRequest request) {
+		StockReservationResult result = service.hold(request);
+		if (result.isHeld()) {
+			return ResponseEntity.status(HttpStatus.CREATED).body(result);
+		}
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+	}
+
+	@GetMapping("/{orderReference}")
+	public ResponseEntity<StockReservationResult> getReservation(@PathVariable String orderReference) {
+		return ResponseEntity.ok(service.getReservation(orderReference));
+	}
+
+	/**
+	 * Deduct the held stock. Returns 409 when the hold had already expired or been released.
+	 */
+	@PostMapping("/{orderReference}/confirm")
+	public ResponseEntity<StockReservationResult> confirm(@PathVariable String orderReference) {
+		StockReservationResult result = service.confirm(orderReference);
+		if (StockReservation.CONFIRMED.equals(result.getStatus())) {
+			return ResponseEntity.ok(result);
+		}
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+	}
+
+	@PostMapping("/{orderReference}/release")
+	public ResponseEntity<StockReservationResult> release(@PathVariable String orderReference) {
+		return ResponseEntity.ok(service.release(orderReference));
+	}
+
+}
@@ -0,0 +1,44 @@
+package io.life.inventory.controller;
+
+import io.life.inventory.dto.StockHolder;
+import io.life.inventory.dto.StockItemTotal;
+import io.life.inventory.dto.StockTypeTotal;
+import io.life.inventory.exception.ValidationException;
+import io.life.inventory.service.StockRollupIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+/**
+ * Cross-workstation stock totals, answered from the in-memory rollup index.
+ */
+@RestController
+@RequestMapping("/api/stock/rollup")
+@RequiredArgsConstructor
+public class StockRollupController {
+
+	private final StockRollupIndex rollupIndex;
+
+	@GetMapping("/items/{itemType}/{itemId}")
+	public ResponseEntity<StockItemTotal> getItemTotal(@PathVariable String itemType, @PathVariable Long itemId) {
+		return ResponseEntity.ok(rollupIndex.getItemTotal(itemType, itemId));
+	}
+
+	@GetMapping("/items/{itemType}/{itemId}/holders")
+	public ResponseEntity<List<StockHolder>> getTopHolders(
+			@PathVariable String itemType,
+			@PathVariable Long itemId,
+			@RequestParam(defaultValue = "5") int limit) {
+		if (limit <= 0) {
+			throw new ValidationException("limit must be positive");
+		}
+		return ResponseEntity.ok(rollupIndex.getTopHolders(itemType, itemId, limit));
+	}
+
+	@GetMapping("/workstations/{workstationId}")
+	public ResponseEntity<List<StockTypeTotal>> getTypeTotals(@PathVariable Long workstationId) {
+		return ResponseEntity.ok(rollupIndex.getTypeTotals(workstationId));
+	}
+
+}
@@ -0,0 +1,29 @@
+package io.life.inventory.controller;
+
+import io.life.inventory.service.StockChangeFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stock")
+@RequiredArgsConstructor
+public class StockStreamController {
+
+	private final StockChangeFeed changeFeed;
+
+	/**
+	 * Server-Sent Events stream of stock changes for one workstation.
+	 * Starts with a full "snapshot" event unless Last-Event-ID (or lastEventId, for clients that
+	 * cannot set headers) names an event that can still be replayed.
+	 */
+	@GetMapping(value = "/workstation/{workstationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamStock(
+			@PathVariable Long workstationId,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+			@RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+		return changeFeed.subscribe(workstationId, lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+	}
+
+}
@@ -0,0 +1,40 @@
+package io.life.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a delta-based stock mutation.
+ *
+ * status is one of:
+ * APPLIED            - the delta was applied, quantity holds the new on-hand amount
+ * INSUFFICIENT_STOCK - a deduction would have driven stock below zero, nothing changed;
+ *                      quantity holds the on-hand amount at the time of the attempt
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentResult {
+
+	public static final String APPLIED = "APPLIED";
+	public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+	private String status;
+	private Long workstationId;
+	private String itemType;
+	private Long itemId;
+	private Integer delta;
+	private Integer quantity;
+	private Long version;
+	private String message;
+
+	@JsonIgnore
+	public boolean isApplied() {
+		return APPLIED.equals(status);
+	}
+
+}
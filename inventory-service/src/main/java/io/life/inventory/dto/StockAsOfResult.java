@@ -0,0 +1,34 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reconstructed stock levels of a workstation at a past instant: the nearest earlier
+ * snapshot plus every journalled movement between it and that instant.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfResult {
+
+	private Long workstationId;
+	private LocalDateTime asOf;
+	private LocalDateTime snapshotTakenAt;
+	private List<StockLevel> lines;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class StockLevel {
+		private String itemType;
+		private Long itemId;
+		private Integer quantity;
+	}
+
+}
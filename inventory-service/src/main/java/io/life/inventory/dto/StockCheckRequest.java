@@ -0,0 +1,20 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a batch stock availability check.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCheckRequest {
+
+	private Long workstationId;
+	private String itemType;
+	private Long itemId;
+	private Integer quantity;
+
+}
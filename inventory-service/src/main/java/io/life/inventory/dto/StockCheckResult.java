@@ -0,0 +1,24 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Availability answer for one line of a batch stock check.
+ * Lines are answered in request order; when several lines target the same stock row,
+ * each line is checked against what the preceding lines left over.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCheckResult {
+
+	private Long workstationId;
+	private String itemType;
+	private Long itemId;
+	private Integer requestedQuantity;
+	private Integer availableQuantity;
+	private boolean sufficient;
+
+}
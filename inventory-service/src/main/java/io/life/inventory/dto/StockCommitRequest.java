@@ -0,0 +1,21 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A set of deductions that must be applied together or not at all,
+ * e.g. every line of one customer order. Quantities are positive amounts to deduct.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommitRequest {
+
+	private String orderReference;
+	private List<StockCheckRequest> lines;
+
+}
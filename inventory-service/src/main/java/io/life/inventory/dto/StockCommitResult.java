@@ -0,0 +1,38 @@
+package io.life.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an all-or-nothing stock commit.
+ *
+ * status is one of:
+ * COMMITTED          - every deduction was applied; applied holds the new on-hand amounts
+ * INSUFFICIENT_STOCK - nothing changed; shortfall describes the first row that could not cover its lines
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockCommitResult {
+
+	public static final String COMMITTED = "COMMITTED";
+	public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+	private String status;
+	private String orderReference;
+	private List<StockAdjustmentResult> applied;
+	private StockCheckResult shortfall;
+	private String message;
+
+	@JsonIgnore
+	public boolean isCommitted() {
+		return COMMITTED.equals(status);
+	}
+
+}
@@ -0,0 +1,20 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One workstation's holding of an item, as listed by the top-holders rollup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHolder {
+
+	private Long workstationId;
+	private Integer quantity;
+	private Integer reservedQuantity;
+	private Integer availableQuantity;
+
+}
@@ -0,0 +1,34 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a CSV stock import. Rows are applied in batches; a rejected row does not stop
+ * the import. Only the first errors are listed (see errorsTruncated); rejected always holds the full count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockImportResult {
+
+	private long rowsRead;
+	private long inserted;
+	private long updated;
+	private long unchanged;
+	private long rejected;
+	private List<RowError> errors = new ArrayList<>();
+	private boolean errorsTruncated;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RowError {
+		private long line;
+		private String message;
+	}
+
+}
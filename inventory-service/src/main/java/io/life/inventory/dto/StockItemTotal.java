@@ -0,0 +1,22 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of one item summed over every workstation that holds a row for it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockItemTotal {
+
+	private String itemType;
+	private Long itemId;
+	private Long totalQuantity;
+	private Long totalReserved;
+	private Long totalAvailable;
+	private Integer workstationCount;
+
+}
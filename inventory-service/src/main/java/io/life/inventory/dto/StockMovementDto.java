@@ -0,0 +1,22 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDto {
+
+	private Long id;
+	private Long workstationId;
+	private String itemType;
+	private Long itemId;
+	private Integer delta;
+	private String reason;
+	private String orderReference;
+	private LocalDateTime occurredAt;
+
+}
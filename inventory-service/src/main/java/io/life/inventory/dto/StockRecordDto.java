@@ -15,6 +15,7 @@ public class StockRecordDto {
 	private String itemType;
 	private Long itemId;
 	private Integer quantity;
+	private Integer reservedQuantity;
 	private LocalDateTime lastUpdated;
 
 }
@@ -0,0 +1,22 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to hold stock for an order. All lines are held together or not at all.
+ * ttlSeconds is optional; the service default applies when it is omitted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequest {
+
+	private String orderReference;
+	private Long ttlSeconds;
+	private List<StockCheckRequest> lines;
+
+}
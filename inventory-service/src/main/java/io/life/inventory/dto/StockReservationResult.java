@@ -0,0 +1,39 @@
+package io.life.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.life.inventory.entity.StockReservation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of an order's reservation after a hold, confirm or release.
+ *
+ * status is one of the {@link StockReservation} statuses, or INSUFFICIENT_STOCK when a hold
+ * could not be placed; in that case nothing is held and shortfall describes the first short row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationResult {
+
+	public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+	private String status;
+	private String orderReference;
+	private LocalDateTime expiresAt;
+	private List<StockCheckRequest> lines;
+	private StockCheckResult shortfall;
+	private String message;
+
+	@JsonIgnore
+	public boolean isHeld() {
+		return StockReservation.HELD.equals(status);
+	}
+
+}
@@ -0,0 +1,21 @@
+package io.life.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of one item type at one workstation, summed over its items.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTypeTotal {
+
+	private Long workstationId;
+	private String itemType;
+	private Long totalQuantity;
+	private Long totalReserved;
+	private Integer itemCount;
+
+}
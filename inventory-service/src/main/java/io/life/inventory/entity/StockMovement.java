@@ -0,0 +1,60 @@
+package io.life.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable record of one change to a stock row's on-hand quantity.
+ * Rows are only ever inserted, in batches, by {@link io.life.inventory.service.StockMovementRecorder}.
+ *
+ * reason is one of the REASON_* constants unless the caller supplied its own.
+ */
+@Entity
+@Table(
+		name = "stock_movements",
+		indexes = {
+				@Index(name = "idx_stock_movements_ws_id", columnList = "workstation_id, id"),
+				@Index(name = "idx_stock_movements_ws_time", columnList = "workstation_id, occurred_at")
+		}
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+	public static final String REASON_ADJUST = "ADJUST";
+	public static final String REASON_COMMIT = "COMMIT";
+	public static final String REASON_UPDATE = "UPDATE";
+	public static final String REASON_CREATE = "CREATE";
+	public static final String REASON_DELETE = "DELETE";
+	public static final String REASON_RESERVATION_CONFIRM = "RESERVATION_CONFIRM";
+	public static final String REASON_IMPORT = "IMPORT";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private Long workstationId;
+
+	@Column(nullable = false, length = 50)
+	private String itemType;
+
+	@Column(nullable = false)
+	private Long itemId;
+
+	@Column(nullable = false)
+	private Integer delta;
+
+	@Column(nullable = false, length = 50)
+	private String reason;
+
+	@Column(length = 100)
+	private String orderReference;
+
+	@Column(nullable = false)
+	private LocalDateTime occurredAt;
+}
@@ -7,7 +7,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_records")
+@Table(
+		name = "stock_records",
+		uniqueConstraints = @UniqueConstraint(
+				name = "uk_stock_records_workstation_item",
+				columnNames = {"workstation_id", "item_type", "item_id"}
+		)
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,9 +35,28 @@ public class StockRecord {
 	@Column(nullable = false)
 	private Integer quantity;
 
+	/**
+	 * Portion of {@link #quantity} held by active reservations. Maintained incrementally by
+	 * {@link io.life.inventory.service.StockReservationService}; available = quantity - reservedQuantity.
+	 */
+	@Column(nullable = false, columnDefinition = "INTEGER DEFAULT 0")
+	private Integer reservedQuantity = 0;
+
 	@Column(nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
 	private LocalDateTime lastUpdated;
 
+	/**
+	 * Optimistic lock version. Bumped by every JPA save and by the conditional
+	 * delta UPDATE in {@link io.life.inventory.repository.StockRecordRepository#applyDelta}.
+	 */
+	@Version
+	@Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+	private Long version;
+
+	public int getAvailableQuantity() {
+		return quantity - (reservedQuantity != null ? reservedQuantity : 0);
+	}
+
 	@PreUpdate
 	@PrePersist
 	public void updateTimestamp() {
@@ -0,0 +1,43 @@
+package io.life.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One sub-counter of a hot stock row. The row's on-hand quantity is its own quantity plus the
+ * delta of every slice; see {@link io.life.inventory.service.HotStockSlices}. delta never goes negative.
+ */
+@Entity
+@Table(
+		name = "stock_record_slices",
+		uniqueConstraints = @UniqueConstraint(
+				name = "uk_stock_record_slices_row_slice",
+				columnNames = {"workstation_id", "item_type", "item_id", "slice_no"}
+		)
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockRecordSlice {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private Long workstationId;
+
+	@Column(nullable = false, length = 50)
+	private String itemType;
+
+	@Column(nullable = false)
+	private Long itemId;
+
+	@Column(nullable = false)
+	private Integer sliceNo;
+
+	@Column(nullable = false)
+	private Integer delta;
+}
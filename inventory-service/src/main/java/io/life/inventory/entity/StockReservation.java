@@ -0,0 +1,78 @@
+package io.life.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A soft allocation of stock against an order. While HELD, its quantity is counted in
+ * {@link StockRecord#getReservedQuantity()} and cannot be consumed by other orders.
+ *
+ * status is one of:
+ * HELD      - active hold, expires at expiresAt unless confirmed or released
+ * CONFIRMED - the held quantity was deducted from on-hand stock
+ * RELEASED  - the hold was given back by the caller
+ * EXPIRED   - the hold was given back by the expiry sweeper
+ *
+ * While HELD, activeReference repeats the order reference; it is cleared when the hold is
+ * resolved. Its unique key with lineNumber lets only one active hold per order reference exist,
+ * because every hold has a line 0.
+ */
+@Entity
+@Table(
+		name = "stock_reservations",
+		indexes = {
+				@Index(name = "idx_stock_reservations_order_ref", columnList = "order_reference"),
+				@Index(name = "idx_stock_reservations_status_expiry", columnList = "status, expires_at")
+		},
+		uniqueConstraints = {
+				@UniqueConstraint(name = "uk_stock_reservations_active_line", columnNames = {"active_reference", "line_number"})
+		}
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+	public static final String HELD = "HELD";
+	public static final String CONFIRMED = "CONFIRMED";
+	public static final String RELEASED = "RELEASED";
+	public static final String EXPIRED = "EXPIRED";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 100)
+	private String orderReference;
+
+	@Column(length = 100)
+	private String activeReference;
+
+	private Integer lineNumber;
+
+	@Column(nullable = false)
+	private Long workstationId;
+
+	@Column(nullable = false, length = 50)
+	private String itemType;
+
+	@Column(nullable = false)
+	private Long itemId;
+
+	@Column(nullable = false)
+	private Integer quantity;
+
+	@Column(nullable = false, length = 20)
+	private String status;
+
+	@Column(nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(nullable = false)
+	private LocalDateTime expiresAt;
+
+	private LocalDateTime resolvedAt;
+}
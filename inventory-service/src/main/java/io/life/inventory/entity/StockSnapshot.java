@@ -0,0 +1,37 @@
+package io.life.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Stock levels of one workstation as of a point in the movement journal.
+ *
+ * The snapshot covers every {@link StockMovement} with id up to and including lastMovementId;
+ * its quantities are held in {@link StockSnapshotLine} rows.
+ */
+@Entity
+@Table(
+		name = "stock_snapshots",
+		indexes = @Index(name = "idx_stock_snapshots_ws_time", columnList = "workstation_id, taken_at")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private Long workstationId;
+
+	@Column(nullable = false)
+	private LocalDateTime takenAt;
+
+	@Column(nullable = false)
+	private Long lastMovementId;
+}
@@ -0,0 +1,36 @@
+package io.life.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One item's quantity within a {@link StockSnapshot}.
+ */
+@Entity
+@Table(
+		name = "stock_snapshot_lines",
+		indexes = @Index(name = "idx_stock_snapshot_lines_snapshot", columnList = "snapshot_id")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshotLine {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false)
+	private Long snapshotId;
+
+	@Column(nullable = false, length = 50)
+	private String itemType;
+
+	@Column(nullable = false)
+	private Long itemId;
+
+	@Column(nullable = false)
+	private Integer quantity;
+}
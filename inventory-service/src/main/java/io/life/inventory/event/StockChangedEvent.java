@@ -0,0 +1,8 @@
+package io.life.inventory.event;
+
+/**
+ * Published whenever a stock row's quantity or reserved quantity changes, or the row is
+ * created or deleted. Listeners bound to the transaction phase only see changes that committed.
+ */
+public record StockChangedEvent(Long workstationId, String itemType, Long itemId) {
+}
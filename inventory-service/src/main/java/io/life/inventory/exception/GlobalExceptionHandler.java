@@ -82,6 +82,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Handle StockConflictException
+     */
+    @ExceptionHandler(StockConflictException.class)
+    public ResponseEntity<ErrorResponse> handleStockConflictException(
+            StockConflictException ex,
+            WebRequest request) {
+        
+        logger.warn("Stock conflict: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Stock conflict",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle MethodArgumentNotValidException (for @Valid annotation)
      */
@@ -0,0 +1,16 @@
+package io.life.inventory.exception;
+
+/**
+ * Exception thrown when a stock mutation keeps colliding with concurrent writers
+ * and the bounded retry budget is exhausted.
+ */
+public class StockConflictException extends UserServiceException {
+
+    public StockConflictException(String message) {
+        super(message);
+    }
+
+    public StockConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package io.life.inventory.repository;
+
+import io.life.inventory.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+	List<StockMovement> findByWorkstationIdAndOccurredAtBetweenOrderByIdAsc(
+			Long workstationId,
+			LocalDateTime from,
+			LocalDateTime to,
+			Pageable pageable
+	);
+
+	@Query("SELECT COALESCE(MAX(m.id), 0) FROM StockMovement m")
+	long findMaxId();
+
+	@Query("SELECT DISTINCT m.workstationId FROM StockMovement m WHERE m.id > :afterId")
+	List<Long> findWorkstationsMovedAfter(@Param("afterId") long afterId);
+
+	/**
+	 * Net delta per item for a workstation over the id range (afterId, uptoId].
+	 *
+	 * @return rows of [itemType, itemId, sum(delta)]
+	 */
+	@Query("SELECT m.itemType, m.itemId, SUM(m.delta) FROM StockMovement m "
+			+ "WHERE m.workstationId = :workstationId AND m.id > :afterId AND m.id <= :uptoId "
+			+ "GROUP BY m.itemType, m.itemId")
+	List<Object[]> sumDeltasBetween(@Param("workstationId") Long workstationId,
+									@Param("afterId") long afterId,
+									@Param("uptoId") long uptoId);
+
+	/**
+	 * Net delta per item for a workstation over movements after afterId that happened at or before the instant.
+	 *
+	 * @return rows of [itemType, itemId, sum(delta)]
+	 */
+	@Query("SELECT m.itemType, m.itemId, SUM(m.delta) FROM StockMovement m "
+			+ "WHERE m.workstationId = :workstationId AND m.id > :afterId AND m.occurredAt <= :asOf "
+			+ "GROUP BY m.itemType, m.itemId")
+	List<Object[]> sumDeltasAsOf(@Param("workstationId") Long workstationId,
+								 @Param("afterId") long afterId,
+								 @Param("asOf") LocalDateTime asOf);
+
+}
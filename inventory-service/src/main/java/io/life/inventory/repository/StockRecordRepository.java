@@ -1,8 +1,15 @@
 package io.life.inventory.repository;
 
 import io.life.inventory.entity.StockRecord;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +26,54 @@ public interface StockRecordRepository extends JpaRepository<StockRecord, Long>
 
 	List<StockRecord> findByItemTypeAndItemId(String itemType, Long itemId);
 
+	/**
+	 * Rows of several items of one type at one workstation; resolved through the unique key index.
+	 */
+	List<StockRecord> findByWorkstationIdAndItemTypeAndItemIdIn(
+			Long workstationId,
+			String itemType,
+			Collection<Long> itemIds
+	);
+
+	/**
+	 * Load a single stock row and hold a write lock on it until the surrounding transaction ends.
+	 * Callers locking several rows must do so in a consistent order to avoid deadlocks.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT s FROM StockRecord s "
+			+ "WHERE s.workstationId = :workstationId AND s.itemType = :itemType AND s.itemId = :itemId")
+	Optional<StockRecord> findForUpdate(@Param("workstationId") Long workstationId,
+										@Param("itemType") String itemType,
+										@Param("itemId") Long itemId);
+
+	/**
+	 * On-hand quantity of a row plus whatever its hot-row slices hold, read in one statement so a
+	 * concurrent fold is seen either entirely or not at all. Empty when the row does not exist.
+	 */
+	@Query(value = "SELECT r.quantity + COALESCE((SELECT SUM(s.delta) FROM stock_record_slices s "
+			+ "WHERE s.workstation_id = r.workstation_id AND s.item_type = r.item_type AND s.item_id = r.item_id), 0) "
+			+ "FROM stock_records r WHERE r.workstation_id = :workstationId AND r.item_type = :itemType "
+			+ "AND r.item_id = :itemId", nativeQuery = true)
+	Optional<Integer> findOnHandWithSlices(@Param("workstationId") Long workstationId,
+										   @Param("itemType") String itemType,
+										   @Param("itemId") Long itemId);
+
+	/**
+	 * Atomically add {@code delta} to the quantity of a single stock row.
+	 * The row is only touched when the resulting quantity still covers the reserved amount,
+	 * so concurrent deductions can never drive stock below zero or eat into reservations.
+	 *
+	 * @return number of rows updated (1 = applied, 0 = row missing or insufficient stock)
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE StockRecord s SET s.quantity = s.quantity + :delta, "
+			+ "s.version = s.version + 1, s.lastUpdated = :now "
+			+ "WHERE s.workstationId = :workstationId AND s.itemType = :itemType AND s.itemId = :itemId "
+			+ "AND s.quantity + :delta >= s.reservedQuantity")
+	int applyDelta(@Param("workstationId") Long workstationId,
+				   @Param("itemType") String itemType,
+				   @Param("itemId") Long itemId,
+				   @Param("delta") int delta,
+				   @Param("now") LocalDateTime now);
+
 }
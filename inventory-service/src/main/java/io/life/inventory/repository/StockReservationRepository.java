@@ -0,0 +1,31 @@
+package io.life.inventory.repository;
+
+import io.life.inventory.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+	List<StockReservation> findByOrderReferenceOrderByIdAsc(String orderReference);
+
+	List<StockReservation> findByOrderReferenceAndStatus(String orderReference, String status);
+
+	/**
+	 * Lock the active holds of one order. Reservations are always locked before the stock rows
+	 * they touch, so confirm, release and expiry of the same order serialise without deadlocking.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT r FROM StockReservation r WHERE r.orderReference = :orderReference AND r.status = 'HELD' ORDER BY r.id")
+	List<StockReservation> findHeldForUpdate(@Param("orderReference") String orderReference);
+
+	@Query("SELECT DISTINCT r.orderReference FROM StockReservation r WHERE r.status = 'HELD' AND r.expiresAt < :now")
+	List<String> findExpiredOrderReferences(@Param("now") LocalDateTime now);
+
+}
@@ -0,0 +1,13 @@
+package io.life.inventory.repository;
+
+import io.life.inventory.entity.StockSnapshotLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface StockSnapshotLineRepository extends JpaRepository<StockSnapshotLine, Long> {
+
+	List<StockSnapshotLine> findBySnapshotId(Long snapshotId);
+
+}
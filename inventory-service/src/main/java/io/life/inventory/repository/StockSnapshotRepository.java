@@ -0,0 +1,24 @@
+package io.life.inventory.repository;
+
+import io.life.inventory.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+	Optional<StockSnapshot> findTopByWorkstationIdOrderByLastMovementIdDesc(Long workstationId);
+
+	Optional<StockSnapshot> findTopByWorkstationIdAndTakenAtLessThanEqualOrderByTakenAtDesc(
+			Long workstationId,
+			LocalDateTime takenAt
+	);
+
+	@Query("SELECT DISTINCT s.workstationId FROM StockSnapshot s")
+	List<Long> findSnapshottedWorkstationIds();
+
+}
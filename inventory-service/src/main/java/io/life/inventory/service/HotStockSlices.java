@@ -0,0 +1,234 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.entity.StockRecord;
+import io.life.inventory.repository.StockRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sub-counters for designated hot stock rows ({@code inventory.hot-records.keys}).
+ *
+ * Each hot row gets {@code inventory.hot-records.slices} slice rows, and its on-hand quantity is
+ * the row's own quantity plus the delta of every slice. An adjustment picks a slice by thread and
+ * touches only that slice in one statement: a credit always lands there, a debit lands there when
+ * the slice alone can cover it. Concurrent adjusters of the same item therefore spread their row
+ * locks over the slices instead of queueing on the single stock row.
+ *
+ * Slices never go negative and only ever hold units on top of the row, so the row's own quantity
+ * keeps covering its reserved amount and a slice debit can never eat into reservations. Anything
+ * that needs the exact total under a lock (commit, reserve, absolute update, delete, a debit the
+ * slice could not cover) locks the row and folds the slices into it first. Slices are also folded
+ * back in the background and at startup, before the stock ledger loads.
+ *
+ * Only used while the stock ledger is off; the ledger already keeps hot rows in memory.
+ */
+@Component
+@Slf4j
+public class HotStockSlices {
+
+	private static final String CREDIT_SQL = "UPDATE stock_record_slices SET delta = delta + ? "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ? AND slice_no = ?";
+	private static final String DEBIT_SQL = "UPDATE stock_record_slices SET delta = delta - ? "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ? AND slice_no = ? AND delta >= ?";
+	private static final String LOCK_SQL = "SELECT delta FROM stock_record_slices "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ? FOR UPDATE";
+	private static final String CLEAR_SQL = "UPDATE stock_record_slices SET delta = 0 "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ? AND delta <> 0";
+	private static final String DELETE_SQL = "DELETE FROM stock_record_slices "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ?";
+	private static final String SLICE_NOS_SQL = "SELECT slice_no FROM stock_record_slices "
+			+ "WHERE workstation_id = ? AND item_type = ? AND item_id = ?";
+	private static final String INSERT_SQL = "INSERT INTO stock_record_slices "
+			+ "(workstation_id, item_type, item_id, slice_no, delta) VALUES (?, ?, ?, ?, 0)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final StockRecordRepository repository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectProvider<StockLedger> ledgerProvider;
+	private final Set<StockCheckRequest> hotKeys = new TreeSet<>(StockRecordService.LOCK_ORDER);
+	private final int slices;
+
+	public HotStockSlices(JdbcTemplate jdbcTemplate,
+						  StockRecordRepository repository,
+						  TransactionTemplate transactionTemplate,
+						  ObjectProvider<StockLedger> ledgerProvider,
+						  @Value("${inventory.hot-records.keys:}") List<String> keys,
+						  @Value("${inventory.hot-records.slices:8}") int slices) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.repository = repository;
+		this.transactionTemplate = transactionTemplate;
+		this.ledgerProvider = ledgerProvider;
+		this.slices = Math.max(1, slices);
+		for (String key : keys) {
+			if (!key.isBlank()) {
+				hotKeys.add(parseKey(key.trim()));
+			}
+		}
+	}
+
+	/**
+	 * Whether adjustments to this row go through its slices right now.
+	 */
+	public boolean isHot(Long workstationId, String itemType, Long itemId) {
+		if (hotKeys.isEmpty() || !hotKeys.contains(new StockCheckRequest(workstationId, itemType, itemId, null))) {
+			return false;
+		}
+		StockLedger ledger = ledgerProvider.getIfAvailable();
+		return ledger == null || !ledger.isLoaded();
+	}
+
+	/**
+	 * Apply a delta to the calling thread's slice of a hot row. Returns false, changing nothing,
+	 * when the row is not hot, has no slices, or (for a debit) the slice cannot cover the delta;
+	 * the caller then adjusts the row itself.
+	 */
+	public boolean tryAdjust(Long workstationId, String itemType, Long itemId, int delta) {
+		if (delta == 0 || !isHot(workstationId, itemType, itemId)) {
+			return false;
+		}
+		int sliceNo = (int) (Thread.currentThread().threadId() % slices);
+		int updated = delta > 0
+				? jdbcTemplate.update(CREDIT_SQL, delta, workstationId, itemType, itemId, sliceNo)
+				: jdbcTemplate.update(DEBIT_SQL, -delta, workstationId, itemType, itemId, sliceNo, -delta);
+		return updated == 1;
+	}
+
+	/**
+	 * On-hand quantity of a row including its slices. For rows that are not hot (or are gone)
+	 * this is simply the row's own quantity.
+	 */
+	public int onHand(StockRecord record) {
+		if (!isHot(record.getWorkstationId(), record.getItemType(), record.getItemId())) {
+			return record.getQuantity();
+		}
+		// Through the repository so it shares the caller's JPA connection rather than taking a second one
+		return repository.findOnHandWithSlices(record.getWorkstationId(), record.getItemType(), record.getItemId())
+				.orElse(record.getQuantity());
+	}
+
+	/**
+	 * Move a row's slice units into the row. The caller must hold the row lock inside a
+	 * transaction; the row entity is updated in place and flushed with that transaction.
+	 *
+	 * @return the number of units folded in
+	 */
+	public int foldInto(StockRecord lockedRecord) {
+		int folded = drain(lockedRecord.getWorkstationId(), lockedRecord.getItemType(), lockedRecord.getItemId());
+		if (folded != 0) {
+			lockedRecord.setQuantity(lockedRecord.getQuantity() + folded);
+			lockedRecord.setLastUpdated(LocalDateTime.now());
+		}
+		return folded;
+	}
+
+	/**
+	 * Zero a row's slices without touching the row and return what they held; used when the
+	 * row's quantity is about to be overwritten. The caller must hold the row lock.
+	 */
+	public int drain(Long workstationId, String itemType, Long itemId) {
+		if (!isHot(workstationId, itemType, itemId)) {
+			return 0;
+		}
+		int sum = jdbcTemplate.queryForList(LOCK_SQL, Integer.class, workstationId, itemType, itemId).stream()
+				.mapToInt(Integer::intValue).sum();
+		if (sum != 0) {
+			jdbcTemplate.update(CLEAR_SQL, workstationId, itemType, itemId);
+		}
+		return sum;
+	}
+
+	/**
+	 * Drop a row's slices along with the row; returns what they held. The caller must hold the row lock.
+	 */
+	public int remove(Long workstationId, String itemType, Long itemId) {
+		int sum = drain(workstationId, itemType, itemId);
+		if (isHot(workstationId, itemType, itemId)) {
+			jdbcTemplate.update(DELETE_SQL, workstationId, itemType, itemId);
+		}
+		return sum;
+	}
+
+	/**
+	 * Fold every hot row's slices into the row and make sure each existing hot row has its
+	 * full set of slices. Runs at startup ahead of the stock ledger load, then periodically.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(-1)
+	public void foldAll() {
+		if (hotKeys.isEmpty()) {
+			return;
+		}
+		int total = 0;
+		for (StockCheckRequest key : hotKeys) {
+			try {
+				Integer folded = transactionTemplate.execute(status -> repository
+						.findForUpdate(key.getWorkstationId(), key.getItemType(), key.getItemId())
+						.map(record -> {
+							ensureSlices(key);
+							int units = foldInto(record);
+							repository.flush();
+							return units;
+						})
+						.orElse(0));
+				total += folded != null ? folded : 0;
+			} catch (DataAccessException e) {
+				log.warn("Could not fold slices of WS-{} {} #{}: {}",
+						key.getWorkstationId(), key.getItemType(), key.getItemId(), e.getMessage());
+			}
+		}
+		if (total != 0) {
+			log.debug("Folded {} unit(s) from hot stock slices", total);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${inventory.hot-records.fold-interval-ms:1000}",
+			initialDelayString = "${inventory.hot-records.fold-interval-ms:1000}")
+	public void scheduledFold() {
+		if (isActive()) {
+			foldAll();
+		}
+	}
+
+	private boolean isActive() {
+		StockLedger ledger = ledgerProvider.getIfAvailable();
+		return !hotKeys.isEmpty() && (ledger == null || !ledger.isLoaded());
+	}
+
+	private void ensureSlices(StockCheckRequest key) {
+		Set<Integer> present = new TreeSet<>(jdbcTemplate.queryForList(SLICE_NOS_SQL, Integer.class,
+				key.getWorkstationId(), key.getItemType(), key.getItemId()));
+		List<Object[]> missing = new ArrayList<>();
+		for (int sliceNo = 0; sliceNo < slices; sliceNo++) {
+			if (!present.contains(sliceNo)) {
+				missing.add(new Object[]{key.getWorkstationId(), key.getItemType(), key.getItemId(), sliceNo});
+			}
+		}
+		if (!missing.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_SQL, missing);
+		}
+	}
+
+	private static StockCheckRequest parseKey(String key) {
+		String[] parts = key.split(":");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException(
+					"inventory.hot-records.keys entries must look like workstationId:itemType:itemId, got " + key);
+		}
+		return new StockCheckRequest(Long.parseLong(parts[0].trim()), parts[1].trim(), Long.parseLong(parts[2].trim()), null);
+	}
+}
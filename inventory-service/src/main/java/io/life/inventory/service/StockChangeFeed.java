@@ -0,0 +1,180 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.event.StockChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes committed stock row changes to Server-Sent Events subscribers, per workstation.
+ *
+ * A new subscriber first receives a "snapshot" event with the workstation's full stock list,
+ * then one "stock" event per changed row ("stock-removed" for deleted rows). Every event carries
+ * a feed-wide increasing id; a client that reconnects with Last-Event-ID gets the events it missed
+ * from a bounded replay buffer, or a fresh snapshot if the buffer no longer reaches back that far.
+ * Ids are seeded from the clock at startup, so ids handed out before a restart always fall
+ * outside the buffer and resync with a snapshot.
+ *
+ * All reads, sends and buffer updates run on a single feed thread, which keeps event order
+ * identical for every subscriber and keeps slow clients off the request threads. Changed rows
+ * are coalesced and re-read in batches (see {@link StockRowRefresher}), so a burst of changes
+ * to one row produces one event carrying its latest state.
+ */
+@Service
+@Slf4j
+public class StockChangeFeed {
+
+	static final String EVENT_SNAPSHOT = "snapshot";
+	static final String EVENT_STOCK = "stock";
+	static final String EVENT_STOCK_REMOVED = "stock-removed";
+
+	private record FeedEvent(long id, Long workstationId, String name, Object data) {
+	}
+
+	private final StockRecordService stockRecordService;
+	private final StockRowRefresher feedThread;
+	private final long emitterTimeoutMs;
+	private final long reconnectMs;
+	private final int replayBufferSize;
+
+	private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+	// Only touched on the feed thread
+	private final ArrayDeque<FeedEvent> replayBuffer = new ArrayDeque<>();
+	private long lastEventId = System.currentTimeMillis() * 1000;
+
+	public StockChangeFeed(StockRecordService stockRecordService,
+						   @Value("${inventory.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+						   @Value("${inventory.stream.reconnect-ms:3000}") long reconnectMs,
+						   @Value("${inventory.stream.replay-buffer-size:1000}") int replayBufferSize,
+						   @Value("${inventory.stream.refresh-batch-size:500}") int refreshBatchSize) {
+		this.stockRecordService = stockRecordService;
+		this.feedThread = new StockRowRefresher("stock-feed", stockRecordService, refreshBatchSize,
+				refreshes -> refreshes.forEach(this::publish));
+		this.feedThread.start();
+		this.emitterTimeoutMs = emitterTimeoutMs;
+		this.reconnectMs = reconnectMs;
+		this.replayBufferSize = replayBufferSize;
+	}
+
+	/**
+	 * Open a stream for one workstation, resuming after lastSeenEventId when it is given and still buffered.
+	 */
+	public SseEmitter subscribe(Long workstationId, Long lastSeenEventId) {
+		SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+		emitter.onCompletion(() -> unsubscribe(workstationId, emitter));
+		emitter.onTimeout(() -> unsubscribe(workstationId, emitter));
+		emitter.onError(e -> unsubscribe(workstationId, emitter));
+		feedThread.execute(() -> {
+			if (lastSeenEventId != null && canResumeFrom(lastSeenEventId)) {
+				for (FeedEvent event : replayBuffer) {
+					if (event.id() > lastSeenEventId && event.workstationId().equals(workstationId)
+							&& !send(emitter, event)) {
+						return;
+					}
+				}
+			} else if (!send(emitter, new FeedEvent(lastEventId, workstationId, EVENT_SNAPSHOT,
+					stockRecordService.getStockByWorkstationId(workstationId)))) {
+				return;
+			}
+			subscribers.computeIfAbsent(workstationId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+			log.debug("Stock feed subscriber added for WS-{} (resume from {})", workstationId, lastSeenEventId);
+		});
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStockChanged(StockChangedEvent event) {
+		feedThread.changed(event);
+	}
+
+	/**
+	 * Comment line on every open stream, so proxies keep idle connections open and dead clients are noticed.
+	 */
+	@Scheduled(fixedDelayString = "${inventory.stream.heartbeat-ms:15000}")
+	public void heartbeat() {
+		feedThread.execute(() -> subscribers.forEach((workstationId, emitters) -> {
+			for (SseEmitter emitter : emitters) {
+				try {
+					emitter.send(SseEmitter.event().comment("heartbeat"));
+				} catch (IOException | IllegalStateException e) {
+					drop(workstationId, emitter, e);
+				}
+			}
+		}));
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		feedThread.shutdown();
+		subscribers.values().forEach(emitters -> emitters.forEach(emitter -> {
+			try {
+				emitter.complete();
+			} catch (IllegalStateException e) {
+				// The container already recycled this response
+			}
+		}));
+		subscribers.clear();
+	}
+
+	private void publish(StockRowRefresher.Refresh refresh) {
+		StockChangedEvent change = refresh.key();
+		StockRecordDto row = refresh.row();
+		FeedEvent event = row != null
+				? new FeedEvent(++lastEventId, change.workstationId(), EVENT_STOCK, row)
+				: new FeedEvent(++lastEventId, change.workstationId(), EVENT_STOCK_REMOVED, new StockRecordDto(
+						null, change.workstationId(), change.itemType(), change.itemId(), 0, 0, LocalDateTime.now()));
+		replayBuffer.addLast(event);
+		while (replayBuffer.size() > replayBufferSize) {
+			replayBuffer.removeFirst();
+		}
+		for (SseEmitter emitter : subscribers.getOrDefault(change.workstationId(), List.of())) {
+			send(emitter, event);
+		}
+	}
+
+	private boolean canResumeFrom(long lastSeenEventId) {
+		long oldestBuffered = replayBuffer.isEmpty() ? lastEventId + 1 : replayBuffer.peekFirst().id();
+		return lastSeenEventId >= oldestBuffered - 1 && lastSeenEventId <= lastEventId;
+	}
+
+	private boolean send(SseEmitter emitter, FeedEvent event) {
+		try {
+			emitter.send(SseEmitter.event()
+					.id(Long.toString(event.id()))
+					.name(event.name())
+					.reconnectTime(reconnectMs)
+					.data(event.data()));
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			drop(event.workstationId(), emitter, e);
+			return false;
+		}
+	}
+
+	private void drop(Long workstationId, SseEmitter emitter, Exception cause) {
+		log.debug("Dropping stock feed subscriber for WS-{}: {}", workstationId, cause.getMessage());
+		unsubscribe(workstationId, emitter);
+		emitter.completeWithError(cause);
+	}
+
+	private void unsubscribe(Long workstationId, SseEmitter emitter) {
+		List<SseEmitter> emitters = subscribers.get(workstationId);
+		if (emitters != null) {
+			emitters.remove(emitter);
+		}
+	}
+
+}
@@ -0,0 +1,437 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockImportResult;
+import io.life.inventory.entity.StockMovement;
+import io.life.inventory.event.StockChangedEvent;
+import io.life.inventory.exception.StockConflictException;
+import io.life.inventory.exception.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming CSV import and export of stock rows.
+ *
+ * Import reads the request body line by line and applies it in batches, so memory stays
+ * constant whatever the file size. Each batch is sorted into lock order, locks the rows it
+ * touches with SELECT ... FOR UPDATE, and writes updates and inserts with JDBC batching.
+ * A row sets the absolute on-hand quantity; it is rejected if it would drop below the
+ * reserved amount. Applied rows are journalled (reason IMPORT) and announced like any other change.
+ *
+ * Export streams rows into the response a page at a time, walking the (workstation, type, item)
+ * key so that no page needs more than {@code inventory.csv.export-page-size} rows in memory. Hot
+ * rows are exported with their slice units added in, without folding them. Pages are read one
+ * after another, so a row changed during a long export shows the value of the moment its page was read.
+ *
+ * The file has a header naming its columns. Import needs workstationId, itemType, itemId and
+ * quantity in any order and ignores other columns, so an export can be re-imported as is.
+ */
+@Service
+@Slf4j
+public class StockCsvService {
+
+	static final String EXPORT_HEADER = "workstationId,itemType,itemId,quantity,reservedQuantity,lastUpdated";
+
+	private static final String[] REQUIRED_COLUMNS = {"workstationId", "itemType", "itemId", "quantity"};
+
+	private static final String LOCK_SQL = "SELECT id, item_id, quantity, reserved_quantity FROM stock_records "
+			+ "WHERE workstation_id = :workstationId AND item_type = :itemType AND item_id IN (:itemIds) "
+			+ "ORDER BY item_id FOR UPDATE";
+	private static final String UPDATE_SQL = "UPDATE stock_records SET quantity = ?, version = version + 1, "
+			+ "last_updated = ? WHERE id = ?";
+	private static final String INSERT_SQL = "INSERT INTO stock_records (workstation_id, item_type, item_id, "
+			+ "quantity, reserved_quantity, version, last_updated) VALUES (?, ?, ?, ?, 0, 0, ?)";
+	private static final String EXPORT_SQL = "SELECT r.workstation_id, r.item_type, r.item_id, r.quantity + "
+			+ "COALESCE((SELECT SUM(s.delta) FROM stock_record_slices s WHERE s.workstation_id = r.workstation_id "
+			+ "AND s.item_type = r.item_type AND s.item_id = r.item_id), 0) AS quantity, r.reserved_quantity, "
+			+ "r.last_updated FROM stock_records r";
+	private static final String EXPORT_AFTER = " WHERE (r.workstation_id > ? OR (r.workstation_id = ? "
+			+ "AND (r.item_type > ? OR (r.item_type = ? AND r.item_id > ?))))";
+	private static final String EXPORT_PAGE = " ORDER BY r.workstation_id, r.item_type, r.item_id LIMIT ?";
+
+	private record ImportRow(long line, Long workstationId, String itemType, Long itemId, int quantity) {
+	}
+
+	private record LockedRow(long id, int quantity, int reserved) {
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectProvider<StockLedger> ledgerProvider;
+	private final StockMovementRecorder movementRecorder;
+	private final ApplicationEventPublisher eventPublisher;
+	private final HotStockSlices hotSlices;
+	private final int batchSize;
+	private final int maxReportedErrors;
+	private final int exportPageSize;
+	private final int maxAttempts;
+
+	public StockCsvService(JdbcTemplate jdbcTemplate,
+						   TransactionTemplate transactionTemplate,
+						   ObjectProvider<StockLedger> ledgerProvider,
+						   StockMovementRecorder movementRecorder,
+						   ApplicationEventPublisher eventPublisher,
+						   HotStockSlices hotSlices,
+						   @Value("${inventory.csv.import-batch-size:1000}") int batchSize,
+						   @Value("${inventory.csv.max-reported-errors:100}") int maxReportedErrors,
+						   @Value("${inventory.csv.export-page-size:500}") int exportPageSize,
+						   @Value("${inventory.stock.adjust.max-attempts:5}") int maxAttempts) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.transactionTemplate = transactionTemplate;
+		this.ledgerProvider = ledgerProvider;
+		this.movementRecorder = movementRecorder;
+		this.eventPublisher = eventPublisher;
+		this.hotSlices = hotSlices;
+		this.batchSize = batchSize;
+		this.maxReportedErrors = maxReportedErrors;
+		this.exportPageSize = Math.max(1, exportPageSize);
+		this.maxAttempts = maxAttempts;
+	}
+
+	public StockImportResult importCsv(InputStream input) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+		if (header == null || header.isBlank()) {
+			throw new ValidationException("CSV import needs a header line naming its columns");
+		}
+		int[] columns = resolveColumns(splitLine(stripBom(header)));
+
+		StockImportResult result = new StockImportResult();
+		List<ImportRow> batch = new ArrayList<>(batchSize);
+		String text;
+		long line = 1;
+		while ((text = reader.readLine()) != null) {
+			line++;
+			if (text.isBlank()) {
+				continue;
+			}
+			result.setRowsRead(result.getRowsRead() + 1);
+			ImportRow row = parseRow(line, splitLine(text), columns, result);
+			if (row == null) {
+				continue;
+			}
+			batch.add(row);
+			if (batch.size() >= batchSize) {
+				movementRecorder.guarded(() -> applyBatch(batch, result));
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			movementRecorder.guarded(() -> applyBatch(batch, result));
+		}
+		log.info("Stock CSV import: {} row(s) read, {} inserted, {} updated, {} unchanged, {} rejected",
+				result.getRowsRead(), result.getInserted(), result.getUpdated(), result.getUnchanged(), result.getRejected());
+		return result;
+	}
+
+	/**
+	 * Write every stock row (optionally of one workstation) as CSV, ordered by workstation and item.
+	 */
+	public void exportCsv(Long workstationId, OutputStream output) throws IOException {
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			// The table trails the ledger by one flush interval
+			ledger.flush();
+		}
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		writer.write(EXPORT_HEADER);
+		writer.write('\n');
+		String firstPage = EXPORT_SQL + (workstationId != null ? " WHERE r.workstation_id = ?" : "") + EXPORT_PAGE;
+		String nextPage = EXPORT_SQL + EXPORT_AFTER + (workstationId != null ? " AND r.workstation_id = ?" : "") + EXPORT_PAGE;
+		Object[] last = null;
+		int written;
+		do {
+			List<Object> args = new ArrayList<>();
+			if (last != null) {
+				args.addAll(List.of(last[0], last[0], last[1], last[1], last[2]));
+			}
+			if (workstationId != null) {
+				args.add(workstationId);
+			}
+			args.add(exportPageSize);
+			Object[][] lastOfPage = new Object[1][];
+			int[] count = new int[1];
+			jdbcTemplate.query(last == null ? firstPage : nextPage, rs -> {
+				long rowWorkstation = rs.getLong("workstation_id");
+				String itemType = rs.getString("item_type");
+				long itemId = rs.getLong("item_id");
+				try {
+					Timestamp lastUpdated = rs.getTimestamp("last_updated");
+					writer.write(rowWorkstation + "," + escape(itemType) + "," + itemId + "," + rs.getInt("quantity")
+							+ "," + rs.getInt("reserved_quantity")
+							+ "," + (lastUpdated != null ? lastUpdated.toLocalDateTime() : "") + "\n");
+				} catch (IOException e) {
+					throw new IllegalStateException("Client stopped reading the stock export", e);
+				}
+				lastOfPage[0] = new Object[]{rowWorkstation, itemType, itemId};
+				count[0]++;
+			}, args.toArray());
+			written = count[0];
+			last = lastOfPage[0];
+			writer.flush();
+		} while (written == exportPageSize);
+	}
+
+	private void applyBatch(List<ImportRow> rows, StockImportResult result) {
+		// Later lines for the same row win and the earlier ones count as unchanged; sorting also fixes the lock order
+		TreeMap<StockCheckRequest, ImportRow> plan = new TreeMap<>(StockRecordService.LOCK_ORDER);
+		for (ImportRow row : rows) {
+			ImportRow replaced = plan.put(new StockCheckRequest(row.workstationId(), row.itemType(), row.itemId(), null), row);
+			if (replaced != null) {
+				result.setUnchanged(result.getUnchanged() + 1);
+			}
+		}
+
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			plan.values().forEach(row -> applyToLedger(ledger, row, result));
+			return;
+		}
+
+		ConcurrencyFailureException lastConflict = null;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			StockImportResult batchResult = new StockImportResult();
+			try {
+				transactionTemplate.executeWithoutResult(status -> applyToTable(plan, batchResult));
+				merge(result, batchResult);
+				return;
+			} catch (ConcurrencyFailureException e) {
+				lastConflict = e;
+			} catch (DataIntegrityViolationException e) {
+				// A concurrent writer inserted one of the rows after we locked the batch
+				lastConflict = new ConcurrencyFailureException(e.getMessage(), e);
+			}
+			log.debug("Stock CSV import batch conflict (attempt {}/{}): {}", attempt, maxAttempts, lastConflict.getMessage());
+		}
+		throw new StockConflictException(String.format(
+				"Stock CSV import batch did not succeed after %d attempts; earlier batches were applied",
+				maxAttempts), lastConflict);
+	}
+
+	private void applyToTable(TreeMap<StockCheckRequest, ImportRow> plan, StockImportResult result) {
+		// One lock query per (workstation, item type), walked in lock order, so H2 can use the unique key index
+		Map<StockCheckRequest, List<Long>> itemIdsByGroup = new LinkedHashMap<>();
+		for (StockCheckRequest key : plan.keySet()) {
+			itemIdsByGroup.computeIfAbsent(new StockCheckRequest(key.getWorkstationId(), key.getItemType(), null, null),
+					k -> new ArrayList<>()).add(key.getItemId());
+		}
+		Map<StockCheckRequest, LockedRow> locked = new HashMap<>();
+		itemIdsByGroup.forEach((group, itemIds) -> namedJdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource()
+				.addValue("workstationId", group.getWorkstationId())
+				.addValue("itemType", group.getItemType())
+				.addValue("itemIds", itemIds), rs -> {
+			locked.put(new StockCheckRequest(group.getWorkstationId(), group.getItemType(), rs.getLong("item_id"), null),
+					new LockedRow(rs.getLong("id"), rs.getInt("quantity"), rs.getInt("reserved_quantity")));
+		}));
+
+		LocalDateTime now = LocalDateTime.now();
+		Timestamp timestamp = Timestamp.valueOf(now);
+		List<Object[]> updates = new ArrayList<>();
+		List<Object[]> inserts = new ArrayList<>();
+		for (Map.Entry<StockCheckRequest, ImportRow> entry : plan.entrySet()) {
+			ImportRow row = entry.getValue();
+			LockedRow current = locked.get(entry.getKey());
+			// Slice units are overwritten along with the row
+			int sliced = current != null ? hotSlices.drain(row.workstationId(), row.itemType(), row.itemId()) : 0;
+			if (current == null) {
+				inserts.add(new Object[]{row.workstationId(), row.itemType(), row.itemId(), row.quantity(), timestamp});
+				changed(row, row.quantity());
+				result.setInserted(result.getInserted() + 1);
+			} else if (row.quantity() < current.reserved()) {
+				if (sliced != 0) {
+					// Keep the drained units by folding them into the untouched row
+					updates.add(new Object[]{current.quantity() + sliced, timestamp, current.id()});
+				}
+				reject(result, row.line(), String.format("quantity %d is below the %d units held by reservations",
+						row.quantity(), current.reserved()));
+			} else if (row.quantity() == current.quantity() + sliced) {
+				if (sliced != 0) {
+					updates.add(new Object[]{row.quantity(), timestamp, current.id()});
+				}
+				result.setUnchanged(result.getUnchanged() + 1);
+			} else {
+				updates.add(new Object[]{row.quantity(), timestamp, current.id()});
+				changed(row, row.quantity() - current.quantity() - sliced);
+				result.setUpdated(result.getUpdated() + 1);
+			}
+		}
+		if (!updates.isEmpty()) {
+			jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+		}
+		if (!inserts.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+		}
+	}
+
+	private void applyToLedger(StockLedger ledger, ImportRow row, StockImportResult result) {
+		try {
+			StockLedger.SetOutcome outcome = ledger.setQuantity(row.workstationId(), row.itemType(), row.itemId(), row.quantity());
+			int delta = row.quantity() - outcome.previousQuantity();
+			if (outcome.created()) {
+				result.setInserted(result.getInserted() + 1);
+			} else if (delta == 0) {
+				result.setUnchanged(result.getUnchanged() + 1);
+				return;
+			} else {
+				result.setUpdated(result.getUpdated() + 1);
+			}
+			changed(row, delta);
+		} catch (ValidationException e) {
+			reject(result, row.line(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Journal and announce an applied row; inside a transaction both happen only once it commits.
+	 */
+	private void changed(ImportRow row, int delta) {
+		movementRecorder.record(row.workstationId(), row.itemType(), row.itemId(), delta, StockMovement.REASON_IMPORT, null);
+		eventPublisher.publishEvent(new StockChangedEvent(row.workstationId(), row.itemType(), row.itemId()));
+	}
+
+	private ImportRow parseRow(long line, List<String> fields, int[] columns, StockImportResult result) {
+		try {
+			Long workstationId = Long.valueOf(field(fields, columns[0]));
+			String itemType = field(fields, columns[1]);
+			Long itemId = Long.valueOf(field(fields, columns[2]));
+			int quantity = Integer.parseInt(field(fields, columns[3]));
+			if (itemType.isEmpty()) {
+				reject(result, line, "itemType is empty");
+				return null;
+			}
+			if (quantity < 0) {
+				reject(result, line, "quantity must not be negative");
+				return null;
+			}
+			return new ImportRow(line, workstationId, itemType, itemId, quantity);
+		} catch (NumberFormatException e) {
+			reject(result, line, "not a number: " + e.getMessage());
+		} catch (IndexOutOfBoundsException e) {
+			reject(result, line, "expected at least " + (max(columns) + 1) + " columns, found " + fields.size());
+		}
+		return null;
+	}
+
+	private void reject(StockImportResult result, long line, String message) {
+		result.setRejected(result.getRejected() + 1);
+		if (result.getErrors().size() < maxReportedErrors) {
+			result.getErrors().add(new StockImportResult.RowError(line, message));
+		} else {
+			result.setErrorsTruncated(true);
+		}
+	}
+
+	private void merge(StockImportResult into, StockImportResult batch) {
+		into.setInserted(into.getInserted() + batch.getInserted());
+		into.setUpdated(into.getUpdated() + batch.getUpdated());
+		into.setUnchanged(into.getUnchanged() + batch.getUnchanged());
+		for (StockImportResult.RowError error : batch.getErrors()) {
+			reject(into, error.getLine(), error.getMessage());
+		}
+	}
+
+	private static int[] resolveColumns(List<String> header) {
+		int[] columns = new int[REQUIRED_COLUMNS.length];
+		for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+			columns[i] = -1;
+			for (int j = 0; j < header.size(); j++) {
+				if (header.get(j).equalsIgnoreCase(REQUIRED_COLUMNS[i])) {
+					columns[i] = j;
+				}
+			}
+			if (columns[i] < 0) {
+				throw new ValidationException("CSV header is missing column " + REQUIRED_COLUMNS[i]
+						+ "; required: " + String.join(",", REQUIRED_COLUMNS));
+			}
+		}
+		return columns;
+	}
+
+	private static String field(List<String> fields, int index) {
+		return fields.get(index).trim();
+	}
+
+	private static int max(int[] values) {
+		int max = 0;
+		for (int value : values) {
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	/**
+	 * Split one CSV line, honouring double-quoted fields with "" escapes. Fields cannot span lines.
+	 */
+	static List<String> splitLine(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static String escape(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String stripBom(String header) {
+		return header.startsWith("\uFEFF") ? header.substring(1) : header;
+	}
+
+	private StockLedger activeLedger() {
+		StockLedger ledger = ledgerProvider.getIfAvailable();
+		return ledger != null && ledger.isLoaded() ? ledger : null;
+	}
+
+}
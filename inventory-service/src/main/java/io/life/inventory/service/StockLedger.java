@@ -0,0 +1,738 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockCheckResult;
+import io.life.inventory.entity.StockRecord;
+import io.life.inventory.exception.UserServiceException;
+import io.life.inventory.exception.ValidationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * In-memory stock ledger, enabled with {@code inventory.ledger.enabled=true}.
+ *
+ * Once the application is ready, every stock_records row is loaded into a lock-striped map
+ * keyed by a packed long (workstationId | itemType code | itemId). Reads and mutations are
+ * then served from memory; {@link StockRecordService} and {@link StockReservationService}
+ * route to the ledger whenever it is loaded.
+ *
+ * Durability: every mutation appends the new absolute row state to {@link StockLedgerJournal}
+ * before it becomes visible, and marks the row dirty. A scheduled flush writes dirty rows to
+ * H2 in JDBC batches and then drops the journal segments it covered. On startup, leftover
+ * segments are replayed on top of the database before the ledger goes live.
+ *
+ * Row creation and deletion are rare and go straight to the database.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@Slf4j
+public class StockLedger {
+
+	private static final int STRIPES = 64;
+	private static final int STRIPE_SHIFT = 64 - Integer.numberOfTrailingZeros(STRIPES);
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private static final String SELECT_ALL_SQL = "SELECT id, workstation_id, item_type, item_id, quantity, "
+			+ "reserved_quantity, version, last_updated FROM stock_records";
+	private static final String UPDATE_SQL = "UPDATE stock_records SET quantity = ?, reserved_quantity = ?, "
+			+ "version = ?, last_updated = ? WHERE id = ?";
+	private static final String INSERT_SQL = "INSERT INTO stock_records (workstation_id, item_type, item_id, "
+			+ "quantity, reserved_quantity, version, last_updated) VALUES (?, ?, ?, ?, 0, 0, ?)";
+	private static final String DELETE_SQL = "DELETE FROM stock_records WHERE id = ?";
+
+	/** Result of a single-row delta; record is null when a deduction targeted a missing row. */
+	public record DeltaOutcome(boolean applied, StockRecord record) {
+	}
+
+	/** Result of an absolute quantity set; previousQuantity is 0 when the row was created. */
+	public record SetOutcome(StockRecord record, int previousQuantity, boolean created) {
+	}
+
+	/** Result of a multi-row plan; shortfall is null when the plan was applied to records. */
+	public record PlanOutcome(StockCheckResult shortfall, List<StockRecord> records) {
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final StockLedgerJournal journal;
+	private final int flushBatchSize;
+	private final String checkpointSql;
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final Map<Long, Long> keyById = new ConcurrentHashMap<>();
+	private final Map<String, Integer> typeCodes = new ConcurrentHashMap<>();
+	private final AtomicInteger nextTypeCode = new AtomicInteger();
+	private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+	private final List<Path> pendingSegments = new ArrayList<>();
+	private final Object flushLock = new Object();
+	private volatile boolean loaded;
+
+	public StockLedger(JdbcTemplate jdbcTemplate,
+					   @Value("${inventory.ledger.journal-dir:./data/ledger-journal}") String journalDir,
+					   @Value("${inventory.ledger.journal-fsync:false}") boolean journalFsync,
+					   @Value("${inventory.ledger.flush-batch-size:500}") int flushBatchSize,
+					   @Value("${inventory.ledger.checkpoint-sql:CHECKPOINT}") String checkpointSql) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.journal = new StockLedgerJournal(Path.of(journalDir), journalFsync);
+		this.flushBatchSize = flushBatchSize;
+		this.checkpointSql = checkpointSql;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Load the table, replay any journal left by a previous run, and go live.
+	 * Runs after the command line runners so seeded rows are included.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(0)
+	public void load() throws IOException {
+		synchronized (flushLock) {
+			jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+				StockRecord record = new StockRecord();
+				record.setId(rs.getLong("id"));
+				record.setWorkstationId(rs.getLong("workstation_id"));
+				record.setItemType(rs.getString("item_type"));
+				record.setItemId(rs.getLong("item_id"));
+				record.setQuantity(rs.getInt("quantity"));
+				record.setReservedQuantity(rs.getInt("reserved_quantity"));
+				record.setVersion(rs.getLong("version"));
+				Timestamp lastUpdated = rs.getTimestamp("last_updated");
+				record.setLastUpdated(lastUpdated != null ? lastUpdated.toLocalDateTime() : LocalDateTime.now());
+				long key = key(record.getWorkstationId(), record.getItemType(), record.getItemId());
+				stripe(key).entries.put(key, record);
+				keyById.put(record.getId(), key);
+			});
+
+			List<Path> leftover = journal.existingSegments();
+			int replayed = 0;
+			for (Path segment : leftover) {
+				int[] count = {0};
+				StockLedgerJournal.replay(segment, line -> {
+					if (replayLine(line)) {
+						count[0]++;
+					}
+				});
+				replayed += count[0];
+			}
+			pendingSegments.addAll(leftover);
+			journal.open();
+			loaded = true;
+			log.info("Stock ledger loaded {} row(s); replayed {} journal line(s) from {} segment(s)",
+					keyById.size(), replayed, leftover.size());
+		}
+		flush();
+	}
+
+	// ------------------------------------------------------------------ reads
+
+	public StockRecord find(Long workstationId, String itemType, Long itemId) {
+		long key = existingKey(workstationId, itemType, itemId);
+		if (key < 0) {
+			return null;
+		}
+		Stripe stripe = stripe(key);
+		stripe.lock.readLock().lock();
+		try {
+			StockRecord record = stripe.entries.get(key);
+			return record != null ? copy(record) : null;
+		} finally {
+			stripe.lock.readLock().unlock();
+		}
+	}
+
+	public StockRecord findById(Long id) {
+		Long key = keyById.get(id);
+		if (key == null) {
+			return null;
+		}
+		Stripe stripe = stripe(key);
+		stripe.lock.readLock().lock();
+		try {
+			StockRecord record = stripe.entries.get(key);
+			return record != null ? copy(record) : null;
+		} finally {
+			stripe.lock.readLock().unlock();
+		}
+	}
+
+	public List<StockRecord> findAll() {
+		return collect(record -> true);
+	}
+
+	public List<StockRecord> findByWorkstationId(Long workstationId) {
+		return collect(record -> record.getWorkstationId().equals(workstationId));
+	}
+
+	// -------------------------------------------------------------- mutations
+
+	/**
+	 * Add a signed delta to one row; deductions may not eat into the reserved amount.
+	 * A credit against a missing row creates it.
+	 */
+	public DeltaOutcome applyDelta(Long workstationId, String itemType, Long itemId, int delta) {
+		long key = key(workstationId, itemType, itemId);
+		Stripe stripe = stripe(key);
+		stripe.lock.writeLock().lock();
+		try {
+			StockRecord record = stripe.entries.get(key);
+			if (record == null) {
+				if (delta < 0) {
+					return new DeltaOutcome(false, null);
+				}
+				return new DeltaOutcome(true, copy(insert(key, workstationId, itemType, itemId, delta)));
+			}
+			int quantity = record.getQuantity() + delta;
+			if (quantity < record.getReservedQuantity()) {
+				return new DeltaOutcome(false, copy(record));
+			}
+			write(new long[]{key}, new StockRecord[]{record}, new int[]{quantity}, new int[]{record.getReservedQuantity()});
+			return new DeltaOutcome(true, copy(record));
+		} finally {
+			stripe.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Overwrite a row's on-hand quantity, creating the row if needed.
+	 */
+	public SetOutcome setQuantity(Long workstationId, String itemType, Long itemId, int quantity) {
+		long key = key(workstationId, itemType, itemId);
+		Stripe stripe = stripe(key);
+		stripe.lock.writeLock().lock();
+		try {
+			StockRecord record = stripe.entries.get(key);
+			if (record == null) {
+				return new SetOutcome(copy(insert(key, workstationId, itemType, itemId, quantity)), 0, true);
+			}
+			if (quantity < record.getReservedQuantity()) {
+				throw new ValidationException(String.format(
+						"Cannot set quantity to %d: %d units are held by active reservations",
+						quantity, record.getReservedQuantity()));
+			}
+			int previous = record.getQuantity();
+			write(new long[]{key}, new StockRecord[]{record}, new int[]{quantity}, new int[]{record.getReservedQuantity()});
+			return new SetOutcome(copy(record), previous, false);
+		} finally {
+			stripe.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Deduct every planned quantity from available stock, or nothing.
+	 */
+	public PlanOutcome commit(Map<StockCheckRequest, Integer> plan) {
+		return applyPlan(plan, (record, amount) -> new int[]{record.getQuantity() - amount, record.getReservedQuantity()});
+	}
+
+	/**
+	 * Move every planned quantity from available to reserved, or nothing.
+	 */
+	public PlanOutcome reserve(Map<StockCheckRequest, Integer> plan) {
+		return applyPlan(plan, (record, amount) -> new int[]{record.getQuantity(), record.getReservedQuantity() + amount});
+	}
+
+	/**
+	 * Deduct previously reserved quantities from both on-hand and reserved.
+	 */
+	public void confirmReserved(List<StockCheckRequest> lines) {
+		applyHeld(lines, (record, amount) -> new int[]{record.getQuantity() - amount, record.getReservedQuantity() - amount});
+	}
+
+	/**
+	 * Give previously reserved quantities back to available stock.
+	 */
+	public void releaseReserved(List<StockCheckRequest> lines) {
+		applyHeld(lines, (record, amount) -> new int[]{record.getQuantity(), Math.max(0, record.getReservedQuantity() - amount)});
+	}
+
+	public StockRecord create(Long workstationId, String itemType, Long itemId, int quantity) {
+		long key = key(workstationId, itemType, itemId);
+		Stripe stripe = stripe(key);
+		stripe.lock.writeLock().lock();
+		try {
+			if (stripe.entries.get(key) != null) {
+				throw new ValidationException(String.format(
+						"A stock record for WS-%d %s #%d already exists", workstationId, itemType, itemId));
+			}
+			return copy(insert(key, workstationId, itemType, itemId, quantity));
+		} finally {
+			stripe.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the removed row, or null if there was none
+	 */
+	public StockRecord delete(Long id) {
+		Long key = keyById.get(id);
+		if (key == null) {
+			return null;
+		}
+		Stripe stripe = stripe(key);
+		stripe.lock.writeLock().lock();
+		try {
+			jdbcTemplate.update(DELETE_SQL, id);
+			StockRecord removed = stripe.entries.remove(key);
+			keyById.remove(id);
+			dirty.remove(key);
+			return removed;
+		} finally {
+			stripe.lock.writeLock().unlock();
+		}
+	}
+
+	// -------------------------------------------------------------- write-behind
+
+	/**
+	 * Write dirty rows to the database in batches, then drop the journal segments they cover.
+	 * On failure the rows stay dirty and the segments are kept for the next attempt.
+	 *
+	 * H2 commits to an in-memory page cache and writes it out in the background, so a
+	 * checkpoint is forced before any segment is deleted.
+	 */
+	@Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:250}")
+	public void flush() {
+		if (!loaded) {
+			return;
+		}
+		synchronized (flushLock) {
+			try {
+				Path closed = journal.rotate();
+				if (closed != null) {
+					pendingSegments.add(closed);
+				}
+			} catch (IOException e) {
+				log.error("Could not rotate stock ledger journal; flushing without rotation", e);
+			}
+
+			List<Long> keys = new ArrayList<>(dirty.size());
+			for (Long key : dirty) {
+				if (dirty.remove(key)) {
+					keys.add(key);
+				}
+			}
+
+			List<Object[]> rows = new ArrayList<>(keys.size());
+			for (Long key : keys) {
+				Stripe stripe = stripe(key);
+				stripe.lock.readLock().lock();
+				try {
+					StockRecord record = stripe.entries.get(key);
+					if (record != null) {
+						rows.add(new Object[]{record.getQuantity(), record.getReservedQuantity(), record.getVersion(),
+								Timestamp.valueOf(record.getLastUpdated()), record.getId()});
+					}
+				} finally {
+					stripe.lock.readLock().unlock();
+				}
+			}
+
+			try {
+				for (int from = 0; from < rows.size(); from += flushBatchSize) {
+					jdbcTemplate.batchUpdate(UPDATE_SQL, rows.subList(from, Math.min(rows.size(), from + flushBatchSize)));
+				}
+				if (!pendingSegments.isEmpty() && !checkpointSql.isBlank()) {
+					jdbcTemplate.execute(checkpointSql);
+				}
+			} catch (DataAccessException e) {
+				dirty.addAll(keys);
+				log.error("Stock ledger flush of {} row(s) failed; will retry", rows.size(), e);
+				return;
+			}
+
+			StockLedgerJournal.delete(pendingSegments);
+			pendingSegments.clear();
+			if (!rows.isEmpty()) {
+				log.debug("Stock ledger flushed {} row(s)", rows.size());
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException {
+		if (!loaded) {
+			return;
+		}
+		flush();
+		journal.close();
+	}
+
+	// ---------------------------------------------------------------- internals
+
+	@FunctionalInterface
+	private interface RowChange {
+		/** @return {newQuantity, newReserved} */
+		int[] apply(StockRecord record, int amount);
+	}
+
+	private PlanOutcome applyPlan(Map<StockCheckRequest, Integer> plan, RowChange change) {
+		long[] keys = new long[plan.size()];
+		int[] amounts = new int[plan.size()];
+		List<StockCheckRequest> lines = new ArrayList<>(plan.keySet());
+		for (int i = 0; i < keys.length; i++) {
+			StockCheckRequest line = lines.get(i);
+			keys[i] = key(line.getWorkstationId(), line.getItemType(), line.getItemId());
+			amounts[i] = plan.get(line);
+		}
+
+		int[] order = lockAll(keys);
+		try {
+			StockRecord[] records = new StockRecord[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				StockRecord record = stripe(keys[i]).entries.get(keys[i]);
+				int available = record != null ? record.getAvailableQuantity() : 0;
+				if (available < amounts[i]) {
+					StockCheckRequest line = lines.get(i);
+					return new PlanOutcome(new StockCheckResult(line.getWorkstationId(), line.getItemType(),
+							line.getItemId(), amounts[i], available, false), List.of());
+				}
+				records[i] = record;
+			}
+			int[] quantities = new int[keys.length];
+			int[] reserved = new int[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				int[] next = change.apply(records[i], amounts[i]);
+				quantities[i] = next[0];
+				reserved[i] = next[1];
+			}
+			write(keys, records, quantities, reserved);
+			return new PlanOutcome(null, Arrays.stream(records).map(StockLedger::copy).toList());
+		} finally {
+			unlockAll(order);
+		}
+	}
+
+	private void applyHeld(List<StockCheckRequest> lines, RowChange change) {
+		long[] keys = new long[lines.size()];
+		for (int i = 0; i < keys.length; i++) {
+			StockCheckRequest line = lines.get(i);
+			keys[i] = key(line.getWorkstationId(), line.getItemType(), line.getItemId());
+		}
+		int[] order = lockAll(keys);
+		try {
+			List<Long> present = new ArrayList<>();
+			List<StockRecord> records = new ArrayList<>();
+			List<int[]> changes = new ArrayList<>();
+			for (int i = 0; i < keys.length; i++) {
+				StockRecord record = stripe(keys[i]).entries.get(keys[i]);
+				if (record != null) {
+					present.add(keys[i]);
+					records.add(record);
+					changes.add(change.apply(record, lines.get(i).getQuantity()));
+				}
+			}
+			write(present.stream().mapToLong(Long::longValue).toArray(),
+					records.toArray(new StockRecord[0]),
+					changes.stream().mapToInt(c -> c[0]).toArray(),
+					changes.stream().mapToInt(c -> c[1]).toArray());
+		} finally {
+			unlockAll(order);
+		}
+	}
+
+	/**
+	 * Journal, then publish, a set of row changes. Caller holds the write locks of every row.
+	 * Rows are marked dirty before the journal append so a concurrent flush can never drop
+	 * a segment holding a change it has not written.
+	 */
+	private void write(long[] keys, StockRecord[] records, int[] quantities, int[] reserved) {
+		if (keys.length == 0) {
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		List<String> lines = new ArrayList<>(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			dirty.add(keys[i]);
+			lines.add(records[i].getId() + "," + quantities[i] + "," + reserved[i] + ","
+					+ (records[i].getVersion() + 1) + "," + now);
+		}
+		try {
+			journal.append(lines);
+		} catch (IOException e) {
+			throw new UserServiceException("Stock ledger journal write failed; change not applied", e);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			records[i].setQuantity(quantities[i]);
+			records[i].setReservedQuantity(reserved[i]);
+			records[i].setVersion(records[i].getVersion() + 1);
+			records[i].setLastUpdated(now);
+		}
+	}
+
+	private StockRecord insert(long key, Long workstationId, String itemType, Long itemId, int quantity) {
+		LocalDateTime now = LocalDateTime.now();
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		jdbcTemplate.update(connection -> {
+			PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+			ps.setLong(1, workstationId);
+			ps.setString(2, itemType);
+			ps.setLong(3, itemId);
+			ps.setInt(4, quantity);
+			ps.setTimestamp(5, Timestamp.valueOf(now));
+			return ps;
+		}, keyHolder);
+
+		StockRecord record = new StockRecord();
+		record.setId(keyHolder.getKey().longValue());
+		record.setWorkstationId(workstationId);
+		record.setItemType(itemType);
+		record.setItemId(itemId);
+		record.setQuantity(quantity);
+		record.setReservedQuantity(0);
+		record.setVersion(0L);
+		record.setLastUpdated(now);
+		stripe(key).entries.put(key, record);
+		keyById.put(record.getId(), key);
+		return record;
+	}
+
+	private boolean replayLine(String line) {
+		String[] parts = line.split(",");
+		if (parts.length != 5) {
+			log.warn("Skipping malformed stock ledger journal line: {}", line);
+			return false;
+		}
+		try {
+			Long key = keyById.get(Long.parseLong(parts[0]));
+			if (key == null) {
+				return false;
+			}
+			StockRecord record = stripe(key).entries.get(key);
+			long version = Long.parseLong(parts[3]);
+			if (version <= record.getVersion()) {
+				return false;
+			}
+			record.setQuantity(Integer.parseInt(parts[1]));
+			record.setReservedQuantity(Integer.parseInt(parts[2]));
+			record.setVersion(version);
+			record.setLastUpdated(LocalDateTime.parse(parts[4]));
+			dirty.add(key);
+			return true;
+		} catch (RuntimeException e) {
+			log.warn("Skipping unreadable stock ledger journal line: {}", line);
+			return false;
+		}
+	}
+
+	private List<StockRecord> collect(Predicate<StockRecord> filter) {
+		List<StockRecord> result = new ArrayList<>();
+		for (Stripe stripe : stripes) {
+			stripe.lock.readLock().lock();
+			try {
+				stripe.entries.forEach(record -> {
+					if (filter.test(record)) {
+						result.add(copy(record));
+					}
+				});
+			} finally {
+				stripe.lock.readLock().unlock();
+			}
+		}
+		result.sort(Comparator.comparing(StockRecord::getId));
+		return result;
+	}
+
+	/**
+	 * Take the write locks of every stripe the keys fall into, in ascending stripe order,
+	 * so overlapping multi-row operations cannot deadlock.
+	 *
+	 * @return the locked stripe indexes, for {@link #unlockAll}
+	 */
+	private int[] lockAll(long[] keys) {
+		int[] order = Arrays.stream(keys).mapToInt(StockLedger::stripeIndex).distinct().sorted().toArray();
+		for (int index : order) {
+			stripes[index].lock.writeLock().lock();
+		}
+		return order;
+	}
+
+	private void unlockAll(int[] order) {
+		for (int i = order.length - 1; i >= 0; i--) {
+			stripes[order[i]].lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Pack a stock row identity into one long: 24 bits workstation, 8 bits item type code,
+	 * 32 bits item id.
+	 */
+	private long key(Long workstationId, String itemType, Long itemId) {
+		if (workstationId < 0 || workstationId >= (1L << 24) || itemId < 0 || itemId >= (1L << 32)) {
+			throw new ValidationException(String.format(
+					"WS-%d %s #%d is outside the stock ledger key range", workstationId, itemType, itemId));
+		}
+		int typeCode = typeCodes.computeIfAbsent(itemType, type -> nextTypeCode.getAndIncrement());
+		if (typeCode > 0xFF) {
+			throw new ValidationException("Too many distinct item types for the stock ledger: " + itemType);
+		}
+		return (workstationId << 40) | ((long) typeCode << 32) | itemId;
+	}
+
+	/** Like {@link #key} but never registers a new item type; -1 if the row cannot exist. */
+	private long existingKey(Long workstationId, String itemType, Long itemId) {
+		Integer typeCode = typeCodes.get(itemType);
+		if (typeCode == null || workstationId < 0 || workstationId >= (1L << 24) || itemId < 0 || itemId >= (1L << 32)) {
+			return -1;
+		}
+		return (workstationId << 40) | ((long) typeCode << 32) | itemId;
+	}
+
+	private Stripe stripe(long key) {
+		return stripes[stripeIndex(key)];
+	}
+
+	private static int stripeIndex(long key) {
+		return (int) ((key * HASH_MULTIPLIER) >>> STRIPE_SHIFT);
+	}
+
+	private static StockRecord copy(StockRecord record) {
+		return new StockRecord(record.getId(), record.getWorkstationId(), record.getItemType(), record.getItemId(),
+				record.getQuantity(), record.getReservedQuantity(), record.getLastUpdated(), record.getVersion());
+	}
+
+	private static final class Stripe {
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		final LongMap<StockRecord> entries = new LongMap<>();
+	}
+
+	/**
+	 * Open-addressing long-to-object map with linear probing; avoids boxing the key on every
+	 * lookup. Not thread-safe: guarded by its stripe lock.
+	 */
+	static final class LongMap<V> {
+
+		private static final long EMPTY = Long.MIN_VALUE;
+
+		private long[] keys;
+		private Object[] values;
+		private int size;
+		private int mask;
+
+		LongMap() {
+			allocate(16);
+		}
+
+		@SuppressWarnings("unchecked")
+		V get(long key) {
+			for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return (V) values[i];
+				}
+			}
+			return null;
+		}
+
+		void put(long key, V value) {
+			if ((size + 1) * 4 > keys.length * 3) {
+				resize();
+			}
+			int i = slot(key);
+			while (keys[i] != EMPTY) {
+				if (keys[i] == key) {
+					values[i] = value;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		}
+
+		@SuppressWarnings("unchecked")
+		V remove(long key) {
+			int i = slot(key);
+			while (keys[i] != key) {
+				if (keys[i] == EMPTY) {
+					return null;
+				}
+				i = (i + 1) & mask;
+			}
+			V removed = (V) values[i];
+			// Backward-shift deletion keeps probe chains intact without tombstones
+			int gap = i;
+			for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+				int home = slot(keys[j]);
+				if (((j - home) & mask) >= ((j - gap) & mask)) {
+					keys[gap] = keys[j];
+					values[gap] = values[j];
+					gap = j;
+				}
+			}
+			keys[gap] = EMPTY;
+			values[gap] = null;
+			size--;
+			return removed;
+		}
+
+		@SuppressWarnings("unchecked")
+		void forEach(Consumer<V> consumer) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != EMPTY) {
+					consumer.accept((V) values[i]);
+				}
+			}
+		}
+
+		private int slot(long key) {
+			long h = key * HASH_MULTIPLIER;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			Object[] oldValues = values;
+			allocate(oldKeys.length * 2);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) {
+					int j = slot(oldKeys[i]);
+					while (keys[j] != EMPTY) {
+						j = (j + 1) & mask;
+					}
+					keys[j] = oldKeys[i];
+					values[j] = oldValues[i];
+				}
+			}
+		}
+
+		private void allocate(int capacity) {
+			keys = new long[capacity];
+			Arrays.fill(keys, EMPTY);
+			values = new Object[capacity];
+			mask = capacity - 1;
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package io.life.inventory.service;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only redo log for {@link StockLedger}.
+ *
+ * Each line holds the absolute state of one stock row after a mutation, so replaying a
+ * segment is idempotent and later lines simply win. The journal is split into numbered
+ * segments; the ledger rotates to a fresh segment before every flush and deletes old
+ * segments once their rows are safely in the database.
+ *
+ * Without fsync, appended lines survive a process crash (they are in the OS page cache)
+ * but not a power loss.
+ */
+@Slf4j
+class StockLedgerJournal {
+
+	private static final String PREFIX = "stock-ledger-";
+	private static final String SUFFIX = ".journal";
+
+	private final Path directory;
+	private final boolean fsync;
+
+	private FileChannel channel;
+	private Path currentPath;
+	private long currentSegment;
+	private long bytesInSegment;
+
+	StockLedgerJournal(Path directory, boolean fsync) {
+		this.directory = directory;
+		this.fsync = fsync;
+	}
+
+	/**
+	 * Segments left over from a previous run, oldest first.
+	 */
+	synchronized List<Path> existingSegments() throws IOException {
+		Files.createDirectories(directory);
+		try (Stream<Path> files = Files.list(directory)) {
+			return files
+					.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+					.sorted(Comparator.comparingLong(StockLedgerJournal::segmentNumber))
+					.toList();
+		}
+	}
+
+	/**
+	 * Start writing to a fresh segment numbered after every existing one.
+	 */
+	synchronized void open() throws IOException {
+		List<Path> existing = existingSegments();
+		long next = existing.isEmpty() ? 1 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+		openSegment(next);
+	}
+
+	/**
+	 * Append one or more lines as a single write, so a multi-row mutation lands together.
+	 */
+	synchronized void append(List<String> lines) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			bytesInSegment += channel.write(buffer);
+		}
+		if (fsync) {
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Close the current segment and continue in a new one.
+	 *
+	 * @return the closed segment, or null if nothing had been written to it
+	 */
+	synchronized Path rotate() throws IOException {
+		if (bytesInSegment == 0) {
+			return null;
+		}
+		Path closed = currentPath;
+		channel.force(false);
+		channel.close();
+		openSegment(currentSegment + 1);
+		return closed;
+	}
+
+	synchronized void close() throws IOException {
+		if (channel != null && channel.isOpen()) {
+			channel.force(false);
+			channel.close();
+		}
+		if (currentPath != null && bytesInSegment == 0) {
+			Files.deleteIfExists(currentPath);
+		}
+	}
+
+	/**
+	 * Feed every complete line of a segment to the consumer. A torn last line from a crash
+	 * mid-write is skipped; the caller is expected to reject lines it cannot parse.
+	 */
+	static void replay(Path segment, Consumer<String> consumer) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isBlank()) {
+					consumer.accept(line);
+				}
+			}
+		}
+	}
+
+	static void delete(List<Path> segments) {
+		for (Path segment : new ArrayList<>(segments)) {
+			try {
+				Files.deleteIfExists(segment);
+			} catch (IOException e) {
+				log.warn("Could not delete flushed ledger journal segment {}: {}", segment, e.getMessage());
+			}
+		}
+	}
+
+	private void openSegment(long segment) throws IOException {
+		Files.createDirectories(directory);
+		currentSegment = segment;
+		currentPath = directory.resolve(String.format("%s%010d%s", PREFIX, segment, SUFFIX));
+		channel = FileChannel.open(currentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		bytesInSegment = channel.size();
+	}
+
+	private static long segmentNumber(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+
+}
@@ -0,0 +1,165 @@
+package io.life.inventory.service;
+
+import io.life.inventory.entity.StockMovement;
+import io.life.inventory.entity.StockRecord;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Appends stock movements to the journal table off the request path.
+ *
+ * Callers hand over movements as they mutate stock; inside a transaction the movement is only
+ * queued once that transaction commits, so rolled-back changes never reach the journal. The
+ * queue is drained in batched INSERTs on a short interval and on shutdown. A full queue is
+ * drained inline by the caller; a movement is only dropped if that drain fails too.
+ *
+ * Movements still queued when the process dies are lost; the startup snapshot in
+ * {@link StockSnapshotService} re-bases history on the live rows so the gap does not carry forward.
+ *
+ * A stock change reaches its row before its movement reaches the journal. Changes made through
+ * {@link #guarded} hold a shared lock from before the row is touched until the movement is queued,
+ * and {@link #cut} takes that lock exclusively, so a reader inside a cut sees every row change
+ * together with its journalled movement, or neither.
+ */
+@Component
+@Slf4j
+public class StockMovementRecorder {
+
+	private static final String INSERT_SQL = "INSERT INTO stock_movements "
+			+ "(workstation_id, item_type, item_id, delta, reason, order_reference, occurred_at) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final BlockingQueue<StockMovement> queue;
+	private final int batchSize;
+	private final Object flushLock = new Object();
+	private final ReadWriteLock cutLock = new ReentrantReadWriteLock();
+
+	public StockMovementRecorder(JdbcTemplate jdbcTemplate,
+								 @Value("${inventory.movements.queue-capacity:10000}") int queueCapacity,
+								 @Value("${inventory.movements.flush-batch-size:500}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+	}
+
+	public void record(StockRecord record, int delta, String reason, String orderReference) {
+		record(record.getWorkstationId(), record.getItemType(), record.getItemId(), delta, reason, orderReference);
+	}
+
+	public void record(Long workstationId, String itemType, Long itemId, int delta, String reason, String orderReference) {
+		if (delta == 0) {
+			return;
+		}
+		StockMovement movement = new StockMovement(null, workstationId, itemType, itemId, delta, reason,
+				orderReference, LocalDateTime.now());
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					enqueue(movement);
+				}
+			});
+		} else {
+			enqueue(movement);
+		}
+	}
+
+	/**
+	 * Run a stock change and the recording of its movements as one step with respect to {@link #cut}.
+	 * Must be entered outside the change's transaction, so that the transaction has committed
+	 * (and queued its movements) by the time the change returns.
+	 */
+	public <T> T guarded(Supplier<T> change) {
+		cutLock.readLock().lock();
+		try {
+			return change.get();
+		} finally {
+			cutLock.readLock().unlock();
+		}
+	}
+
+	public void guarded(Runnable change) {
+		guarded(() -> {
+			change.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Flush the journal and run the reader while no guarded change is in flight, so that the stock
+	 * rows it reads and the journal up to its latest movement describe the same moment.
+	 */
+	public <T> T cut(Supplier<T> reader) {
+		cutLock.writeLock().lock();
+		try {
+			flush();
+			return reader.get();
+		} finally {
+			cutLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Write every queued movement. Failed batches are put back at the tail of the queue
+	 * (so their ids may end up after newer movements) and retried on the next run.
+	 */
+	@Scheduled(fixedDelayString = "${inventory.movements.flush-interval-ms:200}")
+	public void flush() {
+		synchronized (flushLock) {
+			List<StockMovement> batch = new ArrayList<>(batchSize);
+			while (queue.drainTo(batch, batchSize) > 0) {
+				try {
+					jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, m) -> {
+						ps.setLong(1, m.getWorkstationId());
+						ps.setString(2, m.getItemType());
+						ps.setLong(3, m.getItemId());
+						ps.setInt(4, m.getDelta());
+						ps.setString(5, m.getReason());
+						ps.setString(6, m.getOrderReference());
+						ps.setTimestamp(7, Timestamp.valueOf(m.getOccurredAt()));
+					});
+				} catch (DataAccessException e) {
+					log.warn("Could not write {} stock movement(s); will retry: {}", batch.size(), e.getMessage());
+					batch.forEach(queue::offer);
+					return;
+				}
+				batch.clear();
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flush();
+	}
+
+	private void enqueue(StockMovement movement) {
+		if (queue.offer(movement)) {
+			return;
+		}
+		flush();
+		if (!queue.offer(movement)) {
+			log.error("Stock movement queue is full and cannot be flushed; dropped {} {} #{} at WS-{} ({})",
+					movement.getDelta(), movement.getItemType(), movement.getItemId(),
+					movement.getWorkstationId(), movement.getReason());
+		}
+	}
+
+}
@@ -1,52 +1,227 @@
 package io.life.inventory.service;
 
+import io.life.inventory.entity.StockMovement;
+import io.life.inventory.event.StockChangedEvent;
 import io.life.inventory.entity.StockRecord;
+import io.life.inventory.exception.StockConflictException;
+import io.life.inventory.exception.ValidationException;
 import io.life.inventory.repository.StockRecordRepository;
+import io.life.inventory.dto.StockAdjustmentResult;
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockCheckResult;
+import io.life.inventory.dto.StockCommitRequest;
+import io.life.inventory.dto.StockCommitResult;
 import io.life.inventory.dto.StockRecordDto;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class StockRecordService {
 
+	/** Stable row order for taking locks; quantity is deliberately not part of the key. */
+	static final Comparator<StockCheckRequest> LOCK_ORDER = Comparator
+			.comparing(StockCheckRequest::getWorkstationId)
+			.thenComparing(StockCheckRequest::getItemType)
+			.thenComparing(StockCheckRequest::getItemId);
+
 	private final StockRecordRepository repository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectProvider<StockLedger> ledgerProvider;
+	private final StockMovementRecorder movementRecorder;
+	private final ApplicationEventPublisher eventPublisher;
+	private final HotStockSlices hotSlices;
+
+	@Value("${inventory.stock.adjust.max-attempts:5}")
+	private int maxAdjustAttempts;
+
+	@Value("${inventory.stock.adjust.retry-backoff-ms:10}")
+	private long adjustRetryBackoffMs;
 
 	public List<StockRecordDto> findAll() {
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			return ledger.findAll().stream().map(this::toDto).collect(Collectors.toList());
+		}
 		return repository.findAll().stream()
 				.map(this::toDto)
 				.collect(Collectors.toList());
 	}
 
 	public StockRecordDto findById(Long id) {
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			StockRecord record = ledger.findById(id);
+			return record != null ? toDto(record) : null;
+		}
 		return repository.findById(id)
 				.map(this::toDto)
 				.orElse(null);
 	}
 
 	public List<StockRecordDto> getStockByWorkstationId(Long workstationId) {
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			return ledger.findByWorkstationId(workstationId).stream().map(this::toDto).collect(Collectors.toList());
+		}
 		return repository.findByWorkstationId(workstationId).stream()
 				.map(this::toDto)
 				.collect(Collectors.toList());
 	}
 
 	public StockRecordDto getStockByWorkstationAndItem(Long workstationId, String itemType, Long itemId) {
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			StockRecord record = ledger.find(workstationId, itemType, itemId);
+			return record != null ? toDto(record) : null;
+		}
 		return repository.findByWorkstationIdAndItemTypeAndItemId(workstationId, itemType, itemId)
 				.map(this::toDto)
 				.orElse(null);
 	}
 
+	/**
+	 * Current rows for many (workstationId, itemType, itemId) keys in one lookup; quantities on
+	 * the keys are ignored. Keys without a row are simply absent from the result.
+	 */
+	public List<StockRecordDto> findByKeys(Collection<StockCheckRequest> keys) {
+		if (keys.isEmpty()) {
+			return List.of();
+		}
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			List<StockRecordDto> rows = new ArrayList<>(keys.size());
+			for (StockCheckRequest key : keys) {
+				StockRecord record = ledger.find(key.getWorkstationId(), key.getItemType(), key.getItemId());
+				if (record != null) {
+					rows.add(toDto(record));
+				}
+			}
+			return rows;
+		}
+		return loadRows(keys).stream()
+				.map(this::toDto)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Stock rows for many keys, with one index-backed query per (workstation, item type) so only
+	 * the exact requested rows are read.
+	 */
+	private List<StockRecord> loadRows(Collection<StockCheckRequest> keys) {
+		Map<StockCheckRequest, Set<Long>> itemIdsByGroup = keys.stream().collect(Collectors.groupingBy(
+				key -> new StockCheckRequest(key.getWorkstationId(), key.getItemType(), null, null),
+				Collectors.mapping(StockCheckRequest::getItemId, Collectors.toSet())));
+		List<StockRecord> rows = new ArrayList<>(keys.size());
+		itemIdsByGroup.forEach((group, itemIds) -> rows.addAll(repository
+				.findByWorkstationIdAndItemTypeAndItemIdIn(group.getWorkstationId(), group.getItemType(), itemIds)));
+		return rows;
+	}
+
+	/**
+	 * Answer availability for a whole order in one query per (workstation, item type).
+	 * Lines that target the same stock row draw down a shared balance in request order,
+	 * so the answer reflects what the batch as a whole could consume.
+	 */
+	public List<StockCheckResult> checkStockBatch(List<StockCheckRequest> lines) {
+		if (lines == null || lines.isEmpty()) {
+			return List.of();
+		}
+		for (StockCheckRequest line : lines) {
+			if (line.getWorkstationId() == null || line.getItemType() == null
+					|| line.getItemId() == null || line.getQuantity() == null) {
+				throw new ValidationException("Each stock check line needs workstationId, itemType, itemId and quantity");
+			}
+		}
+
+		Map<String, Integer> remaining = new HashMap<>();
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			for (StockCheckRequest line : lines) {
+				StockRecord record = ledger.find(line.getWorkstationId(), line.getItemType(), line.getItemId());
+				if (record != null) {
+					remaining.putIfAbsent(stockKey(line.getWorkstationId(), line.getItemType(), line.getItemId()),
+							record.getAvailableQuantity());
+				}
+			}
+		} else {
+			for (StockRecord record : loadRows(lines)) {
+				remaining.put(stockKey(record.getWorkstationId(), record.getItemType(), record.getItemId()),
+						hotSlices.onHand(record) - record.getReservedQuantity());
+			}
+		}
+
+		List<StockCheckResult> results = new ArrayList<>(lines.size());
+		for (StockCheckRequest line : lines) {
+			String key = stockKey(line.getWorkstationId(), line.getItemType(), line.getItemId());
+			int available = remaining.getOrDefault(key, 0);
+			boolean sufficient = available >= line.getQuantity();
+			if (sufficient) {
+				remaining.put(key, available - line.getQuantity());
+			}
+			results.add(new StockCheckResult(
+					line.getWorkstationId(),
+					line.getItemType(),
+					line.getItemId(),
+					line.getQuantity(),
+					available,
+					sufficient
+			));
+		}
+		return results;
+	}
+
+	private static String stockKey(Long workstationId, String itemType, Long itemId) {
+		return workstationId + ":" + itemType + ":" + itemId;
+	}
+
 	public StockRecordDto updateStock(Long workstationId, String itemType, Long itemId, Integer quantity) {
-		Optional<StockRecord> existing = repository.findByWorkstationIdAndItemTypeAndItemId(
-				workstationId, itemType, itemId);
+		return movementRecorder.guarded(() -> {
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				StockLedger.SetOutcome outcome = ledger.setQuantity(workstationId, itemType, itemId, quantity);
+				recordChange(outcome.record(), quantity - outcome.previousQuantity(),
+						StockMovement.REASON_UPDATE, null);
+				return toDto(outcome.record());
+			}
+			StockRecord saved = transactionTemplate.execute(status -> setQuantity(workstationId, itemType, itemId, quantity));
+			return toDto(saved);
+		});
+	}
+
+	private StockRecord setQuantity(Long workstationId, String itemType, Long itemId, Integer quantity) {
+		Optional<StockRecord> existing = repository.findForUpdate(workstationId, itemType, itemId);
 
 		StockRecord record;
+		int previousQuantity = 0;
 		if (existing.isPresent()) {
 			record = existing.get();
+			// Slice units are overwritten along with the row
+			previousQuantity = record.getQuantity() + hotSlices.drain(workstationId, itemType, itemId);
+			if (quantity < record.getReservedQuantity()) {
+				throw new ValidationException(String.format(
+						"Cannot set quantity to %d: %d units are held by active reservations",
+						quantity, record.getReservedQuantity()));
+			}
 			record.setQuantity(quantity);
 			record.setLastUpdated(LocalDateTime.now());
 		} else {
@@ -58,24 +233,358 @@ public class StockRecordService {
 			record.setLastUpdated(LocalDateTime.now());
 		}
 
-		StockRecord saved = repository.save(record);
-		return toDto(saved);
+		StockRecord saved = repository.saveAndFlush(record);
+		recordChange(saved, quantity - previousQuantity, StockMovement.REASON_UPDATE, null);
+		return saved;
 	}
 
-	public StockRecordDto save(StockRecordDto dto) {
+	public StockAdjustmentResult adjustStock(Long workstationId, String itemType, Long itemId, Integer delta) {
+		return adjustStock(workstationId, itemType, itemId, delta, null, null);
+	}
+
+	/**
+	 * Apply a signed delta to a stock row (negative = deduct, positive = credit).
+	 *
+	 * The mutation is a single conditional UPDATE, so concurrent callers on the same
+	 * (workstationId, itemType, itemId) row never lose updates and never drive stock
+	 * below zero. A credit against a missing row creates it. Transient conflicts
+	 * (optimistic lock failures, a concurrent insert of the same row) are retried
+	 * up to {@code inventory.stock.adjust.max-attempts} times.
+	 *
+	 * An applied delta is journalled with the given reason (ADJUST when blank) and order reference.
+	 * Rows designated hot take the delta on a {@link HotStockSlices} sub-counter where possible.
+	 */
+	public StockAdjustmentResult adjustStock(Long workstationId, String itemType, Long itemId, Integer delta,
+											 String reason, String orderReference) {
+		if (workstationId == null || itemType == null || itemId == null || delta == null) {
+			throw new ValidationException("workstationId, itemType, itemId and delta are required");
+		}
+
+		return movementRecorder.guarded(() -> {
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				StockLedger.DeltaOutcome outcome = ledger.applyDelta(workstationId, itemType, itemId, delta);
+				if (outcome.applied()) {
+					recordAdjustment(outcome.record(), delta, reason, orderReference);
+					return toResult(StockAdjustmentResult.APPLIED, outcome.record(), delta, null);
+				}
+				if (outcome.record() != null) {
+					return insufficient(outcome.record(), delta);
+				}
+				return missingRow(workstationId, itemType, itemId, delta);
+			}
+
+			if (hotSlices.tryAdjust(workstationId, itemType, itemId, delta)) {
+				recordAdjustment(workstationId, itemType, itemId, delta, reason, orderReference);
+				return repository.findByWorkstationIdAndItemTypeAndItemId(workstationId, itemType, itemId)
+						.map(record -> toResult(StockAdjustmentResult.APPLIED, record, delta, null))
+						.orElseThrow(() -> new StockConflictException(String.format(
+								"Stock record WS-%d %s #%d was removed while adjusting it", workstationId, itemType, itemId)));
+			}
+
+			ConcurrencyFailureException lastConflict = null;
+			for (int attempt = 1; attempt <= maxAdjustAttempts; attempt++) {
+				try {
+					StockAdjustmentResult result = transactionTemplate.execute(
+							status -> applyDelta(workstationId, itemType, itemId, delta));
+					if (StockAdjustmentResult.APPLIED.equals(result.getStatus())) {
+						recordAdjustment(workstationId, itemType, itemId, delta, reason, orderReference);
+					}
+					return result;
+				} catch (ConcurrencyFailureException e) {
+					lastConflict = e;
+					log.debug("Stock adjust conflict on WS-{} {} #{} (attempt {}/{}): {}",
+							workstationId, itemType, itemId, attempt, maxAdjustAttempts, e.getMessage());
+				} catch (DataIntegrityViolationException e) {
+					// Another writer inserted the same row between our lookup and insert
+					lastConflict = new ConcurrencyFailureException(e.getMessage(), e);
+					log.debug("Concurrent stock row insert on WS-{} {} #{} (attempt {}/{})",
+							workstationId, itemType, itemId, attempt, maxAdjustAttempts);
+				}
+				backoff(attempt);
+			}
+
+			throw new StockConflictException(String.format(
+					"Stock adjustment on WS-%d %s #%d did not succeed after %d attempts",
+					workstationId, itemType, itemId, maxAdjustAttempts), lastConflict);
+		});
+	}
+
+	private StockAdjustmentResult applyDelta(Long workstationId, String itemType, Long itemId, int delta) {
+		LocalDateTime now = LocalDateTime.now();
+		int updated = repository.applyDelta(workstationId, itemType, itemId, delta, now);
+		if (updated == 0 && delta < 0 && hotSlices.isHot(workstationId, itemType, itemId)) {
+			// The row alone falls short; pull its slice units in and try once more
+			Optional<StockRecord> locked = repository.findForUpdate(workstationId, itemType, itemId);
+			if (locked.isPresent() && hotSlices.foldInto(locked.get()) != 0) {
+				repository.saveAndFlush(locked.get());
+				updated = repository.applyDelta(workstationId, itemType, itemId, delta, now);
+			}
+		}
+
+		Optional<StockRecord> current = repository.findByWorkstationIdAndItemTypeAndItemId(
+				workstationId, itemType, itemId);
+
+		if (updated == 1) {
+			return toResult(StockAdjustmentResult.APPLIED, current.orElseThrow(), delta, null);
+		}
+
+		if (current.isPresent()) {
+			return insufficient(current.get(), delta);
+		}
+
+		if (delta < 0) {
+			return missingRow(workstationId, itemType, itemId, delta);
+		}
+
 		StockRecord record = new StockRecord();
-		record.setWorkstationId(dto.getWorkstationId());
-		record.setItemType(dto.getItemType());
-		record.setItemId(dto.getItemId());
-		record.setQuantity(dto.getQuantity());
-		record.setLastUpdated(LocalDateTime.now());
+		record.setWorkstationId(workstationId);
+		record.setItemType(itemType);
+		record.setItemId(itemId);
+		record.setQuantity(delta);
+		record.setLastUpdated(now);
+		StockRecord saved = repository.saveAndFlush(record);
+		return toResult(StockAdjustmentResult.APPLIED, saved, delta, null);
+	}
+
+	private void recordAdjustment(StockRecord record, int delta, String reason, String orderReference) {
+		recordAdjustment(record.getWorkstationId(), record.getItemType(), record.getItemId(), delta, reason, orderReference);
+	}
+
+	private void recordAdjustment(Long workstationId, String itemType, Long itemId, int delta,
+								  String reason, String orderReference) {
+		recordChange(workstationId, itemType, itemId, delta,
+				reason == null || reason.isBlank() ? StockMovement.REASON_ADJUST : reason.trim(), orderReference);
+	}
+
+	/**
+	 * Journal an applied change and announce it to change listeners.
+	 */
+	private void recordChange(StockRecord record, int delta, String reason, String orderReference) {
+		recordChange(record.getWorkstationId(), record.getItemType(), record.getItemId(), delta, reason, orderReference);
+	}
+
+	private void recordChange(Long workstationId, String itemType, Long itemId, int delta,
+							  String reason, String orderReference) {
+		movementRecorder.record(workstationId, itemType, itemId, delta, reason, orderReference);
+		eventPublisher.publishEvent(new StockChangedEvent(workstationId, itemType, itemId));
+	}
+
+	private StockAdjustmentResult insufficient(StockRecord record, int delta) {
+		int onHand = hotSlices.onHand(record);
+		return toResult(StockAdjustmentResult.INSUFFICIENT_STOCK, record, delta,
+				String.format("Insufficient stock: requested %d, available %d (on hand %d, reserved %d)",
+						-delta, onHand - record.getReservedQuantity(), onHand, record.getReservedQuantity()));
+	}
+
+	private StockAdjustmentResult missingRow(Long workstationId, String itemType, Long itemId, int delta) {
+		return StockAdjustmentResult.builder()
+				.status(StockAdjustmentResult.INSUFFICIENT_STOCK)
+				.workstationId(workstationId)
+				.itemType(itemType)
+				.itemId(itemId)
+				.delta(delta)
+				.quantity(0)
+				.message(String.format("Insufficient stock: requested %d, no stock record exists", -delta))
+				.build();
+	}
+
+	/**
+	 * Apply every deduction of a commit plan in one transaction, or none of them.
+	 *
+	 * Lines for the same (workstationId, itemType, itemId) are summed first, then the rows are
+	 * locked in ascending key order so two overlapping plans can never deadlock on each other.
+	 * All rows are checked before any is written; the first row that cannot cover its total
+	 * aborts the plan and is reported as the shortfall. Lock conflicts are retried like
+	 * {@link #adjustStock}.
+	 */
+	public StockCommitResult commitStock(StockCommitRequest request) {
+		if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+			throw new ValidationException("A stock commit needs at least one line");
+		}
+		TreeMap<StockCheckRequest, Integer> plan = new TreeMap<>(LOCK_ORDER);
+		for (StockCheckRequest line : request.getLines()) {
+			if (line.getWorkstationId() == null || line.getItemType() == null
+					|| line.getItemId() == null || line.getQuantity() == null) {
+				throw new ValidationException("Each stock commit line needs workstationId, itemType, itemId and quantity");
+			}
+			if (line.getQuantity() <= 0) {
+				throw new ValidationException("Stock commit quantities must be positive");
+			}
+			plan.merge(line, line.getQuantity(), Integer::sum);
+		}
+
+		return movementRecorder.guarded(() -> {
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				StockLedger.PlanOutcome outcome = ledger.commit(plan);
+				if (outcome.shortfall() != null) {
+					return commitShortfall(request.getOrderReference(), outcome.shortfall());
+				}
+				List<StockAdjustmentResult> applied = new ArrayList<>(outcome.records().size());
+				int i = 0;
+				for (Integer required : plan.values()) {
+					StockRecord record = outcome.records().get(i++);
+					recordChange(record, -required, StockMovement.REASON_COMMIT, request.getOrderReference());
+					applied.add(toResult(StockAdjustmentResult.APPLIED, record, -required, null));
+				}
+				log.info("Stock commit for {} applied {} row(s)", request.getOrderReference(), applied.size());
+				return StockCommitResult.builder()
+						.status(StockCommitResult.COMMITTED)
+						.orderReference(request.getOrderReference())
+						.applied(applied)
+						.build();
+			}
+
+			ConcurrencyFailureException lastConflict = null;
+			for (int attempt = 1; attempt <= maxAdjustAttempts; attempt++) {
+				try {
+					return transactionTemplate.execute(status -> {
+						StockCommitResult result = applyPlan(request.getOrderReference(), plan);
+						if (!result.isCommitted()) {
+							status.setRollbackOnly();
+						}
+						return result;
+					});
+				} catch (ConcurrencyFailureException e) {
+					lastConflict = e;
+					log.debug("Stock commit conflict for {} (attempt {}/{}): {}",
+							request.getOrderReference(), attempt, maxAdjustAttempts, e.getMessage());
+				}
+				backoff(attempt);
+			}
+
+			throw new StockConflictException(String.format(
+					"Stock commit for %s did not succeed after %d attempts",
+					request.getOrderReference(), maxAdjustAttempts), lastConflict);
+		});
+	}
+
+	private StockCommitResult applyPlan(String orderReference, TreeMap<StockCheckRequest, Integer> plan) {
+		List<StockRecord> locked = new ArrayList<>(plan.size());
+		List<Integer> deductions = new ArrayList<>(plan.size());
+		for (Map.Entry<StockCheckRequest, Integer> entry : plan.entrySet()) {
+			StockCheckRequest key = entry.getKey();
+			int required = entry.getValue();
+			Optional<StockRecord> row = repository.findForUpdate(key.getWorkstationId(), key.getItemType(), key.getItemId());
+			row.ifPresent(hotSlices::foldInto);
+			int available = row.map(StockRecord::getAvailableQuantity).orElse(0);
+			if (available < required) {
+				return commitShortfall(orderReference, new StockCheckResult(key.getWorkstationId(), key.getItemType(),
+						key.getItemId(), required, available, false));
+			}
+			locked.add(row.get());
+			deductions.add(required);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		List<StockAdjustmentResult> applied = new ArrayList<>(locked.size());
+		for (int i = 0; i < locked.size(); i++) {
+			StockRecord record = locked.get(i);
+			record.setQuantity(record.getQuantity() - deductions.get(i));
+			record.setLastUpdated(now);
+		}
+		repository.saveAllAndFlush(locked);
+		for (int i = 0; i < locked.size(); i++) {
+			recordChange(locked.get(i), -deductions.get(i), StockMovement.REASON_COMMIT, orderReference);
+			applied.add(toResult(StockAdjustmentResult.APPLIED, locked.get(i), -deductions.get(i), null));
+		}
+
+		log.info("Stock commit for {} applied {} row(s)", orderReference, applied.size());
+		return StockCommitResult.builder()
+				.status(StockCommitResult.COMMITTED)
+				.orderReference(orderReference)
+				.applied(applied)
+				.build();
+	}
+
+	private StockCommitResult commitShortfall(String orderReference, StockCheckResult shortfall) {
+		log.info("Stock commit for {} rejected: WS-{} {} #{} has {} available, needs {}",
+				orderReference, shortfall.getWorkstationId(), shortfall.getItemType(), shortfall.getItemId(),
+				shortfall.getAvailableQuantity(), shortfall.getRequestedQuantity());
+		return StockCommitResult.builder()
+				.status(StockCommitResult.INSUFFICIENT_STOCK)
+				.orderReference(orderReference)
+				.applied(List.of())
+				.shortfall(shortfall)
+				.message(String.format("Insufficient stock at WS-%d for %s #%d: requested %d, available %d",
+						shortfall.getWorkstationId(), shortfall.getItemType(), shortfall.getItemId(),
+						shortfall.getRequestedQuantity(), shortfall.getAvailableQuantity()))
+				.build();
+	}
+
+	/**
+	 * The in-memory ledger when ledger mode is on and it has finished loading, otherwise null.
+	 */
+	private StockLedger activeLedger() {
+		StockLedger ledger = ledgerProvider.getIfAvailable();
+		return ledger != null && ledger.isLoaded() ? ledger : null;
+	}
+
+	private void backoff(int attempt) {
+		if (adjustRetryBackoffMs <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(adjustRetryBackoffMs * attempt);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StockConflictException("Interrupted while retrying stock adjustment", e);
+		}
+	}
+
+	private StockAdjustmentResult toResult(String status, StockRecord record, int delta, String message) {
+		return StockAdjustmentResult.builder()
+				.status(status)
+				.workstationId(record.getWorkstationId())
+				.itemType(record.getItemType())
+				.itemId(record.getItemId())
+				.delta(delta)
+				.quantity(hotSlices.onHand(record))
+				.version(record.getVersion())
+				.message(message)
+				.build();
+	}
+
+	public StockRecordDto save(StockRecordDto dto) {
+		return movementRecorder.guarded(() -> {
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				StockRecord created = ledger.create(dto.getWorkstationId(), dto.getItemType(), dto.getItemId(), dto.getQuantity());
+				recordChange(created, created.getQuantity(), StockMovement.REASON_CREATE, null);
+				return toDto(created);
+			}
+			StockRecord record = new StockRecord();
+			record.setWorkstationId(dto.getWorkstationId());
+			record.setItemType(dto.getItemType());
+			record.setItemId(dto.getItemId());
+			record.setQuantity(dto.getQuantity());
+			record.setLastUpdated(LocalDateTime.now());
 
-		StockRecord saved = repository.save(record);
-		return toDto(saved);
+			StockRecord saved = repository.save(record);
+			recordChange(saved, saved.getQuantity(), StockMovement.REASON_CREATE, null);
+			return toDto(saved);
+		});
 	}
 
 	public void deleteById(Long id) {
-		repository.deleteById(id);
+		movementRecorder.guarded(() -> {
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				StockRecord removed = ledger.delete(id);
+				if (removed != null) {
+					recordChange(removed, -removed.getQuantity(), StockMovement.REASON_DELETE, null);
+				}
+				return;
+			}
+			transactionTemplate.executeWithoutResult(status -> repository.findById(id)
+					.flatMap(record -> repository.findForUpdate(record.getWorkstationId(), record.getItemType(), record.getItemId()))
+					.ifPresent(record -> {
+						int sliced = hotSlices.remove(record.getWorkstationId(), record.getItemType(), record.getItemId());
+						repository.delete(record);
+						recordChange(record, -(record.getQuantity() + sliced), StockMovement.REASON_DELETE, null);
+					}));
+		});
 	}
 
 	private StockRecordDto toDto(StockRecord entity) {
@@ -84,7 +593,8 @@ public class StockRecordService {
 				entity.getWorkstationId(),
 				entity.getItemType(),
 				entity.getItemId(),
-				entity.getQuantity(),
+				hotSlices.onHand(entity),
+				entity.getReservedQuantity(),
 				entity.getLastUpdated()
 		);
 	}
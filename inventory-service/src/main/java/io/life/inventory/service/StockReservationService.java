@@ -0,0 +1,449 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockCheckResult;
+import io.life.inventory.dto.StockReservationRequest;
+import io.life.inventory.dto.StockReservationResult;
+import io.life.inventory.entity.StockMovement;
+import io.life.inventory.event.StockChangedEvent;
+import io.life.inventory.entity.StockRecord;
+import io.life.inventory.entity.StockReservation;
+import io.life.inventory.exception.ResourceNotFoundException;
+import io.life.inventory.exception.StockConflictException;
+import io.life.inventory.exception.ValidationException;
+import io.life.inventory.repository.StockRecordRepository;
+import io.life.inventory.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Soft allocation of stock against orders.
+ *
+ * A hold raises {@link StockRecord#getReservedQuantity()} on every row it covers, so the
+ * held units stop counting as available for checks, deductions and other holds while the
+ * on-hand quantity is unchanged. Confirming a hold turns it into a real deduction; releasing
+ * it, or letting it expire, gives the units back. Reservations are locked before stock rows,
+ * and stock rows are locked in {@link StockRecordService#LOCK_ORDER}. In ledger mode the
+ * reservation rows stay in the database while the stock side goes through {@link StockLedger}.
+ * A hold has to take its units from the ledger inside the transaction, so that its shortfall
+ * check is exact; if the transaction then rolls back the units are handed back to the ledger.
+ * Confirming and giving back only touch the ledger once the reservation rows have committed,
+ * so a failed database write never leaves the ledger ahead of the reservations.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+	private final StockReservationRepository reservationRepository;
+	private final StockRecordRepository stockRecordRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectProvider<StockLedger> ledgerProvider;
+	private final StockMovementRecorder movementRecorder;
+	private final ApplicationEventPublisher eventPublisher;
+	private final HotStockSlices hotSlices;
+
+	@Value("${inventory.reservation.default-ttl-seconds:900}")
+	private long defaultTtlSeconds;
+
+	@Value("${inventory.reservation.max-ttl-seconds:604800}")
+	private long maxTtlSeconds;
+
+	@Value("${inventory.stock.adjust.max-attempts:5}")
+	private int maxAttempts;
+
+	/**
+	 * Hold every line of the request, or nothing. Holding again for an order reference that
+	 * already has active holds returns the existing holds unchanged.
+	 */
+	public StockReservationResult hold(StockReservationRequest request) {
+		if (request == null || request.getOrderReference() == null || request.getOrderReference().isBlank()) {
+			throw new ValidationException("A reservation needs an orderReference");
+		}
+		if (request.getLines() == null || request.getLines().isEmpty()) {
+			throw new ValidationException("A reservation needs at least one line");
+		}
+		long ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+		if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+			throw new ValidationException(String.format("ttlSeconds must be between 1 and %d", maxTtlSeconds));
+		}
+
+		TreeMap<StockCheckRequest, Integer> plan = new TreeMap<>(StockRecordService.LOCK_ORDER);
+		for (StockCheckRequest line : request.getLines()) {
+			if (line.getWorkstationId() == null || line.getItemType() == null
+					|| line.getItemId() == null || line.getQuantity() == null) {
+				throw new ValidationException("Each reservation line needs workstationId, itemType, itemId and quantity");
+			}
+			if (line.getQuantity() <= 0) {
+				throw new ValidationException("Reservation quantities must be positive");
+			}
+			plan.merge(line, line.getQuantity(), Integer::sum);
+		}
+
+		String orderReference = request.getOrderReference();
+		try {
+			return placeOnce(orderReference, plan, ttlSeconds);
+		} catch (DataIntegrityViolationException e) {
+			// A concurrent hold for the same reference won the unique active-reference key
+			List<StockReservation> existing = reservationRepository.findByOrderReferenceAndStatus(
+					orderReference, StockReservation.HELD);
+			if (existing.isEmpty()) {
+				throw new StockConflictException(String.format(
+						"Reservation for %s collided with a concurrent hold that did not last", orderReference), e);
+			}
+			log.debug("Concurrent hold for {} already placed; returning it", orderReference);
+			return toResult(orderReference, StockReservation.HELD, existing, null);
+		}
+	}
+
+	private StockReservationResult placeOnce(String orderReference, TreeMap<StockCheckRequest, Integer> plan,
+											 long ttlSeconds) {
+		return executeWithRetry(orderReference, status -> {
+			List<StockReservation> existing = reservationRepository.findByOrderReferenceAndStatus(
+					orderReference, StockReservation.HELD);
+			if (!existing.isEmpty()) {
+				return toResult(orderReference, StockReservation.HELD, existing, null);
+			}
+			StockReservationResult result = placeHolds(orderReference, plan, ttlSeconds);
+			if (!result.isHeld()) {
+				status.setRollbackOnly();
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Turn an order's active holds into real deductions. Confirming an already confirmed
+	 * reservation is a no-op; confirming one that has run out of time expires it and reports EXPIRED.
+	 */
+	public StockReservationResult confirm(String orderReference) {
+		// Confirming deducts on-hand stock, so it is guarded like any other journalled change
+		return movementRecorder.guarded(() -> executeWithRetry(orderReference, status -> {
+			List<StockReservation> held = reservationRepository.findHeldForUpdate(orderReference);
+			if (held.isEmpty()) {
+				return currentState(orderReference);
+			}
+			LocalDateTime now = LocalDateTime.now();
+			if (held.stream().anyMatch(r -> r.getExpiresAt().isBefore(now))) {
+				giveBack(held, StockReservation.EXPIRED, now);
+				log.info("Reservation for {} expired before it was confirmed", orderReference);
+				return toResult(orderReference, StockReservation.EXPIRED, held,
+						"Reservation expired before it was confirmed; held stock was released");
+			}
+
+			for (StockReservation reservation : held) {
+				reservation.setStatus(StockReservation.CONFIRMED);
+				reservation.setActiveReference(null);
+				reservation.setResolvedAt(now);
+			}
+			reservationRepository.saveAllAndFlush(held);
+
+			StockLedger ledger = activeLedger();
+			if (ledger != null) {
+				List<StockCheckRequest> lines = inLockOrder(held).stream()
+						.map(StockReservationService::toKey).collect(Collectors.toList());
+				afterCommit(() -> ledger.confirmReserved(lines));
+				held.forEach(this::recordConfirmed);
+			} else {
+				for (StockReservation reservation : inLockOrder(held)) {
+					StockRecord record = lockRow(reservation);
+					record.setQuantity(record.getQuantity() - reservation.getQuantity());
+					record.setReservedQuantity(record.getReservedQuantity() - reservation.getQuantity());
+					record.setLastUpdated(now);
+					recordConfirmed(reservation);
+				}
+				stockRecordRepository.flush();
+			}
+			log.info("Reservation for {} confirmed ({} row(s) deducted)", orderReference, held.size());
+			return toResult(orderReference, StockReservation.CONFIRMED, held, null);
+		}));
+	}
+
+	/**
+	 * Give an order's active holds back. Releasing an order with no active holds is a no-op.
+	 */
+	public StockReservationResult release(String orderReference) {
+		return executeWithRetry(orderReference, status -> {
+			List<StockReservation> held = reservationRepository.findHeldForUpdate(orderReference);
+			if (held.isEmpty()) {
+				return currentState(orderReference);
+			}
+			giveBack(held, StockReservation.RELEASED, LocalDateTime.now());
+			log.info("Reservation for {} released ({} row(s))", orderReference, held.size());
+			return toResult(orderReference, StockReservation.RELEASED, held, null);
+		});
+	}
+
+	public StockReservationResult getReservation(String orderReference) {
+		return currentState(orderReference);
+	}
+
+	/**
+	 * Release holds whose TTL has passed. Each order is expired in its own transaction,
+	 * so one failing order does not keep the others' stock locked up.
+	 */
+	@Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:30000}")
+	public void expireStaleReservations() {
+		List<String> expired = reservationRepository.findExpiredOrderReferences(LocalDateTime.now());
+		for (String orderReference : expired) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> {
+					LocalDateTime now = LocalDateTime.now();
+					List<StockReservation> held = reservationRepository.findHeldForUpdate(orderReference).stream()
+							.filter(r -> r.getExpiresAt().isBefore(now))
+							.collect(Collectors.toList());
+					giveBack(held, StockReservation.EXPIRED, now);
+				});
+				log.info("Expired stale reservation for {}", orderReference);
+			} catch (RuntimeException e) {
+				log.warn("Failed to expire reservation for {}: {}", orderReference, e.getMessage());
+			}
+		}
+	}
+
+	private StockReservationResult placeHolds(String orderReference, TreeMap<StockCheckRequest, Integer> plan,
+											  long ttlSeconds) {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime expiresAt = now.plusSeconds(ttlSeconds);
+		List<StockReservation> reservations = new ArrayList<>(plan.size());
+		int lineNumber = 0;
+		for (Map.Entry<StockCheckRequest, Integer> entry : plan.entrySet()) {
+			StockReservation reservation = new StockReservation();
+			reservation.setOrderReference(orderReference);
+			reservation.setActiveReference(orderReference);
+			reservation.setLineNumber(lineNumber++);
+			reservation.setWorkstationId(entry.getKey().getWorkstationId());
+			reservation.setItemType(entry.getKey().getItemType());
+			reservation.setItemId(entry.getKey().getItemId());
+			reservation.setQuantity(entry.getValue());
+			reservation.setStatus(StockReservation.HELD);
+			reservation.setCreatedAt(now);
+			reservation.setExpiresAt(expiresAt);
+			reservations.add(reservation);
+		}
+
+		StockLedger ledger = activeLedger();
+		StockCheckResult shortfall;
+		if (ledger != null) {
+			reservationRepository.saveAllAndFlush(reservations);
+			shortfall = ledger.reserve(plan).shortfall();
+			if (shortfall == null) {
+				List<StockCheckRequest> lines = plan.entrySet().stream()
+						.map(e -> new StockCheckRequest(e.getKey().getWorkstationId(), e.getKey().getItemType(),
+								e.getKey().getItemId(), e.getValue()))
+						.collect(Collectors.toList());
+				onRollback(() -> ledger.releaseReserved(lines));
+			}
+		} else {
+			shortfall = reserveRows(plan, now);
+			if (shortfall == null) {
+				reservationRepository.saveAllAndFlush(reservations);
+			}
+		}
+
+		if (shortfall != null) {
+			log.info("Reservation for {} rejected: WS-{} {} #{} has {} available, needs {}",
+					orderReference, shortfall.getWorkstationId(), shortfall.getItemType(), shortfall.getItemId(),
+					shortfall.getAvailableQuantity(), shortfall.getRequestedQuantity());
+			return StockReservationResult.builder()
+					.status(StockReservationResult.INSUFFICIENT_STOCK)
+					.orderReference(orderReference)
+					.lines(List.of())
+					.shortfall(shortfall)
+					.message(String.format("Insufficient stock at WS-%d for %s #%d: requested %d, available %d",
+							shortfall.getWorkstationId(), shortfall.getItemType(), shortfall.getItemId(),
+							shortfall.getRequestedQuantity(), shortfall.getAvailableQuantity()))
+					.build();
+		}
+		reservations.forEach(this::publishChange);
+		log.info("Reservation for {} held {} row(s) until {}", orderReference, reservations.size(), expiresAt);
+		return toResult(orderReference, StockReservation.HELD, reservations, null);
+	}
+
+	/**
+	 * Lock the planned stock rows in key order and raise their reserved amounts, or change
+	 * nothing and return the first row that cannot cover its share.
+	 */
+	private StockCheckResult reserveRows(TreeMap<StockCheckRequest, Integer> plan, LocalDateTime now) {
+		List<StockRecord> locked = new ArrayList<>(plan.size());
+		for (Map.Entry<StockCheckRequest, Integer> entry : plan.entrySet()) {
+			StockCheckRequest key = entry.getKey();
+			int required = entry.getValue();
+			StockRecord record = stockRecordRepository
+					.findForUpdate(key.getWorkstationId(), key.getItemType(), key.getItemId())
+					.orElse(null);
+			if (record != null) {
+				hotSlices.foldInto(record);
+			}
+			int available = record != null ? record.getAvailableQuantity() : 0;
+			if (available < required) {
+				return new StockCheckResult(key.getWorkstationId(), key.getItemType(), key.getItemId(),
+						required, available, false);
+			}
+			locked.add(record);
+		}
+		int i = 0;
+		for (Integer required : plan.values()) {
+			StockRecord record = locked.get(i++);
+			record.setReservedQuantity(record.getReservedQuantity() + required);
+			record.setLastUpdated(now);
+		}
+		stockRecordRepository.flush();
+		return null;
+	}
+
+	/**
+	 * Return held units to their stock rows and close the reservations with the given status.
+	 * Must run inside a transaction that already holds the reservation locks.
+	 */
+	private void giveBack(List<StockReservation> held, String finalStatus, LocalDateTime now) {
+		for (StockReservation reservation : held) {
+			reservation.setStatus(finalStatus);
+			reservation.setActiveReference(null);
+			reservation.setResolvedAt(now);
+		}
+		reservationRepository.saveAllAndFlush(held);
+		held.forEach(this::publishChange);
+
+		StockLedger ledger = activeLedger();
+		if (ledger != null) {
+			List<StockCheckRequest> lines = inLockOrder(held).stream()
+					.map(StockReservationService::toKey).collect(Collectors.toList());
+			afterCommit(() -> ledger.releaseReserved(lines));
+			return;
+		}
+		for (StockReservation reservation : inLockOrder(held)) {
+			stockRecordRepository.findForUpdate(reservation.getWorkstationId(), reservation.getItemType(),
+					reservation.getItemId()).ifPresent(record -> {
+				record.setReservedQuantity(Math.max(0, record.getReservedQuantity() - reservation.getQuantity()));
+				record.setLastUpdated(now);
+			});
+		}
+		stockRecordRepository.flush();
+	}
+
+	private StockRecord lockRow(StockReservation reservation) {
+		return stockRecordRepository
+				.findForUpdate(reservation.getWorkstationId(), reservation.getItemType(), reservation.getItemId())
+				.orElseThrow(() -> new StockConflictException(String.format(
+						"Stock record WS-%d %s #%d held by %s no longer exists",
+						reservation.getWorkstationId(), reservation.getItemType(), reservation.getItemId(),
+						reservation.getOrderReference())));
+	}
+
+	private List<StockReservation> inLockOrder(List<StockReservation> reservations) {
+		return reservations.stream()
+				.sorted(Comparator.comparing(StockReservationService::toKey, StockRecordService.LOCK_ORDER))
+				.collect(Collectors.toList());
+	}
+
+	private StockReservationResult currentState(String orderReference) {
+		List<StockReservation> all = reservationRepository.findByOrderReferenceOrderByIdAsc(orderReference);
+		if (all.isEmpty()) {
+			throw new ResourceNotFoundException("Reservation", "orderReference", orderReference);
+		}
+		// The most recently resolved (or created) rows describe the reservation's current state
+		StockReservation latest = all.get(all.size() - 1);
+		List<StockReservation> current = all.stream()
+				.filter(r -> r.getStatus().equals(latest.getStatus()))
+				.collect(Collectors.toList());
+		return toResult(orderReference, latest.getStatus(), current, null);
+	}
+
+	/**
+	 * Run a ledger change once the current transaction has committed.
+	 */
+	private static void afterCommit(Runnable action) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	/**
+	 * Undo a ledger change already made if the current transaction does not commit.
+	 */
+	private static void onRollback(Runnable compensation) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status != STATUS_COMMITTED) {
+					compensation.run();
+				}
+			}
+		});
+	}
+
+	private StockLedger activeLedger() {
+		StockLedger ledger = ledgerProvider.getIfAvailable();
+		return ledger != null && ledger.isLoaded() ? ledger : null;
+	}
+
+	private StockReservationResult executeWithRetry(String orderReference,
+													TransactionCallback<StockReservationResult> work) {
+		ConcurrencyFailureException lastConflict = null;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				return transactionTemplate.execute(work);
+			} catch (ConcurrencyFailureException e) {
+				lastConflict = e;
+				log.debug("Reservation conflict for {} (attempt {}/{}): {}",
+						orderReference, attempt, maxAttempts, e.getMessage());
+			}
+		}
+		throw new StockConflictException(String.format(
+				"Reservation for %s did not succeed after %d attempts", orderReference, maxAttempts), lastConflict);
+	}
+
+	private void recordConfirmed(StockReservation reservation) {
+		movementRecorder.record(reservation.getWorkstationId(), reservation.getItemType(), reservation.getItemId(),
+				-reservation.getQuantity(), StockMovement.REASON_RESERVATION_CONFIRM, reservation.getOrderReference());
+		publishChange(reservation);
+	}
+
+	private void publishChange(StockReservation reservation) {
+		eventPublisher.publishEvent(new StockChangedEvent(reservation.getWorkstationId(), reservation.getItemType(),
+				reservation.getItemId()));
+	}
+
+	private static StockCheckRequest toKey(StockReservation reservation) {
+		return new StockCheckRequest(reservation.getWorkstationId(), reservation.getItemType(),
+				reservation.getItemId(), reservation.getQuantity());
+	}
+
+	private static StockReservationResult toResult(String orderReference, String status,
+												   List<StockReservation> reservations, String message) {
+		LocalDateTime expiresAt = reservations.stream()
+				.map(StockReservation::getExpiresAt)
+				.min(Comparator.naturalOrder())
+				.orElse(null);
+		return StockReservationResult.builder()
+				.status(status)
+				.orderReference(orderReference)
+				.expiresAt(expiresAt)
+				.lines(reservations.stream().map(StockReservationService::toKey).collect(Collectors.toList()))
+				.message(message)
+				.build();
+	}
+
+}
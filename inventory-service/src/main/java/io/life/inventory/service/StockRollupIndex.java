@@ -0,0 +1,222 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockHolder;
+import io.life.inventory.dto.StockItemTotal;
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.dto.StockTypeTotal;
+import io.life.inventory.event.StockChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cross-workstation stock totals kept up to date incrementally.
+ *
+ * Built once from the live rows at startup. After that, committed {@link StockChangedEvent}s
+ * are coalesced and the changed rows re-read in batches right after commit (see
+ * {@link StockRowRefresher}); each row's difference is applied to:
+ * - per-item totals (O(1) lookup),
+ * - per-item holders ordered by quantity (top-N in O(log n + N)),
+ * - per-workstation, per-item-type sums (O(1) lookup).
+ *
+ * Reads therefore trail a commit by one refresh batch. Changes that arrive before the startup
+ * build are held back and applied once it has finished.
+ */
+@Component
+@Slf4j
+public class StockRollupIndex {
+
+	private record RowKey(Long workstationId, String itemType, Long itemId) {
+	}
+
+	private record ItemKey(String itemType, Long itemId) {
+	}
+
+	private record Holding(Long workstationId, int quantity, int reserved) {
+	}
+
+	private static final Comparator<Holding> LARGEST_FIRST = Comparator
+			.comparingInt(Holding::quantity).reversed()
+			.thenComparing(Holding::workstationId);
+
+	private static final class ItemRollup {
+		long quantity;
+		long reserved;
+		final TreeSet<Holding> holders = new TreeSet<>(LARGEST_FIRST);
+	}
+
+	private static final class TypeRollup {
+		long quantity;
+		long reserved;
+		int items;
+	}
+
+	private final StockRecordService stockRecordService;
+	private final StockRowRefresher refresher;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Guarded by lock
+	private final Map<RowKey, Holding> rows = new HashMap<>();
+	private final Map<ItemKey, ItemRollup> items = new HashMap<>();
+	private final Map<Long, Map<String, TypeRollup>> types = new HashMap<>();
+
+	public StockRollupIndex(StockRecordService stockRecordService,
+							@Value("${inventory.rollup.refresh-batch-size:500}") int refreshBatchSize) {
+		this.stockRecordService = stockRecordService;
+		this.refresher = new StockRowRefresher("stock-rollup", stockRecordService, refreshBatchSize, this::applyAll);
+	}
+
+	/**
+	 * Build from the live rows; runs after the stock ledger (if enabled) has loaded.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(5)
+	public void load() {
+		List<StockRecordDto> all = stockRecordService.findAll();
+		int itemCount;
+		lock.writeLock().lock();
+		try {
+			for (StockRecordDto row : all) {
+				apply(new RowKey(row.getWorkstationId(), row.getItemType(), row.getItemId()), row);
+			}
+			itemCount = items.size();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		refresher.start();
+		log.info("Stock rollup index built from {} row(s) covering {} item(s)", all.size(), itemCount);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStockChanged(StockChangedEvent event) {
+		refresher.changed(event);
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		refresher.shutdown();
+	}
+
+	public StockItemTotal getItemTotal(String itemType, Long itemId) {
+		lock.readLock().lock();
+		try {
+			ItemRollup item = items.get(new ItemKey(itemType, itemId));
+			if (item == null) {
+				return new StockItemTotal(itemType, itemId, 0L, 0L, 0L, 0);
+			}
+			return new StockItemTotal(itemType, itemId, item.quantity, item.reserved,
+					item.quantity - item.reserved, item.holders.size());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The workstations holding the most of an item, largest on-hand quantity first.
+	 */
+	public List<StockHolder> getTopHolders(String itemType, Long itemId, int limit) {
+		lock.readLock().lock();
+		try {
+			ItemRollup item = items.get(new ItemKey(itemType, itemId));
+			if (item == null) {
+				return List.of();
+			}
+			List<StockHolder> holders = new ArrayList<>(Math.min(limit, item.holders.size()));
+			for (Holding holding : item.holders) {
+				if (holders.size() >= limit) {
+					break;
+				}
+				holders.add(new StockHolder(holding.workstationId(), holding.quantity(), holding.reserved(),
+						holding.quantity() - holding.reserved()));
+			}
+			return holders;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Per-item-type sums at one workstation, ordered by item type.
+	 */
+	public List<StockTypeTotal> getTypeTotals(Long workstationId) {
+		lock.readLock().lock();
+		try {
+			Map<String, TypeRollup> byType = types.getOrDefault(workstationId, Map.of());
+			List<StockTypeTotal> totals = new ArrayList<>(byType.size());
+			new TreeMap<>(byType).forEach((itemType, rollup) ->
+					totals.add(new StockTypeTotal(workstationId, itemType, rollup.quantity, rollup.reserved, rollup.items)));
+			return totals;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void applyAll(List<StockRowRefresher.Refresh> refreshes) {
+		lock.writeLock().lock();
+		try {
+			for (StockRowRefresher.Refresh refresh : refreshes) {
+				StockChangedEvent key = refresh.key();
+				apply(new RowKey(key.workstationId(), key.itemType(), key.itemId()), refresh.row());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replace a row's contribution; a null row removes it. Caller holds the write lock.
+	 */
+	private void apply(RowKey key, StockRecordDto row) {
+		Holding next = row != null ? new Holding(key.workstationId(), row.getQuantity(),
+				row.getReservedQuantity() != null ? row.getReservedQuantity() : 0) : null;
+		Holding previous = next != null ? rows.put(key, next) : rows.remove(key);
+		if (previous == null && next == null) {
+			return;
+		}
+
+		ItemKey itemKey = new ItemKey(key.itemType(), key.itemId());
+		ItemRollup item = items.computeIfAbsent(itemKey, k -> new ItemRollup());
+		TypeRollup type = types.computeIfAbsent(key.workstationId(), k -> new HashMap<>())
+				.computeIfAbsent(key.itemType(), k -> new TypeRollup());
+		if (previous != null) {
+			item.holders.remove(previous);
+			item.quantity -= previous.quantity();
+			item.reserved -= previous.reserved();
+			type.quantity -= previous.quantity();
+			type.reserved -= previous.reserved();
+			type.items--;
+		}
+		if (next != null) {
+			item.holders.add(next);
+			item.quantity += next.quantity();
+			item.reserved += next.reserved();
+			type.quantity += next.quantity();
+			type.reserved += next.reserved();
+			type.items++;
+		}
+		if (item.holders.isEmpty()) {
+			items.remove(itemKey);
+		}
+		if (type.items == 0) {
+			Map<String, TypeRollup> byType = types.get(key.workstationId());
+			byType.remove(key.itemType());
+			if (byType.isEmpty()) {
+				types.remove(key.workstationId());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.event.StockChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Turns committed stock change events into fresh row reads for an in-memory view, off the
+ * committing thread.
+ *
+ * Changed keys are collected in a set, so a row that changes many times before it is read is
+ * read once. A single worker thread drains the set in batches, reads each batch with one
+ * lookup and hands the rows (null for deleted rows) to the consumer. A key is taken out of the
+ * set before its row is read, so a change that commits after the read queues another read and
+ * the view always ends on the latest committed state.
+ *
+ * Other work for the same view can be run on the worker thread with {@link #execute}, which
+ * keeps it ordered with the refreshes.
+ */
+@Slf4j
+class StockRowRefresher {
+
+	record Refresh(StockChangedEvent key, StockRecordDto row) {
+	}
+
+	private final StockRecordService stockRecordService;
+	private final int batchSize;
+	private final Consumer<List<Refresh>> consumer;
+	private final ExecutorService worker;
+	private final Set<StockChangedEvent> pending = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	private volatile boolean started;
+
+	StockRowRefresher(String threadName, StockRecordService stockRecordService, int batchSize,
+					  Consumer<List<Refresh>> consumer) {
+		this.stockRecordService = stockRecordService;
+		this.batchSize = batchSize;
+		this.consumer = consumer;
+		this.worker = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Begin delivering refreshes, including for changes collected before this call.
+	 */
+	void start() {
+		started = true;
+		scheduleDrain();
+	}
+
+	void changed(StockChangedEvent event) {
+		if (pending.add(event)) {
+			scheduleDrain();
+		}
+	}
+
+	void execute(Runnable task) {
+		try {
+			worker.execute(() -> {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					log.warn("Stock row refresh task failed: {}", e.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.debug("Stock row refresher is shut down; dropping task");
+		}
+	}
+
+	void shutdown() throws InterruptedException {
+		worker.shutdown();
+		worker.awaitTermination(2, TimeUnit.SECONDS);
+	}
+
+	private void scheduleDrain() {
+		if (started && drainScheduled.compareAndSet(false, true)) {
+			execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		drainScheduled.set(false);
+		while (true) {
+			List<StockChangedEvent> batch = new ArrayList<>(batchSize);
+			for (Iterator<StockChangedEvent> it = pending.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+				batch.add(it.next());
+				it.remove();
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			Map<StockChangedEvent, StockRecordDto> rows = new HashMap<>();
+			try {
+				List<StockCheckRequest> keys = batch.stream()
+						.map(key -> new StockCheckRequest(key.workstationId(), key.itemType(), key.itemId(), null))
+						.toList();
+				for (StockRecordDto row : stockRecordService.findByKeys(keys)) {
+					rows.put(new StockChangedEvent(row.getWorkstationId(), row.getItemType(), row.getItemId()), row);
+				}
+			} catch (RuntimeException e) {
+				// Keep the keys; the next change (or start) retries them
+				pending.addAll(batch);
+				log.warn("Could not read {} changed stock row(s): {}", batch.size(), e.getMessage());
+				return;
+			}
+			consumer.accept(batch.stream().map(key -> new Refresh(key, rows.get(key))).toList());
+		}
+	}
+
+}
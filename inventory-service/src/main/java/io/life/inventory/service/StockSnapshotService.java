@@ -0,0 +1,206 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockAsOfResult;
+import io.life.inventory.dto.StockMovementDto;
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.entity.StockMovement;
+import io.life.inventory.entity.StockSnapshot;
+import io.life.inventory.entity.StockSnapshotLine;
+import io.life.inventory.exception.ResourceNotFoundException;
+import io.life.inventory.exception.ValidationException;
+import io.life.inventory.repository.StockMovementRepository;
+import io.life.inventory.repository.StockSnapshotLineRepository;
+import io.life.inventory.repository.StockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Periodic per-workstation stock snapshots over the movement journal, and the
+ * history queries built on them.
+ *
+ * A baseline is taken from the live rows at startup. After that each run folds the movements
+ * since a workstation's previous snapshot into a new one, so an as-of query never has to
+ * replay more than one interval of movements.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockSnapshotService {
+
+	private static final Comparator<StockAsOfResult.StockLevel> LEVEL_ORDER = Comparator
+			.comparing(StockAsOfResult.StockLevel::getItemType)
+			.thenComparing(StockAsOfResult.StockLevel::getItemId);
+
+	private final StockRecordService stockRecordService;
+	private final StockMovementRecorder movementRecorder;
+	private final StockMovementRepository movementRepository;
+	private final StockSnapshotRepository snapshotRepository;
+	private final StockSnapshotLineRepository snapshotLineRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	@Value("${inventory.movements.max-page-size:1000}")
+	private int maxPageSize;
+
+	private volatile long lastSnapshotMovementId = -1;
+
+	private record Baseline(long lastMovementId, LocalDateTime takenAt, List<StockRecordDto> rows) {
+	}
+
+	/**
+	 * Snapshot every workstation from its live rows. Runs after the stock ledger (if enabled) has loaded.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(10)
+	public synchronized void takeBaseline() {
+		// The rows and the journal cut-off are read together, so no change is both in the rows and after maxId
+		Baseline baseline = movementRecorder.cut(() -> new Baseline(movementRepository.findMaxId(), LocalDateTime.now(),
+				stockRecordService.findAll()));
+		long maxId = baseline.lastMovementId();
+		LocalDateTime now = baseline.takenAt();
+		Map<Long, List<StockRecordDto>> byWorkstation = baseline.rows().stream()
+				.collect(Collectors.groupingBy(StockRecordDto::getWorkstationId, TreeMap::new, Collectors.toList()));
+		transactionTemplate.executeWithoutResult(status -> byWorkstation.forEach((workstationId, rows) -> {
+			Map<String, StockAsOfResult.StockLevel> levels = new TreeMap<>();
+			for (StockRecordDto row : rows) {
+				levels.put(levelKey(row.getItemType(), row.getItemId()),
+						new StockAsOfResult.StockLevel(row.getItemType(), row.getItemId(), row.getQuantity()));
+			}
+			saveSnapshot(workstationId, now, maxId, levels);
+		}));
+		lastSnapshotMovementId = maxId;
+		log.info("Stock baseline snapshot taken for {} workstation(s) at movement #{}", byWorkstation.size(), maxId);
+	}
+
+	/**
+	 * Roll forward the snapshot of every workstation that has moved since the last run.
+	 */
+	@Scheduled(fixedDelayString = "${inventory.snapshot.interval-ms:3600000}",
+			initialDelayString = "${inventory.snapshot.interval-ms:3600000}")
+	public synchronized void takeSnapshots() {
+		if (lastSnapshotMovementId < 0) {
+			return;
+		}
+		movementRecorder.flush();
+		long maxId = movementRepository.findMaxId();
+		if (maxId <= lastSnapshotMovementId) {
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		List<Long> moved = movementRepository.findWorkstationsMovedAfter(lastSnapshotMovementId);
+		transactionTemplate.executeWithoutResult(status -> {
+			for (Long workstationId : moved) {
+				StockSnapshot previous = snapshotRepository.findTopByWorkstationIdOrderByLastMovementIdDesc(workstationId)
+						.orElse(null);
+				Map<String, StockAsOfResult.StockLevel> levels = previous != null ? loadLevels(previous) : new TreeMap<>();
+				long fromId = previous != null ? previous.getLastMovementId() : 0;
+				applyDeltas(levels, movementRepository.sumDeltasBetween(workstationId, fromId, maxId));
+				saveSnapshot(workstationId, now, maxId, levels);
+			}
+		});
+		lastSnapshotMovementId = maxId;
+		log.debug("Stock snapshots rolled forward for {} workstation(s) to movement #{}", moved.size(), maxId);
+	}
+
+	/**
+	 * Stock levels of a workstation as they stood at the given instant.
+	 *
+	 * @throws ResourceNotFoundException if no snapshot of the workstation is that old
+	 */
+	public StockAsOfResult getStockAsOf(Long workstationId, LocalDateTime at) {
+		if (at == null) {
+			throw new ValidationException("An as-of instant is required");
+		}
+		StockSnapshot snapshot = snapshotRepository
+				.findTopByWorkstationIdAndTakenAtLessThanEqualOrderByTakenAtDesc(workstationId, at)
+				.orElseThrow(() -> new ResourceNotFoundException(String.format(
+						"No stock history for workstation %d at or before %s", workstationId, at)));
+		Map<String, StockAsOfResult.StockLevel> levels = loadLevels(snapshot);
+		applyDeltas(levels, movementRepository.sumDeltasAsOf(workstationId, snapshot.getLastMovementId(), at));
+		return StockAsOfResult.builder()
+				.workstationId(workstationId)
+				.asOf(at)
+				.snapshotTakenAt(snapshot.getTakenAt())
+				.lines(levels.values().stream().sorted(LEVEL_ORDER).collect(Collectors.toList()))
+				.build();
+	}
+
+	/**
+	 * Journalled movements of a workstation in [from, to], oldest first.
+	 */
+	public List<StockMovementDto> getMovements(Long workstationId, LocalDateTime from, LocalDateTime to, int limit) {
+		if (limit <= 0) {
+			throw new ValidationException("limit must be positive");
+		}
+		LocalDateTime upper = to != null ? to : LocalDateTime.now();
+		LocalDateTime lower = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+		if (lower.isAfter(upper)) {
+			throw new ValidationException("from must not be after to");
+		}
+		return movementRepository.findByWorkstationIdAndOccurredAtBetweenOrderByIdAsc(
+						workstationId, lower, upper, PageRequest.of(0, Math.min(limit, maxPageSize)))
+				.stream()
+				.map(this::toDto)
+				.collect(Collectors.toList());
+	}
+
+	private Map<String, StockAsOfResult.StockLevel> loadLevels(StockSnapshot snapshot) {
+		Map<String, StockAsOfResult.StockLevel> levels = new TreeMap<>();
+		for (StockSnapshotLine line : snapshotLineRepository.findBySnapshotId(snapshot.getId())) {
+			levels.put(levelKey(line.getItemType(), line.getItemId()),
+					new StockAsOfResult.StockLevel(line.getItemType(), line.getItemId(), line.getQuantity()));
+		}
+		return levels;
+	}
+
+	private static void applyDeltas(Map<String, StockAsOfResult.StockLevel> levels, List<Object[]> sums) {
+		for (Object[] row : sums) {
+			String itemType = (String) row[0];
+			Long itemId = ((Number) row[1]).longValue();
+			int delta = ((Number) row[2]).intValue();
+			StockAsOfResult.StockLevel level = levels.computeIfAbsent(levelKey(itemType, itemId),
+					k -> new StockAsOfResult.StockLevel(itemType, itemId, 0));
+			level.setQuantity(level.getQuantity() + delta);
+		}
+	}
+
+	private void saveSnapshot(Long workstationId, LocalDateTime takenAt, long lastMovementId,
+							  Map<String, StockAsOfResult.StockLevel> levels) {
+		StockSnapshot snapshot = snapshotRepository.save(new StockSnapshot(null, workstationId, takenAt, lastMovementId));
+		snapshotLineRepository.saveAll(levels.values().stream()
+				.map(level -> new StockSnapshotLine(null, snapshot.getId(), level.getItemType(), level.getItemId(),
+						level.getQuantity()))
+				.collect(Collectors.toList()));
+	}
+
+	private static String levelKey(String itemType, Long itemId) {
+		return itemType + "#" + itemId;
+	}
+
+	private StockMovementDto toDto(StockMovement movement) {
+		return new StockMovementDto(
+				movement.getId(),
+				movement.getWorkstationId(),
+				movement.getItemType(),
+				movement.getItemId(),
+				movement.getDelta(),
+				movement.getReason(),
+				movement.getOrderReference(),
+				movement.getOccurredAt()
+		);
+	}
+
+}
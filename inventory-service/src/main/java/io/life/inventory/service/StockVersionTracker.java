@@ -0,0 +1,52 @@
+package io.life.inventory.service;
+
+import io.life.inventory.event.StockChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters for the stock list endpoints, used as HTTP validators.
+ *
+ * Each workstation's counter (and a global one for the full list) is bumped after every
+ * committed stock change, so an unchanged version means an unchanged list. Counters live only
+ * in memory; the epoch in every ETag is renewed at startup (after the ledger, if any, has
+ * loaded), so validators issued by an earlier process or during startup never match.
+ *
+ * Callers must read the ETag before reading the list: the bump happens after commit, so a
+ * list read after the ETag is never older than the version it is tagged with.
+ */
+@Component
+public class StockVersionTracker {
+
+	private final Map<Long, AtomicLong> workstationVersions = new ConcurrentHashMap<>();
+	private final AtomicLong globalVersion = new AtomicLong();
+	private volatile long epoch = System.currentTimeMillis();
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStockChanged(StockChangedEvent event) {
+		workstationVersions.computeIfAbsent(event.workstationId(), k -> new AtomicLong()).incrementAndGet();
+		globalVersion.incrementAndGet();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(5)
+	public void renewEpoch() {
+		epoch = System.currentTimeMillis();
+	}
+
+	public String workstationEtag(Long workstationId) {
+		AtomicLong version = workstationVersions.get(workstationId);
+		return "\"" + epoch + "-ws" + workstationId + "-" + (version != null ? version.get() : 0) + "\"";
+	}
+
+	public String allEtag() {
+		return "\"" + epoch + "-all-" + globalVersion.get() + "\"";
+	}
+
+}
@@ -0,0 +1,59 @@
+package io.life.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:inventory_csv_test;DB_CLOSE_DELAY=-1",
+		"inventory.hot-records.keys=601:MODULE:2",
+		"inventory.hot-records.fold-interval-ms=3600000",
+		"inventory.csv.export-page-size=2"
+})
+class StockCsvServiceTests {
+
+	@Autowired
+	private StockCsvService csvService;
+
+	@Autowired
+	private StockRecordService stockRecordService;
+
+	@Test
+	void exportWalksEveryPageInKeyOrder() throws Exception {
+		for (long itemId = 1; itemId <= 5; itemId++) {
+			stockRecordService.updateStock(602L, "PART", itemId, (int) itemId * 10);
+		}
+		stockRecordService.updateStock(602L, "MODULE", 9L, 1);
+
+		List<String> lines = export(602L);
+		assertEquals(7, lines.size());
+		assertEquals(StockCsvService.EXPORT_HEADER, lines.get(0));
+		assertTrue(lines.get(1).startsWith("602,MODULE,9,1,0,"));
+		for (int itemId = 1; itemId <= 5; itemId++) {
+			assertTrue(lines.get(itemId + 1).startsWith("602,PART," + itemId + "," + itemId * 10 + ",0,"));
+		}
+	}
+
+	@Test
+	void exportIncludesHotSliceUnitsWithoutFolding() throws Exception {
+		stockRecordService.updateStock(601L, "MODULE", 2L, 10);
+		stockRecordService.adjustStock(601L, "MODULE", 2L, 5);
+
+		List<String> lines = export(601L);
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(1).startsWith("601,MODULE,2,15,0,"));
+	}
+
+	private List<String> export(Long workstationId) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		csvService.exportCsv(workstationId, output);
+		return output.toString(StandardCharsets.UTF_8).lines().toList();
+	}
+}
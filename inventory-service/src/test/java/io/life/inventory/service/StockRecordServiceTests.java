@@ -0,0 +1,209 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockAdjustmentResult;
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockCommitRequest;
+import io.life.inventory.dto.StockCommitResult;
+import io.life.inventory.dto.StockReservationRequest;
+import io.life.inventory.entity.StockRecord;
+import io.life.inventory.repository.StockRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:inventory_record_test;DB_CLOSE_DELAY=-1",
+		"inventory.hot-records.keys="
+})
+class StockRecordServiceTests {
+
+	@Autowired
+	private StockRecordService stockRecordService;
+
+	@Autowired
+	private StockReservationService reservationService;
+
+	@Autowired
+	private StockRecordRepository repository;
+
+	@Test
+	void adjustAppliesTheDeltaAndBumpsTheVersion() {
+		stockRecordService.updateStock(705L, "MODULE", 1L, 10);
+		Long before = version(705L, 1L);
+
+		StockAdjustmentResult deducted = stockRecordService.adjustStock(705L, "MODULE", 1L, -4);
+		StockAdjustmentResult credited = stockRecordService.adjustStock(705L, "MODULE", 1L, 2);
+
+		assertTrue(deducted.isApplied());
+		assertEquals(6, deducted.getQuantity());
+		assertEquals(before + 1, deducted.getVersion());
+		assertEquals(8, credited.getQuantity());
+		assertEquals(before + 2, credited.getVersion());
+	}
+
+	@Test
+	void adjustRefusesADeductionThatWouldEatIntoReservations() {
+		stockRecordService.updateStock(706L, "MODULE", 1L, 10);
+		assertTrue(reservationService.hold(new StockReservationRequest("ADJUST-HELD", null,
+				List.of(new StockCheckRequest(706L, "MODULE", 1L, 7)))).isHeld());
+		Long before = version(706L, 1L);
+
+		StockAdjustmentResult refused = stockRecordService.adjustStock(706L, "MODULE", 1L, -4);
+
+		assertFalse(refused.isApplied());
+		assertEquals(StockAdjustmentResult.INSUFFICIENT_STOCK, refused.getStatus());
+		assertEquals(10, refused.getQuantity());
+		assertEquals(before, refused.getVersion());
+		assertTrue(stockRecordService.adjustStock(706L, "MODULE", 1L, -3).isApplied());
+		assertEquals(7, quantity(706L, 1L));
+	}
+
+	@Test
+	void adjustCreatesAMissingRowOnlyForACredit() {
+		StockAdjustmentResult deducted = stockRecordService.adjustStock(707L, "MODULE", 1L, -1);
+		assertFalse(deducted.isApplied());
+		assertTrue(repository.findByWorkstationIdAndItemTypeAndItemId(707L, "MODULE", 1L).isEmpty());
+
+		StockAdjustmentResult credited = stockRecordService.adjustStock(707L, "MODULE", 1L, 5);
+		assertTrue(credited.isApplied());
+		assertEquals(5, quantity(707L, 1L));
+	}
+
+	@Test
+	void aSaveFromAStaleCopyLosesToAnAdjust() {
+		stockRecordService.updateStock(708L, "MODULE", 1L, 10);
+		StockRecord stale = repository.findByWorkstationIdAndItemTypeAndItemId(708L, "MODULE", 1L).orElseThrow();
+
+		assertTrue(stockRecordService.adjustStock(708L, "MODULE", 1L, -3).isApplied());
+		stale.setQuantity(20);
+
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> repository.saveAndFlush(stale));
+		assertEquals(7, quantity(708L, 1L));
+	}
+
+	@Test
+	void concurrentAdjustsNeverLoseAnUpdateOrGoBelowZero() throws Exception {
+		stockRecordService.updateStock(709L, "MODULE", 1L, 10);
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		int applied = 0;
+		try {
+			List<Future<StockAdjustmentResult>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				Callable<StockAdjustmentResult> deduct = () -> {
+					start.await();
+					return stockRecordService.adjustStock(709L, "MODULE", 1L, -3);
+				};
+				results.add(pool.submit(deduct));
+			}
+			start.countDown();
+			for (Future<StockAdjustmentResult> result : results) {
+				if (result.get().isApplied()) {
+					applied++;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(3, applied);
+		assertEquals(1, quantity(709L, 1L));
+	}
+
+	@Test
+	void commitDeductsEveryLine() {
+		stockRecordService.updateStock(701L, "MODULE", 1L, 10);
+		stockRecordService.updateStock(701L, "MODULE", 2L, 5);
+
+		StockCommitResult result = stockRecordService.commitStock(new StockCommitRequest("COMMIT-ALL", List.of(
+				new StockCheckRequest(701L, "MODULE", 1L, 4),
+				new StockCheckRequest(701L, "MODULE", 2L, 5))));
+
+		assertTrue(result.isCommitted());
+		assertEquals(6, quantity(701L, 1L));
+		assertEquals(0, quantity(701L, 2L));
+	}
+
+	@Test
+	void commitWithOneShortLineDeductsNothing() {
+		stockRecordService.updateStock(702L, "MODULE", 1L, 10);
+		stockRecordService.updateStock(702L, "MODULE", 2L, 1);
+
+		StockCommitResult result = stockRecordService.commitStock(new StockCommitRequest("COMMIT-SHORT", List.of(
+				new StockCheckRequest(702L, "MODULE", 1L, 4),
+				new StockCheckRequest(702L, "MODULE", 2L, 2))));
+
+		assertFalse(result.isCommitted());
+		assertEquals(StockCommitResult.INSUFFICIENT_STOCK, result.getStatus());
+		assertEquals(2L, result.getShortfall().getItemId());
+		assertEquals(10, quantity(702L, 1L));
+		assertEquals(1, quantity(702L, 2L));
+	}
+
+	@Test
+	void linesForTheSameRowAreAddedUpBeforeChecking() {
+		stockRecordService.updateStock(703L, "MODULE", 1L, 5);
+
+		StockCommitResult result = stockRecordService.commitStock(new StockCommitRequest("COMMIT-MERGED", List.of(
+				new StockCheckRequest(703L, "MODULE", 1L, 3),
+				new StockCheckRequest(703L, "MODULE", 1L, 3))));
+
+		assertFalse(result.isCommitted());
+		assertEquals(5, quantity(703L, 1L));
+	}
+
+	@Test
+	void concurrentCommitsNeverDeductMoreThanOnHand() throws Exception {
+		stockRecordService.updateStock(704L, "MODULE", 1L, 10);
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		int committed = 0;
+		try {
+			List<Future<StockCommitResult>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				String reference = "COMMIT-RACE-" + i;
+				Callable<StockCommitResult> commit = () -> {
+					start.await();
+					return stockRecordService.commitStock(new StockCommitRequest(reference,
+							List.of(new StockCheckRequest(704L, "MODULE", 1L, 3))));
+				};
+				results.add(pool.submit(commit));
+			}
+			start.countDown();
+			for (Future<StockCommitResult> result : results) {
+				if (result.get().isCommitted()) {
+					committed++;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(3, committed);
+		assertEquals(1, quantity(704L, 1L));
+	}
+
+	private Long version(Long workstationId, Long itemId) {
+		return repository.findByWorkstationIdAndItemTypeAndItemId(workstationId, "MODULE", itemId).orElseThrow().getVersion();
+	}
+
+	private int quantity(Long workstationId, Long itemId) {
+		return stockRecordService.getStockByWorkstationAndItem(workstationId, "MODULE", itemId).getQuantity();
+	}
+}
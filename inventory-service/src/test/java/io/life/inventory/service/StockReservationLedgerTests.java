@@ -0,0 +1,78 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.dto.StockReservationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:inventory_ledger_test;DB_CLOSE_DELAY=-1",
+		"inventory.hot-records.keys=",
+		"inventory.ledger.enabled=true",
+		"inventory.ledger.journal-dir=./target/ledger-test-journal"
+})
+class StockReservationLedgerTests {
+
+	@Autowired
+	private StockReservationService reservationService;
+
+	@Autowired
+	private StockRecordService stockRecordService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void confirmAppliesToLedger() {
+		stockRecordService.updateStock(501L, "MODULE", 1L, 10);
+
+		assertTrue(reservationService.hold(request("LEDGER-CONFIRM", 501L, 4)).isHeld());
+		assertEquals(4, stock(501L).getReservedQuantity());
+
+		reservationService.confirm("LEDGER-CONFIRM");
+		assertEquals(0, stock(501L).getReservedQuantity());
+		assertEquals(6, stock(501L).getQuantity());
+	}
+
+	@Test
+	void rolledBackHoldGivesLedgerUnitsBack() {
+		stockRecordService.updateStock(502L, "MODULE", 1L, 10);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			assertTrue(reservationService.hold(request("LEDGER-ROLLBACK", 502L, 4)).isHeld());
+			status.setRollbackOnly();
+		});
+		assertEquals(0, stock(502L).getReservedQuantity());
+		assertEquals(10, stock(502L).getQuantity());
+	}
+
+	@Test
+	void rolledBackConfirmLeavesLedgerUntouched() {
+		stockRecordService.updateStock(503L, "MODULE", 1L, 10);
+		reservationService.hold(request("LEDGER-CONFIRM-ROLLBACK", 503L, 3));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			reservationService.confirm("LEDGER-CONFIRM-ROLLBACK");
+			status.setRollbackOnly();
+		});
+		assertEquals(3, stock(503L).getReservedQuantity());
+		assertEquals(10, stock(503L).getQuantity());
+	}
+
+	private StockRecordDto stock(Long workstationId) {
+		return stockRecordService.getStockByWorkstationAndItem(workstationId, "MODULE", 1L);
+	}
+
+	private static StockReservationRequest request(String orderReference, Long workstationId, int quantity) {
+		return new StockReservationRequest(orderReference, null,
+				List.of(new StockCheckRequest(workstationId, "MODULE", 1L, quantity)));
+	}
+}
@@ -0,0 +1,130 @@
+package io.life.inventory.service;
+
+import io.life.inventory.dto.StockCheckRequest;
+import io.life.inventory.dto.StockRecordDto;
+import io.life.inventory.dto.StockReservationRequest;
+import io.life.inventory.dto.StockReservationResult;
+import io.life.inventory.entity.StockReservation;
+import io.life.inventory.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:inventory_test;DB_CLOSE_DELAY=-1",
+		"inventory.hot-records.keys="
+})
+class StockReservationServiceTests {
+
+	@Autowired
+	private StockReservationService reservationService;
+
+	@Autowired
+	private StockRecordService stockRecordService;
+
+	@Autowired
+	private StockReservationRepository reservationRepository;
+
+	@Test
+	void holdReservesStockAndConfirmDeductsIt() {
+		stockRecordService.updateStock(401L, "MODULE", 1L, 10);
+
+		StockReservationResult held = reservationService.hold(request("HOLD-CONFIRM", 401L, 4));
+		assertTrue(held.isHeld());
+		assertEquals(4, stock(401L).getReservedQuantity());
+		assertEquals(10, stock(401L).getQuantity());
+
+		StockReservationResult confirmed = reservationService.confirm("HOLD-CONFIRM");
+		assertEquals(StockReservation.CONFIRMED, confirmed.getStatus());
+		assertEquals(0, stock(401L).getReservedQuantity());
+		assertEquals(6, stock(401L).getQuantity());
+
+		// Confirming again changes nothing
+		reservationService.confirm("HOLD-CONFIRM");
+		assertEquals(6, stock(401L).getQuantity());
+	}
+
+	@Test
+	void holdBeyondAvailableStockHoldsNothing() {
+		stockRecordService.updateStock(402L, "MODULE", 1L, 5);
+		stockRecordService.updateStock(402L, "MODULE", 2L, 1);
+
+		StockReservationRequest request = new StockReservationRequest("HOLD-SHORT", null, List.of(
+				new StockCheckRequest(402L, "MODULE", 1L, 3),
+				new StockCheckRequest(402L, "MODULE", 2L, 2)));
+		StockReservationResult result = reservationService.hold(request);
+
+		assertEquals(StockReservationResult.INSUFFICIENT_STOCK, result.getStatus());
+		assertEquals(2L, result.getShortfall().getItemId());
+		assertEquals(0, stock(402L).getReservedQuantity());
+	}
+
+	@Test
+	void expiredHoldIsGivenBackBySweepAndCannotBeConfirmed() {
+		stockRecordService.updateStock(403L, "MODULE", 1L, 10);
+		reservationService.hold(request("HOLD-EXPIRE", 403L, 6));
+		reservationService.hold(request("HOLD-EXPIRE-CONFIRM", 403L, 2));
+		backdate("HOLD-EXPIRE");
+		backdate("HOLD-EXPIRE-CONFIRM");
+
+		reservationService.expireStaleReservations();
+		assertEquals(StockReservation.EXPIRED, reservationService.getReservation("HOLD-EXPIRE").getStatus());
+		assertEquals(StockReservation.EXPIRED, reservationService.confirm("HOLD-EXPIRE-CONFIRM").getStatus());
+		assertEquals(0, stock(403L).getReservedQuantity());
+		assertEquals(10, stock(403L).getQuantity());
+	}
+
+	@Test
+	void concurrentHoldsForOneReferenceReserveOnce() throws Exception {
+		stockRecordService.updateStock(404L, "MODULE", 1L, 100);
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<StockReservationResult>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				Callable<StockReservationResult> hold = () -> {
+					start.await();
+					return reservationService.hold(request("HOLD-RACE", 404L, 5));
+				};
+				results.add(pool.submit(hold));
+			}
+			start.countDown();
+			for (Future<StockReservationResult> result : results) {
+				assertTrue(result.get().isHeld());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(5, stock(404L).getReservedQuantity());
+		assertEquals(1, reservationRepository.findByOrderReferenceAndStatus("HOLD-RACE", StockReservation.HELD).size());
+	}
+
+	private void backdate(String orderReference) {
+		List<StockReservation> held = reservationRepository.findByOrderReferenceAndStatus(orderReference, StockReservation.HELD);
+		held.forEach(reservation -> reservation.setExpiresAt(LocalDateTime.now().minusSeconds(1)));
+		reservationRepository.saveAll(held);
+	}
+
+	private StockRecordDto stock(Long workstationId) {
+		return stockRecordService.getStockByWorkstationAndItem(workstationId, "MODULE", 1L);
+	}
+
+	private static StockReservationRequest request(String orderReference, Long workstationId, int quantity) {
+		return new StockReservationRequest(orderReference, null,
+				List.of(new StockCheckRequest(workstationId, "MODULE", 1L, quantity)));
+	}
+}
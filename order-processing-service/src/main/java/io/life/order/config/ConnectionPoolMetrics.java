@@ -0,0 +1,70 @@
+package io.life.order.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.life.order.dto.ConnectionPoolMetricsDTO;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long requests wait for a JDBC connection and how long they hold one, for the
+ * Hikari pool behind the application's DataSource. A remote call made inside a transaction
+ * shows up here as long connection holds and, once the pool is exhausted, as acquire waits
+ * and timeouts for everyone else.
+ */
+@Component
+public class ConnectionPoolMetrics implements BeanPostProcessor, MetricsTrackerFactory {
+
+    private final LatencyHistogram acquireWait = new LatencyHistogram();
+    private final LatencyHistogram connectionHold = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // Must be set before the pool starts, which happens on the first getConnection()
+        if (bean instanceof HikariDataSource dataSource) {
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireWait.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                connectionHold.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public ConnectionPoolMetricsDTO snapshot() {
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return new ConnectionPoolMetricsDTO(null, 0, 0, 0, 0, 0,
+                    acquireWait.snapshot(), connectionHold.snapshot(), timeouts.sum());
+        }
+        return new ConnectionPoolMetricsDTO(poolName, stats.getActiveConnections(), stats.getIdleConnections(),
+                stats.getTotalConnections(), stats.getMaxConnections(), stats.getPendingThreads(),
+                acquireWait.snapshot(), connectionHold.snapshot(), timeouts.sum());
+    }
+}
@@ -0,0 +1,217 @@
+package io.life.order.config;
+
+import io.life.order.exception.FanOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs the independent per-line downstream calls of one order in parallel on virtual threads.
+ *
+ * Each fan-out is scoped to the call that starts it: at most {@code app.fan-out.max-concurrency}
+ * of its calls run at once, all of them share one deadline ({@code app.fan-out.deadline-ms}),
+ * and the caller gets the results back in submission order once every call has finished. If a
+ * call throws, or the deadline passes first, the calls still running are cancelled (their
+ * virtual threads interrupted) and a {@link FanOutException} carrying the results that did
+ * finish is thrown. Calls should report expected outcomes, such as a rejected stock deduction,
+ * as results and only throw for failures that make the rest pointless.
+ *
+ * Calls that change state downstream must not be cut short, since a request interrupted in
+ * flight may or may not have been applied. {@link #completeAll} runs those: it never cancels
+ * and has no deadline of its own (each call is bounded by its client's timeouts), and reports
+ * every call's result or failure so the caller can settle the ones that failed.
+ */
+@Component
+public class FanOutExecutor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOutExecutor.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("fan-out-", 0).factory());
+    private final int maxConcurrency;
+    private final long deadlineMs;
+
+    public FanOutExecutor(@Value("${app.fan-out.max-concurrency:8}") int maxConcurrency,
+                          @Value("${app.fan-out.deadline-ms:20000}") long deadlineMs) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Apply {@code call} to every input in parallel and return the results in input order.
+     *
+     * @param label  What the calls are for, used in logs and error messages
+     * @param inputs One input per call
+     * @param call   The call; runs on a virtual thread, so it must not touch the caller's JPA entities
+     * @throws FanOutException if a call threw or the deadline passed; the other calls were cancelled
+     */
+    public <T, R> List<R> invokeAll(String label, List<T> inputs, Function<T, R> call) {
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+        if (inputs.size() == 1) {
+            // Nothing to overlap
+            try {
+                return Arrays.asList(call.apply(inputs.get(0)));
+            } catch (RuntimeException e) {
+                throw new FanOutException(label + ": a call failed", e, Arrays.asList((Object) null));
+            }
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        Object[] results = new Object[inputs.size()];
+        List<Future<Integer>> futures = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            int index = i;
+            T input = inputs.get(i);
+            futures.add(completion.submit(() -> {
+                permits.acquire();
+                try {
+                    results[index] = call.apply(input);
+                    return index;
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        try {
+            for (int finished = 0; finished < inputs.size(); finished++) {
+                Future<Integer> next = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    throw abandon(futures, results, label + ": " + finished + " of " + inputs.size()
+                            + " call(s) finished within " + deadlineMs + " ms", null);
+                }
+                try {
+                    next.get();
+                } catch (ExecutionException e) {
+                    throw abandon(futures, results, label + ": a call failed", e.getCause());
+                } catch (CancellationException e) {
+                    throw abandon(futures, results, label + ": a call was cancelled", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(futures, results, label + ": interrupted", e);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> ordered = (List<R>) Arrays.asList(results);
+        return ordered;
+    }
+
+    /**
+     * Apply {@code call} to every input in parallel and wait for every call to finish, without
+     * cancelling any of them, whatever the others do and even if the caller is interrupted.
+     *
+     * @param label  What the calls are for, used in logs
+     * @param inputs One input per call
+     * @param call   The call; runs on a virtual thread, so it must not touch the caller's JPA entities
+     * @return one outcome per input, in input order
+     */
+    public <T, R> List<Outcome<R>> completeAll(String label, List<T> inputs, Function<T, R> call) {
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+        if (inputs.size() == 1) {
+            // Nothing to overlap
+            try {
+                return List.of(Outcome.of(call.apply(inputs.get(0))));
+            } catch (RuntimeException e) {
+                logger.warn("{}: the call failed: {}", label, e.getMessage());
+                return List.of(Outcome.failed(e));
+            }
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            futures.add(executor.submit(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return call.apply(input);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        List<Outcome<R>> outcomes = new ArrayList<>(inputs.size());
+        boolean interrupted = false;
+        int failed = 0;
+        for (Future<R> future : futures) {
+            while (true) {
+                try {
+                    outcomes.add(Outcome.of(future.get()));
+                    break;
+                } catch (InterruptedException e) {
+                    // Keep waiting: the call is still running and its outcome is needed
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    outcomes.add(Outcome.failed(e.getCause()));
+                    failed++;
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failed > 0) {
+            logger.warn("{}: {} of {} call(s) failed", label, failed, inputs.size());
+        }
+        return outcomes;
+    }
+
+    /**
+     * What one call of {@link #completeAll} returned, or what it threw.
+     */
+    public record Outcome<R>(R result, Throwable failure) {
+
+        static <R> Outcome<R> of(R result) {
+            return new Outcome<>(result, null);
+        }
+
+        static <R> Outcome<R> failed(Throwable failure) {
+            return new Outcome<>(null, failure);
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+    }
+
+    private static FanOutException abandon(List<? extends Future<?>> futures, Object[] results,
+                                           String message, Throwable cause) {
+        futures.forEach(future -> future.cancel(true));
+        // A call counts as finished if it returned before the cancel, whether or not it was polled yet
+        List<Object> completed = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            completed.add(futures.get(i).state() == Future.State.SUCCESS ? results[i] : null);
+        }
+        logger.warn("Fan-out abandoned, cancelled the remaining calls: {}", message);
+        return new FanOutException(message, cause, completed);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,208 @@
+package io.life.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.life.order.dto.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Makes the order fulfillment and completion endpoints safe to retry.
+ *
+ * A request to one of {@code app.idempotency.paths} that carries an {@code Idempotency-Key}
+ * header runs once; repeating it with the same key while the outcome is remembered returns the
+ * stored status and body (marked {@code Idempotent-Replayed: true}) without running it again.
+ * A repeat that arrives while the first is still running is answered 409 with Retry-After, and
+ * reusing a key for a different method, URL or request body is answered 422. 5xx outcomes are not remembered,
+ * so a retry after a server failure runs the request again. Requests without the header are unaffected.
+ *
+ * The body of a keyed request is read up front so that its SHA-256 can be part of the request's
+ * fingerprint; the handler then reads it from memory. This filter and its store have a twin in
+ * {@code io.life.inventory.config.IdempotencyFilter}; the services are built separately, so change both together.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> MUTATING_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final List<String> paths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(ObjectMapper objectMapper,
+                             @Value("${app.idempotency.paths:/api/**/fulfill,/api/**/fulfill-pending,/api/**/fulfill-modules,/api/**/complete}") List<String> paths,
+                             @Value("${app.idempotency.ttl-seconds:3600}") long ttlSeconds,
+                             @Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.paths = paths.stream().map(String::trim).filter(path -> !path.isEmpty()).toList();
+        this.store = new IdempotencyStore(ttlSeconds * 1000, maxEntries);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(HEADER) == null || !MUTATING_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(request, response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key",
+                    "The Idempotency-Key header must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String scopedKey = (request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : "") + "|" + key;
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = request.getMethod() + " " + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "")
+                + " " + cachedRequest.bodyHash();
+
+        IdempotencyStore.Claim claim = store.claim(scopedKey, fingerprint);
+        switch (claim.status()) {
+            case REPLAY -> {
+                logger.debug("Replaying stored outcome of " + fingerprint + " for Idempotency-Key " + key);
+                IdempotencyStore.StoredResponse stored = claim.response();
+                response.setStatus(stored.status());
+                if (stored.contentType() != null) {
+                    response.setContentType(stored.contentType());
+                }
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.setContentLength(stored.body().length);
+                response.getOutputStream().write(stored.body());
+                return;
+            }
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                reject(request, response, HttpStatus.CONFLICT, "Request in progress",
+                        "A request with this Idempotency-Key is still being processed; retry shortly");
+                return;
+            }
+            case MISMATCH -> {
+                reject(request, response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key reused",
+                        "This Idempotency-Key was already used for a different request");
+                return;
+            }
+            case STARTED -> {
+                // Run the request below
+            }
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(cachedRequest, wrapper);
+            if (wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                store.complete(scopedKey, new IdempotencyStore.StoredResponse(
+                        wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.abandon(scopedKey);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                        String message, String error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(status.value(), message, error, request.getRequestURI()));
+    }
+
+    /**
+     * A request whose body has been read into memory, so it can be hashed here and read again downstream.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        String bodyHash() {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Cached request bodies are read synchronously");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.life.order.config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-evicting memory of recent Idempotency-Key outcomes.
+ *
+ * Entries are kept in creation order, so expired entries are always at the head and eviction is
+ * a walk from the front. Once {@code maxEntries} is reached the oldest entry is dropped even if it
+ * has not expired yet; a replay of that key will then run the request again.
+ *
+ * Twin of {@code io.life.inventory.config.IdempotencyStore}; change both together.
+ */
+class IdempotencyStore {
+
+    enum Status { STARTED, IN_PROGRESS, REPLAY, MISMATCH }
+
+    record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    record Claim(Status status, StoredResponse response) {
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long createdAt;
+        private StoredResponse response;
+
+        private Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    IdempotencyStore(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Claim a key for a request. STARTED means the caller must run the request and then call
+     * {@link #complete} or {@link #abandon}; any other status means it must not run.
+     */
+    synchronized Claim claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        evict(now);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return new Claim(Status.MISMATCH, null);
+            }
+            return entry.response != null
+                    ? new Claim(Status.REPLAY, entry.response)
+                    : new Claim(Status.IN_PROGRESS, null);
+        }
+        if (entries.size() >= maxEntries) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        entries.put(key, new Entry(fingerprint, now));
+        return new Claim(Status.STARTED, null);
+    }
+
+    synchronized void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.response = response;
+        }
+    }
+
+    /**
+     * Forget a claimed key whose outcome should not be replayed, so a retry runs the request again.
+     */
+    synchronized void abandon(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response == null) {
+            entries.remove(key);
+        }
+    }
+
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAt < ttlMillis) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.life.order.config;
+
+import io.life.order.dto.OutboundHttpMetricsDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Millisecond histogram with fixed upper bounds; percentiles are reported as the upper
+ * bound of the bucket they fall in (the observed maximum for the open-ended bucket).
+ */
+final class LatencyHistogram {
+
+    private static final long[] BOUNDS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BOUNDS_MS.length && millis > BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    OutboundHttpMetricsDTO.HistogramDTO snapshot() {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        Map<String, Long> byBound = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+            byBound.put(i < BOUNDS_MS.length ? "le_" + BOUNDS_MS[i] + "ms" : "le_inf", counts[i]);
+        }
+        long maxMs = TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        double meanMs = count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+        return new OutboundHttpMetricsDTO.HistogramDTO(count, meanMs, maxMs,
+                percentile(counts, count, 0.50, maxMs), percentile(counts, count, 0.95, maxMs),
+                percentile(counts, count, 0.99, maxMs), byBound);
+    }
+
+    private static long percentile(long[] counts, long count, double quantile, long maxMs) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMs) : maxMs;
+            }
+        }
+        return maxMs;
+    }
+}
@@ -4,24 +4,27 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
 /**
  * Configuration class for the Order Processing Service.
- * Sets up beans and configurations for REST communication, async processing, etc.
+ * Sets up beans and configurations for REST communication, async processing, scheduled jobs, etc.
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class OrderProcessingServiceConfig {
 
     /**
-     * RestTemplate bean for making HTTP requests to other microservices
+     * RestTemplate bean for making HTTP requests to other microservices,
+     * backed by a pooled client per downstream (see {@link OutboundHttpClients})
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(OutboundHttpClients outboundHttpClients) {
+        return new RestTemplate(outboundHttpClients.requestFactory());
     }
 
     /**
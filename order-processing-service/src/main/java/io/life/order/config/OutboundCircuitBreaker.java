@@ -0,0 +1,122 @@
+package io.life.order.config;
+
+/**
+ * Count-based circuit breaker for one downstream.
+ *
+ * Closed: calls go through and their outcomes fill a window of the last {@code windowSize}
+ * calls. Once the window holds at least {@code minimumCalls} outcomes and the share of failures
+ * reaches {@code failureRateThreshold} percent, the breaker opens. Open: calls are refused
+ * without touching the network until {@code openMillis} have passed. Half-open: up to
+ * {@code halfOpenCalls} trial calls go through; if they all succeed the breaker closes with an
+ * empty window, and any failure opens it again.
+ */
+class OutboundCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+    private long openUntil;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    OutboundCircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openMillis, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.window = new boolean[this.windowSize];
+    }
+
+    /**
+     * Whether a call may go ahead now. A permitted call must report its outcome with
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermitted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitted >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermitted++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+                open();
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state == State.OPEN && System.currentTimeMillis() >= openUntil ? State.HALF_OPEN : state;
+    }
+
+    /**
+     * Milliseconds until an open breaker lets a trial call through; 0 when not open.
+     */
+    synchronized long millisUntilRetry() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == windowSize) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openMillis;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowNext = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,312 @@
+package io.life.order.config;
+
+import io.life.order.dto.OutboundHttpMetricsDTO;
+import io.life.order.exception.DependencyUnavailableException;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One pooled Apache HttpClient per downstream service, behind a single request factory.
+ *
+ * Calls are routed to a destination's client by the scheme, host and port of the request URL,
+ * so callers keep building URLs from their own base-url properties. Anything that matches no
+ * configured destination goes through a "default" client with the default settings. Separate
+ * pools mean a slow downstream can only exhaust its own connections: once they are all busy,
+ * further calls to it fail after the pool wait timeout instead of holding a Tomcat worker until
+ * the OS gives up.
+ *
+ * Each call is bounded by the connect, pool wait and response (read) timeouts, and by a total
+ * deadline that aborts the exchange if the response head has not arrived in time.
+ *
+ * Each destination also has a bulkhead capping its concurrent calls and a circuit breaker that
+ * opens after a run of transport failures or 5xx answers. A call refused by either one throws
+ * {@link DependencyUnavailableException} straight away, without touching the network; RestTemplate
+ * passes it through unwrapped, so callers can tell "dependency unavailable" apart from any answer
+ * the dependency gave.
+ */
+@Component
+public class OutboundHttpClients implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundHttpClients.class);
+
+    static final String DEFAULT_DESTINATION = "default";
+
+    private final Map<String, Destination> byOrigin = new LinkedHashMap<>();
+    private final List<Destination> destinations = new ArrayList<>();
+    private final Destination fallback;
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final ClientHttpRequestFactory requestFactory;
+
+    public OutboundHttpClients(OutboundHttpProperties properties) {
+        deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "http-client-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlines.setRemoveOnCancelPolicy(true);
+
+        properties.getDestinations().forEach((name, settings) -> {
+            Destination destination = new Destination(name, settings.getBaseUrl(), properties, settings);
+            destinations.add(destination);
+            if (settings.getBaseUrl() == null || settings.getBaseUrl().isBlank()) {
+                logger.warn("Outbound HTTP destination {} has no base-url; no calls will be routed to it", name);
+                return;
+            }
+            Destination previous = byOrigin.putIfAbsent(origin(URI.create(settings.getBaseUrl())), destination);
+            if (previous != null) {
+                logger.warn("Outbound HTTP destinations {} and {} share an origin; calls go to {}",
+                        previous.name, name, previous.name);
+            }
+        });
+        fallback = new Destination(DEFAULT_DESTINATION, null, properties, new OutboundHttpProperties.Destination());
+        destinations.add(fallback);
+
+        requestFactory = new ClientHttpRequestFactory() {
+            @Override
+            public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+                return byOrigin.getOrDefault(origin(uri), fallback).requestFactory.createRequest(uri, httpMethod);
+            }
+        };
+        logger.info("Outbound HTTP clients ready for {} destination(s): {}", destinations.size(),
+                destinations.stream().map(destination -> destination.name).toList());
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return requestFactory;
+    }
+
+    public List<OutboundHttpMetricsDTO> metrics() {
+        return destinations.stream()
+                .map(destination -> destination.metrics.snapshot(destination.connectionManager.getTotalStats(),
+                        destination.circuitBreaker != null ? destination.circuitBreaker.state().name() : "DISABLED"))
+                .toList();
+    }
+
+    @Override
+    public void destroy() {
+        for (Destination destination : destinations) {
+            destination.client.close(CloseMode.GRACEFUL);
+        }
+        deadlines.shutdownNow();
+    }
+
+    private static String origin(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "http";
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(scheme) ? 443 : 80);
+        return scheme + "://" + (uri.getHost() != null ? uri.getHost().toLowerCase() : "") + ":" + port;
+    }
+
+    private final class Destination {
+        private final String name;
+        private final OutboundHttpMetrics metrics;
+        private final InstrumentedConnectionManager connectionManager;
+        private final InstrumentedHttpClient client;
+        private final ClientHttpRequestFactory requestFactory;
+        private final OutboundCircuitBreaker circuitBreaker;
+        private final Semaphore bulkhead;
+        private final long bulkheadWaitMillis;
+
+        private Destination(String name, String baseUrl, OutboundHttpProperties defaults,
+                            OutboundHttpProperties.Destination settings) {
+            this.name = name;
+            this.metrics = new OutboundHttpMetrics(name, baseUrl);
+            OutboundHttpProperties.CircuitBreaker breaker = defaults.getCircuitBreaker();
+            this.circuitBreaker = breaker.isEnabled()
+                    ? new OutboundCircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                            breaker.getFailureRateThreshold(), breaker.getOpenDuration().toMillis(), breaker.getHalfOpenCalls())
+                    : null;
+            int maxConcurrentCalls = settings.getMaxConcurrentCalls() != null
+                    ? settings.getMaxConcurrentCalls() : defaults.getBulkhead().getMaxConcurrentCalls();
+            this.bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+            this.bulkheadWaitMillis = defaults.getBulkhead().getMaxWait().toMillis();
+            int maxConnections = settings.getMaxConnections() != null ? settings.getMaxConnections() : defaults.getMaxConnections();
+            Duration responseTimeout = settings.getResponseTimeout() != null ? settings.getResponseTimeout() : defaults.getResponseTimeout();
+            Duration totalTimeout = settings.getTotalTimeout() != null ? settings.getTotalTimeout() : defaults.getTotalTimeout();
+
+            connectionManager = new InstrumentedConnectionManager(metrics);
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnections);
+            connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(defaults.getConnectTimeout()))
+                    .setSocketTimeout(Timeout.of(responseTimeout))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build());
+
+            TimeValue keepAlive = TimeValue.of(defaults.getKeepAlive());
+            CloseableHttpClient delegate = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.of(defaults.getPoolWaitTimeout()))
+                            .setResponseTimeout(Timeout.of(responseTimeout))
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> keepAlive)
+                    .evictExpiredConnections()
+                    .evictIdleConnections(keepAlive)
+                    .build();
+            client = new InstrumentedHttpClient(this, delegate, totalTimeout.toMillis());
+            requestFactory = new HttpComponentsClientHttpRequestFactory(client);
+        }
+    }
+
+    /**
+     * Times how long each call waits for a pooled connection.
+     */
+    private static final class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final OutboundHttpMetrics metrics;
+
+        private InstrumentedConnectionManager(OutboundHttpMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest lease = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return lease.get(timeout);
+                    } finally {
+                        metrics.poolWaited(System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return lease.cancel();
+                }
+            };
+        }
+    }
+
+    /**
+     * Applies the destination's bulkhead and circuit breaker, counts in-flight calls and their
+     * latency up to the response head, and aborts a call that passes the total deadline.
+     */
+    private final class InstrumentedHttpClient extends CloseableHttpClient {
+        private final Destination destination;
+        private final CloseableHttpClient delegate;
+        private final OutboundHttpMetrics metrics;
+        private final long totalTimeoutMillis;
+
+        private InstrumentedHttpClient(Destination destination, CloseableHttpClient delegate, long totalTimeoutMillis) {
+            this.destination = destination;
+            this.delegate = delegate;
+            this.metrics = destination.metrics;
+            this.totalTimeoutMillis = totalTimeoutMillis;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, ClassicHttpRequest request, HttpContext context)
+                throws IOException {
+            boolean admitted;
+            try {
+                admitted = destination.bulkhead.tryAcquire(destination.bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                admitted = false;
+            }
+            if (!admitted) {
+                metrics.bulkheadRejected();
+                throw new DependencyUnavailableException(destination.name,
+                        destination.name + " is unavailable (too many concurrent calls)", 1000);
+            }
+            OutboundCircuitBreaker breaker = destination.circuitBreaker;
+            if (breaker != null && !breaker.tryAcquire()) {
+                destination.bulkhead.release();
+                metrics.circuitRejected();
+                throw new DependencyUnavailableException(destination.name,
+                        destination.name + " is unavailable (circuit open)", Math.max(1000, breaker.millisUntilRetry()));
+            }
+            boolean failed = true;
+            try {
+                CloseableHttpResponse response = timedExecute(target, request, context);
+                failed = response.getCode() >= 500;
+                return response;
+            } finally {
+                destination.bulkhead.release();
+                if (breaker != null) {
+                    if (failed) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private CloseableHttpResponse timedExecute(HttpHost target, ClassicHttpRequest request, HttpContext context)
+                throws IOException {
+            ScheduledFuture<?> deadline = null;
+            if (totalTimeoutMillis > 0 && request instanceof HttpUriRequestBase cancellable) {
+                deadline = deadlines.schedule(() -> {
+                    if (cancellable.cancel()) {
+                        metrics.deadlineAborted();
+                    }
+                }, totalTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            metrics.requestStarted();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                CloseableHttpResponse response = delegate.execute(target, request, context);
+                failed = response.getCode() >= 500;
+                return response;
+            } finally {
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                metrics.requestFinished(System.nanoTime() - start, failed);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            delegate.close(closeMode);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.life.order.config;
+
+import io.life.order.dto.OutboundHttpMetricsDTO;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counters for one downstream's outbound HTTP client.
+ */
+class OutboundHttpMetrics {
+
+    private final String destination;
+    private final String baseUrl;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadlineAborts = new LongAdder();
+    private final LongAdder circuitRejections = new LongAdder();
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+
+    OutboundHttpMetrics(String destination, String baseUrl) {
+        this.destination = destination;
+        this.baseUrl = baseUrl;
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void requestFinished(long elapsedNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        latency.record(elapsedNanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    void deadlineAborted() {
+        deadlineAborts.increment();
+    }
+
+    void circuitRejected() {
+        circuitRejections.increment();
+    }
+
+    void bulkheadRejected() {
+        bulkheadRejections.increment();
+    }
+
+    void poolWaited(long elapsedNanos) {
+        poolWait.record(elapsedNanos);
+    }
+
+    OutboundHttpMetricsDTO snapshot(PoolStats pool, String circuitState) {
+        return new OutboundHttpMetricsDTO(destination, baseUrl, inFlight.get(), latency.count(), failures.sum(),
+                deadlineAborts.sum(), latency.snapshot(), poolWait.snapshot(),
+                pool.getLeased(), pool.getAvailable(), pool.getPending(), pool.getMax(),
+                circuitState, circuitRejections.sum(), bulkheadRejections.sum());
+    }
+}
@@ -0,0 +1,140 @@
+package io.life.order.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outbound HTTP client settings. The top-level values are defaults for every downstream;
+ * each entry under {@code destinations} gets its own connection pool, circuit breaker and
+ * bulkhead, and may override the pool size, the bulkhead size and the response and total deadlines.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.http-client")
+public class OutboundHttpProperties {
+
+    /** Time allowed to open a TCP connection. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Time allowed to wait for a free pooled connection. */
+    private Duration poolWaitTimeout = Duration.ofSeconds(1);
+    /** Time allowed between bytes of a response (socket read timeout). */
+    private Duration responseTimeout = Duration.ofSeconds(5);
+    /** Time allowed from the start of a call until the response head has arrived. */
+    private Duration totalTimeout = Duration.ofSeconds(10);
+    /** How long an idle pooled connection is kept open for reuse; keep below the downstream's keep-alive timeout. */
+    private Duration keepAlive = Duration.ofSeconds(15);
+    /** Pooled connections per downstream. */
+    private int maxConnections = 20;
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Bulkhead bulkhead = new Bulkhead();
+    private Map<String, Destination> destinations = new LinkedHashMap<>();
+
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    public Duration getPoolWaitTimeout() { return poolWaitTimeout; }
+    public void setPoolWaitTimeout(Duration poolWaitTimeout) { this.poolWaitTimeout = poolWaitTimeout; }
+
+    public Duration getResponseTimeout() { return responseTimeout; }
+    public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+
+    public Duration getTotalTimeout() { return totalTimeout; }
+    public void setTotalTimeout(Duration totalTimeout) { this.totalTimeout = totalTimeout; }
+
+    public Duration getKeepAlive() { return keepAlive; }
+    public void setKeepAlive(Duration keepAlive) { this.keepAlive = keepAlive; }
+
+    public int getMaxConnections() { return maxConnections; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+
+    public Bulkhead getBulkhead() { return bulkhead; }
+    public void setBulkhead(Bulkhead bulkhead) { this.bulkhead = bulkhead; }
+
+    public Map<String, Destination> getDestinations() { return destinations; }
+    public void setDestinations(Map<String, Destination> destinations) { this.destinations = destinations; }
+
+    /**
+     * Opens a downstream's circuit when too many of its recent calls failed (transport errors and
+     * 5xx answers); while open, calls fail at once instead of waiting for timeouts.
+     */
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        /** Number of most recent calls the failure rate is computed over. */
+        private int windowSize = 20;
+        /** Calls needed in the window before the failure rate is acted on. */
+        private int minimumCalls = 10;
+        /** Failure rate, in percent, that opens the circuit. */
+        private int failureRateThreshold = 50;
+        /** How long the circuit stays open before trial calls are let through. */
+        private Duration openDuration = Duration.ofSeconds(10);
+        /** Trial calls that must all succeed to close the circuit again. */
+        private int halfOpenCalls = 3;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public int getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(int failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    }
+
+    /**
+     * Caps the calls in flight to one downstream; a call that cannot get a slot in time fails
+     * at once instead of queueing behind a slow dependency.
+     */
+    public static class Bulkhead {
+        /** Concurrent calls per downstream. */
+        private int maxConcurrentCalls = 20;
+        /** Time a call may wait for a free slot. */
+        private Duration maxWait = Duration.ofMillis(250);
+
+        public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+
+        public Duration getMaxWait() { return maxWait; }
+        public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+    }
+
+    /**
+     * One downstream, matched to outgoing calls by the scheme, host and port of its base URL.
+     */
+    public static class Destination {
+        private String baseUrl;
+        private Integer maxConnections;
+        private Integer maxConcurrentCalls;
+        private Duration responseTimeout;
+        private Duration totalTimeout;
+
+        public String getBaseUrl() { return baseUrl; }
+        public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+
+        public Integer getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(Integer maxConnections) { this.maxConnections = maxConnections; }
+
+        public Integer getMaxConcurrentCalls() { return maxConcurrentCalls; }
+        public void setMaxConcurrentCalls(Integer maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+
+        public Duration getTotalTimeout() { return totalTimeout; }
+        public void setTotalTimeout(Duration totalTimeout) { this.totalTimeout = totalTimeout; }
+    }
+}
@@ -0,0 +1,96 @@
+package io.life.order.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration properties for batching production orders before they are released to SimAL.
+ *
+ * Setup costs and minimum batch sizes are given per item variant, keyed by lower-case
+ * {@code <itemType>-<itemId>} (e.g. {@code app.production.batching.setup-costs.module-2=80});
+ * variants without an entry use the defaults.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.production.batching")
+public class ProductionBatchingProperties {
+
+    /**
+     * How the quantity released in one batch is decided
+     */
+    public enum LotSizingPolicy {
+        /** Release everything collected for a variant once per period */
+        FIXED_PERIOD,
+        /** Release once the economic order quantity for the variant's setup cost and demand rate is reached */
+        EOQ,
+        /** Release once the variant's minimum batch size is reached */
+        MIN_BATCH
+    }
+
+    private boolean enabled = false;
+    private LotSizingPolicy policy = LotSizingPolicy.EOQ;
+    private Duration period = Duration.ofMinutes(15);
+    private Duration maxHold = Duration.ofHours(2);
+    private Duration dueDateLeadTime = Duration.ofHours(4);
+    private Duration demandLookback = Duration.ofDays(7);
+    private double holdingCostPerUnitDay = 1.0;
+    private double defaultSetupCost = 50.0;
+    private Map<String, Double> setupCosts = new HashMap<>();
+    private int defaultMinBatch = 10;
+    private Map<String, Integer> minBatches = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public LotSizingPolicy getPolicy() { return policy; }
+    public void setPolicy(LotSizingPolicy policy) { this.policy = policy; }
+
+    public Duration getPeriod() { return period; }
+    public void setPeriod(Duration period) { this.period = period; }
+
+    public Duration getMaxHold() { return maxHold; }
+    public void setMaxHold(Duration maxHold) { this.maxHold = maxHold; }
+
+    public Duration getDueDateLeadTime() { return dueDateLeadTime; }
+    public void setDueDateLeadTime(Duration dueDateLeadTime) { this.dueDateLeadTime = dueDateLeadTime; }
+
+    public Duration getDemandLookback() { return demandLookback; }
+    public void setDemandLookback(Duration demandLookback) { this.demandLookback = demandLookback; }
+
+    public double getHoldingCostPerUnitDay() { return holdingCostPerUnitDay; }
+    public void setHoldingCostPerUnitDay(double holdingCostPerUnitDay) { this.holdingCostPerUnitDay = holdingCostPerUnitDay; }
+
+    public double getDefaultSetupCost() { return defaultSetupCost; }
+    public void setDefaultSetupCost(double defaultSetupCost) { this.defaultSetupCost = defaultSetupCost; }
+
+    public Map<String, Double> getSetupCosts() { return setupCosts; }
+    public void setSetupCosts(Map<String, Double> setupCosts) { this.setupCosts = setupCosts; }
+
+    public int getDefaultMinBatch() { return defaultMinBatch; }
+    public void setDefaultMinBatch(int defaultMinBatch) { this.defaultMinBatch = defaultMinBatch; }
+
+    public Map<String, Integer> getMinBatches() { return minBatches; }
+    public void setMinBatches(Map<String, Integer> minBatches) { this.minBatches = minBatches; }
+
+    /**
+     * Setup (changeover) cost of producing a batch of the given variant.
+     */
+    public double setupCostOf(String itemType, Long itemId) {
+        return setupCosts.getOrDefault(variantKey(itemType, itemId), defaultSetupCost);
+    }
+
+    /**
+     * Smallest batch of the given variant worth releasing under {@link LotSizingPolicy#MIN_BATCH}.
+     */
+    public int minBatchOf(String itemType, Long itemId) {
+        return minBatches.getOrDefault(variantKey(itemType, itemId), defaultMinBatch);
+    }
+
+    private static String variantKey(String itemType, Long itemId) {
+        return (itemType + "-" + itemId).toLowerCase(Locale.ROOT);
+    }
+}
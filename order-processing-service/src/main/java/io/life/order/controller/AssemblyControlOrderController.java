@@ -154,7 +154,8 @@ public class AssemblyControlOrderController {
                     request.getQualityCheckpoints(),
                     "Standard testing procedures apply",
                     "Standard packaging requirements",
-                    90  // Default 90-minute estimate
+                    90,  // Default 90-minute estimate
+                    request.getQuantity()
             );
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
         } catch (Exception e) {
@@ -174,6 +175,7 @@ public class AssemblyControlOrderController {
         private String priority;
         private String assemblyInstructions;
         private String qualityCheckpoints;
+        private Integer quantity;
 
         // Getters and setters
         public Long getSourceProductionOrderId() { return sourceProductionOrderId; }
@@ -209,5 +211,8 @@ public class AssemblyControlOrderController {
         public void setQualityCheckpoints(String qualityCheckpoints) {
             this.qualityCheckpoints = qualityCheckpoints;
         }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
     }
 }
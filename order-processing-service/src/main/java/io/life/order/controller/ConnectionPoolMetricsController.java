@@ -0,0 +1,27 @@
+package io.life.order.controller;
+
+import io.life.order.config.ConnectionPoolMetrics;
+import io.life.order.dto.ConnectionPoolMetricsDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Occupancy, acquire wait and connection hold times of the database connection pool.
+ */
+@RestController
+@RequestMapping("/api/internal/db-pool")
+public class ConnectionPoolMetricsController {
+
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    public ConnectionPoolMetricsController(ConnectionPoolMetrics connectionPoolMetrics) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    @GetMapping
+    public ResponseEntity<ConnectionPoolMetricsDTO> getMetrics() {
+        return ResponseEntity.ok(connectionPoolMetrics.snapshot());
+    }
+}
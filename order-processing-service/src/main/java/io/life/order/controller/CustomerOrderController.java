@@ -1,11 +1,18 @@
 package io.life.order.controller;
 
+import io.life.order.dto.BatchFulfillmentResultDTO;
 import io.life.order.dto.CustomerOrderDTO;
+import io.life.order.dto.FulfillmentJobDTO;
 import io.life.order.service.CustomerOrderService;
+import io.life.order.service.FulfillmentJobService;
 import io.life.order.service.FulfillmentService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,10 +23,13 @@ public class CustomerOrderController {
 
     private final CustomerOrderService customerOrderService;
     private final FulfillmentService fulfillmentService;
+    private final FulfillmentJobService fulfillmentJobService;
 
-    public CustomerOrderController(CustomerOrderService customerOrderService, FulfillmentService fulfillmentService) {
+    public CustomerOrderController(CustomerOrderService customerOrderService, FulfillmentService fulfillmentService,
+                                   FulfillmentJobService fulfillmentJobService) {
         this.customerOrderService = customerOrderService;
         this.fulfillmentService = fulfillmentService;
+        this.fulfillmentJobService = fulfillmentJobService;
     }
 
     @PostMapping
@@ -73,4 +83,34 @@ public class CustomerOrderController {
         CustomerOrderDTO fulfilledOrder = fulfillmentService.fulfillOrder(id);
         return ResponseEntity.ok(fulfilledOrder);
     }
+
+    /**
+     * Fulfill all PENDING orders of a workstation in one sweep, allocating scarce stock by priority and due date.
+     */
+    @PostMapping("/workstation/{workstationId}/fulfill-pending")
+    public ResponseEntity<BatchFulfillmentResultDTO> fulfillPendingOrders(@PathVariable Long workstationId) {
+        return ResponseEntity.ok(fulfillmentService.fulfillPendingOrders(workstationId));
+    }
+
+    /**
+     * Queue fulfillment and return 202 with the job; poll the Location or follow its events for the result.
+     * The synchronous PUT above stays for callers that want to wait.
+     */
+    @PostMapping("/{id}/fulfill")
+    public ResponseEntity<FulfillmentJobDTO> submitFulfillment(@PathVariable Long id) {
+        FulfillmentJobDTO job = fulfillmentJobService.submit(id);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/customer-orders/" + id + "/fulfillment-jobs/" + job.getJobId()))
+            .body(job);
+    }
+
+    @GetMapping("/{id}/fulfillment-jobs/{jobId}")
+    public ResponseEntity<FulfillmentJobDTO> getFulfillmentJob(@PathVariable Long id, @PathVariable String jobId) {
+        return ResponseEntity.ok(fulfillmentJobService.getJob(id, jobId));
+    }
+
+    @GetMapping(value = "/{id}/fulfillment-jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followFulfillmentJob(@PathVariable Long id, @PathVariable String jobId) {
+        return fulfillmentJobService.subscribe(id, jobId);
+    }
 }
@@ -0,0 +1,29 @@
+package io.life.order.controller;
+
+import io.life.order.config.OutboundHttpClients;
+import io.life.order.dto.OutboundHttpMetricsDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Per-downstream latency, pool wait and pool occupancy of the outbound HTTP clients.
+ */
+@RestController
+@RequestMapping("/api/internal/http-clients")
+public class OutboundHttpMetricsController {
+
+    private final OutboundHttpClients outboundHttpClients;
+
+    public OutboundHttpMetricsController(OutboundHttpClients outboundHttpClients) {
+        this.outboundHttpClients = outboundHttpClients;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<OutboundHttpMetricsDTO>> getMetrics() {
+        return ResponseEntity.ok(outboundHttpClients.metrics());
+    }
+}
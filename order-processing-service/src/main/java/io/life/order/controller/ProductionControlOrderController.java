@@ -223,7 +223,8 @@ public class ProductionControlOrderController {
                     request.getProductionInstructions(),
                     request.getQualityCheckpoints(),
                     "Standard safety procedures apply",
-                    120  // Default 2-hour estimate
+                    120,  // Default 2-hour estimate
+                    request.getQuantity()
             );
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
         } catch (Exception e) {
@@ -243,6 +244,7 @@ public class ProductionControlOrderController {
         private String priority;
         private String productionInstructions;
         private String qualityCheckpoints;
+        private Integer quantity;
 
         // Getters and setters
         public Long getSourceProductionOrderId() { return sourceProductionOrderId; }
@@ -278,5 +280,8 @@ public class ProductionControlOrderController {
         public void setQualityCheckpoints(String qualityCheckpoints) {
             this.qualityCheckpoints = qualityCheckpoints;
         }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
     }
 }
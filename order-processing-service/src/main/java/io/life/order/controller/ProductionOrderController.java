@@ -1,6 +1,7 @@
 package io.life.order.controller;
 
 import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.dto.ProductionOrderDemandDTO;
 import io.life.order.service.ProductionOrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -56,6 +57,14 @@ public class ProductionOrderController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Get the shortfalls (customer order, warehouse order, quantity) a production order covers
+     */
+    @GetMapping("/{id}/demands")
+    public ResponseEntity<List<ProductionOrderDemandDTO>> getProductionOrderDemands(@PathVariable Long id) {
+        return ResponseEntity.ok(productionOrderService.getDemands(id));
+    }
+
     /**
      * Get all production orders from a customer order
      */
@@ -1,6 +1,8 @@
 package io.life.order.controller;
 
+import io.life.order.dto.ProductionBatchDTO;
 import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.service.ProductionBatcher;
 import io.life.order.service.ProductionPlanningService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,9 +21,12 @@ import java.util.Map;
 public class ProductionPlanningController {
 
     private final ProductionPlanningService productionPlanningService;
+    private final ProductionBatcher productionBatcher;
 
-    public ProductionPlanningController(ProductionPlanningService productionPlanningService) {
+    public ProductionPlanningController(ProductionPlanningService productionPlanningService,
+                                        ProductionBatcher productionBatcher) {
         this.productionPlanningService = productionPlanningService;
+        this.productionBatcher = productionBatcher;
     }
 
     /**
@@ -80,4 +85,20 @@ public class ProductionPlanningController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
+
+    /**
+     * Get the production batches being collected and the lot-sizing decision for each
+     */
+    @GetMapping("/batches")
+    public ResponseEntity<List<ProductionBatchDTO>> getBatches() {
+        return ResponseEntity.ok(productionBatcher.preview());
+    }
+
+    /**
+     * Release the batches that are ready now, or all of them with force=true
+     */
+    @PostMapping("/batches/release")
+    public ResponseEntity<List<ProductionBatchDTO>> releaseBatches(@RequestParam(defaultValue = "false") boolean force) {
+        return ResponseEntity.ok(productionBatcher.release(force));
+    }
 }
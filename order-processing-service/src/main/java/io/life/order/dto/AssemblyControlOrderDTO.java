@@ -28,6 +28,7 @@ public class AssemblyControlOrderDTO {
     private String testingProcedures;
     private String packagingRequirements;
     private Integer estimatedDurationMinutes;
+    private Integer quantity;
     private Integer actualDurationMinutes;
     private Integer defectsFound;
     private Integer defectsReworked;
@@ -0,0 +1,26 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one batch fulfillment sweep over a workstation's pending customer orders.
+ * {@code orders} lists the settled orders in the order stock was allocated to them;
+ * {@code skipped} orders were left PENDING (changed by another request, or inventory could not
+ * be reached for them) and are picked up by the next sweep.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFulfillmentResultDTO {
+    private Long workstationId;
+    private String batchReference; // reference of the batch stock commit, null if no order was fully covered
+    private boolean batchCommitted;
+    private int completed;
+    private int processing;
+    private int skipped;
+    private List<CustomerOrderDTO> orders;
+}
@@ -0,0 +1,25 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point-in-time view of the database connection pool: occupancy, threads waiting for a
+ * connection, time spent waiting for one, time each connection was held, and acquire
+ * timeouts. Counters run since startup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolMetricsDTO {
+    private String poolName;
+    private int active;
+    private int idle;
+    private int total;
+    private int max;
+    private int threadsAwaiting;
+    private OutboundHttpMetricsDTO.HistogramDTO acquireWait;
+    private OutboundHttpMetricsDTO.HistogramDTO connectionHold;
+    private long acquireTimeouts;
+}
@@ -18,6 +18,8 @@ public class CustomerOrderDTO {
     private List<OrderItemDTO> orderItems;
     private Long workstationId;
     private String notes;
+    private String priority;
+    private LocalDateTime dueDate;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,27 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of one queued customer order fulfillment. {@code order} is set once the job has
+ * SUCCEEDED; {@code error} and {@code errorStatus} (the HTTP status a synchronous fulfillment
+ * would have answered with) once it has FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FulfillmentJobDTO {
+    private String jobId;
+    private Long orderId;
+    private String status; // QUEUED, RUNNING, SUCCEEDED, FAILED
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private CustomerOrderDTO order;
+    private String error;
+    private Integer errorStatus;
+}
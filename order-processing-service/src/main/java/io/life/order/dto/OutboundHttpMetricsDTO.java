@@ -0,0 +1,50 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Point-in-time view of one downstream's outbound HTTP client: request latency, connection
+ * pool wait time, in-flight requests, pool occupancy, circuit breaker state and calls refused
+ * by the circuit breaker or bulkhead. Counters run since startup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundHttpMetricsDTO {
+    private String destination;
+    private String baseUrl;
+    private int inFlight;
+    private long requests;
+    private long failures;
+    private long deadlineAborts;
+    private HistogramDTO latency;
+    private HistogramDTO poolWait;
+    private int poolLeased;
+    private int poolAvailable;
+    private int poolPending;
+    private int poolMax;
+    private String circuitState;
+    private long circuitRejections;
+    private long bulkheadRejections;
+
+    /**
+     * Fixed-bucket histogram; {@code buckets} maps each upper bound ("le_250ms", ..., "le_inf")
+     * to the number of samples at or below it and above the previous bound.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramDTO {
+        private long count;
+        private double meanMs;
+        private long maxMs;
+        private long p50Ms;
+        private long p95Ms;
+        private long p99Ms;
+        private Map<String, Long> buckets;
+    }
+}
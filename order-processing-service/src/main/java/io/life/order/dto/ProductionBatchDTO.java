@@ -0,0 +1,35 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One variant's worth of unreleased production orders as seen by the production batcher:
+ * what has been collected, what the lot-sizing policy makes of it and, once released, the
+ * consolidated order that went to SimAL.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionBatchDTO {
+    private Long assignedWorkstationId;
+    private String itemType;
+    private Long itemId;
+    private int quantity;
+    private List<String> productionOrderNumbers;
+    private LocalDateTime heldSince;
+    private LocalDateTime earliestDueDate;
+    private String policy;
+    private double setupCost;
+    private Integer lotSizeTarget; // EOQ or minimum batch size, null under FIXED_PERIOD
+    private boolean release;
+    private String reason;
+    private ProductionOrderDTO releasedOrder; // set once released; status SCHEDULED/SUBMITTED if SimAL accepted it
+    private String error;
+}
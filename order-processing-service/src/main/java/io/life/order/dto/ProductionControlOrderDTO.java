@@ -27,6 +27,7 @@ public class ProductionControlOrderDTO {
     private String qualityCheckpoints;
     private String safetyProcedures;
     private Integer estimatedDurationMinutes;
+    private Integer quantity;
     private Integer actualDurationMinutes;
     private Integer defectsFound;
     private Integer defectsReworked;
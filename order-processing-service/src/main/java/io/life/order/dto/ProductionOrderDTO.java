@@ -33,6 +33,12 @@ public class ProductionOrderDTO {
 
     private LocalDateTime dueDate;
 
+    private String itemType; // item to produce, when the order is for one item
+
+    private Long itemId;
+
+    private Integer quantity; // total over every shortfall coalesced into the order
+
     private String triggerScenario; // SCENARIO_3, STANDALONE
 
     private Long createdByWorkstationId;
@@ -48,4 +54,6 @@ public class ProductionOrderDTO {
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    private Long version; // optimistic lock version of the order as read
 }
@@ -0,0 +1,24 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One shortfall covered by a production order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderDemandDTO {
+    private Long id;
+    private Long productionOrderId;
+    private Long sourceCustomerOrderId;
+    private Long sourceWarehouseOrderId;
+    private String itemType;
+    private Long itemId;
+    private Integer quantity;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a batch stock availability check sent to inventory-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCheckRequestDTO {
+    private Long workstationId;
+    private String itemType;
+    private Long itemId;
+    private Integer quantity;
+}
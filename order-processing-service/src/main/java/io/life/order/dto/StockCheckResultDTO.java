@@ -0,0 +1,20 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Availability answer for one line of a batch stock check, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCheckResultDTO {
+    private Long workstationId;
+    private String itemType;
+    private Long itemId;
+    private Integer requestedQuantity;
+    private Integer availableQuantity;
+    private boolean sufficient;
+}
@@ -0,0 +1,18 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * All-or-nothing set of stock deductions sent to inventory-service's commit endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommitRequestDTO {
+    private String orderReference;
+    private List<StockCheckRequestDTO> lines;
+}
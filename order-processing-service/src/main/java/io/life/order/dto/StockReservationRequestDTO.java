@@ -0,0 +1,19 @@
+package io.life.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to hold stock for an order in inventory-service. All lines are held together or not at all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequestDTO {
+    private String orderReference;
+    private Long ttlSeconds;
+    private List<StockCheckRequestDTO> lines;
+}
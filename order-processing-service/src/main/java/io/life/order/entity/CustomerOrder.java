@@ -19,6 +19,10 @@ public class CustomerOrder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Optimistic lock: a write based on a stale read of this order fails rather than overwrite it
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private String orderNumber;
 
@@ -36,6 +40,17 @@ public class CustomerOrder {
 
     private String notes;
 
+    // Batch fulfillment hands scarce stock to orders by priority, then due date
+    private String priority; // LOW, MEDIUM, HIGH (unset counts as MEDIUM)
+
+    private LocalDateTime dueDate;
+
+    // Stock commit sent for this order (possibly with others, as a batch) that got no answer;
+    // replayed under the same Idempotency-Key before the order is planned again
+    private String pendingStockCommitReference;
+
+    private String pendingStockCommitKey;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,37 @@
+package io.life.order.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * High-water mark of one order number sequence. Each instance reserves a block of values by
+ * moving {@code nextValue} forward and hands numbers out of that block from memory, so the row
+ * is only touched once per block.
+ */
+@Entity
+@Table(name = "order_sequences")
+@Data
+@NoArgsConstructor
+public class OrderSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /**
+     * First value not yet reserved by any instance
+     */
+    @Column(nullable = false)
+    private Long nextValue;
+
+    // Null until the row is first saved, which makes creating it an insert: an instance that lost
+    // the race to create the sequence gets a key violation instead of overwriting the winner's row
+    @Version
+    private Long version;
+
+    public OrderSequence(String name, Long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+}
@@ -0,0 +1,84 @@
+package io.life.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * OutboxMessage entity records a side effect of a local state change that still has to be
+ * delivered to another service, such as a SimAL schedule status update or an inventory credit.
+ * It is written in the same transaction as the change that causes it and delivered afterwards
+ * by the outbox relay, so the effect is neither lost when the remote call fails nor sent for a
+ * change that was rolled back.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Key sent with every delivery attempt, so a retried effect is applied at most once
+     */
+    @Column(nullable = false, unique = true)
+    private String messageKey;
+
+    /**
+     * What to deliver: SIMAL_SCHEDULE_STATUS or INVENTORY_CREDIT
+     */
+    @Column(nullable = false)
+    private String messageType;
+
+    /**
+     * The order whose change produced this message (e.g. the control order number)
+     */
+    @Column(nullable = false)
+    private String sourceReference;
+
+    // SIMAL_SCHEDULE_STATUS
+    private String scheduleId;
+    private String scheduleStatus;
+
+    // INVENTORY_CREDIT
+    private Long workstationId;
+    private String itemType;
+    private Long itemId;
+    private Integer quantity;
+
+    /**
+     * PENDING until delivered; FAILED when the receiver rejected it for good
+     */
+    @Column(nullable = false)
+    private String status; // PENDING, DELIVERED, FAILED
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    /**
+     * Earliest time of the next delivery attempt
+     */
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    /**
+     * When the change that produced this message happened
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime deliveredAt;
+}
@@ -63,6 +63,12 @@ public class ProductionControlOrder {
 
     private Integer estimatedDurationMinutes;
 
+    /**
+     * Units this order produces, taken from its production order; completing it credits this
+     * many. Null on orders not tied to a quantity, which credit one unit.
+     */
+    private Integer quantity;
+
     private Integer actualDurationMinutes;
 
     private Integer defectsFound;
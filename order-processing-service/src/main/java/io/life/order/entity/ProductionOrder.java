@@ -25,6 +25,13 @@ public class ProductionOrder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Optimistic lock version; a write based on a stale read of this order fails instead of
+     * overwriting a concurrent change.
+     */
+    @Version
+    private Long version;
+
     /**
      * Unique production order number (e.g., PO-001, PO-002).
      */
@@ -74,6 +81,20 @@ public class ProductionOrder {
     @Column(nullable = true)
     private LocalDateTime dueDate;
 
+    /**
+     * The item and total quantity to produce, for orders raised for a shortfall of one item.
+     * Null on orders not tied to one item. Shortfalls coalesced into this order add to the
+     * quantity; each is recorded as a {@link ProductionOrderDemand}.
+     */
+    @Column(nullable = true)
+    private String itemType;
+
+    @Column(nullable = true)
+    private Long itemId;
+
+    @Column(nullable = true)
+    private Integer quantity;
+
     /**
      * Scenario that triggered this production order.
      * SCENARIO_3: Warehouse order cannot be fulfilled (partial stock)
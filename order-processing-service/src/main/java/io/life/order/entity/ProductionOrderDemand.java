@@ -0,0 +1,56 @@
+package io.life.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One shortfall a production order was raised or extended for: which customer and warehouse
+ * order needed how much of the order's item. A coalesced production order has several.
+ */
+@Entity
+@Table(name = "production_order_demands", indexes = {
+        @Index(name = "idx_production_order_demands_order", columnList = "productionOrderId"),
+        @Index(name = "idx_production_order_demands_warehouse_order", columnList = "sourceWarehouseOrderId"),
+        @Index(name = "idx_production_order_demands_customer_order", columnList = "sourceCustomerOrderId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionOrderDemand {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productionOrderId;
+
+    @Column(nullable = false)
+    private Long sourceCustomerOrderId;
+
+    @Column(nullable = true)
+    private Long sourceWarehouseOrderId;
+
+    @Column(nullable = false)
+    private String itemType;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
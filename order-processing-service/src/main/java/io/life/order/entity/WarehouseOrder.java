@@ -19,6 +19,10 @@ public class WarehouseOrder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Optimistic lock: a write based on a stale read of this order fails rather than overwrite it
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private String warehouseOrderNumber;
 
@@ -37,4 +37,10 @@ public class WarehouseOrderItem {
     private String itemType; // "MODULE" or "PART"
 
     private String notes;
+
+    // Idempotency-Key and quantity of a deduction whose outcome inventory-service could not
+    // report; replayed under the same key before the order's next pass
+    private String pendingDeductionKey;
+
+    private Integer pendingDeductionQuantity;
 }
@@ -0,0 +1,8 @@
+package io.life.order.event;
+
+/**
+ * Published after inventory-service has applied a stock credit made through this service,
+ * e.g. a module delivered to the Modules Supermarket when production or assembly completes.
+ */
+public record StockCreditedEvent(Long workstationId, String itemType, Long itemId, int quantity) {
+}
@@ -0,0 +1,33 @@
+package io.life.order.exception;
+
+/**
+ * Exception thrown when a downstream service cannot be used right now: its circuit breaker is
+ * open, its bulkhead is full, or it could not be reached. Distinct from a business answer such
+ * as "out of stock", so callers must not treat it as one.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final String dependency;
+    private final long retryAfterMillis;
+
+    public DependencyUnavailableException(String dependency, String message, long retryAfterMillis) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public DependencyUnavailableException(String dependency, String message, Throwable cause) {
+        super(message, cause);
+        this.dependency = dependency;
+        this.retryAfterMillis = 0;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+
+    /** How long the caller should wait before trying again; 0 if unknown. */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
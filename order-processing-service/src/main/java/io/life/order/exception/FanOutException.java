@@ -0,0 +1,25 @@
+package io.life.order.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception thrown when a parallel fan-out of calls is abandoned, either because one call
+ * failed or because the shared deadline passed. The calls still running were cancelled;
+ * the results of those that had already finished are kept, in submission order, with
+ * null for every call that did not finish.
+ */
+public class FanOutException extends OrderProcessingException {
+
+    private final transient List<?> completedResults;
+
+    public FanOutException(String message, Throwable cause, List<?> completedResults) {
+        super(message, cause);
+        this.completedResults = Collections.unmodifiableList(completedResults);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> List<R> getCompletedResults() {
+        return (List<R>) completedResults;
+    }
+}
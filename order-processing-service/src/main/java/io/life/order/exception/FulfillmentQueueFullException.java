@@ -0,0 +1,20 @@
+package io.life.order.exception;
+
+/**
+ * Exception thrown when a fulfillment request cannot be queued because the fulfillment queue is
+ * full. The request was not accepted and can be sent again later.
+ */
+public class FulfillmentQueueFullException extends OrderProcessingException {
+
+    private final long retryAfterMillis;
+
+    public FulfillmentQueueFullException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /** How long the caller should wait before trying again. */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
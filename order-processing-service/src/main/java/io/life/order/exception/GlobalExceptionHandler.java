@@ -2,6 +2,8 @@ package io.life.order.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -91,6 +93,60 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Handle a downstream service that is down or refusing calls (circuit open, bulkhead full)
+     */
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleDependencyUnavailableException(
+            DependencyUnavailableException ex,
+            WebRequest request) {
+        logger.warn("Dependency {} unavailable: {}", ex.getDependency(), ex.getMessage());
+        ResponseEntity<Map<String, Object>> response = buildErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        response.getBody().put("dependency", ex.getDependency());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(response.getBody());
+    }
+
+    /**
+     * Handle a fulfillment request refused because the fulfillment queue is full
+     */
+    @ExceptionHandler(FulfillmentQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleFulfillmentQueueFullException(
+            FulfillmentQueueFullException ex,
+            WebRequest request) {
+        logger.warn("Fulfillment request refused: {}", ex.getMessage());
+        ResponseEntity<Map<String, Object>> response = buildErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(response.getBody());
+    }
+
+    /**
+     * Handle a write refused because the order changed since it was read (optimistic lock)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex,
+            WebRequest request) {
+        logger.warn("Concurrent update refused: {}", ex.getMessage());
+        return buildErrorResponse(
+                HttpStatus.CONFLICT,
+                "The order was changed by another request; reload it and try again",
+                request.getDescription(false)
+        );
+    }
+
     /**
      * Handle all other exceptions
      */
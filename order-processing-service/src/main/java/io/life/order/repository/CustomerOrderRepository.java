@@ -12,4 +12,6 @@ public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Lo
     Optional<CustomerOrder> findByOrderNumber(String orderNumber);
     List<CustomerOrder> findByWorkstationId(Long workstationId);
     List<CustomerOrder> findByStatus(String status);
+    List<CustomerOrder> findByWorkstationIdAndStatus(Long workstationId, String status);
+    List<CustomerOrder> findByPendingStockCommitKeyOrderByIdAsc(String pendingStockCommitKey);
 }
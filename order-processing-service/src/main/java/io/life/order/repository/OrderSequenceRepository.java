@@ -0,0 +1,26 @@
+package io.life.order.repository;
+
+import io.life.order.entity.OrderSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for order number sequences.
+ */
+@Repository
+public interface OrderSequenceRepository extends JpaRepository<OrderSequence, String> {
+
+    /**
+     * Find a sequence and lock its row until the transaction ends, so that instances reserving
+     * blocks of the same sequence take turns.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OrderSequence s WHERE s.name = :name")
+    Optional<OrderSequence> findByNameForUpdate(@Param("name") String name);
+}
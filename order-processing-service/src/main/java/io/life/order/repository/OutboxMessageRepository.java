@@ -0,0 +1,25 @@
+package io.life.order.repository;
+
+import io.life.order.entity.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for OutboxMessage entity.
+ */
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Find messages in a status that are due for a delivery attempt, oldest first.
+     */
+    List<OutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(String status, LocalDateTime now, Pageable page);
+
+    /**
+     * Count messages in a status.
+     */
+    long countByStatus(String status);
+}
@@ -0,0 +1,32 @@
+package io.life.order.repository;
+
+import io.life.order.entity.ProductionOrderDemand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductionOrderDemandRepository extends JpaRepository<ProductionOrderDemand, Long> {
+    List<ProductionOrderDemand> findByProductionOrderIdOrderByIdAsc(Long productionOrderId);
+
+    @Query("SELECT DISTINCT d.productionOrderId FROM ProductionOrderDemand d WHERE d.sourceCustomerOrderId = :customerOrderId")
+    List<Long> findProductionOrderIdsByCustomerOrder(@Param("customerOrderId") Long customerOrderId);
+
+    @Query("SELECT DISTINCT d.productionOrderId FROM ProductionOrderDemand d WHERE d.sourceWarehouseOrderId = :warehouseOrderId")
+    List<Long> findProductionOrderIdsByWarehouseOrder(@Param("warehouseOrderId") Long warehouseOrderId);
+
+    @Query("SELECT COALESCE(SUM(d.quantity), 0) FROM ProductionOrderDemand d "
+            + "WHERE d.itemType = :itemType AND d.itemId = :itemId AND d.createdAt >= :since")
+    long sumQuantityByItemSince(@Param("itemType") String itemType, @Param("itemId") Long itemId,
+                                @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("UPDATE ProductionOrderDemand d SET d.productionOrderId = :toOrderId WHERE d.productionOrderId IN :fromOrderIds")
+    int reassign(@Param("fromOrderIds") Collection<Long> fromOrderIds, @Param("toOrderId") Long toOrderId);
+}
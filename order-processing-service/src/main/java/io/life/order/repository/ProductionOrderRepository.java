@@ -1,7 +1,11 @@
 package io.life.order.repository;
 
 import io.life.order.entity.ProductionOrder;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -53,4 +57,12 @@ public interface ProductionOrderRepository extends JpaRepository<ProductionOrder
      * Find production order by SimAL schedule ID.
      */
     Optional<ProductionOrder> findBySimalScheduleId(String simalScheduleId);
+
+    /**
+     * Find a production order and lock its row until the transaction ends, so that concurrent
+     * additions to the same order queue up instead of failing on its version.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductionOrder p WHERE p.id = :id")
+    Optional<ProductionOrder> findByIdForUpdate(@Param("id") Long id);
 }
@@ -4,6 +4,7 @@ import io.life.order.entity.WarehouseOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +14,6 @@ public interface WarehouseOrderRepository extends JpaRepository<WarehouseOrder,
     List<WarehouseOrder> findByFulfillingWorkstationId(Long fulfillingWorkstationId);
     List<WarehouseOrder> findByRequestingWorkstationId(Long requestingWorkstationId);
     List<WarehouseOrder> findByStatus(String status);
+    List<WarehouseOrder> findByStatusIn(Collection<String> statuses);
     List<WarehouseOrder> findBySourceCustomerOrderId(Long sourceCustomerOrderId);
 }
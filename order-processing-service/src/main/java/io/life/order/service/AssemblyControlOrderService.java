@@ -5,17 +5,15 @@ import io.life.order.dto.SupplyOrderDTO;
 import io.life.order.dto.SupplyOrderItemDTO;
 import io.life.order.entity.AssemblyControlOrder;
 import io.life.order.repository.AssemblyControlOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,14 +26,13 @@ import java.util.stream.Collectors;
 public class AssemblyControlOrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(AssemblyControlOrderService.class);
+    private static final String MODULE_ITEM_TYPE = "MODULE";
+    private static final String PRODUCT_ITEM_TYPE = "PRODUCT";
 
     private final AssemblyControlOrderRepository repository;
     private final SupplyOrderService supplyOrderService;
-    private final RestTemplate restTemplate;
-    private final InventoryService inventoryService;
-
-    @Value("${simal.service.url:http://localhost:8018}")
-    private String simalServiceUrl;
+    private final OutboxService outboxService;
+    private final OrderNumberGenerator orderNumberGenerator;
 
     @Value("${modules.supermarket.workstation.id:8}")
     private Long modulesSupermarketWorkstationId;
@@ -45,12 +42,12 @@ public class AssemblyControlOrderService {
 
     public AssemblyControlOrderService(AssemblyControlOrderRepository repository, 
                                       SupplyOrderService supplyOrderService,
-                                      RestTemplate restTemplate,
-                                      InventoryService inventoryService) {
+                                      OutboxService outboxService,
+                                      OrderNumberGenerator orderNumberGenerator) {
         this.repository = repository;
         this.supplyOrderService = supplyOrderService;
-        this.restTemplate = restTemplate;
-        this.inventoryService = inventoryService;
+        this.outboxService = outboxService;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     /**
@@ -67,9 +64,10 @@ public class AssemblyControlOrderService {
             String qualityCheckpoints,
             String testingProcedures,
             String packagingRequirements,
-            Integer estimatedDurationMinutes) {
+            Integer estimatedDurationMinutes,
+            Integer quantity) {
 
-        String controlOrderNumber = generateControlOrderNumber();
+        String controlOrderNumber = orderNumberGenerator.generateAssemblyControlOrderNumber();
 
         AssemblyControlOrder order = AssemblyControlOrder.builder()
                 .controlOrderNumber(controlOrderNumber)
@@ -85,6 +83,7 @@ public class AssemblyControlOrderService {
                 .testingProcedures(testingProcedures)
                 .packagingRequirements(packagingRequirements)
                 .estimatedDurationMinutes(estimatedDurationMinutes)
+                .quantity(quantity)
                 .build();
 
         AssemblyControlOrder saved = repository.save(order);
@@ -181,7 +180,7 @@ public class AssemblyControlOrderService {
     /**
      * Complete assembly production with SimAL and Modules Supermarket inventory integration.
      * Used for Gear Assembly and Motor Assembly workstations.
-     * Credits Modules Supermarket (WS-8) with one module unit.
+     * Credits Modules Supermarket (WS-8) with the order's quantity of modules.
      */
     public AssemblyControlOrderDTO completeAssemblyProduction(Long id) {
         AssemblyControlOrder order = repository.findById(id)
@@ -206,21 +205,11 @@ public class AssemblyControlOrderService {
         AssemblyControlOrder updated = repository.save(order);
         logger.info("Completed assembly production on control order {}", order.getControlOrderNumber());
 
-        // Step 2: Call SimAL to update schedule status (fire-and-forget)
-        try {
-            updateSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED");
-        } catch (Exception e) {
-            logger.warn("Failed to update SimAL schedule status for {}: {}", order.getSimalScheduleId(), e.getMessage());
-            // Don't throw - completion already succeeded, SimAL update is secondary
-        }
-
-        // Step 3: Credit Modules Supermarket inventory (fire-and-forget)
-        try {
-            creditModulesSupermarket(order.getSourceProductionOrderId(), 1);
-        } catch (Exception e) {
-            logger.warn("Failed to credit Modules Supermarket for order {}: {}", order.getSourceProductionOrderId(), e.getMessage());
-            // Don't throw - completion already succeeded, inventory update is secondary
-        }
+        // Step 2: Queue the SimAL status update and the Modules Supermarket credit; the outbox relay
+        // delivers them once this transaction commits
+        outboxService.enqueueSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED", order.getControlOrderNumber());
+        outboxService.enqueueInventoryCredit(modulesSupermarketWorkstationId, MODULE_ITEM_TYPE, 1L, unitsProduced(order),
+                order.getControlOrderNumber());
 
         return mapToDTO(updated);
     }
@@ -228,7 +217,7 @@ public class AssemblyControlOrderService {
     /**
      * Complete final assembly with SimAL and Plant Warehouse inventory integration.
      * Used only for Final Assembly workstations.
-     * Credits Plant Warehouse (WS-7) with one finished product unit instead of Modules Supermarket.
+     * Credits Plant Warehouse (WS-7) with the order's quantity of finished products instead of Modules Supermarket.
      * This represents the completion of the entire product ready for shipping.
      */
     public AssemblyControlOrderDTO completeFinalAssembly(Long id) {
@@ -254,21 +243,11 @@ public class AssemblyControlOrderService {
         AssemblyControlOrder updated = repository.save(order);
         logger.info("Completed final assembly on control order {}", order.getControlOrderNumber());
 
-        // Step 2: Call SimAL to update schedule status (fire-and-forget)
-        try {
-            updateSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED");
-        } catch (Exception e) {
-            logger.warn("Failed to update SimAL schedule status for {}: {}", order.getSimalScheduleId(), e.getMessage());
-            // Don't throw - completion already succeeded, SimAL update is secondary
-        }
-
-        // Step 3: Credit Plant Warehouse inventory (fire-and-forget) - FINAL ASSEMBLY ONLY
-        try {
-            creditPlantWarehouse(order.getSourceProductionOrderId(), 1);
-        } catch (Exception e) {
-            logger.warn("Failed to credit Plant Warehouse for order {}: {}", order.getSourceProductionOrderId(), e.getMessage());
-            // Don't throw - completion already succeeded, inventory update is secondary
-        }
+        // Step 2: Queue the SimAL status update and the Plant Warehouse credit; the outbox relay
+        // delivers them once this transaction commits
+        outboxService.enqueueSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED", order.getControlOrderNumber());
+        outboxService.enqueueInventoryCredit(plantWarehouseWorkstationId, PRODUCT_ITEM_TYPE, 1L, unitsProduced(order),
+                order.getControlOrderNumber());
 
         return mapToDTO(updated);
     }
@@ -360,16 +339,12 @@ public class AssemblyControlOrderService {
     }
 
     /**
-     * Generate unique control order number.
+     * Map entity to DTO.
      */
-    private String generateControlOrderNumber() {
-        long count = repository.count();
-        return "ACO-" + String.format("%04d", count + 1);
+    private static int unitsProduced(AssemblyControlOrder order) {
+        return order.getQuantity() != null ? order.getQuantity() : 1;
     }
 
-    /**
-     * Map entity to DTO.
-     */
     private AssemblyControlOrderDTO mapToDTO(AssemblyControlOrder order) {
         return AssemblyControlOrderDTO.builder()
                 .id(order.getId())
@@ -388,6 +363,7 @@ public class AssemblyControlOrderService {
                 .testingProcedures(order.getTestingProcedures())
                 .packagingRequirements(order.getPackagingRequirements())
                 .estimatedDurationMinutes(order.getEstimatedDurationMinutes())
+                .quantity(order.getQuantity())
                 .actualDurationMinutes(order.getActualDurationMinutes())
                 .defectsFound(order.getDefectsFound())
                 .defectsReworked(order.getDefectsReworked())
@@ -400,52 +376,4 @@ public class AssemblyControlOrderService {
                 .completedAt(order.getCompletedAt())
                 .build();
     }
-
-    /**
-     * Update SimAL schedule status via SimAL Integration Service.
-     */
-    private void updateSimalScheduleStatus(String scheduleId, String status) {
-        try {
-            String url = simalServiceUrl + "/api/simal/scheduled-orders/" + scheduleId + "/status";
-            Map<String, Object> request = new HashMap<>();
-            request.put("status", status);
-            request.put("completedAt", LocalDateTime.now().toString());
-            
-            restTemplate.postForObject(url, request, String.class);
-            logger.info("Updated SimAL schedule {} status to {}", scheduleId, status);
-        } catch (Exception e) {
-            logger.error("Failed to update SimAL schedule status for {}", scheduleId, e);
-            throw new RuntimeException("SimAL update failed: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Credit Modules Supermarket inventory when assembly completes.
-     * Awards one module unit to Modules Supermarket (workstation 8).
-     */
-    private void creditModulesSupermarket(Long productionOrderId, Integer quantity) {
-        try {
-            inventoryService.updateStock(modulesSupermarketWorkstationId, 1L, quantity);
-            logger.info("Credited Modules Supermarket with {} units for production order {}", quantity, productionOrderId);
-        } catch (Exception e) {
-            logger.error("Failed to credit Modules Supermarket for production order {}", productionOrderId, e);
-            throw new RuntimeException("Inventory credit failed: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Credit Plant Warehouse inventory when final assembly completes.
-     * Awards one finished product unit to Plant Warehouse (workstation 7).
-     * Only used for Final Assembly workstations.
-     */
-    private void creditPlantWarehouse(Long productionOrderId, Integer quantity) {
-        try {
-            inventoryService.updateStock(plantWarehouseWorkstationId, 1L, quantity);
-            logger.info("Credited Plant Warehouse with {} finished units for production order {}", quantity, productionOrderId);
-        } catch (Exception e) {
-            logger.error("Failed to credit Plant Warehouse for production order {}", productionOrderId, e);
-            throw new RuntimeException("Inventory credit failed: " + e.getMessage(), e);
-        }
-    }
 }
-
@@ -0,0 +1,111 @@
+package io.life.order.service;
+
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.dto.StockCheckResultDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How much of each order line can be covered from one workstation's stock, worked out from a
+ * single batch stock check.
+ *
+ * Lines are in request order. Lines that draw on the same stock row share its balance in that
+ * order, and a line the row cannot fully cover takes what is left, so every line carries the
+ * quantity it can get now and the quantity it is short. Scenario selection and execution both
+ * read from the same plan instead of checking stock again.
+ */
+public final class AvailabilityPlan {
+
+    /**
+     * One order line: what was asked for and how much of it the stock covers.
+     */
+    public record Line(Long workstationId, String itemType, Long itemId, int requested, int available) {
+
+        public int shortQuantity() {
+            return requested - available;
+        }
+
+        public boolean isShort() {
+            return available < requested;
+        }
+    }
+
+    private final List<Line> lines;
+
+    private AvailabilityPlan(List<Line> lines) {
+        this.lines = List.copyOf(lines);
+    }
+
+    /**
+     * Build a plan from batch check results. {@code results} must be the answer to {@code requests},
+     * in the same order; a row's balance is taken from the first line that names it, which
+     * inventory-service reports before any other line has drawn on it.
+     */
+    static AvailabilityPlan of(List<StockCheckRequestDTO> requests, List<StockCheckResultDTO> results) {
+        Map<String, Integer> remaining = new HashMap<>();
+        List<Line> lines = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            StockCheckRequestDTO request = requests.get(i);
+            String key = request.getWorkstationId() + ":" + request.getItemType() + ":" + request.getItemId();
+            Integer reported = results.get(i).getAvailableQuantity();
+            int balance = remaining.computeIfAbsent(key, k -> reported != null ? Math.max(0, reported) : 0);
+            int requested = request.getQuantity() != null ? Math.max(0, request.getQuantity()) : 0;
+            int available = Math.min(requested, balance);
+            remaining.put(key, balance - available);
+            lines.add(new Line(request.getWorkstationId(), request.getItemType(), request.getItemId(), requested, available));
+        }
+        return new AvailabilityPlan(lines);
+    }
+
+    public List<Line> lines() {
+        return lines;
+    }
+
+    public Line line(int index) {
+        return lines.get(index);
+    }
+
+    /**
+     * Lines {@code from} (inclusive) to {@code to} (exclusive) as a plan of their own, keeping
+     * the quantities they were given here. Used to split a plan made for several orders at once.
+     */
+    public AvailabilityPlan slice(int from, int to) {
+        return new AvailabilityPlan(lines.subList(from, to));
+    }
+
+    /** Every line is covered in full. */
+    public boolean isFullyAvailable() {
+        return lines.stream().noneMatch(Line::isShort);
+    }
+
+    /** No line gets any units at all. */
+    public boolean isNothingAvailable() {
+        return lines.stream().allMatch(line -> line.available() == 0);
+    }
+
+    public int shortLineCount() {
+        return (int) lines.stream().filter(Line::isShort).count();
+    }
+
+    public int totalShortQuantity() {
+        return lines.stream().mapToInt(Line::shortQuantity).sum();
+    }
+
+    /**
+     * The covered part of every line that gets any units, ready to reserve, commit or deduct.
+     */
+    public List<StockCheckRequestDTO> availableLines() {
+        return lines.stream()
+                .filter(line -> line.available() > 0)
+                .map(line -> new StockCheckRequestDTO(line.workstationId(), line.itemType(), line.itemId(), line.available()))
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return lines.size() + " line(s), " + shortLineCount() + " short by " + totalShortQuantity() + " unit(s)";
+    }
+}
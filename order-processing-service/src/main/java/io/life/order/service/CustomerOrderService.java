@@ -5,6 +5,7 @@ import io.life.order.dto.OrderItemDTO;
 import io.life.order.entity.CustomerOrder;
 import io.life.order.entity.OrderItem;
 import io.life.order.repository.CustomerOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -13,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,19 +21,24 @@ public class CustomerOrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerOrderService.class);
     private final CustomerOrderRepository customerOrderRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
 
-    public CustomerOrderService(CustomerOrderRepository customerOrderRepository) {
+    public CustomerOrderService(CustomerOrderRepository customerOrderRepository,
+                                OrderNumberGenerator orderNumberGenerator) {
         this.customerOrderRepository = customerOrderRepository;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     @Transactional
     public CustomerOrderDTO createOrder(CustomerOrderDTO orderDTO) {
         CustomerOrder order = new CustomerOrder();
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberGenerator.generateCustomerOrderNumber());
         order.setOrderDate(LocalDateTime.now());
         order.setStatus("PENDING");
         order.setWorkstationId(orderDTO.getWorkstationId());
         order.setNotes(orderDTO.getNotes());
+        order.setPriority(orderDTO.getPriority());
+        order.setDueDate(orderDTO.getDueDate());
 
         // Convert DTOs to entities
         List<OrderItem> orderItems = orderDTO.getOrderItems().stream()
@@ -113,6 +118,8 @@ public class CustomerOrderService {
             dto.setStatus(order.getStatus());
             dto.setWorkstationId(order.getWorkstationId());
             dto.setNotes(order.getNotes());
+            dto.setPriority(order.getPriority());
+            dto.setDueDate(order.getDueDate());
             dto.setCreatedAt(order.getCreatedAt());
             dto.setUpdatedAt(order.getUpdatedAt());
 
@@ -138,8 +145,4 @@ public class CustomerOrderService {
         dto.setNotes(item.getNotes());
         return dto;
     }
-
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
 }
@@ -0,0 +1,270 @@
+package io.life.order.service;
+
+import io.life.order.dto.CustomerOrderDTO;
+import io.life.order.dto.FulfillmentJobDTO;
+import io.life.order.exception.DependencyUnavailableException;
+import io.life.order.exception.EntityNotFoundException;
+import io.life.order.exception.FulfillmentQueueFullException;
+import io.life.order.repository.CustomerOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs customer order fulfillment in the background, so the request that asks for it returns
+ * at once with a job handle instead of waiting for every inventory, warehouse order and
+ * production order step.
+ *
+ * Jobs wait in a bounded queue ({@code app.fulfillment.queue-capacity}) and are run by a fixed
+ * number of workers on virtual threads ({@code app.fulfillment.workers}); when the queue is full
+ * a new request is refused with {@link FulfillmentQueueFullException} rather than piling up.
+ * An order has at most one queued or running job; asking again returns that job. Finished jobs
+ * are kept for {@code app.fulfillment.job-retention-seconds}, up to
+ * {@code app.fulfillment.max-jobs}, and their state can be polled or followed as server-sent events.
+ */
+@Service
+public class FulfillmentJobService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FulfillmentJobService.class);
+
+    private final FulfillmentService fulfillmentService;
+    private final CustomerOrderRepository customerOrderRepository;
+    private final ThreadPoolExecutor workers;
+    private final long retentionMillis;
+    private final int maxJobs;
+    private final long eventTimeoutMs;
+
+    // Guarded by this; jobs in submission order
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private final Map<Long, Job> activeByOrder = new HashMap<>();
+
+    public FulfillmentJobService(FulfillmentService fulfillmentService,
+                                 CustomerOrderRepository customerOrderRepository,
+                                 @Value("${app.fulfillment.workers:8}") int workerCount,
+                                 @Value("${app.fulfillment.queue-capacity:200}") int queueCapacity,
+                                 @Value("${app.fulfillment.job-retention-seconds:3600}") long retentionSeconds,
+                                 @Value("${app.fulfillment.max-jobs:10000}") int maxJobs,
+                                 @Value("${app.fulfillment.event-timeout-ms:60000}") long eventTimeoutMs) {
+        this.fulfillmentService = fulfillmentService;
+        this.customerOrderRepository = customerOrderRepository;
+        int threads = Math.max(1, workerCount);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofVirtual().name("fulfillment-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+        this.maxJobs = Math.max(1, maxJobs);
+        this.eventTimeoutMs = eventTimeoutMs;
+    }
+
+    /**
+     * Queue fulfillment of a customer order, or return the job already queued or running for it.
+     *
+     * @throws EntityNotFoundException       if the order does not exist
+     * @throws FulfillmentQueueFullException if the queue is full
+     */
+    public FulfillmentJobDTO submit(Long orderId) {
+        if (!customerOrderRepository.existsById(orderId)) {
+            throw new EntityNotFoundException("Customer order", orderId);
+        }
+
+        Job job;
+        synchronized (this) {
+            evict(System.currentTimeMillis());
+            Job active = activeByOrder.get(orderId);
+            if (active != null) {
+                logger.debug("Order {} already has fulfillment job {} ({})", orderId, active.id, active.status);
+                return active.toDTO();
+            }
+            job = new Job(UUID.randomUUID().toString(), orderId);
+            jobs.put(job.id, job);
+            activeByOrder.put(orderId, job);
+            try {
+                workers.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.id);
+                activeByOrder.remove(orderId);
+                throw new FulfillmentQueueFullException("Fulfillment queue is full (" + workers.getQueue().size()
+                        + " waiting); try again shortly", 1000);
+            }
+        }
+        logger.info("Queued fulfillment job {} for order {} ({} waiting)", job.id, orderId, workers.getQueue().size());
+        return job.toDTO();
+    }
+
+    /**
+     * Current state of a job of the given order.
+     *
+     * @throws EntityNotFoundException if there is no such job (or it has been evicted)
+     */
+    public FulfillmentJobDTO getJob(Long orderId, String jobId) {
+        return find(orderId, jobId).toDTO();
+    }
+
+    /**
+     * Follow a job as server-sent "status" events: the current state at once, then every change
+     * until the job finishes, when the stream is closed.
+     */
+    public SseEmitter subscribe(Long orderId, String jobId) {
+        Job job = find(orderId, jobId);
+        SseEmitter emitter = new SseEmitter(eventTimeoutMs);
+        emitter.onCompletion(() -> job.subscribers.remove(emitter));
+        emitter.onTimeout(() -> job.subscribers.remove(emitter));
+        emitter.onError(e -> job.subscribers.remove(emitter));
+        synchronized (job) {
+            if (send(emitter, job.toDTO()) && !job.isFinished()) {
+                job.subscribers.add(emitter);
+            } else {
+                emitter.complete();
+            }
+        }
+        return emitter;
+    }
+
+    private void run(Job job) {
+        job.started();
+        publish(job);
+        try {
+            CustomerOrderDTO order = fulfillmentService.fulfillOrder(job.orderId);
+            job.succeeded(order);
+            logger.info("Fulfillment job {} for order {} finished: order is {}", job.id, job.orderId, order.getStatus());
+        } catch (RuntimeException e) {
+            job.failed(e.getMessage(), statusOf(e));
+            logger.warn("Fulfillment job {} for order {} failed: {}", job.id, job.orderId, e.getMessage());
+        } finally {
+            synchronized (this) {
+                activeByOrder.remove(job.orderId, job);
+            }
+            publish(job);
+        }
+    }
+
+    /**
+     * The status a synchronous fulfillment request would have answered with for this failure.
+     */
+    private static int statusOf(RuntimeException e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return 409;
+        } else if (e instanceof DependencyUnavailableException) {
+            return 503;
+        } else if (e instanceof EntityNotFoundException || e instanceof IllegalArgumentException) {
+            return 404;
+        }
+        return 500;
+    }
+
+    private synchronized Job find(Long orderId, String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.orderId.equals(orderId)) {
+            throw new EntityNotFoundException("Fulfillment job", jobId);
+        }
+        return job;
+    }
+
+    private void publish(Job job) {
+        synchronized (job) {
+            FulfillmentJobDTO state = job.toDTO();
+            for (SseEmitter emitter : job.subscribers) {
+                if (!send(emitter, state) || job.isFinished()) {
+                    job.subscribers.remove(emitter);
+                    emitter.complete();
+                }
+            }
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, FulfillmentJobDTO state) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(state));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drop finished jobs submitted longer than the retention period ago, and the oldest finished
+     * jobs beyond {@code maxJobs}. Queued and running jobs are always kept.
+     */
+    private void evict(long now) {
+        Iterator<Job> oldestFirst = jobs.values().iterator();
+        while (oldestFirst.hasNext()) {
+            Job job = oldestFirst.next();
+            boolean expired = now - job.submittedAtMillis > retentionMillis;
+            if (!expired && jobs.size() < maxJobs) {
+                break;
+            }
+            if (job.isFinished()) {
+                oldestFirst.remove();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    private static final class Job {
+        private final String id;
+        private final Long orderId;
+        private final long submittedAtMillis = System.currentTimeMillis();
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile CustomerOrderDTO order;
+        private volatile String error;
+        private volatile Integer errorStatus;
+
+        private Job(String id, Long orderId) {
+            this.id = id;
+            this.orderId = orderId;
+        }
+
+        void started() {
+            startedAt = LocalDateTime.now();
+            status = "RUNNING";
+        }
+
+        void succeeded(CustomerOrderDTO result) {
+            order = result;
+            finishedAt = LocalDateTime.now();
+            status = "SUCCEEDED";
+        }
+
+        void failed(String message, int httpStatus) {
+            error = message;
+            errorStatus = httpStatus;
+            finishedAt = LocalDateTime.now();
+            status = "FAILED";
+        }
+
+        boolean isFinished() {
+            return "SUCCEEDED".equals(status) || "FAILED".equals(status);
+        }
+
+        FulfillmentJobDTO toDTO() {
+            return new FulfillmentJobDTO(id, orderId, status, submittedAt, startedAt, finishedAt, order, error, errorStatus);
+        }
+    }
+}
@@ -1,23 +1,35 @@
 package io.life.order.service;
 
+import io.life.order.config.FanOutExecutor;
+import io.life.order.dto.BatchFulfillmentResultDTO;
 import io.life.order.dto.CustomerOrderDTO;
 import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.dto.StockCheckRequestDTO;
 import io.life.order.entity.CustomerOrder;
 import io.life.order.entity.OrderItem;
 import io.life.order.entity.WarehouseOrder;
 import io.life.order.entity.WarehouseOrderItem;
+import io.life.order.exception.DependencyUnavailableException;
 import io.life.order.repository.CustomerOrderRepository;
 import io.life.order.repository.WarehouseOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Fulfillment Service implementing the 4 scenarios for order processing.
@@ -46,81 +58,384 @@ public class FulfillmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(FulfillmentService.class);
     private static final Long MODULES_SUPERMARKET_WORKSTATION_ID = 8L;
+    // Shortfalls in a row before giving up on committing an order that keeps planning as fully covered
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+
+    // Batch allocation order: higher priority first, then earlier due date (none last), then older order
+    private static final Comparator<CustomerOrder> ALLOCATION_ORDER = Comparator
+            .comparingInt((CustomerOrder order) -> priorityRank(order.getPriority()))
+            .thenComparing(CustomerOrder::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CustomerOrder::getOrderDate)
+            .thenComparing(CustomerOrder::getId);
 
     private final CustomerOrderRepository customerOrderRepository;
     private final WarehouseOrderRepository warehouseOrderRepository;
     private final InventoryService inventoryService;
-    private final ProductionOrderService productionOrderService;
+    private final ProductionOrderCoalescer productionOrderCoalescer;
+    private final FanOutExecutor fanOutExecutor;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final WarehouseOrderDemandIndex demandIndex;
+    private final OrderNumberGenerator orderNumberGenerator;
 
     public FulfillmentService(CustomerOrderRepository customerOrderRepository,
                             WarehouseOrderRepository warehouseOrderRepository,
                             InventoryService inventoryService,
-                            ProductionOrderService productionOrderService) {
+                            ProductionOrderCoalescer productionOrderCoalescer,
+                            FanOutExecutor fanOutExecutor,
+                            OutboxService outboxService,
+                            TransactionTemplate transactionTemplate,
+                            WarehouseOrderDemandIndex demandIndex,
+                            OrderNumberGenerator orderNumberGenerator) {
         this.customerOrderRepository = customerOrderRepository;
         this.warehouseOrderRepository = warehouseOrderRepository;
         this.inventoryService = inventoryService;
-        this.productionOrderService = productionOrderService;
+        this.productionOrderCoalescer = productionOrderCoalescer;
+        this.fanOutExecutor = fanOutExecutor;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.demandIndex = demandIndex;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     /**
      * Process fulfillment for a customer order.
      * Determines which scenario applies and executes the appropriate logic.
+     *
+     * No database connection is held while inventory-service is called: the order is read in
+     * its own short transaction, stock is planned and committed or held with no transaction
+     * open, and the outcome is written in one short transaction. If the order was changed by
+     * another request in between, the write is refused with an optimistic lock failure and
+     * stock committed here is queued to be credited back.
+     *
+     * A stock commit refused for a shortfall means stock moved since the check: the order is
+     * planned again and either committed again or routed to scenario 2 or 3. A commit that got
+     * no answer is remembered on the order and {@link DependencyUnavailableException} is thrown;
+     * the next call sends that commit again under the same Idempotency-Key before anything else,
+     * which settles it one way or the other.
+     *
+     * Only a PENDING order is fulfilled. Any other order (one completed or routed by an earlier
+     * call that is now being retried, for instance) is returned as it is, so its stock is never
+     * committed twice.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CustomerOrderDTO fulfillOrder(Long orderId) {
+        // Phase 1: read the order (its items are loaded eagerly)
         Optional<CustomerOrder> orderOpt = customerOrderRepository.findById(orderId);
         if (orderOpt.isEmpty()) {
             throw new IllegalArgumentException("Order not found: " + orderId);
         }
 
         CustomerOrder order = orderOpt.get();
+        if (order.getPendingStockCommitKey() != null) {
+            boolean committed = settlePendingCommit(order.getPendingStockCommitReference(), order.getPendingStockCommitKey());
+            order = customerOrderRepository.findById(orderId).orElseThrow();
+            if (committed) {
+                return mapToDTO(order);
+            }
+        }
+        if (!"PENDING".equals(order.getStatus())) {
+            logger.info("Order {} is already {}, nothing to fulfill", order.getOrderNumber(), order.getStatus());
+            return mapToDTO(order);
+        }
+        return fulfillLoaded(order);
+    }
+
+    private CustomerOrderDTO fulfillLoaded(CustomerOrder order) {
         logger.info("Starting fulfillment for order {} ({})", order.getId(), order.getOrderNumber());
 
-        // Check which items are available locally
-        boolean allItemsAvailable = order.getOrderItems().stream()
-                .allMatch(item -> inventoryService.checkStock(order.getWorkstationId(), item.getItemId(), item.getQuantity()));
+        // Phase 2: work out how much of each line local stock covers (one round trip for the
+        // whole order), then commit or hold it
+        AvailabilityPlan plan = planLocalStock(order);
 
-        if (allItemsAvailable) {
+        for (int attempt = 1; plan.isFullyAvailable(); attempt++) {
             // Scenario 1: Direct Fulfillment
-            return scenario1_DirectFulfillment(order);
+            // Deduct all items from inventory in one all-or-nothing commit
+            String commitKey = order.getOrderNumber() + ":commit:" + UUID.randomUUID();
+            InventoryService.CommitOutcome outcome = inventoryService.commitStock(order.getOrderNumber(),
+                    toStockLines(order), commitKey);
+            if (outcome == InventoryService.CommitOutcome.UNKNOWN) {
+                throw rememberPendingCommit(List.of(order), order.getOrderNumber(), commitKey);
+            }
+            if (outcome == InventoryService.CommitOutcome.COMMITTED) {
+                try {
+                    return transactionTemplate.execute(status -> scenario1_DirectFulfillment(order));
+                } catch (OptimisticLockingFailureException e) {
+                    creditBack(order);
+                    throw e;
+                }
+            }
+            if (attempt >= MAX_COMMIT_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Stock for order " + order.getOrderNumber()
+                        + " kept moving between check and commit (" + attempt + " attempts)");
+            }
+            logger.info("Stock commit for order {} fell short; planning again", order.getOrderNumber());
+            plan = planLocalStock(order);
+        }
+
+        AvailabilityPlan partialPlan = plan;
+        if (plan.isNothingAvailable()) {
+            // Scenario 2: Warehouse Order (nothing available locally)
+            return transactionTemplate.execute(status -> scenario2_WarehouseOrder(order));
         } else {
-            // Check if any items are available
-            boolean anyItemsAvailable = order.getOrderItems().stream()
-                    .anyMatch(item -> inventoryService.checkStock(order.getWorkstationId(), item.getItemId(), item.getQuantity()));
+            // Scenario 3: Modules Supermarket (partial availability, possibly within a line)
+            // Hold the locally available quantities until the rest arrives; the hold is confirmed
+            // when the warehouse order completes this customer order. A hold is filed under the
+            // order number, so one placed by a concurrent pass is the same hold and is kept.
+            boolean localItemsHeld = inventoryService.reserveStock(order.getOrderNumber(), partialPlan.availableLines());
+            return transactionTemplate.execute(status -> scenario3_ModulesSupermarket(order, partialPlan, localItemsHeld));
+        }
+    }
+
+    /**
+     * Fulfill every PENDING customer order of a workstation in one sweep.
+     *
+     * Orders are ranked by priority, then due date, then age, and one batch stock check plans
+     * all their lines in that order, so scarce stock goes to the highest-ranked orders instead of
+     * whichever request arrives first. Each order takes what is left of each stock row when its
+     * turn comes: an order covered in full is completed (scenario 1), an order covered in part
+     * holds what it got and requests the rest (scenario 3), and an order that gets nothing is
+     * sent to the warehouse (scenario 2).
+     *
+     * The fully covered orders are deducted together in one all-or-nothing stock commit filed
+     * under a batch reference. If that commit is refused because stock moved since the check,
+     * those orders are fulfilled one at a time instead. If it gets no answer, it is remembered on
+     * every order it covers and {@link DependencyUnavailableException} is thrown before anything
+     * else is done; the next sweep (or fulfillment of any of those orders) sends it again under
+     * the same key first. Holds are placed in parallel, one per
+     * order, since each must be filed under its order number to be confirmed later; an order whose
+     * hold got no answer is skipped and left PENDING. Every order
+     * is then written in its own short transaction, so an order changed by another request in
+     * the meantime is skipped (its committed stock credited back) without undoing the others.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchFulfillmentResultDTO fulfillPendingOrders(Long workstationId) {
+        List<CustomerOrder> orders = new ArrayList<>(
+                customerOrderRepository.findByWorkstationIdAndStatus(workstationId, "PENDING"));
+        Map<String, String> pendingCommits = new LinkedHashMap<>();
+        orders.stream()
+                .filter(order -> order.getPendingStockCommitKey() != null)
+                .forEach(order -> pendingCommits.put(order.getPendingStockCommitKey(), order.getPendingStockCommitReference()));
+        if (!pendingCommits.isEmpty()) {
+            pendingCommits.forEach((key, reference) -> settlePendingCommit(reference, key));
+            orders = new ArrayList<>(customerOrderRepository.findByWorkstationIdAndStatus(workstationId, "PENDING"));
+        }
+        BatchFulfillmentResultDTO result = new BatchFulfillmentResultDTO();
+        result.setWorkstationId(workstationId);
+        result.setOrders(new ArrayList<>());
+        if (orders.isEmpty()) {
+            return result;
+        }
+        orders.sort(ALLOCATION_ORDER);
+        logger.info("Batch fulfillment of {} pending order(s) at workstation {}", orders.size(), workstationId);
+
+        // One stock snapshot for the whole batch, split back into one plan per order
+        List<StockCheckRequestDTO> allLines = new ArrayList<>();
+        orders.forEach(order -> allLines.addAll(toStockLines(order)));
+        AvailabilityPlan snapshot = inventoryService.planAvailability(allLines);
+        List<AvailabilityPlan> plans = new ArrayList<>(orders.size());
+        int from = 0;
+        for (CustomerOrder order : orders) {
+            int to = from + order.getOrderItems().size();
+            plans.add(snapshot.slice(from, to));
+            from = to;
+        }
+
+        // Deduct every fully covered order in one commit, lines in order id order so that a
+        // replay from the orders alone (see settlePendingCommit) sends the same request
+        List<CustomerOrder> covered = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (plans.get(i).isFullyAvailable()) {
+                covered.add(orders.get(i));
+            }
+        }
+        covered.sort(Comparator.comparing(CustomerOrder::getId));
+        String batchReference = null;
+        boolean batchCommitted = false;
+        if (!covered.isEmpty()) {
+            batchReference = "BATCH-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            String commitKey = batchReference + ":commit";
+            InventoryService.CommitOutcome outcome = inventoryService.commitStock(batchReference, linesOf(covered), commitKey);
+            if (outcome == InventoryService.CommitOutcome.UNKNOWN) {
+                throw rememberPendingCommit(covered, batchReference, commitKey);
+            }
+            batchCommitted = outcome == InventoryService.CommitOutcome.COMMITTED;
+            if (!batchCommitted) {
+                logger.warn("Batch stock commit {} refused; fully covered orders will be fulfilled one at a time",
+                        batchReference);
+            }
+        }
+        result.setBatchReference(batchReference);
+        result.setBatchCommitted(batchCommitted);
+
+        // Hold the covered part of every partly covered order
+        List<Integer> partlyCovered = new ArrayList<>();
+        List<StockHold> holds = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            AvailabilityPlan plan = plans.get(i);
+            if (!plan.isFullyAvailable() && !plan.isNothingAvailable()) {
+                partlyCovered.add(i);
+                holds.add(new StockHold(orders.get(i).getOrderNumber(), plan.availableLines()));
+            }
+        }
+        // Holds are never cut short: one that failed without an answer may still have been placed
+        List<FanOutExecutor.Outcome<Boolean>> held = fanOutExecutor.completeAll(
+                "Stock holds for batch at workstation " + workstationId, holds,
+                hold -> inventoryService.reserveStock(hold.orderNumber(), hold.lines()));
+        Boolean[] heldByOrder = new Boolean[orders.size()];
+        boolean[] holdUnknown = new boolean[orders.size()];
+        for (int k = 0; k < partlyCovered.size(); k++) {
+            heldByOrder[partlyCovered.get(k)] = held.get(k).result();
+            holdUnknown[partlyCovered.get(k)] = held.get(k).isFailed();
+        }
+
+        // Record each outcome, in allocation order
+        String batchNote = "Stock committed in batch " + batchReference;
+        for (int i = 0; i < orders.size(); i++) {
+            CustomerOrder order = orders.get(i);
+            AvailabilityPlan plan = plans.get(i);
+            boolean localItemsHeld = Boolean.TRUE.equals(heldByOrder[i]);
+            if (holdUnknown[i]) {
+                // Left PENDING: its next pass files the hold under the same order number, which keeps a hold already placed
+                logger.warn("Order {} skipped in batch fulfillment: its stock hold could not be confirmed",
+                        order.getOrderNumber());
+                result.setSkipped(result.getSkipped() + 1);
+                continue;
+            }
+            try {
+                CustomerOrderDTO settled;
+                if (plan.isFullyAvailable() && batchCommitted) {
+                    order.setNotes((order.getNotes() != null ? order.getNotes() + " | " : "") + batchNote);
+                    settled = transactionTemplate.execute(status -> scenario1_DirectFulfillment(order));
+                } else if (plan.isFullyAvailable()) {
+                    settled = fulfillOrder(order.getId());
+                } else if (plan.isNothingAvailable()) {
+                    settled = transactionTemplate.execute(status -> scenario2_WarehouseOrder(order));
+                } else {
+                    settled = transactionTemplate.execute(status -> scenario3_ModulesSupermarket(order, plan, localItemsHeld));
+                }
+                result.getOrders().add(settled);
+                if ("COMPLETED".equals(settled.getStatus())) {
+                    result.setCompleted(result.getCompleted() + 1);
+                } else if ("PROCESSING".equals(settled.getStatus())) {
+                    result.setProcessing(result.getProcessing() + 1);
+                }
+            } catch (OptimisticLockingFailureException | DependencyUnavailableException e) {
+                if (plan.isFullyAvailable() && batchCommitted && e instanceof OptimisticLockingFailureException) {
+                    creditBack(order);
+                }
+                logger.warn("Order {} skipped in batch fulfillment: {}", order.getOrderNumber(), e.getMessage());
+                result.setSkipped(result.getSkipped() + 1);
+            }
+        }
+
+        logger.info("Batch fulfillment at workstation {} done: {} completed, {} processing, {} skipped",
+                workstationId, result.getCompleted(), result.getProcessing(), result.getSkipped());
+        return result;
+    }
 
-            if (anyItemsAvailable) {
-                // Scenario 3: Modules Supermarket (partial availability)
-                return scenario3_ModulesSupermarket(order);
+    /**
+     * Send again, under its own key and with the same lines, a stock commit that an earlier pass
+     * got no answer for, and record what it did: the orders it covered are completed if it was
+     * applied, and cleared to be planned afresh if it was refused.
+     *
+     * @return whether the commit was applied
+     * @throws DependencyUnavailableException if inventory-service still cannot answer
+     */
+    private boolean settlePendingCommit(String reference, String commitKey) {
+        List<CustomerOrder> covered = customerOrderRepository.findByPendingStockCommitKeyOrderByIdAsc(commitKey);
+        if (covered.isEmpty()) {
+            return false;
+        }
+        InventoryService.CommitOutcome outcome = inventoryService.commitStock(reference, linesOf(covered), commitKey);
+        if (outcome == InventoryService.CommitOutcome.UNKNOWN) {
+            throw new DependencyUnavailableException("inventory",
+                    "Stock commit " + reference + " still got no answer; retry to settle it", 0);
+        }
+        boolean committed = outcome == InventoryService.CommitOutcome.COMMITTED;
+        logger.info("Unanswered stock commit {} settled: {}", reference, outcome);
+        transactionTemplate.executeWithoutResult(status -> covered.forEach(order -> {
+            order.setPendingStockCommitReference(null);
+            order.setPendingStockCommitKey(null);
+            if (committed) {
+                order.setNotes((order.getNotes() != null ? order.getNotes() + " | " : "") + "Stock committed in " + reference);
+                scenario1_DirectFulfillment(order);
             } else {
-                // Scenario 2: Warehouse Order (nothing available locally)
-                return scenario2_WarehouseOrder(order);
+                customerOrderRepository.save(order);
             }
+        }));
+        return committed;
+    }
+
+    /**
+     * Remember on every order it covers a stock commit that got no answer, so that it is sent
+     * again under the same key before any of them is planned again.
+     *
+     * @return the exception to throw to the caller
+     */
+    private DependencyUnavailableException rememberPendingCommit(List<CustomerOrder> covered, String reference,
+                                                                 String commitKey) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> covered.forEach(order -> {
+                order.setPendingStockCommitReference(reference);
+                order.setPendingStockCommitKey(commitKey);
+                customerOrderRepository.save(order);
+            }));
+        } catch (OptimisticLockingFailureException e) {
+            logger.error("Could not remember unanswered stock commit {} (key {}) on its orders: {}",
+                    reference, commitKey, e.getMessage());
         }
+        return new DependencyUnavailableException("inventory",
+                "Stock commit " + reference + " got no answer; retry to settle it", 0);
+    }
+
+    private List<StockCheckRequestDTO> linesOf(List<CustomerOrder> orders) {
+        List<StockCheckRequestDTO> lines = new ArrayList<>();
+        orders.forEach(order -> lines.addAll(toStockLines(order)));
+        return lines;
+    }
+
+    /** The stock to hold for one partly covered order of a batch. */
+    private record StockHold(String orderNumber, List<StockCheckRequestDTO> lines) {
+    }
+
+    /** Rank of a customer order priority for allocation, highest first. */
+    static int priorityRank(String priority) {
+        if ("HIGH".equalsIgnoreCase(priority)) {
+            return 0;
+        } else if ("LOW".equalsIgnoreCase(priority)) {
+            return 2;
+        }
+        return 1;
     }
 
     /**
      * Scenario 1: Direct Fulfillment
      * All items are available at the order's workstation.
-     * Deduct inventory and complete the order immediately.
+     * Record the inventory commit and complete the order immediately.
      */
     private CustomerOrderDTO scenario1_DirectFulfillment(CustomerOrder order) {
         logger.info("Scenario 1: Direct Fulfillment for order {}", order.getOrderNumber());
 
-        // Deduct all items from inventory
-        boolean allUpdatesSuccessful = order.getOrderItems().stream()
-                .allMatch(item -> inventoryService.updateStock(order.getWorkstationId(), item.getItemId(), item.getQuantity()));
-
-        if (allUpdatesSuccessful) {
-            order.setStatus("COMPLETED");
-            logger.info("Order {} fulfilled directly. Inventory updated.", order.getOrderNumber());
-        } else {
-            order.setStatus("CANCELLED");
-            logger.warn("Order {} fulfillment failed during inventory update.", order.getOrderNumber());
-        }
+        order.setStatus("COMPLETED");
+        logger.info("Order {} fulfilled directly. Inventory updated.", order.getOrderNumber());
 
         return mapToDTO(customerOrderRepository.save(order));
     }
 
+    /**
+     * Queue credits that give back the stock committed for an order whose outcome could not be
+     * recorded. They go through the outbox so that they are delivered even if inventory-service
+     * is unreachable right now.
+     */
+    private void creditBack(CustomerOrder order) {
+        logger.warn("Order {} changed while it was being fulfilled; crediting back its committed stock",
+                order.getOrderNumber());
+        transactionTemplate.executeWithoutResult(status -> toStockLines(order).forEach(line ->
+                outboxService.enqueueInventoryCredit(line.getWorkstationId(), line.getItemType(), line.getItemId(),
+                        line.getQuantity(), order.getOrderNumber())));
+    }
+
     /**
      * Scenario 2: Warehouse Order
      * No items available locally. Create a warehouse order for all items.
@@ -132,7 +447,7 @@ public class FulfillmentService {
 
         // Create a new WarehouseOrder
         WarehouseOrder warehouseOrder = new WarehouseOrder();
-        warehouseOrder.setWarehouseOrderNumber("WO-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        warehouseOrder.setWarehouseOrderNumber(orderNumberGenerator.generateWarehouseOrderNumber());
         warehouseOrder.setSourceCustomerOrderId(order.getId());
         warehouseOrder.setRequestingWorkstationId(order.getWorkstationId()); // Plant Warehouse (7)
         warehouseOrder.setFulfillingWorkstationId(MODULES_SUPERMARKET_WORKSTATION_ID); // Modules Supermarket (8)
@@ -159,21 +474,23 @@ public class FulfillmentService {
 
         // Persist warehouse order
         warehouseOrderRepository.save(warehouseOrder);
+        demandIndex.track(warehouseOrder);
         logger.info("Created warehouse order {} for customer order {}", warehouseOrder.getWarehouseOrderNumber(), order.getOrderNumber());
 
         // AUTO-TRIGGER: Create production order for shortfall (all items not available locally)
         logger.info("Auto-triggering production order for Scenario 2 shortfall");
         try {
-            ProductionOrderDTO productionOrder = productionOrderService.createProductionOrderFromWarehouse(
+            List<ProductionOrderDTO> productionOrders = productionOrderCoalescer.requestProduction(
                     order.getId(),                              // sourceCustomerOrderId
                     warehouseOrder.getId(),                     // sourceWarehouseOrderId
                     "NORMAL",                                   // priority (default)
                     LocalDateTime.now().plusDays(7),             // dueDate (7 days from now)
                     "Auto-created for warehouse order " + warehouseOrder.getWarehouseOrderNumber(),
                     order.getWorkstationId(),                    // createdByWorkstationId
-                    MODULES_SUPERMARKET_WORKSTATION_ID           // assignedWorkstationId (Modules Supermarket)
+                    MODULES_SUPERMARKET_WORKSTATION_ID,          // assignedWorkstationId (Modules Supermarket)
+                    shortfallsOf(warehouseOrderItems)
             );
-            logger.info("Production order {} auto-created for Scenario 2 shortfall", productionOrder.getProductionOrderNumber());
+            logger.info("Production order(s) {} auto-created or extended for Scenario 2 shortfall", orderNumbers(productionOrders));
         } catch (Exception e) {
             logger.error("Failed to auto-create production order for Scenario 2", e);
         }
@@ -187,16 +504,17 @@ public class FulfillmentService {
 
     /**
      * Scenario 3: Modules Supermarket
-     * Some items available locally, others need to come from Modules Supermarket.
-     * Fulfill what's available, request missing items via warehouse order.
+     * Some stock available locally, the rest needs to come from Modules Supermarket.
+     * Hold what's available (a line may be split), request the short quantities via warehouse order.
      * Auto-trigger production order for items not in Modules Supermarket.
      */
-    private CustomerOrderDTO scenario3_ModulesSupermarket(CustomerOrder order) {
+    private CustomerOrderDTO scenario3_ModulesSupermarket(CustomerOrder order, AvailabilityPlan plan,
+                                                          boolean localItemsHeld) {
         logger.info("Scenario 3: Modules Supermarket for order {}", order.getOrderNumber());
 
         // Create warehouse order for unavailable items
         WarehouseOrder warehouseOrder = new WarehouseOrder();
-        warehouseOrder.setWarehouseOrderNumber("WO-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        warehouseOrder.setWarehouseOrderNumber(orderNumberGenerator.generateWarehouseOrderNumber());
         warehouseOrder.setSourceCustomerOrderId(order.getId());
         warehouseOrder.setRequestingWorkstationId(order.getWorkstationId()); // Plant Warehouse (7)
         warehouseOrder.setFulfillingWorkstationId(MODULES_SUPERMARKET_WORKSTATION_ID); // Modules Supermarket (8)
@@ -207,23 +525,30 @@ public class FulfillmentService {
 
         List<WarehouseOrderItem> warehouseOrderItems = new ArrayList<>();
 
-        // Fulfill available items and track unavailable ones
-        for (OrderItem item : order.getOrderItems()) {
-            if (inventoryService.checkStock(order.getWorkstationId(), item.getItemId(), item.getQuantity())) {
-                inventoryService.updateStock(order.getWorkstationId(), item.getItemId(), item.getQuantity());
-                logger.info("  - Item {} fulfilled from local stock", item.getItemId());
-            } else {
-                // Add to warehouse order for unavailable items
+        // If the local hold could not be placed (stock consumed since the check), request the
+        // full quantities instead.
+
+        // Track quantities that must come from the Modules Supermarket
+        for (int i = 0; i < order.getOrderItems().size(); i++) {
+            OrderItem item = order.getOrderItems().get(i);
+            AvailabilityPlan.Line line = plan.line(i);
+            int held = localItemsHeld ? line.available() : 0;
+            int requested = item.getQuantity() - held;
+            if (held > 0) {
+                logger.info("  - Item {} qty {} held from local stock", item.getItemId(), held);
+            }
+            if (requested > 0) {
+                // Add to warehouse order for the quantity not covered locally
                 WarehouseOrderItem woItem = new WarehouseOrderItem();
                 woItem.setWarehouseOrder(warehouseOrder);
                 woItem.setItemId(item.getItemId());
                 woItem.setItemName("Item-" + item.getItemId());
-                woItem.setRequestedQuantity(item.getQuantity());
+                woItem.setRequestedQuantity(requested);
                 woItem.setFulfilledQuantity(0);
                 woItem.setItemType(item.getItemType());
                 warehouseOrderItems.add(woItem);
                 
-                logger.info("  - Item {} requested from Modules Supermarket", item.getItemId());
+                logger.info("  - Item {} qty {} requested from Modules Supermarket", item.getItemId(), requested);
             }
         }
 
@@ -231,21 +556,23 @@ public class FulfillmentService {
         if (!warehouseOrderItems.isEmpty()) {
             warehouseOrder.setWarehouseOrderItems(warehouseOrderItems);
             warehouseOrderRepository.save(warehouseOrder);
+            demandIndex.track(warehouseOrder);
             logger.info("Created warehouse order {} for customer order {}", warehouseOrder.getWarehouseOrderNumber(), order.getOrderNumber());
 
             // AUTO-TRIGGER: Create production order for items not available in warehouse/modules supermarket
             logger.info("Auto-triggering production order for Scenario 3 shortfall items");
             try {
-                ProductionOrderDTO productionOrder = productionOrderService.createProductionOrderFromWarehouse(
+                List<ProductionOrderDTO> productionOrders = productionOrderCoalescer.requestProduction(
                         order.getId(),                              // sourceCustomerOrderId
                         warehouseOrder.getId(),                     // sourceWarehouseOrderId
                         "NORMAL",                                   // priority (default)
                         LocalDateTime.now().plusDays(7),             // dueDate (7 days from now)
                         "Auto-created for warehouse order " + warehouseOrder.getWarehouseOrderNumber() + " (Scenario 3 shortfall)",
                         order.getWorkstationId(),                    // createdByWorkstationId
-                        MODULES_SUPERMARKET_WORKSTATION_ID           // assignedWorkstationId (Modules Supermarket)
+                        MODULES_SUPERMARKET_WORKSTATION_ID,          // assignedWorkstationId (Modules Supermarket)
+                        shortfallsOf(warehouseOrderItems)
                 );
-                logger.info("Production order {} auto-created for Scenario 3 shortfall items", productionOrder.getProductionOrderNumber());
+                logger.info("Production order(s) {} auto-created or extended for Scenario 3 shortfall items", orderNumbers(productionOrders));
             } catch (Exception e) {
                 logger.error("Failed to auto-create production order for Scenario 3", e);
             }
@@ -262,23 +589,27 @@ public class FulfillmentService {
     }
 
     /**
-     * Scenario 4: Production Planning (Future enhancement)
-     * Complex items that require production routing.
+     * Plan every order line against the order's workstation stock.
+     * Plan lines are in the same order as {@link CustomerOrder#getOrderItems()}.
      */
-    private CustomerOrderDTO scenario4_ProductionPlanning(CustomerOrder order) {
-        logger.info("Scenario 4: Production Planning for order {}", order.getOrderNumber());
+    private AvailabilityPlan planLocalStock(CustomerOrder order) {
+        return inventoryService.planAvailability(toStockLines(order));
+    }
 
-        // Fulfill available items
-        for (OrderItem item : order.getOrderItems()) {
-            if (inventoryService.checkStock(order.getWorkstationId(), item.getItemId(), item.getQuantity())) {
-                inventoryService.updateStock(order.getWorkstationId(), item.getItemId(), item.getQuantity());
-            }
-        }
+    private static List<ProductionOrderCoalescer.Shortfall> shortfallsOf(List<WarehouseOrderItem> items) {
+        return items.stream()
+                .map(item -> new ProductionOrderCoalescer.Shortfall(item.getItemType(), item.getItemId(), item.getRequestedQuantity()))
+                .toList();
+    }
 
-        order.setStatus("PROCESSING");
-        order.setNotes((order.getNotes() != null ? order.getNotes() + " | " : "") + "Scenario 4: Routed to Production Planning for custom items");
+    private static String orderNumbers(List<ProductionOrderDTO> productionOrders) {
+        return productionOrders.stream().map(ProductionOrderDTO::getProductionOrderNumber).collect(Collectors.joining(", "));
+    }
 
-        return mapToDTO(customerOrderRepository.save(order));
+    private List<StockCheckRequestDTO> toStockLines(CustomerOrder order) {
+        return order.getOrderItems().stream()
+                .map(item -> new StockCheckRequestDTO(order.getWorkstationId(), item.getItemType(), item.getItemId(), item.getQuantity()))
+                .collect(Collectors.toList());
     }
 
     private CustomerOrderDTO mapToDTO(CustomerOrder order) {
@@ -289,6 +620,8 @@ public class FulfillmentService {
         dto.setStatus(order.getStatus());
         dto.setWorkstationId(order.getWorkstationId());
         dto.setNotes(order.getNotes());
+        dto.setPriority(order.getPriority());
+        dto.setDueDate(order.getDueDate());
         // Map orderItems if needed
         return dto;
     }
@@ -1,96 +1,522 @@
 package io.life.order.service;
 
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.dto.StockCheckResultDTO;
+import io.life.order.dto.StockCommitRequestDTO;
+import io.life.order.dto.StockReservationRequestDTO;
+import io.life.order.event.StockCreditedEvent;
+import io.life.order.exception.DependencyUnavailableException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service for communicating with the inventory-service.
  * Handles stock checks and updates during order fulfillment.
+ *
+ * Every stock mutation carries a fresh Idempotency-Key and is retried with that same key when
+ * the call fails at the transport level (connection refused, read timeout). Inventory-service
+ * replays the outcome of an attempt it already applied, so a timed-out call that did land is
+ * never applied twice. A mutation whose outcome is unknown (inventory-service still unreachable
+ * after the retries, a 5xx answer, its circuit open or its bulkhead full) throws
+ * {@link DependencyUnavailableException} rather than returning false; false only ever means
+ * inventory-service answered and changed nothing.
+ *
+ * Availability reads can be answered from {@link InventoryStockCache} when it is enabled; every
+ * write made here drops the cached rows it touches.
  */
 @Service
 public class InventoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String DEPENDENCY = "inventory";
+
     private final RestTemplate restTemplate;
+    private final InventoryStockCache cache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${inventory.service.url:http://localhost:8014}")
     private String inventoryServiceUrl;
 
-    public InventoryService(RestTemplate restTemplate) {
+    @Value("${inventory.reservation.ttl-seconds:604800}")
+    private long reservationTtlSeconds;
+
+    @Value("${inventory.client.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${inventory.client.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    public InventoryService(RestTemplate restTemplate, InventoryStockCache cache, ApplicationEventPublisher eventPublisher) {
         this.restTemplate = restTemplate;
+        this.cache = cache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Check if sufficient stock is available for a product at a workstation.
      *
      * @param workstationId The workstation ID
+     * @param itemType      The item type (PRODUCT, MODULE, PART)
      * @param itemId        The product/item ID
      * @param quantity      The quantity needed
      * @return true if stock is available, false otherwise
      */
-    public boolean checkStock(Long workstationId, Long itemId, Integer quantity) {
+    public boolean checkStock(Long workstationId, String itemType, Long itemId, Integer quantity) {
+        return checkStockBatch(List.of(new StockCheckRequestDTO(workstationId, itemType, itemId, quantity)))
+                .get(0)
+                .isSufficient();
+    }
+
+    /**
+     * Check availability for many lines in a single round trip.
+     * Results are returned in request order. Lines that target the same stock row
+     * are checked against a shared balance, so the answer holds for the batch as a whole.
+     *
+     * @param lines The (workstationId, itemType, itemId, quantity) lines to check
+     * @return One result per line
+     * @throws DependencyUnavailableException if inventory-service cannot be reached, answers 5xx or
+     *         its circuit is open; an unavailable inventory is never reported as missing stock
+     */
+    public List<StockCheckResultDTO> checkStockBatch(List<StockCheckRequestDTO> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        if (cache.isEnabled() && lines.stream().allMatch(InventoryService::isComplete)) {
+            return checkStockBatchCached(lines);
+        }
         try {
-            String url = inventoryServiceUrl + "/api/stock/check?workstationId=" + workstationId
-                    + "&itemId=" + itemId + "&quantity=" + quantity;
-            Boolean result = restTemplate.getForObject(url, Boolean.class);
-            logger.info("Stock check for workstation {} item {} qty {}: {}", workstationId, itemId, quantity, result);
-            return result != null && result;
+            String url = inventoryServiceUrl + "/api/stock/check-batch";
+            StockCheckResultDTO[] results = restTemplate.postForObject(url, lines, StockCheckResultDTO[].class);
+            if (results == null || results.length != lines.size()) {
+                throw new RestClientException("Unexpected batch stock check response size");
+            }
+            logger.info("Batch stock check for {} line(s): {} sufficient", lines.size(),
+                    Arrays.stream(results).filter(StockCheckResultDTO::isSufficient).count());
+            return Arrays.asList(results);
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            throw unavailable(e, "stock check");
         } catch (RestClientException e) {
             logger.error("Failed to check stock with inventory-service", e);
-            return false;
+            return lines.stream()
+                    .map(line -> new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(),
+                            line.getItemId(), line.getQuantity(), 0, false))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Work out, in one batch check, how much of each line the stock can cover now.
+     * Throws {@link DependencyUnavailableException} if inventory-service cannot answer.
+     *
+     * @param lines The (workstationId, itemType, itemId, quantity) lines to plan
+     * @return The per-line plan, in request order
+     */
+    public AvailabilityPlan planAvailability(List<StockCheckRequestDTO> lines) {
+        AvailabilityPlan plan = AvailabilityPlan.of(lines, checkStockBatch(lines));
+        logger.debug("Availability plan: {}", plan);
+        return plan;
+    }
+
+    /**
+     * Batch check against cached row availability, fetching only the rows that are not cached.
+     * Lines are then settled locally with the same shared-balance rule inventory-service uses.
+     */
+    private List<StockCheckResultDTO> checkStockBatchCached(List<StockCheckRequestDTO> lines) {
+        Map<InventoryStockCache.Key, Integer> remaining = new HashMap<>();
+        Set<InventoryStockCache.Key> missing = new LinkedHashSet<>();
+        for (StockCheckRequestDTO line : lines) {
+            InventoryStockCache.Key key = keyOf(line.getWorkstationId(), line.getItemType(), line.getItemId());
+            if (remaining.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            InventoryStockCache.Row row = cache.get(key);
+            if (row != null) {
+                remaining.put(key, row.available());
+            } else {
+                missing.add(key);
+            }
         }
+
+        if (!missing.isEmpty()) {
+            // A zero-quantity line reports the row's full availability without using any of it
+            List<StockCheckRequestDTO> probes = missing.stream()
+                    .map(key -> new StockCheckRequestDTO(key.workstationId(), key.itemType(), key.itemId(), 0))
+                    .toList();
+            long fetchStamp = cache.beginFetch();
+            try {
+                String url = inventoryServiceUrl + "/api/stock/check-batch";
+                StockCheckResultDTO[] results = restTemplate.postForObject(url, probes, StockCheckResultDTO[].class);
+                if (results == null || results.length != probes.size()) {
+                    throw new RestClientException("Unexpected batch stock check response size");
+                }
+                for (StockCheckResultDTO result : results) {
+                    InventoryStockCache.Key key = keyOf(result.getWorkstationId(), result.getItemType(), result.getItemId());
+                    int available = result.getAvailableQuantity() != null ? result.getAvailableQuantity() : 0;
+                    remaining.put(key, available);
+                    cache.put(key, new InventoryStockCache.Row(available, null), fetchStamp);
+                }
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                throw unavailable(e, "stock check");
+            } catch (RestClientException e) {
+                logger.error("Failed to check stock with inventory-service", e);
+                return lines.stream()
+                        .map(line -> new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(),
+                                line.getItemId(), line.getQuantity(), 0, false))
+                        .collect(Collectors.toList());
+            }
+        }
+
+        List<StockCheckResultDTO> results = new ArrayList<>(lines.size());
+        for (StockCheckRequestDTO line : lines) {
+            InventoryStockCache.Key key = keyOf(line.getWorkstationId(), line.getItemType(), line.getItemId());
+            int available = remaining.getOrDefault(key, 0);
+            boolean sufficient = available >= line.getQuantity();
+            if (sufficient) {
+                remaining.put(key, available - line.getQuantity());
+            }
+            results.add(new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(), line.getItemId(),
+                    line.getQuantity(), available, sufficient));
+        }
+        logger.debug("Batch stock check for {} line(s), {} row(s) fetched: {} sufficient", lines.size(), missing.size(),
+                results.stream().filter(StockCheckResultDTO::isSufficient).count());
+        return results;
     }
 
     /**
-     * Update inventory after fulfillment.
+     * Deduct stock after fulfillment.
      *
      * @param workstationId The workstation ID
+     * @param itemType      The item type (PRODUCT, MODULE, PART)
      * @param itemId        The product/item ID
      * @param quantity      The quantity to deduct (positive number)
-     * @return true if update was successful, false otherwise
+     * @param orderReference Order number recorded on the inventory movement journal (may be null)
+     * @return true if the deduction was applied, false if stock was insufficient or the request was rejected
+     * @throws DependencyUnavailableException if inventory-service could not answer
+     */
+    public boolean deductStock(Long workstationId, String itemType, Long itemId, Integer quantity, String orderReference) {
+        return deductStock(workstationId, itemType, itemId, quantity, orderReference, null);
+    }
+
+    /**
+     * Deduct stock under a caller-owned Idempotency-Key, so that a deduction whose outcome was
+     * not reported can be replayed later: inventory-service answers a replay with the outcome
+     * of the attempt it already applied, or applies it now if no attempt landed.
+     *
+     * @param idempotencyKey Key sent with every attempt of this deduction
+     */
+    public boolean deductStock(Long workstationId, String itemType, Long itemId, Integer quantity,
+                               String orderReference, String idempotencyKey) {
+        return adjustStock(workstationId, itemType, itemId, -quantity, orderReference, idempotencyKey);
+    }
+
+    /**
+     * Outcome of an all-or-nothing stock commit.
+     */
+    public enum CommitOutcome {
+        /** Every line was deducted. */
+        COMMITTED,
+        /** Inventory-service refused the commit because a line was short; nothing was deducted. */
+        SHORTFALL,
+        /**
+         * No answer came back, so the commit may or may not have been applied. Sending it again
+         * under the same Idempotency-Key settles it.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Deduct every line of an order in one inventory-service transaction.
+     * Either all lines are deducted or none are, so a failure never leaves an order half-deducted.
+     *
+     * @param orderReference Order number, used for logging on both sides
+     * @param lines          The (workstationId, itemType, itemId, quantity) lines to deduct
+     * @param idempotencyKey Key sent with every attempt of this commit; a later call with the same
+     *                       key and lines gets the outcome of the commit already applied, if any
+     */
+    public CommitOutcome commitStock(String orderReference, List<StockCheckRequestDTO> lines, String idempotencyKey) {
+        try {
+            String url = inventoryServiceUrl + "/api/stock/commit";
+            postIdempotent(url, new StockCommitRequestDTO(orderReference, lines), keysOf(lines), idempotencyKey);
+            logger.info("Stock committed for {} ({} line(s))", orderReference, lines.size());
+            return CommitOutcome.COMMITTED;
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.warn("Stock commit for {} rejected, nothing deducted: {}", orderReference, e.getResponseBodyAsString());
+            return CommitOutcome.SHORTFALL;
+        } catch (RestClientException | DependencyUnavailableException e) {
+            logger.error("Stock commit for {} got no answer from inventory-service: {}", orderReference, e.getMessage());
+            return CommitOutcome.UNKNOWN;
+        }
+    }
+
+    /**
+     * Hold stock for an order without deducting it. Held units stop counting as available
+     * for other orders until the hold is confirmed, released, or expires.
+     *
+     * @param orderReference Order number the hold is filed under
+     * @param lines          The (workstationId, itemType, itemId, quantity) lines to hold
+     * @return true if every line is now held, false if any line was short or the request was rejected
+     * @throws DependencyUnavailableException if inventory-service could not answer
+     */
+    public boolean reserveStock(String orderReference, List<StockCheckRequestDTO> lines) {
+        try {
+            String url = inventoryServiceUrl + "/api/stock/reservations";
+            postIdempotent(url, new StockReservationRequestDTO(orderReference, reservationTtlSeconds, lines), keysOf(lines));
+            logger.info("Stock reserved for {} ({} line(s))", orderReference, lines.size());
+            return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.warn("Stock reservation for {} rejected, nothing held: {}", orderReference, e.getResponseBodyAsString());
+            return false;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            throw unavailable(e, "stock reservation for " + orderReference);
+        } catch (RestClientException e) {
+            logger.error("Failed to reserve stock with inventory-service", e);
+            return false;
+        }
+    }
+
+    /**
+     * Deduct the stock held for an order.
+     *
+     * @param orderReference Order number the hold was filed under
+     * @return true if the hold was confirmed (or the order has no hold at all), false if it had
+     *         expired or been released, or the request was rejected
+     * @throws DependencyUnavailableException if inventory-service could not answer
+     */
+    public boolean confirmReservation(String orderReference) {
+        try {
+            String url = inventoryServiceUrl + "/api/stock/reservations/" + orderReference + "/confirm";
+            postIdempotent(url, null, null);
+            logger.info("Stock reservation for {} confirmed", orderReference);
+            return true;
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.debug("No stock reservation to confirm for {}", orderReference);
+            return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.warn("Stock reservation for {} could not be confirmed: {}", orderReference, e.getResponseBodyAsString());
+            return false;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            throw unavailable(e, "confirm of stock reservation " + orderReference);
+        } catch (RestClientException e) {
+            logger.error("Failed to confirm stock reservation with inventory-service", e);
+            return false;
+        }
+    }
+
+    /**
+     * Give back the stock held for an order. Safe to call when the order has no hold.
+     *
+     * @param orderReference Order number the hold was filed under
      */
-    public boolean updateStock(Long workstationId, Long itemId, Integer quantity) {
+    public void releaseReservation(String orderReference) {
         try {
-            String url = inventoryServiceUrl + "/api/stock/update";
-            Map<String, Object> request = new HashMap<>();
-            request.put("workstationId", workstationId);
-            request.put("itemId", itemId);
-            request.put("quantity", -quantity); // Negative to deduct from stock
-            
-            restTemplate.postForObject(url, request, String.class);
-            logger.info("Stock updated for workstation {} item {} qty {}", workstationId, itemId, quantity);
+            String url = inventoryServiceUrl + "/api/stock/reservations/" + orderReference + "/release";
+            postIdempotent(url, null, null);
+            logger.info("Stock reservation for {} released", orderReference);
+        } catch (HttpClientErrorException.NotFound e) {
+            logger.debug("No stock reservation to release for {}", orderReference);
+        } catch (RestClientException e) {
+            logger.error("Failed to release stock reservation with inventory-service", e);
+        }
+    }
+
+    /**
+     * Credit stock, e.g. when production or assembly completes.
+     *
+     * @param workstationId The workstation ID
+     * @param itemType      The item type (PRODUCT, MODULE, PART)
+     * @param itemId        The product/item ID
+     * @param quantity      The quantity to add (positive number)
+     * @param orderReference Order number recorded on the inventory movement journal (may be null)
+     * @return true if the credit was applied, false if the request was rejected
+     * @throws DependencyUnavailableException if inventory-service could not answer
+     */
+    public boolean creditStock(Long workstationId, String itemType, Long itemId, Integer quantity, String orderReference) {
+        return creditStock(workstationId, itemType, itemId, quantity, orderReference, null);
+    }
+
+    /**
+     * Credit stock under a caller-owned Idempotency-Key, so that a credit retried later (for
+     * example by the outbox relay, also after this service restarts) is applied once. Inventory-service
+     * remembers keys in memory for {@code inventory.idempotency.ttl-seconds}, so a retry after it has
+     * restarted, or after the key has expired, applies the credit again.
+     *
+     * @param idempotencyKey Key sent with every attempt of this credit
+     * @return true if the credit was applied (or had already been applied under this key)
+     */
+    public boolean creditStock(Long workstationId, String itemType, Long itemId, Integer quantity,
+                               String orderReference, String idempotencyKey) {
+        boolean applied = adjustStock(workstationId, itemType, itemId, quantity, orderReference, idempotencyKey);
+        if (applied) {
+            eventPublisher.publishEvent(new StockCreditedEvent(workstationId, itemType, itemId, quantity));
+        }
+        return applied;
+    }
+
+    /**
+     * Apply a signed delta through the atomic /api/stock/adjust endpoint.
+     * Inventory-service answers 409 when a deduction would drive stock below zero.
+     */
+    private boolean adjustStock(Long workstationId, String itemType, Long itemId, int delta, String orderReference,
+                                String idempotencyKey) {
+        try {
+            String url = inventoryServiceUrl + "/api/stock/adjust?workstationId=" + workstationId
+                    + "&itemType=" + itemType + "&itemId=" + itemId + "&delta=" + delta
+                    + (orderReference != null ? "&orderReference=" + orderReference : "");
+            postIdempotent(url, null, List.of(keyOf(workstationId, itemType, itemId)), idempotencyKey);
+            logger.info("Stock adjusted for workstation {} {} {} by {}", workstationId, itemType, itemId, delta);
             return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.warn("Insufficient stock at workstation {} for {} {} (delta {})", workstationId, itemType, itemId, delta);
+            return false;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            throw unavailable(e, "stock adjustment at workstation " + workstationId);
         } catch (RestClientException e) {
-            logger.error("Failed to update stock with inventory-service", e);
+            logger.error("Failed to adjust stock with inventory-service", e);
             return false;
         }
     }
 
+    /**
+     * POST a stock mutation under a new Idempotency-Key (or the caller's own key, when it passes
+     * one), retrying transport failures (and answers that the same key is still being processed)
+     * with that key. Other errors are thrown at once.
+     * However the call ends, the cached rows it may have changed are dropped afterwards; null
+     * drops every cached row (reservation confirm and release only name the order).
+     */
+    private void postIdempotent(String url, Object body, List<InventoryStockCache.Key> touched) {
+        postIdempotent(url, body, touched, null);
+    }
+
+    private void postIdempotent(String url, Object body, List<InventoryStockCache.Key> touched, String idempotencyKey) {
+        try {
+            postWithKey(url, body, idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString());
+        } finally {
+            if (touched == null) {
+                cache.invalidateAll();
+            } else {
+                touched.forEach(cache::invalidate);
+            }
+        }
+    }
+
+    private void postWithKey(String url, Object body, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        HttpEntity<Object> request = new HttpEntity<>(body, headers);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                restTemplate.postForObject(url, request, String.class);
+                return;
+            } catch (ResourceAccessException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.warn("Inventory call {} failed (attempt {}/{}), retrying: {}", url, attempt, maxAttempts, e.getMessage());
+            } catch (HttpClientErrorException.Conflict e) {
+                // Only the idempotency filter sets Retry-After on a 409; stock conflicts do not
+                boolean inProgress = e.getResponseHeaders() != null
+                        && e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) != null;
+                if (!inProgress || attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.debug("Inventory call {} still in progress under its key (attempt {}/{})", url, attempt, maxAttempts);
+            }
+            try {
+                Thread.sleep(retryBackoffMs * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("Interrupted while retrying inventory call " + url);
+            }
+        }
+    }
+
     /**
      * Get available stock for an item at a workstation.
      *
      * @param workstationId The workstation ID
+     * @param itemType      The item type (PRODUCT, MODULE, PART)
      * @param itemId        The product/item ID
      * @return Available quantity, or -1 if unable to check
      */
-    public Integer getAvailableStock(Long workstationId, Long itemId) {
+    public Integer getAvailableStock(Long workstationId, String itemType, Long itemId) {
+        InventoryStockCache.Key key = keyOf(workstationId, itemType, itemId);
+        InventoryStockCache.Row cached = cache.get(key);
+        if (cached != null && cached.onHand() != null) {
+            return cached.onHand();
+        }
+        long fetchStamp = cache.beginFetch();
         try {
-            String url = inventoryServiceUrl + "/api/stock/available?workstationId=" + workstationId
-                    + "&itemId=" + itemId;
-            Integer available = restTemplate.getForObject(url, Integer.class);
+            String url = inventoryServiceUrl + "/api/stock/workstation/" + workstationId
+                    + "/item?itemType=" + itemType + "&itemId=" + itemId;
+            StockRecordResponse record = restTemplate.getForObject(url, StockRecordResponse.class);
+            Integer available = record != null ? record.getQuantity() : null;
             logger.info("Available stock for workstation {} item {}: {}", workstationId, itemId, available);
-            return available != null ? available : 0;
-        } catch (RestClientException e) {
+            int onHand = available != null ? available : 0;
+            int reserved = record != null && record.getReservedQuantity() != null ? record.getReservedQuantity() : 0;
+            cache.put(key, new InventoryStockCache.Row(onHand - reserved, onHand), fetchStamp);
+            return onHand;
+        } catch (HttpClientErrorException.NotFound e) {
+            cache.put(key, new InventoryStockCache.Row(0, 0), fetchStamp);
+            return 0;
+        } catch (RestClientException | DependencyUnavailableException e) {
             logger.error("Failed to get available stock from inventory-service", e);
             return -1;
         }
     }
+
+    /**
+     * Subset of inventory-service's StockRecordDto needed by this client.
+     */
+    public static class StockRecordResponse {
+        private Integer quantity;
+        private Integer reservedQuantity;
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+        public Integer getReservedQuantity() { return reservedQuantity; }
+        public void setReservedQuantity(Integer reservedQuantity) { this.reservedQuantity = reservedQuantity; }
+    }
+
+    private static DependencyUnavailableException unavailable(RestClientException e, String call) {
+        logger.error("Inventory-service unavailable for {}: {}", call, e.getMessage());
+        return new DependencyUnavailableException(DEPENDENCY, "inventory-service could not answer the " + call, e);
+    }
+
+    private static List<InventoryStockCache.Key> keysOf(List<StockCheckRequestDTO> lines) {
+        return lines.stream()
+                .map(line -> keyOf(line.getWorkstationId(), line.getItemType(), line.getItemId()))
+                .toList();
+    }
+
+    private static InventoryStockCache.Key keyOf(Long workstationId, String itemType, Long itemId) {
+        return new InventoryStockCache.Key(workstationId, itemType, itemId);
+    }
+
+    private static boolean isComplete(StockCheckRequestDTO line) {
+        return line.getWorkstationId() != null && line.getItemType() != null
+                && line.getItemId() != null && line.getQuantity() != null;
+    }
 }
@@ -0,0 +1,300 @@
+package io.life.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived near-cache of inventory-service stock rows, keyed by (workstation, item type, item).
+ *
+ * Entries live for {@code inventory.client.cache.ttl-ms} and the cache holds at most
+ * {@code inventory.client.cache.max-entries} of them, evicting the least recently used. Writes
+ * made through {@link InventoryService} drop the affected entries at once. With
+ * {@code inventory.client.cache.feed-enabled} the cache also follows inventory-service's
+ * per-workstation change stream for every workstation it holds entries for, and drops an entry
+ * as soon as its row changes there; the TTL then only bounds staleness while a stream is down.
+ *
+ * A value fetched before an invalidation is never stored after it, so a read that races a write
+ * cannot put the pre-write value back. Only availability reads are served from here; stock
+ * commits, reservations and adjustments always go to inventory-service.
+ */
+@Component
+public class InventoryStockCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStockCache.class);
+
+    /**
+     * Cache key for one stock row.
+     */
+    record Key(Long workstationId, String itemType, Long itemId) {
+    }
+
+    /**
+     * What is known about a row: its available quantity (on hand less reserved) and, when the
+     * row itself was read, its on-hand quantity. A row that does not exist is cached as 0 / 0.
+     */
+    record Row(int available, Integer onHand) {
+    }
+
+    private record Entry(Row row, long expiresAtNanos) {
+    }
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final boolean feedEnabled;
+    private final long feedRetryMs;
+    private final String inventoryServiceUrl;
+    private final ObjectMapper objectMapper;
+
+    // Access-ordered, so iteration order is least recently used first
+    private final LinkedHashMap<Key, Entry> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Map<Long, FeedSubscription> feeds = new ConcurrentHashMap<>();
+    private final HttpClient feedClient;
+    private volatile boolean running = true;
+
+    public InventoryStockCache(ObjectMapper objectMapper,
+                               @Value("${inventory.service.url:http://localhost:8014}") String inventoryServiceUrl,
+                               @Value("${inventory.client.cache.enabled:false}") boolean enabled,
+                               @Value("${inventory.client.cache.ttl-ms:300}") long ttlMs,
+                               @Value("${inventory.client.cache.max-entries:5000}") int maxEntries,
+                               @Value("${inventory.client.cache.feed-enabled:false}") boolean feedEnabled,
+                               @Value("${inventory.client.cache.feed-retry-ms:3000}") long feedRetryMs) {
+        this.objectMapper = objectMapper;
+        this.inventoryServiceUrl = inventoryServiceUrl;
+        this.enabled = enabled && ttlMs > 0 && maxEntries > 0;
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.maxEntries = maxEntries;
+        this.feedEnabled = this.enabled && feedEnabled;
+        this.feedRetryMs = feedRetryMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > InventoryStockCache.this.maxEntries;
+            }
+        };
+        this.feedClient = this.feedEnabled
+                ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build()
+                : null;
+        if (this.enabled) {
+            logger.info("Inventory near-cache enabled: ttl {} ms, max {} entries, change feed {}",
+                    ttlMs, maxEntries, this.feedEnabled ? "on" : "off");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached row, or null if it is not cached or has expired.
+     */
+    Row get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+                return entry.row();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the start of a fetch; pass the result to {@link #put} with the fetched value.
+     */
+    long beginFetch() {
+        return invalidations.get();
+    }
+
+    /**
+     * Store a fetched row, unless something was invalidated since the fetch began.
+     */
+    void put(Key key, Row row, long fetchStamp) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            if (invalidations.get() != fetchStamp) {
+                return;
+            }
+            entries.put(key, new Entry(row, System.nanoTime() + ttlNanos));
+        }
+        if (feedEnabled) {
+            feeds.computeIfAbsent(key.workstationId(), FeedSubscription::new);
+        }
+    }
+
+    void invalidate(Key key) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    void invalidateWorkstation(Long workstationId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.keySet().removeIf(key -> key.workstationId().equals(workstationId));
+        }
+    }
+
+    void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        feeds.values().forEach(FeedSubscription::close);
+        if (feedClient != null) {
+            feedClient.shutdownNow();
+        }
+    }
+
+    /**
+     * Follows one workstation's change stream on a virtual thread and drops the entries it
+     * reports as changed. Reconnects with Last-Event-ID, so inventory-service replays what was
+     * missed or sends a fresh snapshot, which drops every entry of the workstation.
+     */
+    private final class FeedSubscription {
+        private final Long workstationId;
+        private final Thread thread;
+        private volatile InputStream body;
+        private volatile String lastEventId;
+
+        private FeedSubscription(Long workstationId) {
+            this.workstationId = workstationId;
+            this.thread = Thread.ofVirtual()
+                    .name("inventory-feed-ws-" + workstationId)
+                    .start(this::run);
+        }
+
+        private void run() {
+            URI uri = URI.create(inventoryServiceUrl + "/api/stock/workstation/" + workstationId + "/stream");
+            while (running) {
+                try {
+                    HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").GET();
+                    if (lastEventId != null) {
+                        request.header("Last-Event-ID", lastEventId);
+                    }
+                    HttpResponse<InputStream> response = feedClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                    body = response.body();
+                    if (response.statusCode() != 200) {
+                        logger.debug("Inventory change feed for workstation {} answered {}", workstationId, response.statusCode());
+                        body.close();
+                    } else {
+                        logger.debug("Following inventory change feed for workstation {}", workstationId);
+                        read(body);
+                    }
+                } catch (IOException e) {
+                    logger.debug("Inventory change feed for workstation {} dropped: {}", workstationId, e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // Whatever changed while disconnected is only bounded by the TTL until the next snapshot or replay
+                invalidateWorkstation(workstationId);
+                try {
+                    Thread.sleep(feedRetryMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void read(InputStream stream) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String event = null;
+            String id = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (event != null || data.length() > 0) {
+                        dispatch(event, data.toString());
+                    }
+                    if (id != null) {
+                        lastEventId = id;
+                    }
+                    event = null;
+                    id = null;
+                    data.setLength(0);
+                } else if (line.startsWith("event:")) {
+                    event = line.substring(6).trim();
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring(5).stripLeading());
+                }
+            }
+        }
+
+        private void dispatch(String event, String data) {
+            if ("stock".equals(event) || "stock-removed".equals(event)) {
+                try {
+                    JsonNode row = objectMapper.readTree(data);
+                    invalidate(new Key(workstationId, row.path("itemType").asText(null), row.path("itemId").asLong()));
+                } catch (IOException e) {
+                    invalidateWorkstation(workstationId);
+                }
+            } else if ("snapshot".equals(event)) {
+                invalidateWorkstation(workstationId);
+            }
+        }
+
+        private void close() {
+            thread.interrupt();
+            InputStream stream = body;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // Shutting down anyway
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.life.order.service;
+
+import io.life.order.config.FanOutExecutor;
+import io.life.order.entity.OutboxMessage;
+import io.life.order.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers committed {@link OutboxMessage}s to the services they are meant for.
+ *
+ * Every {@code app.outbox.relay-interval-ms} the relay takes up to {@code app.outbox.batch-size}
+ * due messages, oldest first, and sends them in parallel, waiting for every send to finish rather
+ * than cutting one off with its outcome unknown. A delivered message is marked DELIVERED. A failed
+ * one stays PENDING and is retried after a backoff that doubles per attempt, from
+ * {@code app.outbox.retry-backoff-ms} up to {@code app.outbox.max-backoff-ms}; inventory credits
+ * are retried until they land. Only a SimAL status update that SimAL rejects with a 4xx is given
+ * up on and marked FAILED. Every attempt of a credit carries the message's key as its
+ * Idempotency-Key, so a credit that landed but whose answer was lost is not applied twice; the
+ * backoff cap stays well inside inventory-service's replay window. That window does not survive
+ * an inventory-service restart, so a credit whose answer was lost just before one is applied twice.
+ * Messages live in the service's database and so survive a restart of this service.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository repository;
+    private final InventoryService inventoryService;
+    private final RestTemplate restTemplate;
+    private final FanOutExecutor fanOutExecutor;
+
+    @Value("${simal.service.url:http://localhost:8018}")
+    private String simalServiceUrl;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    public OutboxRelay(OutboxMessageRepository repository,
+                       InventoryService inventoryService,
+                       RestTemplate restTemplate,
+                       FanOutExecutor fanOutExecutor) {
+        this.repository = repository;
+        this.inventoryService = inventoryService;
+        this.restTemplate = restTemplate;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    /**
+     * Outcome of one delivery attempt; {@code error} is null when the message was delivered.
+     */
+    private record Delivery(String error, boolean permanent) {
+
+        static final Delivery DELIVERED = new Delivery(null, false);
+
+        static Delivery retry(String error) {
+            return new Delivery(error, false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:500}")
+    public void relay() {
+        List<OutboxMessage> due = repository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                "PENDING", LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<FanOutExecutor.Outcome<Delivery>> outcomes = fanOutExecutor.completeAll("Outbox relay", due, this::deliver);
+
+        int delivered = 0;
+        for (int i = 0; i < due.size(); i++) {
+            FanOutExecutor.Outcome<Delivery> outcome = outcomes.get(i);
+            Delivery delivery = outcome.isFailed() ? Delivery.retry(String.valueOf(outcome.failure())) : outcome.result();
+            record(due.get(i), delivery);
+            if (delivery.error() == null) {
+                delivered++;
+            }
+        }
+        logger.debug("Outbox relay delivered {} of {} message(s)", delivered, due.size());
+    }
+
+    private Delivery deliver(OutboxMessage message) {
+        try {
+            return switch (message.getMessageType()) {
+                case OutboxService.SIMAL_SCHEDULE_STATUS -> deliverSimalScheduleStatus(message);
+                case OutboxService.INVENTORY_CREDIT -> deliverInventoryCredit(message);
+                default -> new Delivery("Unknown message type " + message.getMessageType(), true);
+            };
+        } catch (HttpClientErrorException e) {
+            return new Delivery(e.getStatusCode() + ": " + e.getResponseBodyAsString(), true);
+        } catch (RuntimeException e) {
+            return Delivery.retry(e.getMessage());
+        }
+    }
+
+    private Delivery deliverSimalScheduleStatus(OutboxMessage message) {
+        String url = simalServiceUrl + "/api/simal/scheduled-orders/" + message.getScheduleId() + "/status";
+        Map<String, Object> request = new HashMap<>();
+        request.put("status", message.getScheduleStatus());
+        request.put("completedAt", message.getCreatedAt().toString());
+
+        restTemplate.postForObject(url, request, String.class);
+        logger.info("Updated SimAL schedule {} status to {} for {}",
+                message.getScheduleId(), message.getScheduleStatus(), message.getSourceReference());
+        return Delivery.DELIVERED;
+    }
+
+    private Delivery deliverInventoryCredit(OutboxMessage message) {
+        boolean credited = inventoryService.creditStock(message.getWorkstationId(), message.getItemType(),
+                message.getItemId(), message.getQuantity(), message.getSourceReference(), message.getMessageKey());
+        if (!credited) {
+            return Delivery.retry("Inventory credit failed");
+        }
+        logger.info("Credited workstation {} with {} {} {} for {}", message.getWorkstationId(),
+                message.getQuantity(), message.getItemType(), message.getItemId(), message.getSourceReference());
+        return Delivery.DELIVERED;
+    }
+
+    private void record(OutboxMessage message, Delivery outcome) {
+        message.setAttempts(message.getAttempts() + 1);
+        if (outcome.error() == null) {
+            message.setStatus("DELIVERED");
+            message.setDeliveredAt(LocalDateTime.now());
+            message.setLastError(null);
+        } else if (outcome.permanent()) {
+            message.setStatus("FAILED");
+            message.setLastError(truncate(outcome.error()));
+            logger.error("Outbox message {} ({} for {}) rejected, giving up: {}", message.getId(),
+                    message.getMessageType(), message.getSourceReference(), outcome.error());
+        } else {
+            long backoff = backoffMillis(message.getAttempts());
+            message.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+            message.setLastError(truncate(outcome.error()));
+            logger.warn("Outbox message {} ({} for {}) not delivered (attempt {}), retrying in {} ms: {}",
+                    message.getId(), message.getMessageType(), message.getSourceReference(),
+                    message.getAttempts(), backoff, outcome.error());
+        }
+        repository.save(message);
+    }
+
+    private long backoffMillis(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        return Math.min(maxBackoffMs, retryBackoffMs << doublings);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
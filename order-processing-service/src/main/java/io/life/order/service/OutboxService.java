@@ -0,0 +1,87 @@
+package io.life.order.service;
+
+import io.life.order.entity.OutboxMessage;
+import io.life.order.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records side effects that must reach another service once the current transaction commits.
+ *
+ * Callers enqueue from inside the transaction that makes the change, so the message commits or
+ * rolls back together with it; {@link OutboxRelay} delivers committed messages afterwards.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    public static final String SIMAL_SCHEDULE_STATUS = "SIMAL_SCHEDULE_STATUS";
+    public static final String INVENTORY_CREDIT = "INVENTORY_CREDIT";
+
+    private final OutboxMessageRepository repository;
+
+    public OutboxService(OutboxMessageRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Queue a SimAL schedule status update.
+     *
+     * @param scheduleId      SimAL schedule ID; nothing is queued when the order has none
+     * @param status          New schedule status, e.g. COMPLETED
+     * @param sourceReference Order number the update belongs to
+     */
+    public void enqueueSimalScheduleStatus(String scheduleId, String status, String sourceReference) {
+        if (scheduleId == null) {
+            logger.debug("Order {} has no SimAL schedule, no status update queued", sourceReference);
+            return;
+        }
+        OutboxMessage message = newMessage(SIMAL_SCHEDULE_STATUS, sourceReference);
+        message.setScheduleId(scheduleId);
+        message.setScheduleStatus(status);
+        repository.save(message);
+        logger.debug("Queued SimAL schedule {} status {} for {}", scheduleId, status, sourceReference);
+    }
+
+    /**
+     * Queue an inventory credit.
+     *
+     * @param workstationId   Workstation receiving the stock
+     * @param itemType        The item type (PRODUCT, MODULE, PART)
+     * @param itemId          The product/item ID
+     * @param quantity        The quantity to add
+     * @param sourceReference Order number recorded on the inventory movement journal
+     */
+    public void enqueueInventoryCredit(Long workstationId, String itemType, Long itemId, Integer quantity,
+                                       String sourceReference) {
+        OutboxMessage message = newMessage(INVENTORY_CREDIT, sourceReference);
+        message.setWorkstationId(workstationId);
+        message.setItemType(itemType);
+        message.setItemId(itemId);
+        message.setQuantity(quantity);
+        repository.save(message);
+        logger.debug("Queued credit of {} {} {} to workstation {} for {}",
+                quantity, itemType, itemId, workstationId, sourceReference);
+    }
+
+    private static OutboxMessage newMessage(String messageType, String sourceReference) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxMessage.builder()
+                .messageKey(UUID.randomUUID().toString())
+                .messageType(messageType)
+                .sourceReference(sourceReference)
+                .status("PENDING")
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,217 @@
+package io.life.order.service;
+
+import io.life.order.config.ProductionBatchingProperties;
+import io.life.order.config.ProductionBatchingProperties.LotSizingPolicy;
+import io.life.order.dto.ProductionBatchDTO;
+import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.entity.ProductionOrder;
+import io.life.order.repository.ProductionOrderDemandRepository;
+import io.life.order.repository.ProductionOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Releases production orders to SimAL in batches per item variant instead of one by one, so
+ * injection molding and part finishing change over less often.
+ *
+ * Production orders that are still CREATED and carry an item are grouped by assigned
+ * workstation and variant. Each check ({@code app.production.batching.check-interval-ms}) the
+ * configured lot-sizing policy decides per group whether to release it now:
+ * <ul>
+ *   <li>FIXED_PERIOD: once the oldest order has been held for {@code period};</li>
+ *   <li>EOQ: once the quantity reaches the economic order quantity sqrt(2DS/H), with D the
+ *       variant's demand per day over {@code demand-lookback}, S its setup cost and H the holding
+ *       cost per unit and day;</li>
+ *   <li>MIN_BATCH: once the quantity reaches the variant's minimum batch size.</li>
+ * </ul>
+ * EOQ and MIN_BATCH never hold an order longer than {@code max-hold}, and any group with an order
+ * due within {@code due-date-lead-time} is released at once. A released group is submitted to
+ * SimAL under its oldest order's number, and only once SimAL accepts it are the others folded
+ * into that order ({@link ProductionOrderService#consolidate}); if SimAL refuses or cannot be
+ * reached every order stays CREATED, as it was, and the group is tried again on the next check.
+ *
+ * Batching is off by default ({@code app.production.batching.enabled}); the preview and release
+ * endpoints work either way.
+ */
+@Service
+public class ProductionBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductionBatcher.class);
+
+    private record Variant(Long assignedWorkstationId, String itemType, Long itemId) {
+    }
+
+    private record Batch(List<ProductionOrder> orders, ProductionBatchDTO view) {
+    }
+
+    private final ProductionOrderRepository productionOrderRepository;
+    private final ProductionOrderDemandRepository demandRepository;
+    private final ProductionOrderService productionOrderService;
+    private final ProductionPlanningService productionPlanningService;
+    private final ProductionBatchingProperties properties;
+
+    public ProductionBatcher(ProductionOrderRepository productionOrderRepository,
+                             ProductionOrderDemandRepository demandRepository,
+                             ProductionOrderService productionOrderService,
+                             ProductionPlanningService productionPlanningService,
+                             ProductionBatchingProperties properties) {
+        this.productionOrderRepository = productionOrderRepository;
+        this.demandRepository = demandRepository;
+        this.productionOrderService = productionOrderService;
+        this.productionPlanningService = productionPlanningService;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${app.production.batching.check-interval-ms:60000}")
+    public void releaseDueBatches() {
+        if (properties.isEnabled()) {
+            release(false);
+        }
+    }
+
+    /**
+     * The batches currently being collected and what the lot-sizing policy would do with each.
+     */
+    public List<ProductionBatchDTO> preview() {
+        return plan(LocalDateTime.now(), false).stream()
+                .map(Batch::view)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Release every batch the lot-sizing policy says is ready, or every batch if {@code force}.
+     *
+     * @return All batches considered, with the released order or error of those released
+     */
+    public synchronized List<ProductionBatchDTO> release(boolean force) {
+        List<Batch> batches = plan(LocalDateTime.now(), force);
+        for (Batch batch : batches) {
+            if (batch.view().isRelease()) {
+                release(batch);
+            }
+        }
+        return batches.stream()
+                .map(Batch::view)
+                .collect(Collectors.toList());
+    }
+
+    private void release(Batch batch) {
+        ProductionBatchDTO view = batch.view();
+        ProductionOrder lead = batch.orders().get(0);
+        List<Long> memberIds = batch.orders().stream().map(ProductionOrder::getId).toList();
+        try {
+            Optional<ProductionOrderDTO> released = productionPlanningService.submitConsolidatedToSimal(lead.getId(), memberIds);
+            if (released.isEmpty()) {
+                view.setError("Production order " + lead.getProductionOrderNumber() + " changed before release");
+                return;
+            }
+            view.setReleasedOrder(released.get());
+            logger.info("Released {} x {} {} for workstation {} as {} ({} order(s) in one setup, {} setup cost saved): {}",
+                    view.getReleasedOrder().getQuantity(), view.getItemType(), view.getItemId(),
+                    view.getAssignedWorkstationId(), lead.getProductionOrderNumber(), memberIds.size(),
+                    (memberIds.size() - 1) * view.getSetupCost(), view.getReason());
+        } catch (RuntimeException e) {
+            view.setError(e.getMessage());
+            logger.warn("Release of {} x {} {} as {} failed, retried on the next check: {}", view.getQuantity(),
+                    view.getItemType(), view.getItemId(), lead.getProductionOrderNumber(), e.getMessage());
+        }
+    }
+
+    private List<Batch> plan(LocalDateTime now, boolean force) {
+        Map<Variant, List<ProductionOrder>> byVariant = productionOrderRepository.findByStatus("CREATED").stream()
+                .filter(order -> order.getItemId() != null && order.getQuantity() != null)
+                .sorted(Comparator.comparing(ProductionOrder::getId))
+                .collect(Collectors.groupingBy(
+                        order -> new Variant(order.getAssignedWorkstationId(), order.getItemType(), order.getItemId()),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        List<Batch> batches = new ArrayList<>();
+        byVariant.forEach((variant, orders) -> batches.add(new Batch(orders, evaluate(variant, orders, now, force))));
+        // Most urgent first, so SimAL receives the batches in due-date order
+        batches.sort(Comparator
+                .comparing((Batch batch) -> batch.view().getEarliestDueDate(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(batch -> batch.view().getHeldSince(), Comparator.nullsLast(Comparator.naturalOrder())));
+        return batches;
+    }
+
+    private ProductionBatchDTO evaluate(Variant variant, List<ProductionOrder> orders, LocalDateTime now, boolean force) {
+        LotSizingPolicy policy = properties.getPolicy();
+        int quantity = orders.stream().mapToInt(ProductionOrder::getQuantity).sum();
+        LocalDateTime heldSince = orders.stream().map(ProductionOrder::getCreatedAt)
+                .filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(now);
+        LocalDateTime earliestDueDate = orders.stream().map(ProductionOrder::getDueDate)
+                .filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null);
+        double setupCost = properties.setupCostOf(variant.itemType(), variant.itemId());
+        Integer lotSizeTarget = switch (policy) {
+            case FIXED_PERIOD -> null;
+            case EOQ -> economicOrderQuantity(variant, setupCost, now);
+            case MIN_BATCH -> properties.minBatchOf(variant.itemType(), variant.itemId());
+        };
+
+        boolean release;
+        String reason;
+        if (force) {
+            release = true;
+            reason = "Released on request";
+        } else if (earliestDueDate != null && !earliestDueDate.isAfter(now.plus(properties.getDueDateLeadTime()))) {
+            release = true;
+            reason = "Due " + earliestDueDate + ", within the due-date lead time";
+        } else if (policy == LotSizingPolicy.FIXED_PERIOD) {
+            LocalDateTime periodEnd = heldSince.plus(properties.getPeriod());
+            release = !periodEnd.isAfter(now);
+            reason = release ? "Collected for a full period of " + properties.getPeriod() : "Collecting until " + periodEnd;
+        } else if (quantity >= lotSizeTarget) {
+            release = true;
+            reason = "Lot size " + lotSizeTarget + " reached";
+        } else {
+            LocalDateTime holdEnd = heldSince.plus(properties.getMaxHold());
+            release = !holdEnd.isAfter(now);
+            reason = release ? "Held for the maximum of " + properties.getMaxHold()
+                    : "Waiting for lot size " + lotSizeTarget + " or until " + holdEnd;
+        }
+
+        return ProductionBatchDTO.builder()
+                .assignedWorkstationId(variant.assignedWorkstationId())
+                .itemType(variant.itemType())
+                .itemId(variant.itemId())
+                .quantity(quantity)
+                .productionOrderNumbers(orders.stream().map(ProductionOrder::getProductionOrderNumber).toList())
+                .heldSince(heldSince)
+                .earliestDueDate(earliestDueDate)
+                .policy(policy.name())
+                .setupCost(setupCost)
+                .lotSizeTarget(lotSizeTarget)
+                .release(release)
+                .reason(reason)
+                .build();
+    }
+
+    /**
+     * Economic order quantity for a variant: the batch size at which setup and holding costs
+     * per unit balance, given how fast the variant has been demanded recently.
+     */
+    private int economicOrderQuantity(Variant variant, double setupCost, LocalDateTime now) {
+        double holdingCost = properties.getHoldingCostPerUnitDay();
+        if (holdingCost <= 0) {
+            return Integer.MAX_VALUE; // holding is free: only max-hold and due dates release
+        }
+        Duration lookback = properties.getDemandLookback();
+        double lookbackDays = Math.max(lookback.toMinutes(), 1) / (24.0 * 60);
+        long demanded = demandRepository.sumQuantityByItemSince(variant.itemType(), variant.itemId(), now.minus(lookback));
+        double demandPerDay = demanded / lookbackDays;
+        return (int) Math.max(1, Math.ceil(Math.sqrt(2 * demandPerDay * setupCost / holdingCost)));
+    }
+}
@@ -5,17 +5,15 @@ import io.life.order.dto.SupplyOrderDTO;
 import io.life.order.dto.SupplyOrderItemDTO;
 import io.life.order.entity.ProductionControlOrder;
 import io.life.order.repository.ProductionControlOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,26 +26,24 @@ import java.util.stream.Collectors;
 public class ProductionControlOrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductionControlOrderService.class);
+    private static final String MODULE_ITEM_TYPE = "MODULE";
 
     private final ProductionControlOrderRepository repository;
     private final SupplyOrderService supplyOrderService;
-    private final RestTemplate restTemplate;
-    private final InventoryService inventoryService;
-
-    @Value("${simal.service.url:http://localhost:8018}")
-    private String simalServiceUrl;
+    private final OutboxService outboxService;
+    private final OrderNumberGenerator orderNumberGenerator;
 
     @Value("${modules.supermarket.workstation.id:8}")
     private Long modulesSupermarketWorkstationId;
 
     public ProductionControlOrderService(ProductionControlOrderRepository repository, 
                                         SupplyOrderService supplyOrderService,
-                                        RestTemplate restTemplate,
-                                        InventoryService inventoryService) {
+                                        OutboxService outboxService,
+                                        OrderNumberGenerator orderNumberGenerator) {
         this.repository = repository;
         this.supplyOrderService = supplyOrderService;
-        this.restTemplate = restTemplate;
-        this.inventoryService = inventoryService;
+        this.outboxService = outboxService;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     /**
@@ -63,9 +59,10 @@ public class ProductionControlOrderService {
             String productionInstructions,
             String qualityCheckpoints,
             String safetyProcedures,
-            Integer estimatedDurationMinutes) {
+            Integer estimatedDurationMinutes,
+            Integer quantity) {
 
-        String controlOrderNumber = generateControlOrderNumber();
+        String controlOrderNumber = orderNumberGenerator.generateProductionControlOrderNumber();
 
         ProductionControlOrder order = ProductionControlOrder.builder()
                 .controlOrderNumber(controlOrderNumber)
@@ -80,6 +77,7 @@ public class ProductionControlOrderService {
                 .qualityCheckpoints(qualityCheckpoints)
                 .safetyProcedures(safetyProcedures)
                 .estimatedDurationMinutes(estimatedDurationMinutes)
+                .quantity(quantity)
                 .build();
 
         ProductionControlOrder saved = repository.save(order);
@@ -189,7 +187,7 @@ public class ProductionControlOrderService {
      * Flow:
      * 1. Update control order status to COMPLETED with actual completion time
      * 2. Call SimAL to update production schedule status
-     * 3. Credit Modules Supermarket (workstation 8) with completed modules/products
+     * 3. Credit Modules Supermarket (workstation 8) with the order's quantity of completed modules
      *
      * @param id Control order ID
      * @return Updated control order DTO
@@ -217,70 +215,16 @@ public class ProductionControlOrderService {
         ProductionControlOrder updated = repository.save(order);
         logger.info("Completed manufacturing production on control order {}", order.getControlOrderNumber());
 
-        // Step 2: Call SimAL to update schedule status (fire-and-forget)
-        try {
-            updateSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED");
-        } catch (Exception e) {
-            logger.warn("Failed to update SimAL schedule status for {}: {}", order.getSimalScheduleId(), e.getMessage());
-            // Don't throw - completion already succeeded, SimAL update is secondary
-        }
-
-        // Step 3: Credit Modules Supermarket inventory (fire-and-forget)
-        try {
-            creditModulesSupermarket(order.getSourceProductionOrderId(), 1);
-        } catch (Exception e) {
-            logger.warn("Failed to credit Modules Supermarket for order {}: {}", order.getSourceProductionOrderId(), e.getMessage());
-            // Don't throw - completion already succeeded, inventory update is secondary
-        }
+        // Step 2: Queue the SimAL status update and the Modules Supermarket credit; the outbox
+        // relay delivers them once this transaction commits
+        outboxService.enqueueSimalScheduleStatus(order.getSimalScheduleId(), "COMPLETED", order.getControlOrderNumber());
+        // Module ID 1 represents completed modules
+        outboxService.enqueueInventoryCredit(modulesSupermarketWorkstationId, MODULE_ITEM_TYPE, 1L, unitsProduced(order),
+                order.getControlOrderNumber());
 
         return mapToDTO(updated);
     }
 
-    /**
-     * Update SimAL schedule status via SimAL Integration Service.
-     */
-    private void updateSimalScheduleStatus(String scheduleId, String status) {
-        try {
-            String url = simalServiceUrl + "/api/simal/scheduled-orders/" + scheduleId + "/status";
-            Map<String, Object> request = new HashMap<>();
-            request.put("status", status);
-            request.put("completedAt", LocalDateTime.now().toString());
-            
-            restTemplate.postForObject(url, request, String.class);
-            logger.info("Updated SimAL schedule {} status to {}", scheduleId, status);
-        } catch (Exception e) {
-            logger.error("Failed to update SimAL schedule status for {}", scheduleId, e);
-            throw new RuntimeException("SimAL update failed: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Credit Modules Supermarket inventory when manufacturing completes.
-     * Awards one module unit to Modules Supermarket (workstation 8).
-     */
-    private void creditModulesSupermarket(Long productionOrderId, Integer quantity) {
-        try {
-            // Award to Modules Supermarket - we assume product ID 1 for completed modules
-            // This could be enhanced to track actual module IDs based on production order
-            boolean credited = inventoryService.updateStock(
-                    modulesSupermarketWorkstationId,
-                    1L, // Product ID 1 represents completed modules
-                    -quantity  // Negative to ADD to inventory
-            );
-            
-            if (credited) {
-                logger.info("Credited Modules Supermarket with {} module unit(s) for production order {}", 
-                        quantity, productionOrderId);
-            } else {
-                logger.warn("Failed to credit Modules Supermarket for production order {}", productionOrderId);
-                throw new RuntimeException("Inventory credit failed");
-            }
-        } catch (Exception e) {
-            logger.error("Failed to credit Modules Supermarket for order {}", productionOrderId, e);
-            throw new RuntimeException("Inventory credit failed: " + e.getMessage(), e);
-        }
-    }
-
     /**
      * Halt production on a control order.
      */
@@ -353,16 +297,12 @@ public class ProductionControlOrderService {
     }
 
     /**
-     * Generate unique control order number.
+     * Map entity to DTO.
      */
-    private String generateControlOrderNumber() {
-        long count = repository.count();
-        return "PCO-" + String.format("%04d", count + 1);
+    private static int unitsProduced(ProductionControlOrder order) {
+        return order.getQuantity() != null ? order.getQuantity() : 1;
     }
 
-    /**
-     * Map entity to DTO.
-     */
     private ProductionControlOrderDTO mapToDTO(ProductionControlOrder order) {
         return ProductionControlOrderDTO.builder()
                 .id(order.getId())
@@ -380,6 +320,7 @@ public class ProductionControlOrderService {
                 .qualityCheckpoints(order.getQualityCheckpoints())
                 .safetyProcedures(order.getSafetyProcedures())
                 .estimatedDurationMinutes(order.getEstimatedDurationMinutes())
+                .quantity(order.getQuantity())
                 .actualDurationMinutes(order.getActualDurationMinutes())
                 .defectsFound(order.getDefectsFound())
                 .defectsReworked(order.getDefectsReworked())
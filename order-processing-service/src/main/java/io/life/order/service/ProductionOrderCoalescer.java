@@ -0,0 +1,144 @@
+package io.life.order.service;
+
+import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.entity.ProductionOrder;
+import io.life.order.repository.ProductionOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes stock shortfalls to production orders, adding each one to an open production order for
+ * the same item where there is one instead of raising a new order every time.
+ *
+ * An in-memory index maps (assigned workstation, item, priority, due-date window) to the
+ * production order still in CREATED status, i.e. not yet submitted to SimAL, for that
+ * combination. Due dates fall in windows of {@code app.production.coalesce.window-days} days.
+ * A shortfall that matches is added to that order ({@link ProductionOrderService#addShortfall});
+ * otherwise a new order is created and indexed. Entries are checked against the database on
+ * use, so an order that has since been submitted, cancelled or rolled back simply drops out.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class ProductionOrderCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductionOrderCoalescer.class);
+
+    /**
+     * A quantity of one item that has to be produced.
+     */
+    public record Shortfall(String itemType, Long itemId, int quantity) {
+    }
+
+    private record CoalesceKey(Long assignedWorkstationId, String itemType, Long itemId, String priority, long dueWindow) {
+    }
+
+    private final ProductionOrderService productionOrderService;
+    private final ProductionOrderRepository productionOrderRepository;
+    private final boolean enabled;
+    private final long windowDays;
+
+    private final Map<CoalesceKey, Long> openOrders = new ConcurrentHashMap<>();
+
+    public ProductionOrderCoalescer(ProductionOrderService productionOrderService,
+                                    ProductionOrderRepository productionOrderRepository,
+                                    @Value("${app.production.coalesce.enabled:true}") boolean enabled,
+                                    @Value("${app.production.coalesce.window-days:1}") long windowDays) {
+        this.productionOrderService = productionOrderService;
+        this.productionOrderRepository = productionOrderRepository;
+        this.enabled = enabled;
+        this.windowDays = Math.max(1, windowDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public void buildIndex() {
+        if (!enabled) {
+            return;
+        }
+        openOrders.clear();
+        for (ProductionOrder order : productionOrderRepository.findByStatus("CREATED")) {
+            if (order.getItemId() != null && order.getQuantity() != null) {
+                openOrders.put(keyOf(order.getAssignedWorkstationId(), order.getItemType(), order.getItemId(),
+                        order.getPriority(), order.getDueDate()), order.getId());
+            }
+        }
+        logger.info("Production order coalescing index built with {} open order(s)", openOrders.size());
+    }
+
+    /**
+     * Have the given shortfalls produced, adding each to a matching open production order or
+     * raising a new one. Runs in the caller's transaction, so the production orders are only
+     * changed if the caller's own writes commit.
+     *
+     * @return Every production order that was created or extended, once each
+     */
+    public List<ProductionOrderDTO> requestProduction(Long sourceCustomerOrderId,
+                                                      Long sourceWarehouseOrderId,
+                                                      String priority,
+                                                      LocalDateTime dueDate,
+                                                      String notes,
+                                                      Long createdByWorkstationId,
+                                                      Long assignedWorkstationId,
+                                                      List<Shortfall> shortfalls) {
+        // Always lock open orders in item order, so two requests sharing items cannot deadlock
+        List<Shortfall> ordered = shortfalls.stream()
+                .filter(shortfall -> shortfall.quantity() > 0)
+                .sorted(Comparator.comparing(Shortfall::itemType, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(Shortfall::itemId))
+                .toList();
+
+        Map<Long, ProductionOrderDTO> touched = new LinkedHashMap<>();
+        for (Shortfall shortfall : ordered) {
+            CoalesceKey key = keyOf(assignedWorkstationId, shortfall.itemType(), shortfall.itemId(), priority, dueDate);
+            ProductionOrderDTO order = enabled
+                    ? addToOpenOrder(key, sourceCustomerOrderId, sourceWarehouseOrderId, dueDate, shortfall.quantity())
+                    : null;
+            if (order == null) {
+                order = productionOrderService.createProductionOrderFromWarehouse(sourceCustomerOrderId,
+                        sourceWarehouseOrderId, priority, dueDate, notes, createdByWorkstationId, assignedWorkstationId,
+                        shortfall.itemType(), shortfall.itemId(), shortfall.quantity());
+                if (enabled) {
+                    openOrders.put(key, order.getId());
+                }
+            }
+            touched.put(order.getId(), order);
+        }
+        return new ArrayList<>(touched.values());
+    }
+
+    private ProductionOrderDTO addToOpenOrder(CoalesceKey key, Long sourceCustomerOrderId, Long sourceWarehouseOrderId,
+                                              LocalDateTime dueDate, int quantity) {
+        Long openOrderId = openOrders.get(key);
+        if (openOrderId == null) {
+            return null;
+        }
+        Optional<ProductionOrderDTO> extended = productionOrderService.addShortfall(openOrderId, sourceCustomerOrderId,
+                sourceWarehouseOrderId, dueDate, quantity);
+        if (extended.isEmpty()) {
+            openOrders.remove(key, openOrderId);
+            return null;
+        }
+        return extended.get();
+    }
+
+    private CoalesceKey keyOf(Long assignedWorkstationId, String itemType, Long itemId, String priority,
+                              LocalDateTime dueDate) {
+        long dueWindow = dueDate != null ? Math.floorDiv(dueDate.toLocalDate().toEpochDay(), windowDays) : Long.MIN_VALUE;
+        return new CoalesceKey(assignedWorkstationId, itemType, itemId, priority, dueWindow);
+    }
+}
@@ -1,17 +1,27 @@
 package io.life.order.service;
 
 import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.dto.ProductionOrderDemandDTO;
 import io.life.order.entity.ProductionOrder;
+import io.life.order.entity.ProductionOrderDemand;
+import io.life.order.repository.ProductionOrderDemandRepository;
 import io.life.order.repository.ProductionOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for managing ProductionOrder entities.
@@ -25,14 +35,21 @@ public class ProductionOrderService {
     private static final Logger logger = LoggerFactory.getLogger(ProductionOrderService.class);
 
     private final ProductionOrderRepository productionOrderRepository;
+    private final ProductionOrderDemandRepository demandRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
 
-    public ProductionOrderService(ProductionOrderRepository productionOrderRepository) {
+    public ProductionOrderService(ProductionOrderRepository productionOrderRepository,
+                                  ProductionOrderDemandRepository demandRepository,
+                                  OrderNumberGenerator orderNumberGenerator) {
         this.productionOrderRepository = productionOrderRepository;
+        this.demandRepository = demandRepository;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     /**
      * Create a new production order for Scenario 3 (partial fulfillment).
      * Used when WarehouseOrder cannot be fully fulfilled from Modules Supermarket.
+     * The order is for the short quantity of one item, recorded as its first demand.
      */
     public ProductionOrderDTO createProductionOrderFromWarehouse(
             Long sourceCustomerOrderId,
@@ -41,9 +58,12 @@ public class ProductionOrderService {
             LocalDateTime dueDate,
             String notes,
             Long createdByWorkstationId,
-            Long assignedWorkstationId) {
+            Long assignedWorkstationId,
+            String itemType,
+            Long itemId,
+            int quantity) {
 
-        String productionOrderNumber = generateProductionOrderNumber();
+        String productionOrderNumber = orderNumberGenerator.generateProductionOrderNumber();
 
         ProductionOrder productionOrder = ProductionOrder.builder()
                 .productionOrderNumber(productionOrderNumber)
@@ -52,6 +72,9 @@ public class ProductionOrderService {
                 .status("CREATED")
                 .priority(priority)
                 .dueDate(dueDate)
+                .itemType(itemType)
+                .itemId(itemId)
+                .quantity(quantity)
                 .triggerScenario("SCENARIO_3")
                 .createdByWorkstationId(createdByWorkstationId)
                 .assignedWorkstationId(assignedWorkstationId)
@@ -59,12 +82,155 @@ public class ProductionOrderService {
                 .build();
 
         ProductionOrder saved = productionOrderRepository.save(productionOrder);
-        logger.info("Created production order {} from warehouse order {} assigned to workstation {}", 
-                productionOrderNumber, sourceWarehouseOrderId, assignedWorkstationId);
+        recordDemand(saved, sourceCustomerOrderId, sourceWarehouseOrderId, quantity);
+        logger.info("Created production order {} for {} x {} {} from warehouse order {} assigned to workstation {}",
+                productionOrderNumber, quantity, itemType, itemId, sourceWarehouseOrderId, assignedWorkstationId);
 
         return mapToDTO(saved);
     }
 
+    /**
+     * Add a shortfall to a production order that has not been submitted to SimAL yet: its
+     * quantity grows, its due date moves up if the shortfall is due earlier, and the shortfall is
+     * recorded as another demand. The order row is locked first, so concurrent additions wait for
+     * each other; the version bump makes a submission that read the order before this fail its
+     * {@link #requireUnchanged} check rather than send a stale quantity.
+     *
+     * @return The updated order, or empty if it no longer takes additions (submitted, cancelled or gone)
+     */
+    public Optional<ProductionOrderDTO> addShortfall(Long productionOrderId, Long sourceCustomerOrderId,
+                                                     Long sourceWarehouseOrderId, LocalDateTime dueDate, int quantity) {
+        Optional<ProductionOrder> locked = productionOrderRepository.findByIdForUpdate(productionOrderId);
+        if (locked.isEmpty() || !"CREATED".equals(locked.get().getStatus()) || locked.get().getQuantity() == null) {
+            return Optional.empty();
+        }
+        ProductionOrder productionOrder = locked.get();
+        productionOrder.setQuantity(productionOrder.getQuantity() + quantity);
+        if (dueDate != null && (productionOrder.getDueDate() == null || dueDate.isBefore(productionOrder.getDueDate()))) {
+            productionOrder.setDueDate(dueDate);
+        }
+        ProductionOrder saved = productionOrderRepository.save(productionOrder);
+        recordDemand(saved, sourceCustomerOrderId, sourceWarehouseOrderId, quantity);
+        logger.info("Added {} x {} {} for warehouse order {} to production order {} (now {})", quantity,
+                saved.getItemType(), saved.getItemId(), sourceWarehouseOrderId, saved.getProductionOrderNumber(),
+                saved.getQuantity());
+        return Optional.of(mapToDTO(saved));
+    }
+
+    private void recordDemand(ProductionOrder productionOrder, Long sourceCustomerOrderId, Long sourceWarehouseOrderId,
+                              int quantity) {
+        demandRepository.save(ProductionOrderDemand.builder()
+                .productionOrderId(productionOrder.getId())
+                .sourceCustomerOrderId(sourceCustomerOrderId)
+                .sourceWarehouseOrderId(sourceWarehouseOrderId)
+                .itemType(productionOrder.getItemType())
+                .itemId(productionOrder.getItemId())
+                .quantity(quantity)
+                .build());
+    }
+
+    /**
+     * Fold production orders for the same item into one lead order before release: the lead
+     * takes over their quantity and demands, the earliest due date and the most urgent priority,
+     * and the others are cancelled with a note naming the lead. All rows are locked in id order
+     * first; orders that are no longer CREATED, or are for another item, are left out.
+     *
+     * @return The consolidated lead order, or empty if the lead itself can no longer be released
+     */
+    public Optional<ProductionOrderDTO> consolidate(Long leadId, List<Long> memberIds) {
+        List<ProductionOrder> locked = Stream.concat(memberIds.stream(), Stream.of(leadId))
+                .distinct()
+                .sorted()
+                .map(productionOrderRepository::findByIdForUpdate)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+        ProductionOrder lead = locked.stream().filter(order -> order.getId().equals(leadId)).findFirst().orElse(null);
+        if (lead == null || !"CREATED".equals(lead.getStatus()) || lead.getQuantity() == null) {
+            return Optional.empty();
+        }
+
+        List<Long> folded = new ArrayList<>();
+        for (ProductionOrder member : locked) {
+            if (member == lead || !foldable(lead, member)) {
+                continue;
+            }
+            lead.setQuantity(lead.getQuantity() + member.getQuantity());
+            if (member.getDueDate() != null && (lead.getDueDate() == null || member.getDueDate().isBefore(lead.getDueDate()))) {
+                lead.setDueDate(member.getDueDate());
+            }
+            if (FulfillmentService.priorityRank(member.getPriority()) < FulfillmentService.priorityRank(lead.getPriority())) {
+                lead.setPriority(member.getPriority());
+            }
+            member.setStatus("CANCELLED");
+            member.setNotes("Consolidated into " + lead.getProductionOrderNumber());
+            productionOrderRepository.save(member);
+            folded.add(member.getId());
+        }
+        if (folded.isEmpty()) {
+            return Optional.of(mapToDTO(lead));
+        }
+        demandRepository.reassign(folded, lead.getId());
+        ProductionOrder saved = productionOrderRepository.save(lead);
+        logger.info("Consolidated {} production order(s) into {}: {} x {} {}", folded.size(),
+                saved.getProductionOrderNumber(), saved.getQuantity(), saved.getItemType(), saved.getItemId());
+        return Optional.of(mapToDTO(saved));
+    }
+
+    /**
+     * The lead order as {@link #consolidate} would leave it, and the version of each order that
+     * would be folded into it as read for the preview.
+     */
+    public record ConsolidationPreview(ProductionOrderDTO lead, Map<Long, Long> memberVersions) {
+    }
+
+    /**
+     * What {@link #consolidate} would make of the lead order, without changing or locking
+     * anything, so that the batch can be submitted to SimAL before any order is folded in.
+     *
+     * @return The lead as it would be after consolidation with the members it would take, or
+     *         empty if it can no longer be released
+     */
+    @Transactional(readOnly = true)
+    public Optional<ConsolidationPreview> previewConsolidation(Long leadId, List<Long> memberIds) {
+        ProductionOrder lead = productionOrderRepository.findById(leadId).orElse(null);
+        if (lead == null || !"CREATED".equals(lead.getStatus()) || lead.getQuantity() == null) {
+            return Optional.empty();
+        }
+        ProductionOrderDTO preview = mapToDTO(lead);
+        Map<Long, Long> memberVersions = new LinkedHashMap<>();
+        for (ProductionOrder member : productionOrderRepository.findAllById(memberIds)) {
+            if (member.getId().equals(leadId) || !foldable(lead, member)) {
+                continue;
+            }
+            memberVersions.put(member.getId(), member.getVersion());
+            preview.setQuantity(preview.getQuantity() + member.getQuantity());
+            if (member.getDueDate() != null && (preview.getDueDate() == null || member.getDueDate().isBefore(preview.getDueDate()))) {
+                preview.setDueDate(member.getDueDate());
+            }
+            if (FulfillmentService.priorityRank(member.getPriority()) < FulfillmentService.priorityRank(preview.getPriority())) {
+                preview.setPriority(member.getPriority());
+            }
+        }
+        return Optional.of(new ConsolidationPreview(preview, memberVersions));
+    }
+
+    private static boolean foldable(ProductionOrder lead, ProductionOrder member) {
+        return "CREATED".equals(member.getStatus()) && member.getQuantity() != null
+                && Objects.equals(member.getItemType(), lead.getItemType())
+                && Objects.equals(member.getItemId(), lead.getItemId());
+    }
+
+    /**
+     * Get the shortfalls a production order was raised or extended for, oldest first.
+     */
+    public List<ProductionOrderDemandDTO> getDemands(Long productionOrderId) {
+        return demandRepository.findByProductionOrderIdOrderByIdAsc(productionOrderId).stream()
+                .map(demand -> new ProductionOrderDemandDTO(demand.getId(), demand.getProductionOrderId(),
+                        demand.getSourceCustomerOrderId(), demand.getSourceWarehouseOrderId(), demand.getItemType(),
+                        demand.getItemId(), demand.getQuantity(), demand.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Create a standalone production order (not linked to warehouse order).
      */
@@ -75,7 +241,7 @@ public class ProductionOrderService {
             String notes,
             Long createdByWorkstationId) {
 
-        String productionOrderNumber = generateProductionOrderNumber();
+        String productionOrderNumber = orderNumberGenerator.generateProductionOrderNumber();
 
         ProductionOrder productionOrder = ProductionOrder.builder()
                 .productionOrderNumber(productionOrderNumber)
@@ -121,19 +287,29 @@ public class ProductionOrderService {
     }
 
     /**
-     * Get all production orders from a specific customer order.
+     * Get all production orders from a specific customer order, including orders it was
+     * coalesced into.
      */
     public List<ProductionOrderDTO> getProductionOrdersByCustomerOrder(Long sourceCustomerOrderId) {
-        return productionOrderRepository.findBySourceCustomerOrderId(sourceCustomerOrderId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return withCoalesced(productionOrderRepository.findBySourceCustomerOrderId(sourceCustomerOrderId),
+                demandRepository.findProductionOrderIdsByCustomerOrder(sourceCustomerOrderId));
     }
 
     /**
-     * Get all production orders from a specific warehouse order.
+     * Get all production orders from a specific warehouse order, including orders it was
+     * coalesced into.
      */
     public List<ProductionOrderDTO> getProductionOrdersByWarehouseOrder(Long sourceWarehouseOrderId) {
-        return productionOrderRepository.findBySourceWarehouseOrderId(sourceWarehouseOrderId).stream()
+        return withCoalesced(productionOrderRepository.findBySourceWarehouseOrderId(sourceWarehouseOrderId),
+                demandRepository.findProductionOrderIdsByWarehouseOrder(sourceWarehouseOrderId));
+    }
+
+    private List<ProductionOrderDTO> withCoalesced(List<ProductionOrder> direct, List<Long> viaDemands) {
+        Map<Long, ProductionOrder> orders = new LinkedHashMap<>();
+        direct.forEach(order -> orders.put(order.getId(), order));
+        List<Long> missing = viaDemands.stream().filter(id -> !orders.containsKey(id)).toList();
+        productionOrderRepository.findAllById(missing).forEach(order -> orders.put(order.getId(), order));
+        return orders.values().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
@@ -175,6 +351,22 @@ public class ProductionOrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Check that a production order has not changed since it was read at {@code expectedVersion}.
+     * Called at the start of a write transaction whose decisions were made outside it, for
+     * example on an answer from SimAL; the updates that follow in the same transaction are
+     * version-checked again when they are flushed.
+     *
+     * @throws ObjectOptimisticLockingFailureException if the order was changed in the meantime
+     */
+    public void requireUnchanged(Long id, Long expectedVersion) {
+        ProductionOrder productionOrder = productionOrderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Production order not found: " + id));
+        if (!Objects.equals(productionOrder.getVersion(), expectedVersion)) {
+            throw new ObjectOptimisticLockingFailureException(ProductionOrder.class, id);
+        }
+    }
+
     /**
      * Update production order status.
      */
@@ -240,14 +432,6 @@ public class ProductionOrderService {
         return mapToDTO(updated);
     }
 
-    /**
-     * Generate unique production order number.
-     */
-    private String generateProductionOrderNumber() {
-        long count = productionOrderRepository.count();
-        return "PO-" + String.format("%04d", count + 1);
-    }
-
     /**
      * Map ProductionOrder entity to DTO.
      */
@@ -261,6 +445,9 @@ public class ProductionOrderService {
                 .status(productionOrder.getStatus())
                 .priority(productionOrder.getPriority())
                 .dueDate(productionOrder.getDueDate())
+                .itemType(productionOrder.getItemType())
+                .itemId(productionOrder.getItemId())
+                .quantity(productionOrder.getQuantity())
                 .triggerScenario(productionOrder.getTriggerScenario())
                 .createdByWorkstationId(productionOrder.getCreatedByWorkstationId())
                 .notes(productionOrder.getNotes())
@@ -269,6 +456,7 @@ public class ProductionOrderService {
                 .actualCompletionTime(productionOrder.getActualCompletionTime())
                 .createdAt(productionOrder.getCreatedAt())
                 .updatedAt(productionOrder.getUpdatedAt())
+                .version(productionOrder.getVersion())
                 .build();
     }
 }
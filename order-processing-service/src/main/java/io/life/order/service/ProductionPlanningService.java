@@ -1,12 +1,13 @@
 package io.life.order.service;
 
 import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.exception.DependencyUnavailableException;
 import io.life.order.repository.ProductionOrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -19,9 +20,14 @@ import java.util.*;
  * Service for managing production planning and SimAL integration.
  * Coordinates with SimAL Integration Service to schedule production orders.
  * Tracks production progress and updates order status.
+ *
+ * No transaction is held while SimAL is called. Each operation reads the production order in
+ * its own short transaction, calls SimAL, and then applies the outcome in one short write
+ * transaction that is refused if the order changed since it was read. A schedule SimAL created
+ * for a submission whose recording is refused is withdrawn through the outbox, so retrying the
+ * submission does not leave two schedules for one order.
  */
 @Service
-@Transactional
 public class ProductionPlanningService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductionPlanningService.class);
@@ -31,7 +37,9 @@ public class ProductionPlanningService {
     private final ProductionOrderService productionOrderService;
     private final ProductionControlOrderService productionControlOrderService;
     private final AssemblyControlOrderService assemblyControlOrderService;
+    private final OutboxService outboxService;
     private final RestTemplate restTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${simal.api.base-url:http://localhost:8016/api}")
     private String simalApiBaseUrl;
@@ -41,11 +49,15 @@ public class ProductionPlanningService {
             ProductionOrderService productionOrderService,
             ProductionControlOrderService productionControlOrderService,
             AssemblyControlOrderService assemblyControlOrderService,
-            RestTemplate restTemplate) {
+            OutboxService outboxService,
+            RestTemplate restTemplate,
+            TransactionTemplate transactionTemplate) {
         this.productionOrderService = productionOrderService;
         this.productionControlOrderService = productionControlOrderService;
         this.assemblyControlOrderService = assemblyControlOrderService;
+        this.outboxService = outboxService;
         this.restTemplate = restTemplate;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -62,6 +74,43 @@ public class ProductionPlanningService {
             return order;
         }
 
+        return submit(order, () -> productionOrderService.requireUnchanged(productionOrderId, order.getVersion()));
+    }
+
+    /**
+     * Submit a batch of CREATED production orders for one item to SimAL as a single order under
+     * the lead's number. The others are folded into the lead ({@link ProductionOrderService#consolidate})
+     * only once SimAL has accepted it, in the write that records the schedule, so a refused or
+     * failed submission leaves every order of the batch as it was. The write is refused if the
+     * lead or any order folded into it changed after the batch was read for submission.
+     *
+     * @return The submitted lead order, or empty if the lead can no longer be released
+     */
+    public Optional<ProductionOrderDTO> submitConsolidatedToSimal(Long leadId, List<Long> memberIds) {
+        Optional<ProductionOrderService.ConsolidationPreview> preview =
+                productionOrderService.previewConsolidation(leadId, memberIds);
+        if (preview.isEmpty()) {
+            return Optional.empty();
+        }
+        ProductionOrderDTO lead = preview.get().lead();
+        Map<Long, Long> memberVersions = preview.get().memberVersions();
+        return Optional.of(submit(lead, () -> {
+            // A member that took another shortfall since the preview would be folded in with
+            // more than SimAL was asked for
+            productionOrderService.requireUnchanged(leadId, lead.getVersion());
+            memberVersions.forEach(productionOrderService::requireUnchanged);
+            productionOrderService.consolidate(leadId, List.copyOf(memberVersions.keySet()));
+        }));
+    }
+
+    /**
+     * Send an order to SimAL and record the schedule it answers with. {@code beforeRecording}
+     * runs first in the recording transaction and refuses (by throwing) a write that no longer
+     * fits the order as it was sent.
+     */
+    private ProductionOrderDTO submit(ProductionOrderDTO order, Runnable beforeRecording) {
+        Long productionOrderId = order.getId();
+        Map<String, Object> responseBody;
         try {
             // Create request payload for SimAL
             SimalProductionOrderRequest request = new SimalProductionOrderRequest();
@@ -70,42 +119,73 @@ public class ProductionPlanningService {
             request.setDueDate(order.getDueDate());
             request.setPriority(order.getPriority());
             request.setNotes(order.getNotes());
+            if (order.getItemId() != null && order.getQuantity() != null) {
+                // The quantity includes every shortfall coalesced into the order
+                request.setLineItems(List.of(new SimalOrderLineItem(
+                        String.valueOf(order.getItemId()), order.getItemType() + " #" + order.getItemId(), order.getQuantity())));
+            }
 
             // Send to SimAL API
             String url = simalApiBaseUrl + "/simal/production-order";
             HttpEntity<SimalProductionOrderRequest> requestEntity = new HttpEntity<>(request);
             ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, requestEntity, Map.class);
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                String scheduleId = (String) responseBody.get("scheduleId");
-                Integer estimatedDuration = ((Number) responseBody.get("estimatedDuration")).intValue();
-                String estimatedCompletionStr = (String) responseBody.get("estimatedCompletion");
-
-                // Update production order with schedule information
-                ProductionOrderDTO updatedOrder = productionOrderService.linkToSimalSchedule(
-                        productionOrderId,
-                        scheduleId,
-                        estimatedDuration,
-                        LocalDateTime.parse(estimatedCompletionStr)
-                );
-
-                // Update status to SUBMITTED
-                updatedOrder = productionOrderService.updateProductionOrderStatus(productionOrderId, "SUBMITTED");
-                logger.info("Submitted production order {} to SimAL with schedule {}", 
-                        order.getProductionOrderNumber(), scheduleId);
-
-                return updatedOrder;
-            } else {
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
                 logger.error("Failed to submit production order {} to SimAL: HTTP {}", 
                         order.getProductionOrderNumber(), response.getStatusCode());
                 throw new RuntimeException("SimAL API returned error: " + response.getStatusCode());
             }
+            responseBody = response.getBody();
+        } catch (DependencyUnavailableException e) {
+            // Let callers tell an unreachable SimAL apart from an answer it gave
+            throw e;
         } catch (Exception e) {
             logger.error("Error submitting production order {} to SimAL: {}", 
                     order.getProductionOrderNumber(), e.getMessage(), e);
             throw new RuntimeException("Failed to submit to SimAL: " + e.getMessage());
         }
+
+        String scheduleId = (String) responseBody.get("scheduleId");
+        Integer estimatedDuration = ((Number) responseBody.get("estimatedDuration")).intValue();
+        String estimatedCompletionStr = (String) responseBody.get("estimatedCompletion");
+
+        // Update production order with schedule information and status SUBMITTED
+        ProductionOrderDTO updatedOrder;
+        try {
+            updatedOrder = transactionTemplate.execute(status -> {
+                beforeRecording.run();
+                productionOrderService.linkToSimalSchedule(
+                        productionOrderId,
+                        scheduleId,
+                        estimatedDuration,
+                        LocalDateTime.parse(estimatedCompletionStr)
+                );
+                return productionOrderService.updateProductionOrderStatus(productionOrderId, "SUBMITTED");
+            });
+        } catch (RuntimeException e) {
+            withdrawSchedule(scheduleId, order.getProductionOrderNumber());
+            throw e;
+        }
+        logger.info("Submitted production order {} to SimAL with schedule {}", 
+                order.getProductionOrderNumber(), scheduleId);
+
+        return updatedOrder;
+    }
+
+    /**
+     * Queue the cancellation of a schedule that SimAL created for a submission that was not
+     * recorded, so the next submission of the order is the only one SimAL works on.
+     */
+    private void withdrawSchedule(String scheduleId, String productionOrderNumber) {
+        logger.warn("Production order {} changed while SimAL scheduled it, withdrawing schedule {}",
+                productionOrderNumber, scheduleId);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxService.enqueueSimalScheduleStatus(scheduleId, "CANCELLED", productionOrderNumber));
+        } catch (RuntimeException e) {
+            logger.error("Could not queue the withdrawal of SimAL schedule {} for production order {}: {}",
+                    scheduleId, productionOrderNumber, e.getMessage(), e);
+        }
     }
 
     /**
@@ -126,6 +206,8 @@ public class ProductionPlanningService {
                         simalScheduleId, response.getStatusCode());
                 return new ArrayList<>();
             }
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error retrieving scheduled tasks for schedule {}: {}", simalScheduleId, e.getMessage());
             return new ArrayList<>();
@@ -145,33 +227,37 @@ public class ProductionPlanningService {
             return order;
         }
 
+        String simalStatus;
         try {
             String url = simalApiBaseUrl + "/simal/scheduled-orders/" + order.getSimalScheduleId() + "/status";
             ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                String status = (String) responseBody.get("status");
-
-                // Update production order status based on SimAL status
-                String newStatus = mapSimalStatusToPOStatus(status);
-                if (!newStatus.equals(order.getStatus())) {
-                    order = productionOrderService.updateProductionOrderStatus(productionOrderId, newStatus);
-                    logger.info("Updated production order {} to status {} based on SimAL", 
-                            order.getProductionOrderNumber(), newStatus);
-                }
-
-                return order;
-            } else {
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
                 logger.warn("Failed to get production progress for schedule {}: HTTP {}", 
                         order.getSimalScheduleId(), response.getStatusCode());
                 return order;
             }
+            simalStatus = (String) response.getBody().get("status");
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error updating production progress for order {}: {}", 
                     order.getProductionOrderNumber(), e.getMessage());
             return order;
         }
+
+        // Update production order status based on SimAL status
+        String newStatus = mapSimalStatusToPOStatus(simalStatus);
+        if (newStatus.equals(order.getStatus())) {
+            return order;
+        }
+        ProductionOrderDTO updated = transactionTemplate.execute(status -> {
+            productionOrderService.requireUnchanged(productionOrderId, order.getVersion());
+            return productionOrderService.updateProductionOrderStatus(productionOrderId, newStatus);
+        });
+        logger.info("Updated production order {} to status {} based on SimAL", 
+                updated.getProductionOrderNumber(), newStatus);
+        return updated;
     }
 
     /**
@@ -189,17 +275,22 @@ public class ProductionPlanningService {
             String url = simalApiBaseUrl + "/simal/scheduled-orders/" + order.getSimalScheduleId() + "/start";
             ResponseEntity<Map> response = restTemplate.postForEntity(url, new HashMap<>(), Map.class);
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                order = productionOrderService.updateProductionOrderStatus(productionOrderId, "IN_PRODUCTION");
-                logger.info("Started production for order {} in SimAL", order.getProductionOrderNumber());
-                return order;
-            } else {
+            if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new RuntimeException("SimAL API returned error: " + response.getStatusCode());
             }
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error starting production for order {}: {}", order.getProductionOrderNumber(), e.getMessage());
             throw new RuntimeException("Failed to start production: " + e.getMessage());
         }
+
+        ProductionOrderDTO started = transactionTemplate.execute(status -> {
+            productionOrderService.requireUnchanged(productionOrderId, order.getVersion());
+            return productionOrderService.updateProductionOrderStatus(productionOrderId, "IN_PRODUCTION");
+        });
+        logger.info("Started production for order {} in SimAL", started.getProductionOrderNumber());
+        return started;
     }
 
     /**
@@ -213,17 +304,22 @@ public class ProductionPlanningService {
             String url = simalApiBaseUrl + "/simal/scheduled-orders/" + order.getSimalScheduleId() + "/complete";
             ResponseEntity<Map> response = restTemplate.postForEntity(url, new HashMap<>(), Map.class);
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                order = productionOrderService.completeProductionOrder(productionOrderId);
-                logger.info("Completed production for order {} in SimAL", order.getProductionOrderNumber());
-                return order;
-            } else {
+            if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new RuntimeException("SimAL API returned error: " + response.getStatusCode());
             }
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error completing production for order {}: {}", order.getProductionOrderNumber(), e.getMessage());
             throw new RuntimeException("Failed to complete production: " + e.getMessage());
         }
+
+        ProductionOrderDTO completed = transactionTemplate.execute(status -> {
+            productionOrderService.requireUnchanged(productionOrderId, order.getVersion());
+            return productionOrderService.completeProductionOrder(productionOrderId);
+        });
+        logger.info("Completed production for order {} in SimAL", completed.getProductionOrderNumber());
+        return completed;
     }
 
     /**
@@ -243,38 +339,45 @@ public class ProductionPlanningService {
                 LocalDateTime startTime = order.getExpectedCompletionTime() != null ? 
                     order.getExpectedCompletionTime() : now.plusHours(1);
 
-                // Create ProductionControlOrder
-                productionControlOrderService.createControlOrder(
-                        productionOrderId,
-                        PRODUCTION_CONTROL_WORKSTATION_ID,
-                        simalScheduleId,
-                        order.getPriority(),
-                        now,
-                        startTime,
-                        "Production process for order " + order.getProductionOrderNumber(),
-                        "Check output quality, verify dimensions, inspect surface finish",
-                        "Follow safety protocols, use protective equipment",
-                        order.getEstimatedDuration() != null ? order.getEstimatedDuration() : 120
-                );
-
-                // Create AssemblyControlOrder to be started after production
-                assemblyControlOrderService.createControlOrder(
-                        productionOrderId,
-                        ASSEMBLY_CONTROL_WORKSTATION_ID,
-                        simalScheduleId,
-                        order.getPriority(),
-                        startTime.plusMinutes(order.getEstimatedDuration() != null ? order.getEstimatedDuration() : 120),
-                        startTime.plusMinutes(order.getEstimatedDuration() != null ? order.getEstimatedDuration() * 2 : 240),
-                        "Assembly instructions for order " + order.getProductionOrderNumber(),
-                        "Verify all components assembled, test functionality",
-                        "Test all features work correctly",
-                        "Package according to customer requirements",
-                        120
-                );
+                // Create both control orders in one short transaction, after SimAL has answered
+                transactionTemplate.executeWithoutResult(status -> {
+                    // Create ProductionControlOrder
+                    productionControlOrderService.createControlOrder(
+                            productionOrderId,
+                            PRODUCTION_CONTROL_WORKSTATION_ID,
+                            simalScheduleId,
+                            order.getPriority(),
+                            now,
+                            startTime,
+                            "Production process for order " + order.getProductionOrderNumber(),
+                            "Check output quality, verify dimensions, inspect surface finish",
+                            "Follow safety protocols, use protective equipment",
+                            order.getEstimatedDuration() != null ? order.getEstimatedDuration() : 120,
+                            order.getQuantity()
+                    );
+
+                    // Create AssemblyControlOrder to be started after production
+                    assemblyControlOrderService.createControlOrder(
+                            productionOrderId,
+                            ASSEMBLY_CONTROL_WORKSTATION_ID,
+                            simalScheduleId,
+                            order.getPriority(),
+                            startTime.plusMinutes(order.getEstimatedDuration() != null ? order.getEstimatedDuration() : 120),
+                            startTime.plusMinutes(order.getEstimatedDuration() != null ? order.getEstimatedDuration() * 2 : 240),
+                            "Assembly instructions for order " + order.getProductionOrderNumber(),
+                            "Verify all components assembled, test functionality",
+                            "Test all features work correctly",
+                            "Package according to customer requirements",
+                            120,
+                            order.getQuantity()
+                    );
+                });
 
                 logger.info("Created production and assembly control orders for production order {} from SimAL schedule {}", 
                         order.getProductionOrderNumber(), simalScheduleId);
             }
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error creating control orders from SimAL schedule {}: {}", simalScheduleId, e.getMessage(), e);
             throw new RuntimeException("Failed to create control orders: " + e.getMessage());
@@ -303,6 +406,7 @@ public class ProductionPlanningService {
         private LocalDateTime dueDate;
         private String priority;
         private String notes;
+        private List<SimalOrderLineItem> lineItems;
 
         // Getters and Setters
         public String getProductionOrderNumber() { return productionOrderNumber; }
@@ -319,5 +423,35 @@ public class ProductionPlanningService {
 
         public String getNotes() { return notes; }
         public void setNotes(String notes) { this.notes = notes; }
+
+        public List<SimalOrderLineItem> getLineItems() { return lineItems; }
+        public void setLineItems(List<SimalOrderLineItem> lineItems) { this.lineItems = lineItems; }
+    }
+
+    /**
+     * Line item of a SimAL production order: the item and how many to produce.
+     */
+    public static class SimalOrderLineItem {
+        private String itemId;
+        private String itemName;
+        private Integer quantity;
+
+        public SimalOrderLineItem() {
+        }
+
+        public SimalOrderLineItem(String itemId, String itemName, Integer quantity) {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.quantity = quantity;
+        }
+
+        public String getItemId() { return itemId; }
+        public void setItemId(String itemId) { this.itemId = itemId; }
+
+        public String getItemName() { return itemName; }
+        public void setItemName(String itemName) { this.itemName = itemName; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
     }
 }
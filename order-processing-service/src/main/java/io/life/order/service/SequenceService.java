@@ -0,0 +1,118 @@
+package io.life.order.service;
+
+import io.life.order.entity.OrderSequence;
+import io.life.order.repository.OrderSequenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out sequence values that are unique across restarts and instances sharing the database,
+ * without a database round trip per value (hi/lo allocation).
+ *
+ * Each instance reserves a block of {@code app.sequence.block-size} values at a time by moving
+ * the sequence's row in {@code order_sequences} forward, under a row lock and in its own short
+ * transaction so the reservation never waits on, or rolls back with, the caller's work. Values
+ * are then taken from the block in memory without locking. Values left in a block when the
+ * instance stops are skipped, so sequences have gaps but never repeat.
+ */
+@Service
+public class SequenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceService.class);
+
+    private final OrderSequenceRepository repository;
+    private final TransactionTemplate reservationTransaction;
+    private final int blockSize;
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public SequenceService(OrderSequenceRepository repository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.sequence.block-size:50}") int blockSize) {
+        this.repository = repository;
+        this.reservationTransaction = new TransactionTemplate(transactionManager);
+        this.reservationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Next value of the named sequence. Sequences start at 1 and are created on first use.
+     */
+    public long next(String name) {
+        return sequences.computeIfAbsent(name, Sequence::new).next();
+    }
+
+    /**
+     * Reserve the next block of a sequence.
+     *
+     * @return The first value of the block
+     */
+    private long reserve(String name) {
+        try {
+            return reserveOnce(name);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the sequence at the same time; its row is there now
+            return reserveOnce(name);
+        }
+    }
+
+    private long reserveOnce(String name) {
+        Long first = reservationTransaction.execute(status -> {
+            OrderSequence sequence = repository.findByNameForUpdate(name)
+                    .orElseGet(() -> new OrderSequence(name, 1L));
+            long start = sequence.getNextValue();
+            sequence.setNextValue(start + blockSize);
+            repository.saveAndFlush(sequence);
+            return start;
+        });
+        logger.debug("Reserved {} values of sequence {} from {}", blockSize, name, first);
+        return first;
+    }
+
+    private final class Sequence {
+        private final String name;
+        // Not a monitor: reserving makes a database round trip, and a virtual thread blocked in
+        // synchronized code would pin its carrier thread for all of it
+        private final ReentrantLock reserveLock = new ReentrantLock();
+        private volatile Block block;
+
+        private Sequence(String name) {
+            this.name = name;
+        }
+
+        long next() {
+            while (true) {
+                Block current = block;
+                if (current != null) {
+                    long value = current.next.getAndIncrement();
+                    if (value < current.end) {
+                        return value;
+                    }
+                }
+                reserveLock.lock();
+                try {
+                    if (block == current) {
+                        long start = reserve(name);
+                        block = new Block(new AtomicLong(start), start + blockSize);
+                    }
+                } finally {
+                    reserveLock.unlock();
+                }
+            }
+        }
+    }
+
+    private record Block(AtomicLong next, long end) {
+    }
+}
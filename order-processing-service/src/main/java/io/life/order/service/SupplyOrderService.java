@@ -5,6 +5,7 @@ import io.life.order.dto.SupplyOrderItemDTO;
 import io.life.order.entity.SupplyOrder;
 import io.life.order.entity.SupplyOrderItem;
 import io.life.order.repository.SupplyOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -28,10 +29,13 @@ public class SupplyOrderService {
 
     private final SupplyOrderRepository repository;
     private final RestTemplate restTemplate;
+    private final OrderNumberGenerator orderNumberGenerator;
 
-    public SupplyOrderService(SupplyOrderRepository repository, RestTemplate restTemplate) {
+    public SupplyOrderService(SupplyOrderRepository repository, RestTemplate restTemplate,
+                              OrderNumberGenerator orderNumberGenerator) {
         this.repository = repository;
         this.restTemplate = restTemplate;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     /**
@@ -47,7 +51,7 @@ public class SupplyOrderService {
             List<SupplyOrderItemDTO> requiredItems,
             String notes) {
 
-        String supplyOrderNumber = generateSupplyOrderNumber();
+        String supplyOrderNumber = orderNumberGenerator.generateSupplyOrderNumber();
 
         List<SupplyOrderItem> items = requiredItems.stream()
                 .map(itemDTO -> new SupplyOrderItem(
@@ -264,14 +268,4 @@ public class SupplyOrderService {
                 .supplyOrderItems(itemDTOs)
                 .build();
     }
-
-    /**
-     * Generate a unique supply order number.
-     * Format: SO-{TIMESTAMP}-{RANDOM}
-     */
-    private String generateSupplyOrderNumber() {
-        long timestamp = System.currentTimeMillis();
-        int random = new Random().nextInt(10000);
-        return String.format("SO-%d-%04d", timestamp, random);
-    }
 }
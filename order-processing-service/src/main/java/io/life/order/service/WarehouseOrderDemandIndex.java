@@ -0,0 +1,95 @@
+package io.life.order.service;
+
+import io.life.order.entity.WarehouseOrder;
+import io.life.order.entity.WarehouseOrderItem;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of open warehouse orders by the stock rows they are still waiting for:
+ * (fulfilling workstation, item type, item) to the orders with an outstanding quantity of it.
+ *
+ * It lets a stock credit find the orders it may complete without reading every open order.
+ * Services that create or settle warehouse orders call {@link #track} with the saved state; an
+ * order that is no longer open, or has nothing outstanding, drops out. Entries may briefly name
+ * an order whose write was rolled back, so readers must re-read the orders they are given.
+ */
+@Component
+public class WarehouseOrderDemandIndex {
+
+    static final Set<String> OPEN_STATUSES = Set.of("PENDING", "PENDING_PRODUCTION", "PROCESSING", "PARTIALLY_FULFILLED");
+
+    private record DemandKey(Long workstationId, String itemType, Long itemId) {
+    }
+
+    // Guarded by this
+    private final Map<DemandKey, Set<Long>> ordersByDemand = new HashMap<>();
+    private final Map<Long, Set<DemandKey>> demandByOrder = new HashMap<>();
+
+    /**
+     * Record what an order is still waiting for, replacing whatever was recorded for it before.
+     */
+    public synchronized void track(WarehouseOrder order) {
+        if (order.getId() == null) {
+            return;
+        }
+        untrack(order.getId());
+        if (!OPEN_STATUSES.contains(order.getStatus()) || order.getWarehouseOrderItems() == null) {
+            return;
+        }
+        Set<DemandKey> keys = new HashSet<>();
+        for (WarehouseOrderItem item : order.getWarehouseOrderItems()) {
+            int fulfilled = item.getFulfilledQuantity() != null ? item.getFulfilledQuantity() : 0;
+            if (item.getRequestedQuantity() != null && item.getRequestedQuantity() > fulfilled) {
+                keys.add(new DemandKey(order.getFulfillingWorkstationId(), item.getItemType(), item.getItemId()));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        demandByOrder.put(order.getId(), keys);
+        keys.forEach(key -> ordersByDemand.computeIfAbsent(key, k -> new HashSet<>()).add(order.getId()));
+    }
+
+    public synchronized void untrack(Long warehouseOrderId) {
+        Set<DemandKey> keys = demandByOrder.remove(warehouseOrderId);
+        if (keys == null) {
+            return;
+        }
+        for (DemandKey key : keys) {
+            Set<Long> orders = ordersByDemand.get(key);
+            orders.remove(warehouseOrderId);
+            if (orders.isEmpty()) {
+                ordersByDemand.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Replace the whole index with the given orders.
+     */
+    public synchronized void rebuild(Collection<WarehouseOrder> orders) {
+        ordersByDemand.clear();
+        demandByOrder.clear();
+        orders.forEach(this::track);
+    }
+
+    /**
+     * Open orders with an outstanding quantity of the given stock row.
+     */
+    public synchronized Set<Long> ordersDemanding(Long workstationId, String itemType, Long itemId) {
+        return Set.copyOf(ordersByDemand.getOrDefault(new DemandKey(workstationId, itemType, itemId), Set.of()));
+    }
+
+    /**
+     * Every order in the index.
+     */
+    public synchronized Set<Long> orderIds() {
+        return Set.copyOf(demandByOrder.keySet());
+    }
+}
@@ -0,0 +1,201 @@
+package io.life.order.service;
+
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.entity.CustomerOrder;
+import io.life.order.entity.WarehouseOrder;
+import io.life.order.entity.WarehouseOrderItem;
+import io.life.order.event.StockCreditedEvent;
+import io.life.order.repository.CustomerOrderRepository;
+import io.life.order.repository.WarehouseOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Completes open warehouse orders as soon as the stock they are waiting for arrives, instead of
+ * when someone next clicks fulfill.
+ *
+ * A {@link StockCreditedEvent} looks up the orders waiting for the credited row in the
+ * {@link WarehouseOrderDemandIndex} and marks them for re-evaluation; credits for rows no open
+ * order needs cost nothing more. A single worker re-evaluates the marked orders: it ranks them by
+ * their customer order's priority and due date, then by age, plans all their outstanding lines in
+ * that order with one batch stock check, and fulfills each order the shared stock covers in full,
+ * highest-ranked first. Orders still short are left as they are, so no partial pass or extra
+ * production order is triggered by a credit.
+ *
+ * Credits applied outside this service (e.g. a manual stock update) raise no event; every
+ * {@code app.warehouse-restock.sweep-interval-ms} all indexed orders are re-evaluated to catch them.
+ */
+@Service
+public class WarehouseOrderRestockService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseOrderRestockService.class);
+
+    private final WarehouseOrderRepository warehouseOrderRepository;
+    private final CustomerOrderRepository customerOrderRepository;
+    private final WarehouseOrderService warehouseOrderService;
+    private final InventoryService inventoryService;
+    private final WarehouseOrderDemandIndex demandIndex;
+    private final boolean enabled;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("warehouse-restock").factory());
+    private final Set<Long> marked = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public WarehouseOrderRestockService(WarehouseOrderRepository warehouseOrderRepository,
+                                        CustomerOrderRepository customerOrderRepository,
+                                        WarehouseOrderService warehouseOrderService,
+                                        InventoryService inventoryService,
+                                        WarehouseOrderDemandIndex demandIndex,
+                                        @Value("${app.warehouse-restock.enabled:true}") boolean enabled) {
+        this.warehouseOrderRepository = warehouseOrderRepository;
+        this.customerOrderRepository = customerOrderRepository;
+        this.warehouseOrderService = warehouseOrderService;
+        this.inventoryService = inventoryService;
+        this.demandIndex = demandIndex;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        List<WarehouseOrder> open = warehouseOrderRepository.findByStatusIn(WarehouseOrderDemandIndex.OPEN_STATUSES);
+        demandIndex.rebuild(open);
+        logger.info("Warehouse order demand index built from {} open order(s)", open.size());
+    }
+
+    @EventListener
+    public void onStockCredited(StockCreditedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> waiting = demandIndex.ordersDemanding(event.workstationId(), event.itemType(), event.itemId());
+        if (!waiting.isEmpty()) {
+            logger.debug("Credit of {} {} {} at workstation {} may complete warehouse order(s) {}", event.quantity(),
+                    event.itemType(), event.itemId(), event.workstationId(), waiting);
+            mark(waiting);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.warehouse-restock.sweep-interval-ms:60000}")
+    public void sweepAll() {
+        if (enabled) {
+            mark(demandIndex.orderIds());
+        }
+    }
+
+    private void mark(Set<Long> warehouseOrderIds) {
+        if (warehouseOrderIds.isEmpty()) {
+            return;
+        }
+        marked.addAll(warehouseOrderIds);
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Marks added from here on schedule another drain, which runs after this one
+        drainScheduled.set(false);
+        List<Long> ids = new ArrayList<>(marked);
+        ids.forEach(marked::remove);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            reevaluate(ids);
+        } catch (RuntimeException e) {
+            logger.warn("Re-evaluation of {} warehouse order(s) failed, left for the next sweep: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void reevaluate(List<Long> ids) {
+        List<WarehouseOrder> orders = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        for (WarehouseOrder order : warehouseOrderRepository.findAllById(ids)) {
+            found.add(order.getId());
+            if (WarehouseOrderDemandIndex.OPEN_STATUSES.contains(order.getStatus())) {
+                orders.add(order);
+            } else {
+                demandIndex.track(order);
+            }
+        }
+        ids.stream().filter(id -> !found.contains(id)).forEach(demandIndex::untrack);
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        Map<Long, CustomerOrder> sources = customerOrderRepository.findAllById(
+                        orders.stream().map(WarehouseOrder::getSourceCustomerOrderId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(CustomerOrder::getId, Function.identity()));
+        orders.sort(Comparator
+                .comparingInt((WarehouseOrder order) -> FulfillmentService.priorityRank(
+                        sourceField(sources, order, CustomerOrder::getPriority)))
+                .thenComparing(order -> sourceField(sources, order, CustomerOrder::getDueDate),
+                        Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(WarehouseOrder::getOrderDate)
+                .thenComparing(WarehouseOrder::getId));
+
+        // One stock check for every outstanding line, in rank order, so higher-ranked orders draw first
+        List<StockCheckRequestDTO> lines = new ArrayList<>();
+        for (WarehouseOrder order : orders) {
+            for (WarehouseOrderItem item : order.getWarehouseOrderItems()) {
+                int fulfilled = item.getFulfilledQuantity() != null ? item.getFulfilledQuantity() : 0;
+                lines.add(new StockCheckRequestDTO(order.getFulfillingWorkstationId(), item.getItemType(),
+                        item.getItemId(), Math.max(0, item.getRequestedQuantity() - fulfilled)));
+            }
+        }
+        AvailabilityPlan snapshot = inventoryService.planAvailability(lines);
+
+        int from = 0;
+        int completed = 0;
+        for (WarehouseOrder order : orders) {
+            int to = from + order.getWarehouseOrderItems().size();
+            boolean covered = snapshot.slice(from, to).isFullyAvailable();
+            from = to;
+            if (!covered) {
+                continue;
+            }
+            try {
+                if (warehouseOrderService.fulfillWarehouseOrderIfCovered(order.getId()).isPresent()) {
+                    completed++;
+                }
+            } catch (OptimisticLockingFailureException e) {
+                logger.debug("Warehouse order {} changed while being re-evaluated; skipped", order.getWarehouseOrderNumber());
+            }
+        }
+        logger.info("Re-evaluated {} open warehouse order(s) after stock arrival: {} fulfilled", orders.size(), completed);
+    }
+
+    private static <T> T sourceField(Map<Long, CustomerOrder> sources, WarehouseOrder order,
+                                     Function<CustomerOrder, T> field) {
+        CustomerOrder source = sources.get(order.getSourceCustomerOrderId());
+        return source != null ? field.apply(source) : null;
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+}
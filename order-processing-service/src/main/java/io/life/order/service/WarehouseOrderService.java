@@ -1,21 +1,30 @@
 package io.life.order.service;
 
+import io.life.order.config.FanOutExecutor;
+import io.life.order.dto.StockCheckRequestDTO;
 import io.life.order.dto.WarehouseOrderDTO;
 import io.life.order.dto.WarehouseOrderItemDTO;
 import io.life.order.entity.CustomerOrder;
 import io.life.order.entity.WarehouseOrder;
 import io.life.order.entity.WarehouseOrderItem;
+import io.life.order.exception.DependencyUnavailableException;
 import io.life.order.repository.CustomerOrderRepository;
 import io.life.order.repository.WarehouseOrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,17 +37,29 @@ public class WarehouseOrderService {
 
     private final WarehouseOrderRepository warehouseOrderRepository;
     private final InventoryService inventoryService;
-    private final ProductionOrderService productionOrderService;
+    private final ProductionOrderCoalescer productionOrderCoalescer;
     private final CustomerOrderRepository customerOrderRepository;
+    private final FanOutExecutor fanOutExecutor;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final WarehouseOrderDemandIndex demandIndex;
 
     public WarehouseOrderService(WarehouseOrderRepository warehouseOrderRepository,
                                  InventoryService inventoryService,
-                                 ProductionOrderService productionOrderService,
-                                 CustomerOrderRepository customerOrderRepository) {
+                                 ProductionOrderCoalescer productionOrderCoalescer,
+                                 CustomerOrderRepository customerOrderRepository,
+                                 FanOutExecutor fanOutExecutor,
+                                 OutboxService outboxService,
+                                 TransactionTemplate transactionTemplate,
+                                 WarehouseOrderDemandIndex demandIndex) {
         this.warehouseOrderRepository = warehouseOrderRepository;
         this.inventoryService = inventoryService;
-        this.productionOrderService = productionOrderService;
+        this.productionOrderCoalescer = productionOrderCoalescer;
         this.customerOrderRepository = customerOrderRepository;
+        this.fanOutExecutor = fanOutExecutor;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.demandIndex = demandIndex;
     }
 
     /**
@@ -95,84 +116,155 @@ public class WarehouseOrderService {
      * 2. Fulfill what's available (partial or full)
      * 3. If shortage exists, AUTO-TRIGGER production order for missing items
      * 4. Update source customer order status accordingly
+     *
+     * No database connection is held while inventory-service is called: the order is read in
+     * its own short transaction, stock is planned, deducted (and a completed order's local hold
+     * confirmed) with no transaction open, and the outcome is written in one short transaction.
+     * If the order was changed by another request in between, the write is refused with an
+     * optimistic lock failure and the deductions made here are queued to be credited back.
+     *
+     * A deduction inventory-service could not report an outcome for is neither recorded nor
+     * credited back: its Idempotency-Key is kept on the item and replayed before the next pass.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public WarehouseOrderDTO fulfillWarehouseOrder(Long warehouseOrderId) {
-        Optional<WarehouseOrder> orderOpt = warehouseOrderRepository.findById(warehouseOrderId);
-        if (orderOpt.isEmpty()) {
-            throw new IllegalArgumentException("Warehouse order not found: " + warehouseOrderId);
-        }
+        return fulfill(warehouseOrderId, false).orElseThrow();
+    }
 
-        WarehouseOrder order = orderOpt.get();
+    /**
+     * Fulfill a warehouse order only if it is still open and the fulfilling workstation's stock
+     * now covers everything it is waiting for; otherwise leave it untouched. Used when stock
+     * arrives, so that a shortfall never causes a partial pass or another production order.
+     *
+     * @return The fulfilled order, or empty if it was left as it was
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<WarehouseOrderDTO> fulfillWarehouseOrderIfCovered(Long warehouseOrderId) {
+        return fulfill(warehouseOrderId, true);
+    }
+
+    private Optional<WarehouseOrderDTO> fulfill(Long warehouseOrderId, boolean onlyIfCovered) {
+        // PHASE 1: Read the order (its items are loaded eagerly) and settle what an earlier pass left unknown
+        WarehouseOrder order = reconcilePendingDeductions(warehouseOrderRepository.findById(warehouseOrderId)
+                .orElseThrow(() -> new IllegalArgumentException("Warehouse order not found: " + warehouseOrderId)));
+        if (onlyIfCovered && !WarehouseOrderDemandIndex.OPEN_STATUSES.contains(order.getStatus())) {
+            demandIndex.track(order);
+            return Optional.empty();
+        }
         logger.info("Processing warehouse order {} from Modules Supermarket (WS-8)", order.getWarehouseOrderNumber());
 
-        // STEP 1: Check which items are available at Modules Supermarket (workstation 8)
-        boolean allItemsAvailable = order.getWarehouseOrderItems().stream()
-                .allMatch(item -> inventoryService.checkStock(
-                        order.getFulfillingWorkstationId(),
-                        item.getItemId(),
-                        item.getRequestedQuantity()
-                ));
-
-        if (allItemsAvailable) {
-            // SCENARIO A: All items available - Direct fulfillment
-            logger.info("Scenario A: All items available in Modules Supermarket - Direct fulfillment");
-            return fulfillAllItems(order);
-        } else {
-            // Check if ANY items are available
-            boolean anyItemsAvailable = order.getWarehouseOrderItems().stream()
-                    .anyMatch(item -> inventoryService.checkStock(
-                            order.getFulfillingWorkstationId(),
-                            item.getItemId(),
-                            item.getRequestedQuantity()
-                    ));
-
-            if (anyItemsAvailable) {
-                // SCENARIO B: Partial items available - Partial fulfillment + Auto-create production order
-                logger.info("Scenario B: Partial items available in Modules Supermarket");
-                return fulfillPartialAndTriggerProduction(order);
-            } else {
-                // SCENARIO C: No items available - Auto-create production order for all
-                logger.info("Scenario C: No items available in Modules Supermarket - Creating production order for complete order");
-                return fulfillNoneAndTriggerProduction(order);
+        // PHASE 2: Work out how much of each outstanding quantity Modules Supermarket (workstation 8)
+        // covers, in one round trip, and deduct it
+        AvailabilityPlan plan = planFulfillingStock(order);
+        if (onlyIfCovered && !plan.isFullyAvailable()) {
+            logger.debug("Warehouse order {} not yet covered ({})", order.getWarehouseOrderNumber(), plan);
+            return Optional.empty();
+        }
+        boolean[] deducted = plan.isNothingAvailable() ? new boolean[plan.lines().size()] : deductPlanned(order, plan);
+        // If this pass completes the customer order, deduct any local stock held for it meanwhile.
+        // When inventory-service cannot answer, the deductions are still recorded but the order
+        // stays open, so that the next pass (which has nothing left to deduct) confirms the hold.
+        Boolean holdConfirmed = null;
+        boolean holdUnknown = false;
+        if (plan.isFullyAvailable() && allDeducted(plan, deducted)) {
+            try {
+                holdConfirmed = confirmSourceHold(order);
+            } catch (DependencyUnavailableException e) {
+                logger.warn("Local stock hold for warehouse order {} could not be confirmed yet: {}",
+                        order.getWarehouseOrderNumber(), e.getMessage());
+                holdUnknown = true;
             }
         }
+        Boolean sourceHoldConfirmed = holdConfirmed;
+        boolean sourceHoldUnknown = holdUnknown;
+
+        // PHASE 3: Record the outcome
+        try {
+            WarehouseOrderDTO result = transactionTemplate.execute(status -> {
+                if (plan.isFullyAvailable()) {
+                    // SCENARIO A: All items available - Direct fulfillment
+                    logger.info("Scenario A: All items available in Modules Supermarket - Direct fulfillment");
+                    return fulfillAllItems(order, plan, deducted, sourceHoldConfirmed, sourceHoldUnknown);
+                } else if (plan.isNothingAvailable()) {
+                    // SCENARIO C: No items available - Auto-create production order for all
+                    logger.info("Scenario C: No items available in Modules Supermarket - Creating production order for complete order");
+                    return fulfillNoneAndTriggerProduction(order);
+                } else {
+                    // SCENARIO B: Partial stock available - Partial fulfillment + Auto-create production order
+                    logger.info("Scenario B: Partial stock available in Modules Supermarket ({})", plan);
+                    return fulfillPartialAndTriggerProduction(order, plan, deducted);
+                }
+            });
+            demandIndex.track(order);
+            return Optional.of(result);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Warehouse order {} changed while it was being fulfilled; crediting back this pass's deductions",
+                    order.getWarehouseOrderNumber());
+            creditBack(order, plan, deducted);
+            throw e;
+        }
+    }
+
+    /**
+     * Plan the outstanding quantity (requested less already fulfilled) of every warehouse order line
+     * against the fulfilling workstation's stock.
+     * Plan lines are in the same order as {@link WarehouseOrder#getWarehouseOrderItems()}.
+     */
+    private AvailabilityPlan planFulfillingStock(WarehouseOrder order) {
+        List<StockCheckRequestDTO> lines = order.getWarehouseOrderItems().stream()
+                .map(item -> new StockCheckRequestDTO(order.getFulfillingWorkstationId(), item.getItemType(),
+                        item.getItemId(), outstanding(item)))
+                .collect(Collectors.toList());
+        return inventoryService.planAvailability(lines);
+    }
+
+    /**
+     * Requested less already fulfilled, and less any deduction still awaiting reconciliation.
+     */
+    private static int outstanding(WarehouseOrderItem item) {
+        int fulfilled = item.getFulfilledQuantity() != null ? item.getFulfilledQuantity() : 0;
+        int pending = item.getPendingDeductionQuantity() != null ? item.getPendingDeductionQuantity() : 0;
+        return Math.max(0, item.getRequestedQuantity() - fulfilled - pending);
     }
 
     /**
      * Scenario A: All items available - Deduct from Modules Supermarket, complete order
      */
-    private WarehouseOrderDTO fulfillAllItems(WarehouseOrder order) {
+    private WarehouseOrderDTO fulfillAllItems(WarehouseOrder order, AvailabilityPlan plan, boolean[] deducted,
+                                              Boolean holdConfirmed, boolean holdUnknown) {
         logger.info("Fulfilling all items for warehouse order {}", order.getWarehouseOrderNumber());
 
         boolean allItemsFulfilled = true;
-        for (WarehouseOrderItem item : order.getWarehouseOrderItems()) {
-            try {
-                // Deduct from Modules Supermarket stock
-                boolean deducted = inventoryService.updateStock(
-                        order.getFulfillingWorkstationId(),
-                        item.getItemId(),
-                        item.getRequestedQuantity()
-                );
-
-                if (deducted) {
-                    item.setFulfilledQuantity(item.getRequestedQuantity());
-                    logger.info("  ✓ Item {} qty {} fulfilled", item.getItemId(), item.getRequestedQuantity());
-                } else {
-                    allItemsFulfilled = false;
-                    logger.warn("  ✗ Failed to deduct item {} from inventory", item.getItemId());
-                }
-            } catch (Exception e) {
+        for (int i = 0; i < order.getWarehouseOrderItems().size(); i++) {
+            WarehouseOrderItem item = order.getWarehouseOrderItems().get(i);
+            int quantity = plan.line(i).available();
+            if (quantity == 0) {
+                // Already fulfilled on an earlier pass
+                continue;
+            }
+            if (deducted[i]) {
+                item.setFulfilledQuantity(item.getRequestedQuantity());
+                logger.info("  ✓ Item {} qty {} fulfilled", item.getItemId(), quantity);
+            } else if (item.getPendingDeductionKey() != null) {
                 allItemsFulfilled = false;
-                logger.error("  ✗ Error fulfilling item {}: {}", item.getItemId(), e.getMessage());
+                logger.warn("  ? Deduction of item {} unconfirmed - to be reconciled on the next pass", item.getItemId());
+            } else {
+                allItemsFulfilled = false;
+                logger.warn("  ✗ Failed to deduct item {} from inventory", item.getItemId());
             }
         }
 
-        if (allItemsFulfilled) {
+        if (allItemsFulfilled && holdUnknown) {
+            order.setStatus("PARTIALLY_FULFILLED");
+            order.setNotes((order.getNotes() != null ? order.getNotes() + " | " : "")
+                    + "All items deducted - local stock hold of the customer order still to be confirmed");
+            logger.warn("Warehouse order {} left open until the local stock hold is confirmed", order.getWarehouseOrderNumber());
+        } else if (allItemsFulfilled) {
             order.setStatus("FULFILLED");
             logger.info("Warehouse order {} fully fulfilled", order.getWarehouseOrderNumber());
             
             // Complete source customer order
-            completeSourceCustomerOrder(order);
+            completeSourceCustomerOrder(order, holdConfirmed);
         } else {
             order.setStatus("PARTIALLY_FULFILLED");
             logger.warn("Warehouse order {} partially fulfilled due to inventory errors", order.getWarehouseOrderNumber());
@@ -183,41 +275,44 @@ public class WarehouseOrderService {
     }
 
     /**
-     * Scenario B: Partial items available - Fulfill available items + Auto-trigger production for missing
+     * Scenario B: Partial stock available - Fulfill available quantities + Auto-trigger production for the rest
      */
-    private WarehouseOrderDTO fulfillPartialAndTriggerProduction(WarehouseOrder order) {
+    private WarehouseOrderDTO fulfillPartialAndTriggerProduction(WarehouseOrder order, AvailabilityPlan plan,
+                                                                 boolean[] deducted) {
         logger.info("Fulfilling partial items for warehouse order {}", order.getWarehouseOrderNumber());
 
         List<WarehouseOrderItem> itemsToProduceLater = new ArrayList<>();
-
-        // Fulfill available items only
-        for (WarehouseOrderItem item : order.getWarehouseOrderItems()) {
-            if (inventoryService.checkStock(order.getFulfillingWorkstationId(), item.getItemId(), item.getRequestedQuantity())) {
-                try {
-                    // Deduct from Modules Supermarket stock
-                    boolean deducted = inventoryService.updateStock(
-                            order.getFulfillingWorkstationId(),
-                            item.getItemId(),
-                            item.getRequestedQuantity()
-                    );
-
-                    if (deducted) {
-                        item.setFulfilledQuantity(item.getRequestedQuantity());
-                        logger.info("  ✓ Item {} qty {} fulfilled from Modules Supermarket", item.getItemId(), item.getRequestedQuantity());
-                    }
-                } catch (Exception e) {
-                    logger.error("  ✗ Error fulfilling available item {}: {}", item.getItemId(), e.getMessage());
-                }
-            } else {
-                // Mark as to be produced later
+        int unitsShort = 0;
+
+        // Record the available quantities deducted for each line; a line may be partly fulfilled
+        for (int i = 0; i < order.getWarehouseOrderItems().size(); i++) {
+            WarehouseOrderItem item = order.getWarehouseOrderItems().get(i);
+            AvailabilityPlan.Line line = plan.line(i);
+            int fulfilledNow = 0;
+            if (deducted[i]) {
+                fulfilledNow = line.available();
+                int fulfilled = item.getFulfilledQuantity() != null ? item.getFulfilledQuantity() : 0;
+                item.setFulfilledQuantity(fulfilled + fulfilledNow);
+                logger.info("  ✓ Item {} qty {} fulfilled from Modules Supermarket", item.getItemId(), fulfilledNow);
+            } else if (item.getPendingDeductionKey() != null) {
+                // Counted as taken until the next pass finds out whether it was
+                fulfilledNow = item.getPendingDeductionQuantity();
+                logger.warn("  ? Deduction of item {} unconfirmed - to be reconciled on the next pass", item.getItemId());
+            } else if (line.available() > 0) {
+                logger.warn("  ✗ Failed to deduct available item {} from inventory", item.getItemId());
+            }
+            int stillShort = line.requested() - fulfilledNow;
+            if (stillShort > 0) {
+                // Mark the rest as to be produced later
                 itemsToProduceLater.add(item);
-                logger.info("  ⚠ Item {} NOT available - will trigger production order", item.getItemId());
+                unitsShort += stillShort;
+                logger.info("  ⚠ Item {} short by {} - will trigger production order", item.getItemId(), stillShort);
             }
         }
 
         order.setStatus("PROCESSING");
         order.setNotes((order.getNotes() != null ? order.getNotes() + " | " : "") + 
-                "Partial fulfillment: " + itemsToProduceLater.size() + " item(s) short");
+                "Partial fulfillment: " + itemsToProduceLater.size() + " item(s) short by " + unitsShort + " unit(s)");
 
         // AUTO-TRIGGER: Create production order for missing items
         if (!itemsToProduceLater.isEmpty()) {
@@ -229,6 +324,171 @@ public class WarehouseOrderService {
         return mapToDTO(warehouseOrderRepository.save(order));
     }
 
+    /**
+     * Deduct the planned quantity of every line that has one from the fulfilling workstation,
+     * in parallel. Returns per line (in item order) whether its deduction was applied; lines
+     * with nothing to deduct report false.
+     *
+     * Every deduction carries its own Idempotency-Key and is left to finish, never cancelled
+     * mid-request. One that fails without an answer from inventory-service is replayed once
+     * under the same key; if its outcome is still unknown the line reports false and its key
+     * and quantity are kept on the item for {@link #reconcilePendingDeductions}.
+     */
+    private boolean[] deductPlanned(WarehouseOrder order, AvailabilityPlan plan) {
+        String orderNumber = order.getWarehouseOrderNumber();
+        // A pass credited back after a lost write must not replay into this one, so keys are per pass
+        String pass = UUID.randomUUID().toString();
+        List<Integer> lineIndexes = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < plan.lines().size(); i++) {
+            if (plan.line(i).available() > 0) {
+                lineIndexes.add(i);
+                keys.add(orderNumber + ":deduct:" + order.getWarehouseOrderItems().get(i).getId() + ":" + pass);
+            }
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        for (int k = 0; k < lineIndexes.size(); k++) {
+            positions.add(k);
+        }
+        List<FanOutExecutor.Outcome<Boolean>> outcomes = fanOutExecutor.completeAll("Stock deductions for " + orderNumber,
+                positions, k -> deduct(plan.line(lineIndexes.get(k)), orderNumber, keys.get(k)));
+
+        boolean[] deducted = new boolean[plan.lines().size()];
+        for (int k = 0; k < lineIndexes.size(); k++) {
+            int i = lineIndexes.get(k);
+            AvailabilityPlan.Line line = plan.line(i);
+            if (!outcomes.get(k).isFailed()) {
+                deducted[i] = Boolean.TRUE.equals(outcomes.get(k).result());
+                continue;
+            }
+            try {
+                deducted[i] = deduct(line, orderNumber, keys.get(k));
+            } catch (RuntimeException e) {
+                logger.error("  ? Deduction of {} {} {} for {} unconfirmed, keeping key {}: {}", line.available(),
+                        line.itemType(), line.itemId(), orderNumber, keys.get(k), e.getMessage());
+                WarehouseOrderItem item = order.getWarehouseOrderItems().get(i);
+                item.setPendingDeductionKey(keys.get(k));
+                item.setPendingDeductionQuantity(line.available());
+            }
+        }
+        return deducted;
+    }
+
+    private boolean deduct(AvailabilityPlan.Line line, String orderNumber, String idempotencyKey) {
+        return inventoryService.deductStock(line.workstationId(), line.itemType(), line.itemId(), line.available(),
+                orderNumber, idempotencyKey);
+    }
+
+    /**
+     * Replay, each under its own key, the deductions an earlier pass could not get an outcome
+     * for, and record what they did: an applied deduction counts as fulfilled (anything beyond
+     * what the item still needs is queued to be credited back), a rejected one is dropped.
+     *
+     * @return the order as recorded afterwards
+     * @throws DependencyUnavailableException if inventory-service still cannot answer; nothing is recorded
+     */
+    private WarehouseOrder reconcilePendingDeductions(WarehouseOrder order) {
+        List<WarehouseOrderItem> pending = order.getWarehouseOrderItems().stream()
+                .filter(item -> item.getPendingDeductionKey() != null)
+                .toList();
+        if (pending.isEmpty()) {
+            return order;
+        }
+        Map<Long, Boolean> applied = new HashMap<>();
+        for (WarehouseOrderItem item : pending) {
+            applied.put(item.getId(), inventoryService.deductStock(order.getFulfillingWorkstationId(), item.getItemType(),
+                    item.getItemId(), item.getPendingDeductionQuantity(), order.getWarehouseOrderNumber(),
+                    item.getPendingDeductionKey()));
+        }
+        return transactionTemplate.execute(status -> {
+            for (WarehouseOrderItem item : pending) {
+                int quantity = item.getPendingDeductionQuantity();
+                item.setPendingDeductionKey(null);
+                item.setPendingDeductionQuantity(null);
+                if (!applied.get(item.getId())) {
+                    logger.info("Unconfirmed deduction of item {} for {} was not applied", item.getItemId(),
+                            order.getWarehouseOrderNumber());
+                    continue;
+                }
+                int fulfilled = item.getFulfilledQuantity() != null ? item.getFulfilledQuantity() : 0;
+                int kept = Math.min(quantity, Math.max(0, item.getRequestedQuantity() - fulfilled));
+                item.setFulfilledQuantity(fulfilled + kept);
+                if (kept < quantity) {
+                    outboxService.enqueueInventoryCredit(order.getFulfillingWorkstationId(), item.getItemType(),
+                            item.getItemId(), quantity - kept, order.getWarehouseOrderNumber());
+                }
+                logger.info("Unconfirmed deduction of item {} for {} was applied; {} unit(s) recorded", item.getItemId(),
+                        order.getWarehouseOrderNumber(), kept);
+            }
+            order.setUpdatedAt(LocalDateTime.now());
+            return warehouseOrderRepository.save(order);
+        });
+    }
+
+    private static boolean allDeducted(AvailabilityPlan plan, boolean[] deducted) {
+        for (int i = 0; i < deducted.length; i++) {
+            if (plan.line(i).available() > 0 && !deducted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Confirm the local stock hold of the customer order this warehouse order serves.
+     *
+     * @return whether the hold was confirmed, or null if the customer order does not exist
+     */
+    private Boolean confirmSourceHold(WarehouseOrder order) {
+        return customerOrderRepository.findById(order.getSourceCustomerOrderId())
+                .map(customerOrder -> inventoryService.confirmReservation(customerOrder.getOrderNumber()))
+                .orElse(null);
+    }
+
+    /**
+     * Queue credits that give back what this pass deducted, after its outcome could not be
+     * recorded. They go through the outbox so that they are delivered even if inventory-service
+     * is unreachable right now. Deductions with no known outcome are kept pending on the order
+     * as it now stands, to be replayed by its next pass.
+     */
+    private void creditBack(WarehouseOrder order, AvailabilityPlan plan, boolean[] deducted) {
+        transactionTemplate.executeWithoutResult(status -> {
+            keepPendingDeductions(order);
+            for (int i = 0; i < deducted.length; i++) {
+                if (deducted[i]) {
+                    AvailabilityPlan.Line line = plan.line(i);
+                    outboxService.enqueueInventoryCredit(line.workstationId(), line.itemType(), line.itemId(),
+                            line.available(), order.getWarehouseOrderNumber());
+                }
+            }
+        });
+    }
+
+    private void keepPendingDeductions(WarehouseOrder order) {
+        List<WarehouseOrderItem> pending = order.getWarehouseOrderItems().stream()
+                .filter(item -> item.getPendingDeductionKey() != null)
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        WarehouseOrder current = warehouseOrderRepository.findById(order.getId()).orElseThrow();
+        for (WarehouseOrderItem item : pending) {
+            current.getWarehouseOrderItems().stream()
+                    .filter(currentItem -> currentItem.getId().equals(item.getId()))
+                    .findFirst()
+                    .ifPresent(currentItem -> {
+                        if (currentItem.getPendingDeductionKey() != null) {
+                            logger.error("Item {} of {} already has an unconfirmed deduction; dropping key {}",
+                                    item.getItemId(), order.getWarehouseOrderNumber(), item.getPendingDeductionKey());
+                            return;
+                        }
+                        currentItem.setPendingDeductionKey(item.getPendingDeductionKey());
+                        currentItem.setPendingDeductionQuantity(item.getPendingDeductionQuantity());
+                    });
+        }
+    }
+
     /**
      * Scenario C: No items available - Auto-trigger production order for complete order
      */
@@ -253,8 +513,8 @@ public class WarehouseOrderService {
         try {
             String priority = determinePriority(order);
             
-            // Create production order linked to this warehouse order
-            productionOrderService.createProductionOrderFromWarehouse(
+            // Add the outstanding quantities to open production orders for the same items, or create them
+            productionOrderCoalescer.requestProduction(
                     order.getSourceCustomerOrderId(),
                     order.getId(),
                     priority,
@@ -262,7 +522,10 @@ public class WarehouseOrderService {
                     "Auto-created from warehouse order " + order.getWarehouseOrderNumber() + 
                     " - Modules Supermarket shortfall (" + shortfallItems.size() + " item(s))",
                     order.getRequestingWorkstationId(),
-                    order.getFulfillingWorkstationId()  // Assign back to Modules Supermarket for completion
+                    order.getFulfillingWorkstationId(),  // Assign back to Modules Supermarket for completion
+                    shortfallItems.stream()
+                            .map(item -> new ProductionOrderCoalescer.Shortfall(item.getItemType(), item.getItemId(), outstanding(item)))
+                            .toList()
             );
             
             logger.info("✓ Production order AUTO-CREATED for warehouse order {} with {} shortfall item(s)", 
@@ -281,14 +544,16 @@ public class WarehouseOrderService {
     /**
      * Complete the source customer order when warehouse order is fulfilled
      */
-    private void completeSourceCustomerOrder(WarehouseOrder order) {
+    private void completeSourceCustomerOrder(WarehouseOrder order, Boolean holdConfirmed) {
         try {
             Optional<CustomerOrder> sourceOrder = customerOrderRepository.findById(order.getSourceCustomerOrderId());
             if (sourceOrder.isPresent()) {
                 CustomerOrder customerOrder = sourceOrder.get();
+                // Any local stock held for this order while the warehouse order was pending was confirmed before this write
                 customerOrder.setStatus("COMPLETED");
                 customerOrder.setNotes((customerOrder.getNotes() != null ? customerOrder.getNotes() + " | " : "") 
-                        + "Warehouse order " + order.getWarehouseOrderNumber() + " fully fulfilled - customer order completed");
+                        + "Warehouse order " + order.getWarehouseOrderNumber() + " fully fulfilled - customer order completed"
+                        + (Boolean.FALSE.equals(holdConfirmed) ? " (local stock hold could not be confirmed)" : ""));
                 customerOrderRepository.save(customerOrder);
                 logger.info("✓ Source customer order {} completed after warehouse order fulfillment", customerOrder.getOrderNumber());
             }
@@ -327,7 +592,9 @@ public class WarehouseOrderService {
         order.setUpdatedAt(LocalDateTime.now());
         logger.info("Updated warehouse order {} status to {}", order.getWarehouseOrderNumber(), status);
 
-        return mapToDTO(warehouseOrderRepository.save(order));
+        WarehouseOrderDTO updated = mapToDTO(warehouseOrderRepository.save(order));
+        demandIndex.track(order);
+        return updated;
     }
 
     /**
@@ -1,77 +1,108 @@
 package io.life.order.util;
 
 import io.life.order.config.OrderProcessingProperties;
+import io.life.order.service.SequenceService;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility class for generating unique order numbers.
- * Format: PREFIX-YYYYMMDD-SEQUENCE
+ * Numbers come from database-backed sequences ({@link SequenceService}), so they do not repeat
+ * across instances sharing the database, nor after a restart as long as the database is kept
+ * (the default file-backed H2 database is; an in-memory one starts every sequence again at 1).
+ * Formats: PREFIX-SEQUENCE (e.g. PO-0042) for the orders this service creates, and
+ * PREFIX-YYYYMMDD-SEQUENCE for the configurable prefixes.
  */
 @Component
 public class OrderNumberGenerator {
 
     private final OrderProcessingProperties properties;
-    private final AtomicLong manufacturingSequence = new AtomicLong(1000);
-    private final AtomicLong assemblySequence = new AtomicLong(1000);
-    private final AtomicLong controlSequence = new AtomicLong(1000);
-    private final AtomicLong supplierSequence = new AtomicLong(1000);
+    private final SequenceService sequenceService;
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
 
-    public OrderNumberGenerator(OrderProcessingProperties properties) {
+    public OrderNumberGenerator(OrderProcessingProperties properties, SequenceService sequenceService) {
         this.properties = properties;
+        this.sequenceService = sequenceService;
     }
 
     /**
-     * Generate a unique manufacturing order number
+     * Generate a unique customer order number
      */
-    public String generateManufacturingOrderNumber() {
-        return generateOrderNumber(
-                properties.getPrefixes().getManufacturing(),
-                manufacturingSequence
-        );
+    public String generateCustomerOrderNumber() {
+        return generateOrderNumber("ORD", "customer-order");
     }
 
     /**
-     * Generate a unique assembly order number
+     * Generate a unique warehouse order number
      */
-    public String generateAssemblyOrderNumber() {
-        return generateOrderNumber(
-                properties.getPrefixes().getAssembly(),
-                assemblySequence
-        );
+    public String generateWarehouseOrderNumber() {
+        return generateOrderNumber("WO", "warehouse-order");
+    }
+
+    /**
+     * Generate a unique production order number
+     */
+    public String generateProductionOrderNumber() {
+        return generateOrderNumber("PO", "production-order");
     }
 
     /**
      * Generate a unique production control order number
      */
     public String generateProductionControlOrderNumber() {
-        return generateOrderNumber(
-                properties.getPrefixes().getControl(),
-                controlSequence
-        );
+        return generateOrderNumber("PCO", "production-control-order");
+    }
+
+    /**
+     * Generate a unique assembly control order number
+     */
+    public String generateAssemblyControlOrderNumber() {
+        return generateOrderNumber("ACO", "assembly-control-order");
+    }
+
+    /**
+     * Generate a unique supply order number
+     */
+    public String generateSupplyOrderNumber() {
+        return generateOrderNumber("SO", "supply-order");
+    }
+
+    /**
+     * Generate a unique manufacturing order number
+     */
+    public String generateManufacturingOrderNumber() {
+        return generateDatedOrderNumber(properties.getPrefixes().getManufacturing(), "manufacturing-order");
+    }
+
+    /**
+     * Generate a unique assembly order number
+     */
+    public String generateAssemblyOrderNumber() {
+        return generateDatedOrderNumber(properties.getPrefixes().getAssembly(), "assembly-order");
     }
 
     /**
      * Generate a unique supplier order number
      */
     public String generateSupplierOrderNumber() {
-        return generateOrderNumber(
-                properties.getPrefixes().getSupplier(),
-                supplierSequence
-        );
+        return generateDatedOrderNumber(properties.getPrefixes().getSupplier(), "supplier-order");
+    }
+
+    /**
+     * Generate order number with format: PREFIX-SEQUENCE, at least four digits
+     */
+    private String generateOrderNumber(String prefix, String sequence) {
+        return String.format("%s-%04d", prefix, sequenceService.next(sequence));
     }
 
     /**
      * Generate order number with format: PREFIX-YYYYMMDD-SEQUENCE
      */
-    private String generateOrderNumber(String prefix, AtomicLong sequence) {
+    private String generateDatedOrderNumber(String prefix, String sequence) {
         String dateStr = LocalDate.now().format(DATE_FORMAT);
-        long seqNum = sequence.incrementAndGet();
-        return String.format("%s-%s-%d", prefix, dateStr, seqNum);
+        return String.format("%s-%s-%d", prefix, dateStr, sequenceService.next(sequence));
     }
 }
@@ -0,0 +1,140 @@
+package io.life.order.config;
+
+import io.life.order.exception.FanOutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutExecutorTests {
+
+    private final FanOutExecutor executor = new FanOutExecutor(4, 300);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void invokeAllReturnsResultsInInputOrder() {
+        List<Integer> results = executor.invokeAll("squares", List.of(3, 1, 2), input -> {
+            sleep(10L * input);
+            return input * input;
+        });
+
+        assertEquals(List.of(9, 1, 4), results);
+    }
+
+    @Test
+    void invokeAllCancelsTheRestWhenTheDeadlinePasses() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        FanOutException e = assertThrows(FanOutException.class, () -> executor.invokeAll("slow", List.of(0, 1),
+                input -> {
+                    if (input == 0) {
+                        return "fast";
+                    }
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException ignored) {
+                        interrupted.countDown();
+                    }
+                    return "slow";
+                }));
+
+        assertEquals("fast", e.getCompletedResults().get(0));
+        assertNull(e.getCompletedResults().get(1));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS), "the call still running was not interrupted");
+    }
+
+    @Test
+    void invokeAllCancelsTheRestWhenACallFails() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        FanOutException e = assertThrows(FanOutException.class, () -> executor.invokeAll("failing", List.of(0, 1),
+                input -> {
+                    if (input == 0) {
+                        // Fail only once the other call is running, so there is a call to interrupt
+                        await(started);
+                        throw new IllegalStateException("boom");
+                    }
+                    started.countDown();
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException ignored) {
+                        interrupted.countDown();
+                    }
+                    return "slow";
+                }));
+
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS), "the call still running was not interrupted");
+    }
+
+    @Test
+    void completeAllWaitsPastTheDeadlineWithoutInterrupting() {
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        List<FanOutExecutor.Outcome<String>> outcomes = executor.completeAll("slow", List.of(0, 1), input -> {
+            if (input == 0) {
+                throw new IllegalStateException("boom");
+            }
+            try {
+                Thread.sleep(600);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return "done";
+        });
+
+        assertTrue(outcomes.get(0).isFailed());
+        assertTrue(outcomes.get(0).failure() instanceof IllegalStateException);
+        assertFalse(outcomes.get(1).isFailed());
+        assertEquals("done", outcomes.get(1).result());
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    void completeAllKeepsWaitingWhenTheCallerIsInterrupted() {
+        AtomicInteger finished = new AtomicInteger();
+
+        Thread.currentThread().interrupt();
+        List<FanOutExecutor.Outcome<Integer>> outcomes = executor.completeAll("interrupted", List.of(1, 2), input -> {
+            sleep(50);
+            finished.incrementAndGet();
+            return input;
+        });
+
+        assertTrue(Thread.interrupted(), "the caller's interrupt was not restored");
+        assertEquals(2, finished.get());
+        assertEquals(1, outcomes.get(0).result());
+        assertEquals(2, outcomes.get(1).result());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
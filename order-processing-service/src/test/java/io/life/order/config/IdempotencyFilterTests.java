@@ -0,0 +1,65 @@
+package io.life.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotencyFilterTests {
+
+    private static final String PATH = "/api/customer-orders/1/fulfill";
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(new ObjectMapper().findAndRegisterModules(),
+            List.of(PATH), 3600, 100);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void repeatWithSameBodyIsReplayedWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = send("key-1", "{\"delta\":-2}");
+        MockHttpServletResponse second = send("key-1", "{\"delta\":-2}");
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpServletResponse.SC_OK, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void reusingKeyWithDifferentBodyIsRejected() throws Exception {
+        send("key-2", "{\"delta\":-2}");
+        MockHttpServletResponse reused = send("key-2", "{\"delta\":-5}");
+
+        assertEquals(1, executions.get());
+        assertEquals(422, reused.getStatus());
+    }
+
+    @Test
+    void handlerStillReadsTheBody() throws Exception {
+        MockHttpServletResponse response = send("key-3", "{\"delta\":7}");
+
+        assertEquals("echo:{\"delta\":7}", response.getContentAsString());
+    }
+
+    private MockHttpServletResponse send(String key, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            executions.incrementAndGet();
+            String received = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            res.getOutputStream().write(("echo:" + received).getBytes(StandardCharsets.UTF_8));
+        });
+        return response;
+    }
+}
@@ -0,0 +1,102 @@
+package io.life.order.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundCircuitBreakerTests {
+
+    private static final long OPEN_MILLIS = 50;
+
+    // Window of 4 calls, decided after 4, opens at 50% failures, 2 trial calls when half-open
+    private final OutboundCircuitBreaker breaker = new OutboundCircuitBreaker(4, 4, 50, OPEN_MILLIS, 2);
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        fail(3);
+
+        assertEquals(OutboundCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        succeed(2);
+        fail(2);
+
+        assertEquals(OutboundCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.millisUntilRetry() > 0);
+    }
+
+    @Test
+    void staysClosedBelowTheThreshold() {
+        succeed(3);
+        fail(1);
+        succeed(4);
+        fail(1);
+
+        assertEquals(OutboundCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        fail(1);
+        succeed(3);
+        // The early failure has dropped out, so this one alone is 25%
+        fail(1);
+
+        assertEquals(OutboundCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenClosesAfterEnoughTrialCallsSucceed() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertEquals(OutboundCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only the trial calls may go through while half-open");
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(OutboundCircuitBreaker.State.CLOSED, breaker.state());
+        // The window starts empty again, so three failures do not reopen it yet
+        fail(3);
+        assertEquals(OutboundCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenReopensOnAFailedTrialCall() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(OutboundCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void open() {
+        fail(4);
+        assertEquals(OutboundCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.life.order.service;
+
+import io.life.order.dto.CustomerOrderDTO;
+import io.life.order.dto.FulfillmentJobDTO;
+import io.life.order.exception.EntityNotFoundException;
+import io.life.order.exception.FulfillmentQueueFullException;
+import io.life.order.repository.CustomerOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FulfillmentJobServiceTests {
+
+    private final FulfillmentService fulfillmentService = mock(FulfillmentService.class);
+    private final CustomerOrderRepository customerOrderRepository = mock(CustomerOrderRepository.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private FulfillmentJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        when(customerOrderRepository.existsById(any())).thenReturn(true);
+        when(fulfillmentService.fulfillOrder(anyLong())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            CustomerOrderDTO order = new CustomerOrderDTO();
+            order.setId(invocation.getArgument(0));
+            order.setStatus("COMPLETED");
+            return order;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.destroy();
+    }
+
+    @Test
+    void submissionBeyondTheQueueIsRefused() {
+        jobService = new FulfillmentJobService(fulfillmentService, customerOrderRepository, 1, 1, 3600, 100, 1000);
+
+        jobService.submit(1L); // taken by the only worker
+        jobService.submit(2L); // waits in the queue
+
+        assertThrows(FulfillmentQueueFullException.class, () -> jobService.submit(3L));
+
+        // The refused order holds no job, so it can be submitted once there is room
+        release.countDown();
+        verify(fulfillmentService, timeout(5000)).fulfillOrder(2L);
+        awaitFinished(jobService.submit(3L));
+    }
+
+    @Test
+    void orderHasOneJobWhileItIsQueuedOrRunning() {
+        jobService = new FulfillmentJobService(fulfillmentService, customerOrderRepository, 1, 10, 3600, 100, 1000);
+
+        FulfillmentJobDTO first = jobService.submit(1L);
+        FulfillmentJobDTO again = jobService.submit(1L);
+        assertEquals(first.getJobId(), again.getJobId());
+
+        release.countDown();
+        assertEquals("SUCCEEDED", awaitFinished(first).getStatus());
+        verify(fulfillmentService, times(1)).fulfillOrder(1L);
+
+        // Once finished, asking again starts a new job
+        FulfillmentJobDTO next = resubmitUntilNewJob(1L, first.getJobId());
+        awaitFinished(next);
+        verify(fulfillmentService, times(2)).fulfillOrder(1L);
+    }
+
+    @Test
+    void finishedJobIsDroppedAfterTheRetentionPeriod() throws InterruptedException {
+        jobService = new FulfillmentJobService(fulfillmentService, customerOrderRepository, 1, 10, 0, 100, 1000);
+        release.countDown();
+        FulfillmentJobDTO first = awaitFinished(jobService.submit(1L));
+        Thread.sleep(5);
+
+        jobService.submit(2L); // eviction runs on submit
+
+        assertThrows(EntityNotFoundException.class, () -> jobService.getJob(1L, first.getJobId()));
+    }
+
+    @Test
+    void oldestFinishedJobIsDroppedBeyondMaxJobs() {
+        jobService = new FulfillmentJobService(fulfillmentService, customerOrderRepository, 1, 10, 3600, 2, 1000);
+        release.countDown();
+        FulfillmentJobDTO first = awaitFinished(jobService.submit(1L));
+        FulfillmentJobDTO second = awaitFinished(jobService.submit(2L));
+
+        jobService.submit(3L);
+
+        assertThrows(EntityNotFoundException.class, () -> jobService.getJob(1L, first.getJobId()));
+        assertEquals(second.getJobId(), jobService.getJob(2L, second.getJobId()).getJobId());
+    }
+
+    @Test
+    void queuedAndRunningJobsAreNeverDropped() {
+        jobService = new FulfillmentJobService(fulfillmentService, customerOrderRepository, 1, 10, 0, 1, 1000);
+        FulfillmentJobDTO running = jobService.submit(1L);
+        FulfillmentJobDTO queued = jobService.submit(2L);
+
+        jobService.submit(3L);
+
+        assertEquals(running.getJobId(), jobService.getJob(1L, running.getJobId()).getJobId());
+        assertEquals(queued.getJobId(), jobService.getJob(2L, queued.getJobId()).getJobId());
+    }
+
+    private FulfillmentJobDTO awaitFinished(FulfillmentJobDTO job) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            FulfillmentJobDTO state = jobService.getJob(job.getOrderId(), job.getJobId());
+            if ("SUCCEEDED".equals(state.getStatus()) || "FAILED".equals(state.getStatus())) {
+                return state;
+            }
+            Thread.onSpinWait();
+        }
+        return fail("Job " + job.getJobId() + " did not finish");
+    }
+
+    // A finished job is released from its order just after its status is set
+    private FulfillmentJobDTO resubmitUntilNewJob(Long orderId, String finishedJobId) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            FulfillmentJobDTO job = jobService.submit(orderId);
+            if (!job.getJobId().equals(finishedJobId)) {
+                return job;
+            }
+            assertTrue("SUCCEEDED".equals(job.getStatus()) || "FAILED".equals(job.getStatus()));
+            Thread.onSpinWait();
+        }
+        return fail("Order " + orderId + " kept its finished job " + finishedJobId);
+    }
+}
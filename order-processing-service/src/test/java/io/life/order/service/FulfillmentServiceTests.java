@@ -0,0 +1,227 @@
+package io.life.order.service;
+
+import io.life.order.config.FanOutExecutor;
+import io.life.order.dto.BatchFulfillmentResultDTO;
+import io.life.order.dto.CustomerOrderDTO;
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.dto.StockCheckResultDTO;
+import io.life.order.entity.CustomerOrder;
+import io.life.order.entity.OrderItem;
+import io.life.order.repository.CustomerOrderRepository;
+import io.life.order.repository.WarehouseOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FulfillmentServiceTests {
+
+    private static final Long WORKSTATION = 7L;
+    private static final LocalDateTime ORDERED = LocalDateTime.of(2026, 3, 2, 9, 0);
+    private static final LocalDateTime DUE = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private final CustomerOrderRepository customerOrderRepository = mock(CustomerOrderRepository.class);
+    private final WarehouseOrderRepository warehouseOrderRepository = mock(WarehouseOrderRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final ProductionOrderCoalescer productionOrderCoalescer = mock(ProductionOrderCoalescer.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final WarehouseOrderDemandIndex demandIndex = mock(WarehouseOrderDemandIndex.class);
+    private final OrderNumberGenerator orderNumberGenerator = mock(OrderNumberGenerator.class);
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(4, 1000);
+
+    // Stock on hand at the workstation, by "itemType:itemId"
+    private final Map<String, Integer> stock = new HashMap<>();
+
+    private FulfillmentService fulfillmentService;
+
+    @BeforeEach
+    void setUp() {
+        fulfillmentService = new FulfillmentService(customerOrderRepository, warehouseOrderRepository, inventoryService,
+                productionOrderCoalescer, fanOutExecutor, outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), demandIndex, orderNumberGenerator);
+        when(customerOrderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(warehouseOrderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderNumberGenerator.generateWarehouseOrderNumber()).thenReturn("WO-TEST");
+        when(inventoryService.planAvailability(anyList())).thenAnswer(invocation -> plan(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.destroy();
+    }
+
+    @Test
+    void orderNoLongerPendingIsReturnedWithoutTouchingStock() {
+        for (String status : List.of("COMPLETED", "PROCESSING", "CANCELLED")) {
+            CustomerOrder order = order(1L, "ORD-1", "MEDIUM", null, line("PRODUCT", 1L, 2));
+            order.setStatus(status);
+            when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+            CustomerOrderDTO result = fulfillmentService.fulfillOrder(1L);
+
+            assertEquals(status, result.getStatus());
+        }
+        verifyNoInteractions(inventoryService);
+        verify(customerOrderRepository, never()).save(any());
+    }
+
+    @Test
+    void retriedRequestAfterCompletionCommitsStockOnce() {
+        stock.put("PRODUCT:1", 5);
+        CustomerOrder order = order(1L, "ORD-1", "MEDIUM", null, line("PRODUCT", 1L, 2));
+        when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(inventoryService.commitStock(anyString(), anyList(), anyString()))
+                .thenReturn(InventoryService.CommitOutcome.COMMITTED);
+
+        assertEquals("COMPLETED", fulfillmentService.fulfillOrder(1L).getStatus());
+        assertEquals("COMPLETED", fulfillmentService.fulfillOrder(1L).getStatus());
+
+        verify(inventoryService).commitStock(anyString(), anyList(), anyString());
+    }
+
+    @Test
+    void sweepAllocatesScarceStockByPriorityThenDueDate() {
+        // Listed oldest first, so that age alone would rank them the other way round
+        CustomerOrder low = order(1L, "ORD-1", "LOW", null, line("PRODUCT", 1L, 5));
+        CustomerOrder highLater = order(2L, "ORD-2", "HIGH", DUE.plusDays(2), line("PRODUCT", 1L, 5));
+        CustomerOrder medium = order(3L, "ORD-3", "MEDIUM", DUE, line("PRODUCT", 1L, 5));
+        CustomerOrder highSooner = order(4L, "ORD-4", "HIGH", DUE, line("PRODUCT", 1L, 5));
+        pending(low, highLater, medium, highSooner);
+        stock.put("PRODUCT:1", 12);
+        when(inventoryService.commitStock(anyString(), anyList(), anyString()))
+                .thenReturn(InventoryService.CommitOutcome.COMMITTED);
+
+        BatchFulfillmentResultDTO result = fulfillmentService.fulfillPendingOrders(WORKSTATION);
+
+        assertEquals(List.of("ORD-4", "ORD-2", "ORD-3", "ORD-1"),
+                result.getOrders().stream().map(CustomerOrderDTO::getOrderNumber).toList());
+        assertEquals(List.of("COMPLETED", "COMPLETED", "PROCESSING", "PROCESSING"),
+                result.getOrders().stream().map(CustomerOrderDTO::getStatus).toList());
+        assertTrue(result.isBatchCommitted());
+        verify(inventoryService).planAvailability(anyList());
+        // One commit for both covered orders, lines in order id order
+        verify(inventoryService).commitStock(eq(result.getBatchReference()),
+                eq(List.of(stockLine(5), stockLine(5))), eq(result.getBatchReference() + ":commit"));
+        // The medium order holds what was left, the low one gets nothing
+        verify(inventoryService).reserveStock("ORD-3", List.of(stockLine(2)));
+        verify(inventoryService, never()).reserveStock(eq("ORD-1"), anyList());
+    }
+
+    @Test
+    void refusedBatchCommitFallsBackToOneOrderAtATime() {
+        CustomerOrder first = order(1L, "ORD-1", "HIGH", null, line("PRODUCT", 1L, 2));
+        CustomerOrder second = order(2L, "ORD-2", "HIGH", null, line("PRODUCT", 1L, 3));
+        pending(first, second);
+        when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(first));
+        when(customerOrderRepository.findById(2L)).thenReturn(Optional.of(second));
+        stock.put("PRODUCT:1", 5);
+        when(inventoryService.commitStock(anyString(), anyList(), anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).startsWith("BATCH-")
+                        ? InventoryService.CommitOutcome.SHORTFALL
+                        : InventoryService.CommitOutcome.COMMITTED);
+
+        BatchFulfillmentResultDTO result = fulfillmentService.fulfillPendingOrders(WORKSTATION);
+
+        assertFalse(result.isBatchCommitted());
+        assertEquals(2, result.getCompleted());
+        verify(inventoryService).commitStock(eq("ORD-1"), eq(List.of(stockLine(2))), anyString());
+        verify(inventoryService).commitStock(eq("ORD-2"), eq(List.of(stockLine(3))), anyString());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void orderChangedDuringTheSweepIsSkippedAndItsCommittedStockCreditedBack() {
+        CustomerOrder kept = order(1L, "ORD-1", "HIGH", null, line("PRODUCT", 1L, 2));
+        CustomerOrder changed = order(2L, "ORD-2", "HIGH", null, line("PRODUCT", 1L, 3));
+        CustomerOrder uncovered = order(3L, "ORD-3", "LOW", null, line("PART", 9L, 4));
+        pending(kept, changed, uncovered);
+        stock.put("PRODUCT:1", 5);
+        when(inventoryService.commitStock(anyString(), anyList(), anyString()))
+                .thenReturn(InventoryService.CommitOutcome.COMMITTED);
+        when(customerOrderRepository.save(any())).thenAnswer(invocation -> {
+            CustomerOrder order = invocation.getArgument(0);
+            if (order.getId() != 1L) {
+                throw new OptimisticLockingFailureException("Order " + order.getId() + " was changed");
+            }
+            return order;
+        });
+
+        BatchFulfillmentResultDTO result = fulfillmentService.fulfillPendingOrders(WORKSTATION);
+
+        assertTrue(result.isBatchCommitted());
+        assertEquals(1, result.getCompleted());
+        assertEquals(2, result.getSkipped());
+        assertEquals(List.of("ORD-1"), result.getOrders().stream().map(CustomerOrderDTO::getOrderNumber).toList());
+        // Only stock this sweep committed is given back
+        verify(outboxService).enqueueInventoryCredit(WORKSTATION, "PRODUCT", 1L, 3, "ORD-2");
+        verify(outboxService, never()).enqueueInventoryCredit(any(), any(), any(), any(), eq("ORD-1"));
+        verify(outboxService, never()).enqueueInventoryCredit(any(), any(), any(), any(), eq("ORD-3"));
+    }
+
+    private void pending(CustomerOrder... orders) {
+        when(customerOrderRepository.findByWorkstationIdAndStatus(WORKSTATION, "PENDING"))
+                .thenReturn(new ArrayList<>(List.of(orders)));
+    }
+
+    private static StockCheckRequestDTO stockLine(int quantity) {
+        return new StockCheckRequestDTO(WORKSTATION, "PRODUCT", 1L, quantity);
+    }
+
+    private AvailabilityPlan plan(List<StockCheckRequestDTO> lines) {
+        List<StockCheckResultDTO> results = new ArrayList<>();
+        for (StockCheckRequestDTO line : lines) {
+            int available = stock.getOrDefault(line.getItemType() + ":" + line.getItemId(), 0);
+            results.add(new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(), line.getItemId(),
+                    line.getQuantity(), available, available >= line.getQuantity()));
+        }
+        return AvailabilityPlan.of(lines, results);
+    }
+
+    private static CustomerOrder order(Long id, String number, String priority, LocalDateTime dueDate,
+                                       OrderItem... items) {
+        CustomerOrder order = new CustomerOrder();
+        order.setId(id);
+        order.setOrderNumber(number);
+        order.setOrderDate(ORDERED.plusMinutes(id));
+        order.setStatus("PENDING");
+        order.setWorkstationId(WORKSTATION);
+        order.setPriority(priority);
+        order.setDueDate(dueDate);
+        order.setOrderItems(new ArrayList<>(List.of(items)));
+        for (OrderItem item : items) {
+            item.setCustomerOrder(order);
+        }
+        return order;
+    }
+
+    private static OrderItem line(String itemType, Long itemId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setItemType(itemType);
+        item.setItemId(itemId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
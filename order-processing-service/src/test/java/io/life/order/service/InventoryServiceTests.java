@@ -0,0 +1,115 @@
+package io.life.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.exception.DependencyUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestToUriTemplate;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class InventoryServiceTests {
+
+    private static final String BASE_URL = "http://inventory";
+    private static final String COMMIT_URL = BASE_URL + "/api/stock/commit";
+    private static final List<StockCheckRequestDTO> LINES = List.of(
+            new StockCheckRequestDTO(1L, "PRODUCT", 1L, 2),
+            new StockCheckRequestDTO(1L, "PRODUCT", 2L, 1));
+
+    private MockRestServiceServer server;
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        InventoryStockCache cache = new InventoryStockCache(new ObjectMapper(), BASE_URL, false, 0, 0, false, 0);
+        inventoryService = new InventoryService(restTemplate, cache, event -> { });
+        ReflectionTestUtils.setField(inventoryService, "inventoryServiceUrl", BASE_URL);
+        ReflectionTestUtils.setField(inventoryService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(inventoryService, "retryBackoffMs", 1L);
+    }
+
+    @Test
+    void commitAnsweredOkIsCommitted() {
+        server.expect(requestTo(COMMIT_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Idempotency-Key", "ORD-1:commit:a"))
+                .andRespond(withSuccess());
+
+        assertEquals(InventoryService.CommitOutcome.COMMITTED, inventoryService.commitStock("ORD-1", LINES, "ORD-1:commit:a"));
+        server.verify();
+    }
+
+    @Test
+    void commitRefusedWithConflictIsShortfall() {
+        server.expect(requestTo(COMMIT_URL)).andRespond(withStatus(HttpStatus.CONFLICT)
+                .body("{\"status\":\"INSUFFICIENT_STOCK\"}"));
+
+        assertEquals(InventoryService.CommitOutcome.SHORTFALL, inventoryService.commitStock("ORD-2", LINES, "ORD-2:commit:a"));
+        server.verify();
+    }
+
+    @Test
+    void commitThatNeverGetsThroughIsUnknownAndRetriedUnderOneKey() {
+        server.expect(times(3), requestTo(COMMIT_URL))
+                .andExpect(header("Idempotency-Key", "ORD-3:commit:a"))
+                .andRespond(withException(new IOException("connection reset")));
+
+        assertEquals(InventoryService.CommitOutcome.UNKNOWN, inventoryService.commitStock("ORD-3", LINES, "ORD-3:commit:a"));
+        server.verify();
+    }
+
+    @Test
+    void commitAnsweredWithServerErrorIsUnknown() {
+        server.expect(requestTo(COMMIT_URL)).andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        assertEquals(InventoryService.CommitOutcome.UNKNOWN, inventoryService.commitStock("ORD-4", LINES, "ORD-4:commit:a"));
+        server.verify();
+    }
+
+    @Test
+    void deductionRefusedForStockReportsFalse() {
+        server.expect(requestToUriTemplate(BASE_URL + "/api/stock/adjust?workstationId=8&itemType=MODULE&itemId=2&delta=-3"))
+                .andRespond(withStatus(HttpStatus.CONFLICT));
+
+        assertFalse(inventoryService.deductStock(8L, "MODULE", 2L, 3, null));
+        server.verify();
+    }
+
+    @Test
+    void deductionAnsweredWithServerErrorThrowsInsteadOfReportingFalse() {
+        server.expect(requestToUriTemplate(BASE_URL + "/api/stock/adjust?workstationId=8&itemType=MODULE&itemId=2&delta=-3"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(DependencyUnavailableException.class, () -> inventoryService.deductStock(8L, "MODULE", 2L, 3, null));
+        server.verify();
+    }
+
+    @Test
+    void reservationThatNeverGetsThroughThrows() {
+        server.expect(times(3), requestTo(BASE_URL + "/api/stock/reservations"))
+                .andRespond(withException(new IOException("connection refused")));
+
+        assertThrows(DependencyUnavailableException.class, () -> inventoryService.reserveStock("ORD-5", LINES));
+        server.verify();
+    }
+}
@@ -0,0 +1,153 @@
+package io.life.order.service;
+
+import io.life.order.config.FanOutExecutor;
+import io.life.order.entity.OutboxMessage;
+import io.life.order.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+class OutboxRelayTests {
+
+    private static final String SIMAL_STATUS_URL = "http://simal/api/simal/scheduled-orders/SCHED-0001/status";
+
+    private final OutboxMessageRepository repository = mock(OutboxMessageRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(4, 100);
+    private MockRestServiceServer simal;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        simal = MockRestServiceServer.bindTo(restTemplate).build();
+        relay = new OutboxRelay(repository, inventoryService, restTemplate, fanOutExecutor);
+        ReflectionTestUtils.setField(relay, "simalServiceUrl", "http://simal");
+        ReflectionTestUtils.setField(relay, "batchSize", 50);
+        ReflectionTestUtils.setField(relay, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(relay, "maxBackoffMs", 4000L);
+    }
+
+    @AfterEach
+    void shutDown() {
+        fanOutExecutor.destroy();
+    }
+
+    @Test
+    void backoffDoublesPerAttemptUpToTheCap() {
+        OutboxMessage message = due(credit());
+        when(inventoryService.creditStock(any(), anyString(), any(), any(), anyString(), anyString())).thenReturn(false);
+
+        for (long expected : new long[] {1000, 2000, 4000, 4000}) {
+            LocalDateTime before = LocalDateTime.now();
+            relay.relay();
+
+            long backoff = Duration.between(before, message.getNextAttemptAt()).toMillis();
+            assertTrue(backoff >= expected && backoff < expected + 500,
+                    "attempt " + message.getAttempts() + " backed off " + backoff + " ms, expected " + expected);
+            assertEquals("PENDING", message.getStatus());
+        }
+        assertEquals(4, message.getAttempts());
+    }
+
+    @Test
+    void creditRetriesReuseTheMessageKey() {
+        OutboxMessage message = due(credit());
+        when(inventoryService.creditStock(8L, "MODULE", 1L, 5, "PCO-0001", "KEY-1"))
+                .thenReturn(false, false, true);
+
+        relay.relay();
+        relay.relay();
+        relay.relay();
+
+        verify(inventoryService, times(3)).creditStock(8L, "MODULE", 1L, 5, "PCO-0001", "KEY-1");
+        assertEquals("DELIVERED", message.getStatus());
+        assertEquals(3, message.getAttempts());
+    }
+
+    @Test
+    void simalRejectionMarksTheUpdateFailed() {
+        OutboxMessage message = due(simalStatus());
+        simal.expect(requestTo(SIMAL_STATUS_URL)).andRespond(withStatus(HttpStatus.BAD_REQUEST));
+
+        relay.relay();
+
+        assertEquals("FAILED", message.getStatus());
+        simal.verify();
+    }
+
+    @Test
+    void simalServerErrorIsRetried() {
+        OutboxMessage message = due(simalStatus());
+        simal.expect(requestTo(SIMAL_STATUS_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        relay.relay();
+
+        assertEquals("PENDING", message.getStatus());
+        assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        simal.verify();
+    }
+
+    @Test
+    void aCreditStillRunningAtTheDeadlineIsNotCutOff() {
+        OutboxMessage message = due(credit());
+        when(inventoryService.creditStock(8L, "MODULE", 1L, 5, "PCO-0001", "KEY-1")).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return true;
+        });
+
+        relay.relay();
+
+        assertEquals("DELIVERED", message.getStatus());
+    }
+
+    private OutboxMessage due(OutboxMessage message) {
+        when(repository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq("PENDING"), any(LocalDateTime.class),
+                any(Pageable.class))).thenReturn(List.of(message));
+        return message;
+    }
+
+    private static OutboxMessage credit() {
+        OutboxMessage message = pending(OutboxService.INVENTORY_CREDIT);
+        message.setWorkstationId(8L);
+        message.setItemType("MODULE");
+        message.setItemId(1L);
+        message.setQuantity(5);
+        return message;
+    }
+
+    private static OutboxMessage simalStatus() {
+        OutboxMessage message = pending(OutboxService.SIMAL_SCHEDULE_STATUS);
+        message.setScheduleId("SCHED-0001");
+        message.setScheduleStatus("COMPLETED");
+        return message;
+    }
+
+    private static OutboxMessage pending(String messageType) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxMessage.builder()
+                .id(1L).messageKey("KEY-1").messageType(messageType).sourceReference("PCO-0001")
+                .status("PENDING").attempts(0).nextAttemptAt(now).createdAt(now).build();
+    }
+}
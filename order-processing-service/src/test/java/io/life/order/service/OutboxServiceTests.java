@@ -0,0 +1,48 @@
+package io.life.order.service;
+
+import io.life.order.entity.OutboxMessage;
+import io.life.order.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OutboxServiceTests {
+
+    private final OutboxMessageRepository repository = mock(OutboxMessageRepository.class);
+    private final OutboxService outboxService = new OutboxService(repository);
+
+    @Test
+    void creditsAreQueuedDueNowUnderTheirOwnKeys() {
+        outboxService.enqueueInventoryCredit(8L, "MODULE", 1L, 5, "PCO-0001");
+        outboxService.enqueueInventoryCredit(8L, "MODULE", 1L, 5, "PCO-0001");
+
+        ArgumentCaptor<OutboxMessage> saved = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(repository, times(2)).save(saved.capture());
+        List<OutboxMessage> messages = saved.getAllValues();
+        OutboxMessage first = messages.get(0);
+        assertEquals(OutboxService.INVENTORY_CREDIT, first.getMessageType());
+        assertEquals("PENDING", first.getStatus());
+        assertEquals(0, first.getAttempts());
+        assertEquals(5, first.getQuantity());
+        assertFalse(first.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotEquals(first.getMessageKey(), messages.get(1).getMessageKey());
+    }
+
+    @Test
+    void noStatusUpdateIsQueuedWithoutASchedule() {
+        outboxService.enqueueSimalScheduleStatus(null, "COMPLETED", "PCO-0001");
+
+        verify(repository, never()).save(any());
+    }
+}
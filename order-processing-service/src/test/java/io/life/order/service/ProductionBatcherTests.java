@@ -0,0 +1,116 @@
+package io.life.order.service;
+
+import io.life.order.config.ProductionBatchingProperties;
+import io.life.order.dto.ProductionBatchDTO;
+import io.life.order.entity.ProductionOrder;
+import io.life.order.repository.ProductionOrderDemandRepository;
+import io.life.order.repository.ProductionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductionBatcherTests {
+
+    private final ProductionOrderRepository productionOrderRepository = mock(ProductionOrderRepository.class);
+    private final ProductionOrderDemandRepository demandRepository = mock(ProductionOrderDemandRepository.class);
+    private final ProductionOrderService productionOrderService = mock(ProductionOrderService.class);
+    private final ProductionPlanningService productionPlanningService = mock(ProductionPlanningService.class);
+    private final ProductionBatchingProperties properties = new ProductionBatchingProperties();
+    private final ProductionBatcher batcher = new ProductionBatcher(productionOrderRepository, demandRepository,
+            productionOrderService, productionPlanningService, properties);
+
+    @BeforeEach
+    void setUp() {
+        // 50 units a day over the 7-day lookback, setup cost 50, holding cost 1: EOQ = ceil(sqrt(2 * 50 * 50 / 1)) = 71
+        when(demandRepository.sumQuantityByItemSince(eq("MODULE"), eq(2L), any())).thenReturn(350L);
+    }
+
+    @Test
+    void batchingIsOffByDefault() {
+        assertFalse(new ProductionBatchingProperties().isEnabled());
+    }
+
+    @Test
+    void eoqReleasesOnceTheLotSizeIsReached() {
+        orders(order(1L, 40, 10, null), order(2L, 31, 5, null));
+
+        ProductionBatchDTO batch = batcher.preview().get(0);
+
+        assertEquals(71, batch.getLotSizeTarget());
+        assertEquals(71, batch.getQuantity());
+        assertTrue(batch.isRelease());
+    }
+
+    @Test
+    void eoqHoldsASmallerBatchUntilMaxHold() {
+        orders(order(1L, 30, 30, null));
+
+        ProductionBatchDTO batch = batcher.preview().get(0);
+
+        assertFalse(batch.isRelease());
+        assertTrue(batch.getReason().startsWith("Waiting for lot size 71"));
+    }
+
+    @Test
+    void eoqReleasesASmallerBatchAfterMaxHold() {
+        orders(order(1L, 30, 150, null), order(2L, 5, 10, null));
+
+        ProductionBatchDTO batch = batcher.preview().get(0);
+
+        assertTrue(batch.isRelease());
+        assertTrue(batch.getReason().startsWith("Held for the maximum"));
+    }
+
+    @Test
+    void orderDueWithinTheLeadTimeReleasesItsBatchAtOnce() {
+        orders(order(1L, 5, 1, LocalDateTime.now().plusHours(1)));
+
+        assertTrue(batcher.preview().get(0).isRelease());
+    }
+
+    @Test
+    void failedSubmissionLeavesTheBatchUnconsolidated() {
+        orders(order(1L, 40, 10, null), order(2L, 40, 5, null));
+        when(productionPlanningService.submitConsolidatedToSimal(eq(1L), anyList()))
+                .thenThrow(new RuntimeException("Failed to submit to SimAL: 503"));
+
+        ProductionBatchDTO batch = batcher.release(false).get(0);
+
+        assertEquals("Failed to submit to SimAL: 503", batch.getError());
+        assertNull(batch.getReleasedOrder());
+        verify(productionOrderService, never()).consolidate(anyLong(), anyList());
+    }
+
+    private void orders(ProductionOrder... orders) {
+        when(productionOrderRepository.findByStatus("CREATED")).thenReturn(List.of(orders));
+    }
+
+    private static ProductionOrder order(Long id, int quantity, int minutesHeld, LocalDateTime dueDate) {
+        return ProductionOrder.builder()
+                .id(id)
+                .productionOrderNumber("PO-" + id)
+                .status("CREATED")
+                .itemType("MODULE")
+                .itemId(2L)
+                .quantity(quantity)
+                .assignedWorkstationId(8L)
+                .dueDate(dueDate)
+                .createdAt(LocalDateTime.now().minusMinutes(minutesHeld))
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package io.life.order.service;
+
+import io.life.order.entity.ProductionControlOrder;
+import io.life.order.repository.ProductionControlOrderRepository;
+import io.life.order.util.OrderNumberGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductionControlOrderServiceTests {
+
+    private final ProductionControlOrderRepository repository = mock(ProductionControlOrderRepository.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private ProductionControlOrderService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductionControlOrderService(repository, mock(SupplyOrderService.class), outboxService,
+                mock(OrderNumberGenerator.class));
+        ReflectionTestUtils.setField(service, "modulesSupermarketWorkstationId", 8L);
+        when(repository.save(any(ProductionControlOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void completionCreditsTheQuantityProduced() {
+        inProgress(1L, 12);
+
+        service.completeManufacturingProduction(1L);
+
+        verify(outboxService).enqueueInventoryCredit(8L, "MODULE", 1L, 12, "PCO-1");
+    }
+
+    @Test
+    void completionWithoutAQuantityCreditsOneUnit() {
+        inProgress(2L, null);
+
+        service.completeManufacturingProduction(2L);
+
+        verify(outboxService).enqueueInventoryCredit(eq(8L), eq("MODULE"), eq(1L), eq(1), anyString());
+    }
+
+    private void inProgress(Long id, Integer quantity) {
+        ProductionControlOrder order = ProductionControlOrder.builder()
+                .id(id).controlOrderNumber("PCO-" + id).simalScheduleId("SCHED-" + id)
+                .status("IN_PROGRESS").quantity(quantity).build();
+        when(repository.findById(id)).thenReturn(Optional.of(order));
+    }
+}
@@ -0,0 +1,113 @@
+package io.life.order.service;
+
+import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.entity.ProductionOrder;
+import io.life.order.repository.ProductionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductionOrderCoalescerTests {
+
+    private static final LocalDateTime DUE = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private final ProductionOrderService productionOrderService = mock(ProductionOrderService.class);
+    private final ProductionOrderRepository productionOrderRepository = mock(ProductionOrderRepository.class);
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(productionOrderService.createProductionOrderFromWarehouse(any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), anyInt()))
+                .thenAnswer(invocation -> ProductionOrderDTO.builder()
+                        .id(ids.incrementAndGet())
+                        .quantity(invocation.getArgument(9))
+                        .build());
+        when(productionOrderService.addShortfall(anyLong(), any(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> Optional.of(ProductionOrderDTO.builder().id(invocation.getArgument(0)).build()));
+    }
+
+    @Test
+    void shortfallMatchingAnOpenOrderIsAddedToIt() {
+        ProductionOrderCoalescer coalescer = coalescer(true);
+
+        ProductionOrderDTO first = request(coalescer, "HIGH", DUE, 8L, 5).get(0);
+        ProductionOrderDTO second = request(coalescer, "HIGH", DUE.plusHours(3), 8L, 4).get(0);
+
+        assertEquals(first.getId(), second.getId());
+        verify(productionOrderService).addShortfall(eq(first.getId()), any(), any(), eq(DUE.plusHours(3)), eq(4));
+        verify(productionOrderService, times(1)).createProductionOrderFromWarehouse(any(), any(), any(), any(), any(),
+                any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void priorityDueWindowAndWorkstationEachKeepOrdersApart() {
+        ProductionOrderCoalescer coalescer = coalescer(true);
+
+        long first = request(coalescer, "HIGH", DUE, 8L, 5).get(0).getId();
+
+        assertEquals(first + 1, request(coalescer, "LOW", DUE, 8L, 5).get(0).getId());
+        assertEquals(first + 2, request(coalescer, "HIGH", DUE.plusDays(1), 8L, 5).get(0).getId());
+        assertEquals(first + 3, request(coalescer, "HIGH", DUE, 9L, 5).get(0).getId());
+        verify(productionOrderService, never()).addShortfall(anyLong(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void orderThatNoLongerTakesAdditionsIsReplaced() {
+        ProductionOrderCoalescer coalescer = coalescer(true);
+        long first = request(coalescer, "HIGH", DUE, 8L, 5).get(0).getId();
+        when(productionOrderService.addShortfall(eq(first), any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+
+        long second = request(coalescer, "HIGH", DUE, 8L, 4).get(0).getId();
+        long third = request(coalescer, "HIGH", DUE, 8L, 3).get(0).getId();
+
+        assertEquals(first + 1, second);
+        assertEquals(second, third);
+    }
+
+    @Test
+    void disabledCoalescingAlwaysRaisesANewOrder() {
+        ProductionOrderCoalescer coalescer = coalescer(false);
+
+        long first = request(coalescer, "HIGH", DUE, 8L, 5).get(0).getId();
+
+        assertEquals(first + 1, request(coalescer, "HIGH", DUE, 8L, 5).get(0).getId());
+        verify(productionOrderService, never()).addShortfall(anyLong(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void indexIsRebuiltFromCreatedOrdersOnStartup() {
+        when(productionOrderRepository.findByStatus("CREATED")).thenReturn(List.of(ProductionOrder.builder()
+                .id(42L).status("CREATED").assignedWorkstationId(8L).itemType("MODULE").itemId(2L)
+                .priority("HIGH").dueDate(DUE).quantity(6).build()));
+        ProductionOrderCoalescer coalescer = coalescer(true);
+        coalescer.buildIndex();
+
+        assertEquals(42L, request(coalescer, "HIGH", DUE, 8L, 5).get(0).getId());
+    }
+
+    private ProductionOrderCoalescer coalescer(boolean enabled) {
+        return new ProductionOrderCoalescer(productionOrderService, productionOrderRepository, enabled, 1);
+    }
+
+    private static List<ProductionOrderDTO> request(ProductionOrderCoalescer coalescer, String priority,
+                                                    LocalDateTime dueDate, Long assignedWorkstationId, int quantity) {
+        return coalescer.requestProduction(1L, 2L, priority, dueDate, "test", 6L, assignedWorkstationId,
+                List.of(new ProductionOrderCoalescer.Shortfall("MODULE", 2L, quantity)));
+    }
+}
@@ -0,0 +1,131 @@
+package io.life.order.service;
+
+import io.life.order.dto.ProductionOrderDTO;
+import io.life.order.repository.ProductionOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ProductionPlanningServiceTests {
+
+    private static final String SIMAL_URL = "http://simal/api/simal/production-order";
+    private static final List<Long> MEMBERS = List.of(1L, 2L, 3L);
+
+    private final ProductionOrderService productionOrderService = mock(ProductionOrderService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private MockRestServiceServer simal;
+    private ProductionPlanningService planningService;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        simal = MockRestServiceServer.bindTo(restTemplate).build();
+        planningService = new ProductionPlanningService(mock(ProductionOrderRepository.class), productionOrderService,
+                mock(ProductionControlOrderService.class), mock(AssemblyControlOrderService.class), outboxService,
+                restTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(planningService, "simalApiBaseUrl", "http://simal/api");
+
+        ProductionOrderDTO lead = ProductionOrderDTO.builder()
+                .id(1L).version(4L).productionOrderNumber("PO-1").status("CREATED")
+                .itemType("MODULE").itemId(7L).quantity(90).build();
+        Map<Long, Long> memberVersions = new LinkedHashMap<>();
+        memberVersions.put(2L, 1L);
+        memberVersions.put(3L, 2L);
+        when(productionOrderService.previewConsolidation(1L, MEMBERS))
+                .thenReturn(Optional.of(new ProductionOrderService.ConsolidationPreview(lead, memberVersions)));
+    }
+
+    @Test
+    void batchIsConsolidatedOnlyAfterSimalAcceptsIt() {
+        simal.expect(requestTo(SIMAL_URL)).andRespond(withSuccess(
+                "{\"scheduleId\":\"SCHED-0001\",\"estimatedDuration\":30,\"estimatedCompletion\":\"2026-01-01T10:00:00\"}",
+                MediaType.APPLICATION_JSON));
+        when(productionOrderService.updateProductionOrderStatus(1L, "SUBMITTED"))
+                .thenReturn(ProductionOrderDTO.builder().id(1L).status("SUBMITTED").build());
+
+        assertTrue(planningService.submitConsolidatedToSimal(1L, MEMBERS).isPresent());
+
+        InOrder order = inOrder(productionOrderService);
+        order.verify(productionOrderService).requireUnchanged(1L, 4L);
+        order.verify(productionOrderService).requireUnchanged(2L, 1L);
+        order.verify(productionOrderService).requireUnchanged(3L, 2L);
+        order.verify(productionOrderService).consolidate(1L, List.of(2L, 3L));
+        order.verify(productionOrderService).linkToSimalSchedule(anyLong(), anyString(), anyInt(), any());
+        simal.verify();
+    }
+
+    @Test
+    void submissionAsksSimalForTheWholeQuantity() {
+        simal.expect(requestTo(SIMAL_URL))
+                .andExpect(jsonPath("$.lineItems[0].itemId").value("7"))
+                .andExpect(jsonPath("$.lineItems[0].quantity").value(90))
+                .andRespond(withSuccess(
+                        "{\"scheduleId\":\"SCHED-0001\",\"estimatedDuration\":30,\"estimatedCompletion\":\"2026-01-01T10:00:00\"}",
+                        MediaType.APPLICATION_JSON));
+        when(productionOrderService.updateProductionOrderStatus(1L, "SUBMITTED"))
+                .thenReturn(ProductionOrderDTO.builder().id(1L).status("SUBMITTED").build());
+
+        planningService.submitConsolidatedToSimal(1L, MEMBERS);
+
+        simal.verify();
+    }
+
+    @Test
+    void memberThatGrewSinceThePreviewRefusesTheWriteAndWithdrawsTheSchedule() {
+        simal.expect(requestTo(SIMAL_URL)).andRespond(withSuccess(
+                "{\"scheduleId\":\"SCHED-0001\",\"estimatedDuration\":30,\"estimatedCompletion\":\"2026-01-01T10:00:00\"}",
+                MediaType.APPLICATION_JSON));
+        doThrow(new ObjectOptimisticLockingFailureException("ProductionOrder", 3L))
+                .when(productionOrderService).requireUnchanged(3L, 2L);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> planningService.submitConsolidatedToSimal(1L, MEMBERS));
+
+        verify(productionOrderService, never()).consolidate(anyLong(), anyList());
+        verify(productionOrderService, never()).linkToSimalSchedule(anyLong(), anyString(), anyInt(), any());
+        verify(outboxService).enqueueSimalScheduleStatus("SCHED-0001", "CANCELLED", "PO-1");
+        simal.verify();
+    }
+
+    @Test
+    void refusedSubmissionConsolidatesNothing() {
+        simal.expect(requestTo(SIMAL_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(RuntimeException.class, () -> planningService.submitConsolidatedToSimal(1L, MEMBERS));
+
+        verify(productionOrderService, never()).consolidate(anyLong(), anyList());
+        verify(outboxService, never()).enqueueSimalScheduleStatus(anyString(), anyString(), anyString());
+        simal.verify();
+    }
+}
@@ -0,0 +1,82 @@
+package io.life.order.service;
+
+import io.life.order.repository.OrderSequenceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sequence_test;DB_CLOSE_DELAY=-1",
+        "app.sequence.block-size=7"
+})
+class SequenceServiceTests {
+
+    @Autowired
+    private SequenceService sequenceService;
+
+    @Autowired
+    private OrderSequenceRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sequenceStartsAtOneAndCountsUp() {
+        assertEquals(1, sequenceService.next("test-start"));
+        assertEquals(2, sequenceService.next("test-start"));
+        assertEquals(1, sequenceService.next("test-other"));
+    }
+
+    @Test
+    void concurrentCallersOnTwoInstancesNeverGetTheSameValue() throws Exception {
+        // A second instance sharing the database, with its own blocks
+        SequenceService otherInstance = new SequenceService(repository, transactionManager, 7);
+        int threads = 8;
+        int perThread = 100;
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                SequenceService instance = i % 2 == 0 ? sequenceService : otherInstance;
+                Callable<Integer> draw = () -> {
+                    start.await();
+                    int unique = 0;
+                    for (int n = 0; n < perThread; n++) {
+                        if (values.add(instance.next("test-race"))) {
+                            unique++;
+                        }
+                    }
+                    return unique;
+                };
+                results.add(pool.submit(draw));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(perThread, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, values.size());
+        // Each instance leaves at most one partly used block behind
+        long reserved = repository.findById("test-race").orElseThrow().getNextValue() - 1;
+        assertTrue(reserved >= threads * perThread && reserved <= threads * perThread + 2 * 7);
+    }
+}
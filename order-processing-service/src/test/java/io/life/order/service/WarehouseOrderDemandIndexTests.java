@@ -0,0 +1,92 @@
+package io.life.order.service;
+
+import io.life.order.entity.WarehouseOrder;
+import io.life.order.entity.WarehouseOrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WarehouseOrderDemandIndexTests {
+
+    private static final Long SUPERMARKET = 8L;
+
+    private final WarehouseOrderDemandIndex index = new WarehouseOrderDemandIndex();
+
+    @Test
+    void openOrderIsIndexedByTheRowsItIsStillWaitingFor() {
+        index.track(order(1L, "PENDING", item("MODULE", 10L, 5, 0), item("MODULE", 11L, 3, 3)));
+
+        assertEquals(Set.of(1L), index.ordersDemanding(SUPERMARKET, "MODULE", 10L));
+        assertEquals(Set.of(), index.ordersDemanding(SUPERMARKET, "MODULE", 11L)); // already fulfilled
+        assertEquals(Set.of(), index.ordersDemanding(7L, "MODULE", 10L));
+    }
+
+    @Test
+    void trackingAgainReplacesWhatWasRecorded() {
+        WarehouseOrder order = order(1L, "PENDING", item("MODULE", 10L, 5, 0), item("MODULE", 11L, 3, 0));
+        index.track(order);
+        index.track(order(2L, "PENDING", item("MODULE", 10L, 2, 0)));
+
+        order.setStatus("PARTIALLY_FULFILLED");
+        order.getWarehouseOrderItems().get(0).setFulfilledQuantity(5);
+        index.track(order);
+
+        assertEquals(Set.of(2L), index.ordersDemanding(SUPERMARKET, "MODULE", 10L));
+        assertEquals(Set.of(1L), index.ordersDemanding(SUPERMARKET, "MODULE", 11L));
+    }
+
+    @Test
+    void orderThatIsNoLongerOpenDropsOut() {
+        WarehouseOrder order = order(1L, "PENDING", item("MODULE", 10L, 5, 0));
+        index.track(order);
+
+        order.setStatus("FULFILLED");
+        index.track(order);
+
+        assertEquals(Set.of(), index.ordersDemanding(SUPERMARKET, "MODULE", 10L));
+        assertEquals(Set.of(), index.orderIds());
+    }
+
+    @Test
+    void untrackAndRebuildForgetEarlierOrders() {
+        index.track(order(1L, "PENDING", item("MODULE", 10L, 5, 0)));
+        index.track(order(2L, "PROCESSING", item("MODULE", 10L, 5, 0)));
+
+        index.untrack(1L);
+        assertEquals(Set.of(2L), index.ordersDemanding(SUPERMARKET, "MODULE", 10L));
+
+        index.rebuild(List.of(order(3L, "PENDING_PRODUCTION", item("PART", 20L, 1, 0)),
+                order(4L, "CANCELLED", item("PART", 20L, 1, 0))));
+        assertEquals(Set.of(3L), index.orderIds());
+        assertEquals(Set.of(3L), index.ordersDemanding(SUPERMARKET, "PART", 20L));
+    }
+
+    @Test
+    void unsavedOrderIsIgnored() {
+        index.track(order(null, "PENDING", item("MODULE", 10L, 5, 0)));
+
+        assertEquals(Set.of(), index.orderIds());
+    }
+
+    private static WarehouseOrder order(Long id, String status, WarehouseOrderItem... items) {
+        WarehouseOrder order = new WarehouseOrder();
+        order.setId(id);
+        order.setStatus(status);
+        order.setFulfillingWorkstationId(SUPERMARKET);
+        order.setWarehouseOrderItems(new ArrayList<>(List.of(items)));
+        return order;
+    }
+
+    private static WarehouseOrderItem item(String itemType, Long itemId, int requested, int fulfilled) {
+        WarehouseOrderItem item = new WarehouseOrderItem();
+        item.setItemType(itemType);
+        item.setItemId(itemId);
+        item.setRequestedQuantity(requested);
+        item.setFulfilledQuantity(fulfilled);
+        return item;
+    }
+}
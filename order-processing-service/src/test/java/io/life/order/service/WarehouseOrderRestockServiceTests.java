@@ -0,0 +1,167 @@
+package io.life.order.service;
+
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.dto.StockCheckResultDTO;
+import io.life.order.dto.WarehouseOrderDTO;
+import io.life.order.entity.CustomerOrder;
+import io.life.order.entity.WarehouseOrder;
+import io.life.order.entity.WarehouseOrderItem;
+import io.life.order.event.StockCreditedEvent;
+import io.life.order.repository.CustomerOrderRepository;
+import io.life.order.repository.WarehouseOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WarehouseOrderRestockServiceTests {
+
+    private static final Long SUPERMARKET = 8L;
+    private static final LocalDateTime ORDERED = LocalDateTime.of(2026, 3, 2, 9, 0);
+    private static final LocalDateTime DUE = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private final WarehouseOrderRepository warehouseOrderRepository = mock(WarehouseOrderRepository.class);
+    private final CustomerOrderRepository customerOrderRepository = mock(CustomerOrderRepository.class);
+    private final WarehouseOrderService warehouseOrderService = mock(WarehouseOrderService.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final WarehouseOrderDemandIndex demandIndex = new WarehouseOrderDemandIndex();
+
+    // Stock on hand at the Modules Supermarket, by "itemType:itemId"
+    private final Map<String, Integer> stock = new HashMap<>();
+    private final List<WarehouseOrder> warehouseOrders = new ArrayList<>();
+    private final List<CustomerOrder> customerOrders = new ArrayList<>();
+
+    private WarehouseOrderRestockService restockService;
+
+    @BeforeEach
+    void setUp() {
+        restockService = new WarehouseOrderRestockService(warehouseOrderRepository, customerOrderRepository,
+                warehouseOrderService, inventoryService, demandIndex, true);
+        when(warehouseOrderRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<WarehouseOrder> found = new ArrayList<>();
+            ids.forEach(id -> warehouseOrders.stream().filter(order -> order.getId().equals(id)).forEach(found::add));
+            return found;
+        });
+        when(customerOrderRepository.findAllById(any())).thenReturn(customerOrders);
+        when(inventoryService.planAvailability(anyList())).thenAnswer(invocation -> plan(invocation.getArgument(0)));
+        when(warehouseOrderService.fulfillWarehouseOrderIfCovered(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new WarehouseOrderDTO()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        restockService.destroy();
+    }
+
+    @Test
+    void sharedStockGoesToTheHighestRankedOrdersFirst() {
+        // Oldest first, so that age alone would rank them the other way round
+        warehouseOrder(1L, customerOrder(101L, "LOW", DUE), 5);
+        warehouseOrder(2L, customerOrder(102L, "HIGH", DUE.plusDays(2)), 5);
+        warehouseOrder(3L, customerOrder(103L, "MEDIUM", DUE), 5);
+        warehouseOrder(4L, customerOrder(104L, "HIGH", DUE), 5);
+        stock.put("MODULE:10", 15);
+
+        restockService.onStockCredited(new StockCreditedEvent(SUPERMARKET, "MODULE", 10L, 15));
+
+        InOrder ranked = inOrder(warehouseOrderService);
+        ranked.verify(warehouseOrderService, timeout(5000)).fulfillWarehouseOrderIfCovered(4L);
+        ranked.verify(warehouseOrderService, timeout(5000)).fulfillWarehouseOrderIfCovered(2L);
+        ranked.verify(warehouseOrderService, timeout(5000)).fulfillWarehouseOrderIfCovered(3L);
+        verify(warehouseOrderService, after(200).never()).fulfillWarehouseOrderIfCovered(1L);
+        verify(inventoryService).planAvailability(anyList());
+    }
+
+    @Test
+    void orderStillShortIsLeftAsItIs() {
+        warehouseOrder(1L, customerOrder(101L, "HIGH", DUE), 5);
+        stock.put("MODULE:10", 4);
+
+        restockService.onStockCredited(new StockCreditedEvent(SUPERMARKET, "MODULE", 10L, 4));
+
+        verify(inventoryService, timeout(5000)).planAvailability(anyList());
+        verify(warehouseOrderService, after(200).never()).fulfillWarehouseOrderIfCovered(anyLong());
+        assertEquals(Set.of(1L), demandIndex.ordersDemanding(SUPERMARKET, "MODULE", 10L));
+    }
+
+    @Test
+    void creditNoOpenOrderNeedsReadsNothing() {
+        warehouseOrder(1L, customerOrder(101L, "HIGH", DUE), 5);
+
+        restockService.onStockCredited(new StockCreditedEvent(SUPERMARKET, "MODULE", 99L, 5));
+
+        verify(warehouseOrderRepository, after(200).never()).findAllById(any());
+        verifyNoInteractions(inventoryService, warehouseOrderService);
+    }
+
+    @Test
+    void orderClosedElsewhereDropsOutOfTheIndex() {
+        WarehouseOrder order = warehouseOrder(1L, customerOrder(101L, "HIGH", DUE), 5);
+        order.setStatus("CANCELLED");
+
+        restockService.sweepAll();
+
+        verify(warehouseOrderRepository, timeout(5000)).findAllById(any());
+        verify(inventoryService, after(200).never()).planAvailability(anyList());
+        assertEquals(Set.of(), demandIndex.orderIds());
+    }
+
+    private WarehouseOrder warehouseOrder(Long id, CustomerOrder source, int quantity) {
+        WarehouseOrderItem item = new WarehouseOrderItem();
+        item.setItemType("MODULE");
+        item.setItemId(10L);
+        item.setRequestedQuantity(quantity);
+        item.setFulfilledQuantity(0);
+        WarehouseOrder order = new WarehouseOrder();
+        order.setId(id);
+        order.setWarehouseOrderNumber("WO-" + id);
+        order.setSourceCustomerOrderId(source.getId());
+        order.setFulfillingWorkstationId(SUPERMARKET);
+        order.setOrderDate(ORDERED.plusMinutes(id));
+        order.setStatus("PENDING");
+        order.setWarehouseOrderItems(new ArrayList<>(List.of(item)));
+        warehouseOrders.add(order);
+        demandIndex.track(order);
+        return order;
+    }
+
+    private CustomerOrder customerOrder(Long id, String priority, LocalDateTime dueDate) {
+        CustomerOrder order = new CustomerOrder();
+        order.setId(id);
+        order.setPriority(priority);
+        order.setDueDate(dueDate);
+        customerOrders.add(order);
+        return order;
+    }
+
+    private AvailabilityPlan plan(List<StockCheckRequestDTO> lines) {
+        List<StockCheckResultDTO> results = new ArrayList<>();
+        for (StockCheckRequestDTO line : lines) {
+            int available = stock.getOrDefault(line.getItemType() + ":" + line.getItemId(), 0);
+            results.add(new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(), line.getItemId(),
+                    line.getQuantity(), available, available >= line.getQuantity()));
+        }
+        return AvailabilityPlan.of(lines, results);
+    }
+}
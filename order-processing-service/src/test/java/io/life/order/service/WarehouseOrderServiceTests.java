@@ -0,0 +1,145 @@
+package io.life.order.service;
+
+import io.life.order.config.FanOutExecutor;
+import io.life.order.dto.StockCheckRequestDTO;
+import io.life.order.dto.StockCheckResultDTO;
+import io.life.order.entity.WarehouseOrder;
+import io.life.order.entity.WarehouseOrderItem;
+import io.life.order.repository.CustomerOrderRepository;
+import io.life.order.repository.WarehouseOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WarehouseOrderServiceTests {
+
+    private static final Long SUPERMARKET = 8L;
+
+    private final WarehouseOrderRepository warehouseOrderRepository = mock(WarehouseOrderRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final ProductionOrderCoalescer productionOrderCoalescer = mock(ProductionOrderCoalescer.class);
+    private final CustomerOrderRepository customerOrderRepository = mock(CustomerOrderRepository.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(4, 1000);
+    private final WarehouseOrderDemandIndex demandIndex = new WarehouseOrderDemandIndex();
+
+    // Stock on hand at the Modules Supermarket, by "itemType:itemId"
+    private final Map<String, Integer> stock = new HashMap<>();
+
+    private WarehouseOrderService warehouseOrderService;
+
+    @BeforeEach
+    void setUp() {
+        warehouseOrderService = new WarehouseOrderService(warehouseOrderRepository, inventoryService,
+                productionOrderCoalescer, customerOrderRepository, fanOutExecutor, outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), demandIndex);
+        when(inventoryService.planAvailability(anyList())).thenAnswer(invocation -> plan(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.destroy();
+    }
+
+    @Test
+    void partlyCoveredOrderIsLeftUntouched() {
+        WarehouseOrder order = order(1L, "PENDING", item("MODULE", 10L, 5), item("MODULE", 11L, 3));
+        stock.put("MODULE:10", 5);
+        stock.put("MODULE:11", 2);
+
+        assertTrue(warehouseOrderService.fulfillWarehouseOrderIfCovered(1L).isEmpty());
+
+        assertUntouched(order);
+    }
+
+    @Test
+    void orderWithNothingInStockIsLeftUntouched() {
+        WarehouseOrder order = order(1L, "PENDING", item("MODULE", 10L, 5));
+
+        assertTrue(warehouseOrderService.fulfillWarehouseOrderIfCovered(1L).isEmpty());
+
+        assertUntouched(order);
+    }
+
+    @Test
+    void orderNoLongerOpenIsNotPlannedAndDropsOutOfTheIndex() {
+        WarehouseOrder order = order(1L, "PENDING", item("MODULE", 10L, 5));
+        order.setStatus("FULFILLED");
+        stock.put("MODULE:10", 5);
+
+        assertTrue(warehouseOrderService.fulfillWarehouseOrderIfCovered(1L).isEmpty());
+
+        verifyNoInteractions(inventoryService, productionOrderCoalescer, outboxService);
+        verify(warehouseOrderRepository, never()).save(any());
+        assertEquals(Set.of(), demandIndex.orderIds());
+    }
+
+    private void assertUntouched(WarehouseOrder order) {
+        verify(inventoryService).planAvailability(anyList());
+        verify(inventoryService, never()).deductStock(any(), any(), any(), any(), any(), any());
+        verify(inventoryService, never()).deductStock(any(), any(), any(), any(), any());
+        verify(inventoryService, never()).confirmReservation(any());
+        verifyNoInteractions(productionOrderCoalescer, outboxService, customerOrderRepository);
+        verify(warehouseOrderRepository, never()).save(any());
+        assertEquals("PENDING", order.getStatus());
+        order.getWarehouseOrderItems().forEach(item -> assertEquals(0, item.getFulfilledQuantity()));
+        assertEquals(Set.of(order.getId()), demandIndex.orderIds());
+    }
+
+    private WarehouseOrder order(Long id, String status, WarehouseOrderItem... items) {
+        WarehouseOrder order = new WarehouseOrder();
+        order.setId(id);
+        order.setWarehouseOrderNumber("WO-" + id);
+        order.setSourceCustomerOrderId(100L + id);
+        order.setRequestingWorkstationId(7L);
+        order.setFulfillingWorkstationId(SUPERMARKET);
+        order.setOrderDate(LocalDateTime.of(2026, 3, 2, 9, 0));
+        order.setStatus(status);
+        order.setWarehouseOrderItems(new ArrayList<>(List.of(items)));
+        for (WarehouseOrderItem item : items) {
+            item.setWarehouseOrder(order);
+        }
+        when(warehouseOrderRepository.findById(id)).thenReturn(Optional.of(order));
+        demandIndex.track(order);
+        return order;
+    }
+
+    private static WarehouseOrderItem item(String itemType, Long itemId, int requested) {
+        WarehouseOrderItem item = new WarehouseOrderItem();
+        item.setItemType(itemType);
+        item.setItemId(itemId);
+        item.setRequestedQuantity(requested);
+        item.setFulfilledQuantity(0);
+        return item;
+    }
+
+    private AvailabilityPlan plan(List<StockCheckRequestDTO> lines) {
+        List<StockCheckResultDTO> results = new ArrayList<>();
+        for (StockCheckRequestDTO line : lines) {
+            int available = stock.getOrDefault(line.getItemType() + ":" + line.getItemId(), 0);
+            results.add(new StockCheckResultDTO(line.getWorkstationId(), line.getItemType(), line.getItemId(),
+                    line.getQuantity(), available, available >= line.getQuantity()));
+        }
+        return AvailabilityPlan.of(lines, results);
+    }
+}
@@ -1,10 +1,20 @@
 package io.life.simal_integration_service;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @SpringBootApplication
 public class SimalIntegrationServiceApplication {
 
@@ -12,9 +22,34 @@ public class SimalIntegrationServiceApplication {
 		SpringApplication.run(SimalIntegrationServiceApplication.class, args);
 	}
 
+	/**
+	 * RestTemplate over a bounded connection pool, so a slow downstream fails calls after the pool
+	 * wait and response timeouts instead of holding request threads indefinitely.
+	 */
 	@Bean
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	public RestTemplate restTemplate(@Value("${simal.http-client.connect-timeout:2s}") Duration connectTimeout,
+									 @Value("${simal.http-client.pool-wait-timeout:1s}") Duration poolWaitTimeout,
+									 @Value("${simal.http-client.response-timeout:5s}") Duration responseTimeout,
+									 @Value("${simal.http-client.keep-alive:15s}") Duration keepAlive,
+									 @Value("${simal.http-client.max-connections:20}") int maxConnections) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+		connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+				.setConnectTimeout(Timeout.of(connectTimeout))
+				.setSocketTimeout(Timeout.of(responseTimeout))
+				.build());
+		TimeValue idle = TimeValue.of(keepAlive);
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.of(poolWaitTimeout))
+						.setResponseTimeout(Timeout.of(responseTimeout))
+						.build())
+				.setKeepAliveStrategy((response, context) -> idle)
+				.evictExpiredConnections()
+				.evictIdleConnections(idle)
+				.build()));
 	}
 
 }
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mock SimAL Integration Controller.
@@ -27,6 +28,9 @@ public class SimalController {
     private final DateTimeFormatter isoFormatter = DateTimeFormatter.ISO_DATE_TIME;
     private final ControlOrderIntegrationService controlOrderIntegrationService;
 
+    // Schedules live only as long as this instance, so their ids only need to be unique within it
+    private final AtomicLong scheduleSequence = new AtomicLong();
+
     public SimalController(ControlOrderIntegrationService controlOrderIntegrationService) {
         this.controlOrderIntegrationService = controlOrderIntegrationService;
     }
@@ -45,7 +49,7 @@ public class SimalController {
         System.out.println("Received production order: " + request.getOrderNumber());
 
         // Generate schedule ID
-        String scheduleId = "SCHED-" + System.currentTimeMillis();
+        String scheduleId = String.format("SCHED-%04d", scheduleSequence.incrementAndGet());
 
         // Generate scheduled tasks based on order items
         List<SimalScheduledOrderResponse.ScheduledTask> tasks = generateScheduledTasks(request, scheduleId);
@@ -150,6 +154,31 @@ public class SimalController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * Mock endpoint to set the status of a scheduled order, e.g. COMPLETED when production
+     * finishes or CANCELLED when the order it was made for withdraws it.
+     *
+     * @param scheduleId Schedule ID
+     * @param request    Body with the new "status"
+     * @return Updated scheduled order, 404 if not found or 400 without a status
+     */
+    @PostMapping("/scheduled-orders/{scheduleId}/status")
+    public ResponseEntity<SimalScheduledOrderResponse> updateScheduleStatus(
+            @PathVariable String scheduleId,
+            @RequestBody Map<String, Object> request) {
+        System.out.println("Updating status of schedule " + scheduleId + " to " + request.get("status"));
+
+        SimalScheduledOrderResponse order = scheduledOrders.get(scheduleId);
+        if (order == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.get("status") == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        order.setStatus(request.get("status").toString());
+        return ResponseEntity.ok(order);
+    }
+
     /**
      * Mock endpoint to retrieve scheduled orders for a specific customer order.
      *
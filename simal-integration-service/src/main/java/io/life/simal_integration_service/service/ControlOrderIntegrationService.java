@@ -121,6 +121,7 @@ public class ControlOrderIntegrationService {
         request.put("priority", determinePriority(schedule.getOrderNumber()));
         request.put("productionInstructions", buildProductionInstructions(tasks));
         request.put("qualityCheckpoints", buildQualityCheckpoints(tasks));
+        request.put("quantity", totalQuantity(tasks));
 
         String url = orderProcessingApiBaseUrl + "/production-control-orders";
         log.debug("Posting ProductionControlOrder to: {}", url);
@@ -160,6 +161,7 @@ public class ControlOrderIntegrationService {
         request.put("priority", determinePriority(schedule.getOrderNumber()));
         request.put("assemblyInstructions", buildAssemblyInstructions(tasks));
         request.put("qualityCheckpoints", buildQualityStandards(tasks));
+        request.put("quantity", totalQuantity(tasks));
 
         String url = orderProcessingApiBaseUrl + "/assembly-control-orders";
         log.debug("Posting AssemblyControlOrder to: {}", url);
@@ -242,6 +244,19 @@ public class ControlOrderIntegrationService {
         return lastTask.getEndTime();
     }
 
+    /**
+     * Total quantity over the tasks, or null when none of them carries one.
+     */
+    private Integer totalQuantity(List<SimalScheduledOrderResponse.ScheduledTask> tasks) {
+        Integer total = null;
+        for (SimalScheduledOrderResponse.ScheduledTask task : tasks) {
+            if (task.getQuantity() != null) {
+                total = (total == null ? 0 : total) + task.getQuantity();
+            }
+        }
+        return total;
+    }
+
     /**
      * Build production instructions from tasks.
      */